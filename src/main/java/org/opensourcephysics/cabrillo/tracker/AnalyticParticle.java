@@ -38,6 +38,9 @@ import org.opensourcephysics.tools.UserFunctionEditor;
 
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 /**
  * AnalyticParticle models a particle using time functions.
@@ -46,6 +49,8 @@ import java.awt.geom.Point2D;
  */
 public class AnalyticParticle extends ParticleModel {
 
+    private static final int minParallelCount = 4096; // fewer times than this are evaluated serially
+
     UserFunction[] functions;
 
     /**
@@ -88,6 +93,67 @@ public class AnalyticParticle extends ParticleModel {
         return new Point2D[]{point};
     }
 
+    /**
+     * Gets the positions at an array of times. The position functions depend
+     * only on time, so long arrays are evaluated in parallel blocks, each with
+     * its own copies of the functions since parsed functions are not thread safe.
+     * Support functions are shared by the copies, so positions are evaluated
+     * serially when any exist.
+     *
+     * @param times the times in seconds
+     * @return interleaved x and y world positions, or null if not available
+     */
+    @Override
+    protected double[] getTracePositions(double[] times) {
+        if (functions == null) return null;
+        int count = times.length;
+        double[] positions = new double[2 * count];
+        int threads = WorkerPool.getThreadCount();
+        if (count < minParallelCount || threads == 1
+                || getFunctionEditor().getSupportFunctions().length > 0) {
+            evaluate(functions, times, positions, 0, count);
+            return positions;
+        }
+        // evaluate contiguous blocks, several per thread to balance the load
+        int blockSize = Math.max(minParallelCount / 4, count / (4 * threads));
+        ArrayList<Future<?>> futures = new ArrayList<>();
+        for (int start = 0; start < count; start += blockSize) {
+            int first = start, last = Math.min(count, start + blockSize);
+            // copy the functions on this thread
+            UserFunction[] copies = new UserFunction[]{
+                    (UserFunction) functions[0].clone(), (UserFunction) functions[1].clone()};
+            futures.add(WorkerPool.getExecutor().submit(() -> evaluate(copies, times, positions, first, last)));
+        }
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException ex) {
+            ex.printStackTrace();
+            return null;
+        }
+        return positions;
+    }
+
+    /**
+     * Evaluates the position functions over a range of times.
+     *
+     * @param f         the x and y functions
+     * @param times     the times
+     * @param positions the interleaved x and y positions
+     * @param first     the first index
+     * @param last      the index after the last
+     */
+    private static void evaluate(UserFunction[] f, double[] times, double[] positions, int first, int last) {
+        for (int i = first; i < last; i++) {
+            positions[2 * i] = f[0].evaluate(times[i]);
+            positions[2 * i + 1] = f[1].evaluate(times[i]);
+        }
+    }
+
     /**
      * Resets model parameters and sets position(s) for start frame.
      */
@@ -113,8 +179,7 @@ public class AnalyticParticle extends ParticleModel {
                     getVArray(panel).setLength(0);
                     getAArray(panel).setLength(0);
                 }
-                traceX = new double[0];
-                traceY = new double[0];
+                tracePoints.clear();
                 support.firePropertyChange("steps", null, null); //$NON-NLS-1$
                 return;
             }
@@ -126,7 +191,7 @@ public class AnalyticParticle extends ParticleModel {
             // mark a step at firstFrameInClip
             steps.setLength(firstFrameInClip + 1);
             PositionStep step = (PositionStep) getStep(firstFrameInClip);
-            for (int i = 0; i < steps.length; i++) {
+            for (int i = 0; i < steps.getLength(); i++) {
                 if (i < firstFrameInClip)
                     steps.setStep(i, null);
                 else if (step == null) {
@@ -152,8 +217,7 @@ public class AnalyticParticle extends ParticleModel {
             double y = functions[1].evaluate(time);
             point.setLocation(x, y);
             transform.transform(point, point);
-            traceX = new double[]{point.getX()};
-            traceY = new double[]{point.getY()};
+            tracePoints.reset(point.getX(), point.getY());
             step.getPosition().setPosition(point); // this method is fast
             lastValidFrame = firstFrameInClip;
             support.firePropertyChange("step", null, firstFrameInClip); //$NON-NLS-1$
@@ -28,8 +28,13 @@ import javax.swing.JDialog;
 import javax.swing.undo.*;
 
 import java.awt.Point;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 
 import org.opensourcephysics.cabrillo.tracker.component.TActions;
 import org.opensourcephysics.cabrillo.tracker.component.TMenuBar;
@@ -54,6 +59,7 @@ public class Undo {
 
     // static fields
     public static Map<TrackerPanel, Undo> undomap = new HashMap<>();
+    private static long memoryBudget = 64L * 1024 * 1024; // bytes per TrackerPanel
 
     // instance fields
     protected UndoableEditSupport undoSupport;
@@ -65,6 +71,7 @@ public class Undo {
     private Undo() {
         // set up the undo system
         undoManager = new MyUndoManager();
+        undoManager.setMemoryBudget(memoryBudget);
         undoSupport = new UndoableEditSupport();
         undoSupport.addUndoableEditListener(undoManager);
         XML.setLoader(TrackProperties.class, TrackProperties.getLoader());
@@ -109,7 +116,7 @@ public class Undo {
                 String name = trackEdit.trackName;
                 TTrack track = panel.getTrack(name);
                 if (track != null) {
-                    trackEdit.redo = new XMLControlElement(track).toXML();
+                    trackEdit.setRedo(new XMLControlElement(track).toXML());
                 }
             }
         }
@@ -154,6 +161,39 @@ public class Undo {
         panel.repaint();
     }
 
+    /**
+     * Gets the approximate memory used by the undoable and redoable edits
+     * of the specified panel.
+     *
+     * @param panel the TrackerPanel
+     * @return the memory footprint in bytes
+     */
+    public static long getMemoryFootprint(TrackerPanel panel) {
+        return getUndo(panel).undoManager.getMemoryFootprint();
+    }
+
+    /**
+     * Gets the memory budget for the edits of each panel.
+     *
+     * @return the memory budget in bytes
+     */
+    public static long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    /**
+     * Sets the memory budget for the edits of each panel. When the budget is
+     * exceeded, the oldest edits are discarded as new edits are posted.
+     *
+     * @param bytes the memory budget in bytes
+     */
+    public static void setMemoryBudget(long bytes) {
+        memoryBudget = bytes;
+        for (Undo undo : undomap.values()) {
+            undo.undoManager.setMemoryBudget(bytes);
+        }
+    }
+
 //_____________________ private and protected methods ______________________
 
     /**
@@ -392,6 +432,132 @@ public class Undo {
         menubar.refresh();
     }
 
+    /**
+     * Gets the approximate memory used by an undoable edit.
+     *
+     * @param edit the edit
+     * @return the size in bytes, or 0 if unknown
+     */
+    static long getSize(UndoableEdit edit) {
+        return edit instanceof SizedEdit ? ((SizedEdit) edit).getSize() : 0;
+    }
+
+    /**
+     * An edit that reports the approximate memory it uses.
+     */
+    protected interface SizedEdit {
+
+        /**
+         * @return the size in bytes
+         */
+        long getSize();
+    }
+
+    /**
+     * A compressed XML snapshot. A snapshot may be stored as a delta from a base
+     * snapshot: only the text between the common prefix and suffix of the two
+     * XML strings is kept, so snapshots of a track before and after an edit that
+     * changes a few steps share nearly all of their data.
+     */
+    protected static class Snapshot {
+
+        private final byte[] data; // compressed UTF-8 of the full XML or the delta text
+        private final Snapshot base;
+        private final int prefix, suffix;
+
+        private Snapshot(byte[] data, Snapshot base, int prefix, int suffix) {
+            this.data = data;
+            this.base = base;
+            this.prefix = prefix;
+            this.suffix = suffix;
+        }
+
+        /**
+         * Creates a snapshot of an XML string.
+         *
+         * @param xml the XML
+         * @return the snapshot
+         */
+        static Snapshot of(String xml) {
+            return new Snapshot(compress(xml), null, 0, 0);
+        }
+
+        /**
+         * Creates a snapshot of an XML string as a delta from a base snapshot.
+         * Falls back to a full snapshot if the strings have little in common.
+         *
+         * @param xml     the XML
+         * @param base    the base snapshot (must not itself be a delta)
+         * @param baseXML the XML of the base snapshot
+         * @return the snapshot
+         */
+        static Snapshot of(String xml, Snapshot base, String baseXML) {
+            int max = Math.min(xml.length(), baseXML.length());
+            int prefix = 0;
+            while (prefix < max && xml.charAt(prefix) == baseXML.charAt(prefix)) prefix++;
+            int suffix = 0;
+            while (suffix < max - prefix
+                    && xml.charAt(xml.length() - 1 - suffix) == baseXML.charAt(baseXML.length() - 1 - suffix))
+                suffix++;
+            if (prefix + suffix < xml.length() / 2) return of(xml);
+            String delta = xml.substring(prefix, xml.length() - suffix);
+            return new Snapshot(compress(delta), base, prefix, suffix);
+        }
+
+        /**
+         * Gets the XML string.
+         *
+         * @return the XML
+         */
+        String getXML() {
+            String text = decompress(data);
+            if (base == null) return text;
+            String baseXML = base.getXML();
+            return baseXML.substring(0, prefix) + text + baseXML.substring(baseXML.length() - suffix);
+        }
+
+        /**
+         * Gets the memory used by this snapshot, not including its base.
+         *
+         * @return the size in bytes
+         */
+        long getSize() {
+            return data.length + 32;
+        }
+
+        private static byte[] compress(String text) {
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            deflater.setInput(text.getBytes(StandardCharsets.UTF_8));
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            deflater.end();
+            return out.toByteArray();
+        }
+
+        private static String decompress(byte[] data) {
+            Inflater inflater = new Inflater();
+            inflater.setInput(data);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            try {
+                while (!inflater.finished()) {
+                    int n = inflater.inflate(buffer);
+                    if (n == 0 && inflater.needsInput()) break;
+                    out.write(buffer, 0, n);
+                }
+            } catch (DataFormatException ex) {
+                ex.printStackTrace();
+            } finally {
+                inflater.end();
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
 //______________________ inner UndoableEdit classes ______________________
 
     /**
@@ -471,7 +637,7 @@ public class Undo {
 
         private TrackDisplayEdit(TTrack track, XMLControl control) {
             super(track.trackerPanel, new TrackProperties(track), control);
-            control = new XMLControlElement(undo);
+            control = new XMLControlElement(undo.getXML());
             TrackProperties props = (TrackProperties) control.loadObject(null);
             undoName = track.getName();
             redoName = props.name;
@@ -568,7 +734,7 @@ public class Undo {
     /**
      * A class to undo/redo image video edits.
      */
-    protected static class ImageVideoEdit extends AbstractUndoableEdit {
+    protected static class ImageVideoEdit extends AbstractUndoableEdit implements SizedEdit {
 
         String[] paths; // image path
         TrackerPanel panel;
@@ -637,6 +803,16 @@ public class Undo {
                     + TrackerRes.getString("Undo.Description.Images"); //$NON-NLS-1$
         }
 
+        public long getSize() {
+            long size = 32;
+            if (paths != null) {
+                for (String path : paths) {
+                    if (path != null) size += 40 + 2L * path.length();
+                }
+            }
+            return size;
+        }
+
     }
 
     /**
@@ -655,7 +831,7 @@ public class Undo {
                 ((ImageVideo) video).saveInvalidImages();
             }
             // refresh redo state
-            redo = new XMLControlElement(panel.getPlayer().getVideoClip()).toXML();
+            setRedo(new XMLControlElement(panel.getPlayer().getVideoClip()).toXML());
             super.undo();
         }
 
@@ -666,7 +842,7 @@ public class Undo {
                 ((ImageVideo) video).saveInvalidImages();
             }
             // refresh undo state
-            undo = new XMLControlElement(panel.getPlayer().getVideoClip()).toXML();
+            setUndo(new XMLControlElement(panel.getPlayer().getVideoClip()).toXML());
             super.redo();
         }
 
@@ -706,28 +882,54 @@ public class Undo {
      * A class to undo/redo changes to objects associated with a TrackerPanel.
      * The constructor takes the TrackerPanel, the object AFTER being changed,
      * and an XMLControl storing the state of the object BEFORE the changes.
+     * The redo state is stored as a delta from the compressed undo state.
      */
-    protected abstract static class TEdit extends AbstractUndoableEdit {
+    protected abstract static class TEdit extends AbstractUndoableEdit implements SizedEdit {
 
-        String undo; // xml string
-        String redo; // xml string
+        Snapshot undo; // compressed xml
+        Snapshot redo; // compressed xml delta from undo
         TrackerPanel panel;
 
         protected TEdit(TrackerPanel panel, Object obj, XMLControl control) {
             this.panel = panel;
-            undo = control.toXML();
+            String xml = control.toXML();
+            undo = Snapshot.of(xml);
             control = new XMLControlElement(obj);
-            redo = control.toXML();
+            redo = Snapshot.of(control.toXML(), undo, xml);
         }
 
         public void undo() throws CannotUndoException {
             super.undo();
-            load(undo);
+            load(undo.getXML());
         }
 
         public void redo() throws CannotUndoException {
             super.redo();
-            load(redo);
+            load(redo.getXML());
+        }
+
+        /**
+         * Replaces the undo state.
+         *
+         * @param xml the new undo xml
+         */
+        void setUndo(String xml) {
+            String redoXML = redo.getXML();
+            undo = Snapshot.of(xml);
+            redo = Snapshot.of(redoXML, undo, xml);
+        }
+
+        /**
+         * Replaces the redo state.
+         *
+         * @param xml the new redo xml
+         */
+        void setRedo(String xml) {
+            redo = Snapshot.of(xml, undo, undo.getXML());
+        }
+
+        public long getSize() {
+            return undo.getSize() + redo.getSize();
         }
 
         abstract void load(String xml);
@@ -736,7 +938,7 @@ public class Undo {
     /**
      * A class to undo/redo a pair of UndoableEdits.
      */
-    protected static class CompoundEdit extends AbstractUndoableEdit {
+    protected static class CompoundEdit extends AbstractUndoableEdit implements SizedEdit {
 
         UndoableEdit editA;
         UndoableEdit editB;
@@ -763,21 +965,25 @@ public class Undo {
             return editA.getPresentationName();
         }
 
+        public long getSize() {
+            return Undo.getSize(editA) + Undo.getSize(editB);
+        }
+
     }
 
     /**
      * A class to undo/redo track deletion.
      */
-    protected static class TrackDelete extends AbstractUndoableEdit {
+    protected static class TrackDelete extends AbstractUndoableEdit implements SizedEdit {
 
-        String xml;
+        Snapshot xml;
         int trackID;
         TrackerPanel panel;
         String trackType;
 
         private TrackDelete(TrackerPanel panel, TTrack track) {
             XMLControl control = new XMLControlElement(track);
-            xml = control.toXML();
+            xml = Snapshot.of(control.toXML());
             this.panel = panel;
             String s = track.getClass().getSimpleName();
             trackType = TrackerRes.getString(s + ".Name"); //$NON-NLS-1$
@@ -788,7 +994,7 @@ public class Undo {
 
         public void undo() throws CannotUndoException {
             super.undo();
-            XMLControl control = new XMLControlElement(xml);
+            XMLControl control = new XMLControlElement(xml.getXML());
             TTrack track = (TTrack) control.loadObject(null);
             panel.addTrack(track);
             trackID = track.getID();
@@ -806,25 +1012,31 @@ public class Undo {
                     + trackType;
         }
 
+        public long getSize() {
+            return xml.getSize();
+        }
+
     }
 
     /**
      * A class to undo/redo clearing tracks.
      */
-    protected static class TrackClear extends AbstractUndoableEdit {
+    protected static class TrackClear extends AbstractUndoableEdit implements SizedEdit {
 
-        List<String> xml;
+        List<Snapshot> xml = new ArrayList<>();
         TrackerPanel panel;
 
         private TrackClear(TrackerPanel trackerPanel, List<String> xml) {
-            this.xml = xml;
+            for (String next : xml) {
+                this.xml.add(Snapshot.of(next));
+            }
             panel = trackerPanel;
         }
 
         public void undo() throws CannotUndoException {
             super.undo();
-            for (String s : xml) {
-                XMLControl control = new XMLControlElement(s);
+            for (Snapshot s : xml) {
+                XMLControl control = new XMLControlElement(s.getXML());
                 TTrack track = (TTrack) control.loadObject(null);
                 panel.addTrack(track);
             }
@@ -841,21 +1053,29 @@ public class Undo {
                     + TrackerRes.getString("Undo.Description.Tracks"); //$NON-NLS-1$
         }
 
+        public long getSize() {
+            long size = 0;
+            for (Snapshot s : xml) {
+                size += s.getSize();
+            }
+            return size;
+        }
+
     }
 
     /**
      * A class to undo/redo filter deletion.
      */
-    protected static class FilterDelete extends AbstractUndoableEdit {
+    protected static class FilterDelete extends AbstractUndoableEdit implements SizedEdit {
 
-        String xml;
+        Snapshot xml;
         TrackerPanel panel;
         int i;
         Filter filter;
         String filterName;
 
         private FilterDelete(TrackerPanel trackerPanel, Filter filter) {
-            xml = new XMLControlElement(filter).toXML();
+            xml = Snapshot.of(new XMLControlElement(filter).toXML());
             panel = trackerPanel;
             i = panel.getVideo().getFilterStack().lastIndexRemoved();
             filterName = filter.getClass().getSimpleName();
@@ -870,7 +1090,7 @@ public class Undo {
             super.undo();
             Video video = panel.getVideo();
             if (video != null) {
-                XMLControl control = new XMLControlElement(xml);
+                XMLControl control = new XMLControlElement(xml.getXML());
                 filter = (Filter) control.loadObject(null);
                 filter.setVideoPanel(panel);
                 video.getFilterStack().insertFilter(filter, i);
@@ -904,18 +1124,24 @@ public class Undo {
                     + TrackerRes.getString("Undo.Description.Filter"); //$NON-NLS-1$
         }
 
+        public long getSize() {
+            return xml.getSize();
+        }
+
     }
 
     /**
      * A class to undo/redo filter clearing.
      */
-    protected static class FilterClear extends AbstractUndoableEdit {
+    protected static class FilterClear extends AbstractUndoableEdit implements SizedEdit {
 
-        List<String> xml;
+        List<Snapshot> xml = new ArrayList<>();
         TrackerPanel panel;
 
         private FilterClear(TrackerPanel trackerPanel, List<String> xml) {
-            this.xml = xml;
+            for (String next : xml) {
+                this.xml.add(Snapshot.of(next));
+            }
             panel = trackerPanel;
         }
 
@@ -923,8 +1149,8 @@ public class Undo {
             super.undo();
             Video video = panel.getVideo();
             if (video != null) {
-                for (String next : xml) {
-                    XMLControl control = new XMLControlElement(next);
+                for (Snapshot next : xml) {
+                    XMLControl control = new XMLControlElement(next.getXML());
                     Filter filter = (Filter) control.loadObject(null);
                     filter.setVideoPanel(panel);
                     video.getFilterStack().addFilter(filter);
@@ -961,6 +1187,14 @@ public class Undo {
                     + TrackerRes.getString("TMenuBar.MenuItem.VideoFilters"); //$NON-NLS-1$
         }
 
+        public long getSize() {
+            long size = 0;
+            for (Snapshot s : xml) {
+                size += s.getSize();
+            }
+            return size;
+        }
+
     }
 
     /**
@@ -1010,9 +1244,13 @@ public class Undo {
 }
 
 /**
- * An UndoManager that exposes it's edits.
+ * An UndoManager that exposes it's edits and discards the oldest edits
+ * when their memory footprint exceeds a budget.
  */
 class MyUndoManager extends UndoManager {
+
+    private long memoryBudget = Long.MAX_VALUE;
+
     public UndoableEdit getUndoEdit() {
         return this.editToBeUndone();
     }
@@ -1021,5 +1259,26 @@ class MyUndoManager extends UndoManager {
         return this.editToBeRedone();
     }
 
+    public synchronized boolean addEdit(UndoableEdit anEdit) {
+        boolean added = super.addEdit(anEdit);
+        // all edits are undoable after an add, so the oldest can be trimmed
+        while (edits.size() > 1 && getMemoryFootprint() > memoryBudget) {
+            trimEdits(0, 0);
+        }
+        return added;
+    }
+
+    public synchronized long getMemoryFootprint() {
+        long size = 0;
+        for (UndoableEdit edit : edits) {
+            size += Undo.getSize(edit);
+        }
+        return size;
+    }
+
+    public synchronized void setMemoryBudget(long bytes) {
+        memoryBudget = bytes;
+    }
+
 }
 
@@ -0,0 +1,66 @@
+/*
+ * The tracker package defines a set of video/image analysis tools built on the
+ * Open Source Physics framework by Wolfgang Christian.
+ *
+ * Copyright (c) 2018  Douglas Brown
+ *
+ * Tracker is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Tracker is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Tracker; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place, Suite 330, Boston MA 02111-1307 USA or view the license online at
+ * <http://www.gnu.org/copyleft/gpl.html>
+ *
+ * For additional Tracker information and documentation, please see
+ * <http://physlets.org/tracker/>.
+ */
+package org.opensourcephysics.cabrillo.tracker;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The pool of daemon worker threads shared by tracks and tools that spread
+ * independent per-step or per-frame computations over the processors.
+ * Tasks run on the pool must not wait for other tasks on the pool.
+ */
+public class WorkerPool {
+
+    private static final int maxThreads = 8;
+    private static ExecutorService executor;
+
+    private WorkerPool() {
+    }
+
+    /**
+     * Gets the number of worker threads.
+     *
+     * @return the thread count
+     */
+    public static int getThreadCount() {
+        return Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), maxThreads));
+    }
+
+    /**
+     * Gets the shared worker pool.
+     *
+     * @return the executor
+     */
+    public static synchronized ExecutorService getExecutor() {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(getThreadCount(), runnable -> {
+                Thread thread = new Thread(runnable, "Tracker worker"); //$NON-NLS-1$
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return executor;
+    }
+}
@@ -144,6 +144,7 @@ public class AutoTracker implements Trackable, PropertyChangeListener {
     private final AutoTrackerControl control = new TrackerPanelControl();
     private final AutoTrackerFeedback feedback = new TrackerPanelFeedback();
     public AutoTrackerCore core = new AutoTrackerCore(control, feedback);
+    private AutoTrackerBatch batch; // non-null while searching in background
 
     private final AutoTrackerOptions options;
 
@@ -286,6 +287,35 @@ public class AutoTracker implements Trackable, PropertyChangeListener {
         repaint();
     }
 
+    /**
+     * Searches from the current step to the end of the video clip on a
+     * background thread without stepping the video, then marks all matches.
+     */
+    protected void searchInBackground() {
+        TTrack track = getTrack();
+        if (batch != null || track == null || trackerPanel.getVideo() == null) return;
+        VideoClip clip = trackerPanel.getPlayer().getVideoClip();
+        int start = trackerPanel.getPlayer().getStepNumber();
+        int end = clip.getStepCount() - 1;
+        if (start >= end) return;
+        AutoTrackerBatch next = new AutoTrackerBatch(trackerPanel);
+        batch = next;
+        wizard.refreshGUI();
+        new SwingWorker<Integer, Void>() {
+            @Override
+            protected Integer doInBackground() {
+                return next.run(start, end);
+            }
+
+            @Override
+            protected void done() {
+                batch = null;
+                if (wizard.isVisible()) wizard.refreshGUI();
+                repaint();
+            }
+        }.execute();
+    }
+
     /**
      * Stops the search process.
      *
@@ -293,6 +323,7 @@ public class AutoTracker implements Trackable, PropertyChangeListener {
      * @param update true to update derivatives
      */
     protected void stop(boolean now, boolean update) {
+        if (now && batch != null) batch.cancel();
         stepping = false; // don't keep stepping
         active = !now && !paused;
         paused = false;
@@ -324,6 +355,37 @@ public class AutoTracker implements Trackable, PropertyChangeListener {
         return true;
     }
 
+    /**
+     * Called when positions of several point indices have been found in the same
+     * frame. All points are marked with "step" events suspended, then committed
+     * with a single "step" event for the frame.
+     *
+     * @param n      Frame number
+     * @param points Marked points by point index (null values are ignored)
+     */
+    public boolean onMarked(int n, Map<Integer, TPoint> points) {
+        TTrack track = getTrack();
+        if (track == null) return false;
+        int targetIndex = track.getTargetIndex();
+        track.setStepEventsSuspended(true);
+        try {
+            for (Map.Entry<Integer, TPoint> entry : points.entrySet()) {
+                TPoint p = entry.getValue();
+                if (p == null) continue;
+                track.setTargetIndex(entry.getKey());
+                track.autoTrackerMarking = track.isAutoAdvance();
+                p = track.autoMarkAt(n, p.x, p.y);
+                core.getFrame(entry.getKey(), n).setAutoMarkPoint(p);
+            }
+        } finally {
+            track.autoTrackerMarking = false;
+            track.setTargetIndex(targetIndex);
+            track.setStepEventsSuspended(false);
+        }
+        track.firePropertyChange("step", null, n); //$NON-NLS-1$
+        return true;
+    }
+
     /**
      * Called when a frame has been skipped
      */
@@ -358,6 +420,9 @@ public class AutoTracker implements Trackable, PropertyChangeListener {
         if (!prepareMarking()) {
             return false;
         }
+        if (options.isMultiPoint()) {
+            return markCurrentFramePoints();
+        }
         FrameData frame = getFrame(n);
         KeyFrame keyFrame = frame.getKeyFrame();
         if (keyFrame != null && !isStepComplete(n)) {
@@ -380,12 +445,38 @@ public class AutoTracker implements Trackable, PropertyChangeListener {
                     autoskipsRemained--;
                     return onSkipped();
                 }
-                frame.setMatchIcon(null);
+                frame.clearMatchIcon();
             }
         }
         return false;
     }
 
+    /**
+     * Searches the current frame for all point indices of the track concurrently
+     * and marks every good match in a single batch.
+     *
+     * @return true if every searched point was marked
+     */
+    private boolean markCurrentFramePoints() {
+        int n = control.getFrameNumber();
+        TTrack track = getTrack();
+        if (track == null || isStepComplete(n)) return false;
+        Map<Integer, TPoint> targets = core.findMatchTargets();
+        if (targets.isEmpty()) return false;
+        boolean marked = !targets.containsValue(null);
+        onMarked(n, targets);
+        if (marked) {
+            marking = true;
+            autoskipsRemained = options.getAutoskipCount();
+            return true;
+        }
+        if (autoskipsRemained > 0) {
+            autoskipsRemained--;
+            return onSkipped();
+        }
+        return false;
+    }
+
     /**
      * Finds the match target, if any. Also saves search center and corner.
      *
@@ -656,14 +747,13 @@ public class AutoTracker implements Trackable, PropertyChangeListener {
         } else if (name.equals("track") && e.getOldValue() != null) { //$NON-NLS-1$
             // track has been deleted
             TTrack deletedTrack = (TTrack) e.getOldValue();
-            // TODO: move the trackFrameData operations to core
-            core.trackFrameData.remove(deletedTrack);
+            core.removeFrameData(deletedTrack);
             if (deletedTrack == track) {
                 setTrack(null);
             }
         } else if (name.equals("clear")) { //$NON-NLS-1$
             // tracks have been cleared
-            core.trackFrameData.clear();
+            core.clearFrameData();
             setTrack(null);
         }
 
@@ -687,7 +777,7 @@ public class AutoTracker implements Trackable, PropertyChangeListener {
                 if (track.getStep(n) == null) { // step was deleted
                     frame.clear();
                 } else if (!frame.isKeyFrame()) { // step was marked or moved
-                    frame.setMatchIcon(null);
+                    frame.clearMatchIcon();
                     paused = false;
                 }
             }
@@ -827,7 +917,7 @@ public class AutoTracker implements Trackable, PropertyChangeListener {
         trackerPanel.removePropertyChangeListener("video", this); //$NON-NLS-1$
         trackerPanel.removePropertyChangeListener("stepnumber", this); //$NON-NLS-1$
         setTrack(null);
-        core.trackFrameData.clear();
+        core.clearFrameData();
         wizard.dispose();
         trackerPanel.autoTracker = null;
         trackerPanel = null;
@@ -1031,7 +1121,7 @@ public class AutoTracker implements Trackable, PropertyChangeListener {
         ArrayList<Integer> toRemove = new ArrayList<>();
         for (int i : frameData.keySet()) {
             FrameData frame = frameData.get(i);
-            frame.clear();
+            frame.release();
             if (keyFrame == null && frame.isKeyFrame())
                 keyFrame = (KeyFrame) frame;
             toRemove.add(i);
@@ -1271,7 +1361,7 @@ public class AutoTracker implements Trackable, PropertyChangeListener {
         private JLabel frameLabel, evolveRateLabel, searchLabel, targetLabel;
         private JLabel pointLabel, trackLabel;
         public Dimension textPaneSize;
-        private JCheckBox lookAheadCheckbox, oneDCheckbox, rectShapeCheckbox;
+        private JCheckBox lookAheadCheckbox, oneDCheckbox, rectShapeCheckbox, multiPointCheckbox;
         private Object mouseOverObj;
         private Timer timer;
         private boolean ignoreChanges, isPrevValid, prevLookAhead, prevOneD;
@@ -1558,6 +1648,13 @@ public class AutoTracker implements Trackable, PropertyChangeListener {
                             }
                         });
                         popup.add(item);
+                        item = new JMenuItem(TrackerRes.getString("AutoTracker.Wizard.Menuitem.SearchInBackground"));  //$NON-NLS-1$
+                        item.setToolTipText(TrackerRes.getString("AutoTracker.Wizard.MenuItem.SearchInBackground.Tooltip")); //$NON-NLS-1$
+                        item.addActionListener(e1 -> {
+                            hidePopup = false;
+                            searchInBackground();
+                        });
+                        popup.add(item);
                         popup.addSeparator();
                         item = new JMenuItem(TrackerRes.getString("AutoTracker.Wizard.Menuitem.CopyMatchScores"));  //$NON-NLS-1$
                         item.setToolTipText(TrackerRes.getString("AutoTracker.Wizard.MenuItem.CopyMatchScores.Tooltip")); //$NON-NLS-1$
@@ -1809,11 +1906,21 @@ public class AutoTracker implements Trackable, PropertyChangeListener {
                 options.setLookAhead(lookAheadCheckbox.isSelected());
                 setChanged();
             });
+            multiPointCheckbox = new JCheckBox();
+            multiPointCheckbox.addMouseListener(mouseOverListener);
+            multiPointCheckbox.setOpaque(false);
+            multiPointCheckbox.setSelected(options.isMultiPoint());
+            multiPointCheckbox.addActionListener(e -> {
+                options.setMultiPoint(multiPointCheckbox.isSelected());
+                setChanged();
+            });
+            options.changes.addPropertyChangeListener("multiPoint", propertyChangeEvent -> multiPointCheckbox.setSelected(options.isMultiPoint()));
             flowpanel = new JPanel();
             flowpanel.setBorder(BorderFactory.createEmptyBorder(1, 0, 0, 0));
             flowpanel.setOpaque(false);
             flowpanel.add(oneDCheckbox);
             flowpanel.add(lookAheadCheckbox);
+            flowpanel.add(multiPointCheckbox);
             searchToolbar.add(searchLabel);
             searchToolbar.add(flowpanel);
 
@@ -1913,7 +2020,7 @@ public class AutoTracker implements Trackable, PropertyChangeListener {
                 FrameData frame13 = getFrame(n);
                 frame13.decided = true;
                 // eliminate match icon?
-                //frame.setMatchIcon(null);
+                //frame.clearMatchIcon();
                 // step to the next frame if possible
                 if (control.canStep()) {
                     paused = false;
@@ -2131,6 +2238,9 @@ public class AutoTracker implements Trackable, PropertyChangeListener {
                 deleteButton.setText(TrackerRes.getString("AutoTracker.Wizard.Button.Delete")); //$NON-NLS-1$
                 oneDCheckbox.setText(TrackerRes.getString("AutoTracker.Wizard.Checkbox.XAxis")); //$NON-NLS-1$
                 lookAheadCheckbox.setText(TrackerRes.getString("AutoTracker.Wizard.Checkbox.LookAhead")); //$NON-NLS-1$
+                multiPointCheckbox.setText(TrackerRes.getString("AutoTracker.Wizard.Checkbox.MultiPoint")); //$NON-NLS-1$
+                multiPointCheckbox.setToolTipText(TrackerRes.getString("AutoTracker.Wizard.Checkbox.MultiPoint.Tooltip")); //$NON-NLS-1$
+                multiPointCheckbox.setEnabled(getTrack() != null && getTrack().getStepLength() > 1);
                 matchImageLabel.setText(frame.getMatchIcon() == null ? null :
                         TrackerRes.getString("AutoTracker.Label.Match")); //$NON-NLS-1$
                 templateImageLabel.setText(keyFrame == null ? null :
@@ -2187,7 +2297,7 @@ public class AutoTracker implements Trackable, PropertyChangeListener {
                 // enable the search buttons
                 int code = core.getStatusCode(n);
                 KeyFrame keyFrame = frame.getKeyFrame();
-                boolean initialized = keyFrame != null && track != null;
+                boolean initialized = keyFrame != null && track != null && batch == null;
                 boolean notStepping = paused || !stepping;
                 boolean stable = frame.searched && !frame.newTemplateExists();
                 boolean canSearchThis = !stable || code == 5 || (changed && code != 0) || (frame == keyFrame && frame.getMarkedPoint() == null);
@@ -2375,8 +2485,8 @@ public class AutoTracker implements Trackable, PropertyChangeListener {
                 if (matcher != null) {
                     // initialize keyFrame and matcher
                     keyFrame.setTemplate(matcher); // also sets template icon
+                    keyFrame.setMatchImage(keyFrame.getTemplate());
                     Icon icon = keyFrame.getTemplateIcon();
-                    keyFrame.setMatchIcon(icon);
                     matchImageLabel.setIcon(icon);
                     templateImageLabel.setIcon(icon);
                     pack();
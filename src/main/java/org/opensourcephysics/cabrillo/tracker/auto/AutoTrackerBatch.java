@@ -0,0 +1,404 @@
+/*
+ * The tracker package defines a set of video/image analysis tools built on the
+ * Open Source Physics framework by Wolfgang Christian.
+ *
+ * Copyright (c) 2018  Douglas Brown
+ *
+ * Tracker is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Tracker is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Tracker; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place, Suite 330, Boston MA 02111-1307 USA or view the license online at
+ * <http://www.gnu.org/copyleft/gpl.html>
+ *
+ * For additional Tracker information and documentation, please see
+ * <http://physlets.org/tracker/>.
+ */
+package org.opensourcephysics.cabrillo.tracker.auto;
+
+import org.opensourcephysics.cabrillo.tracker.auto.AutoTrackerCore.FrameData;
+import org.opensourcephysics.cabrillo.tracker.component.TTrack;
+import org.opensourcephysics.cabrillo.tracker.point.PointMass;
+import org.opensourcephysics.cabrillo.tracker.tracker.TrackerIO;
+import org.opensourcephysics.cabrillo.tracker.tracker.TrackerPanel;
+import org.opensourcephysics.media.core.ImageCoordSystem;
+import org.opensourcephysics.media.core.TPoint;
+import org.opensourcephysics.media.core.Video;
+import org.opensourcephysics.media.core.VideoClip;
+
+import javax.swing.*;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.lang.reflect.InvocationTargetException;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Runs the autotracker over a range of video steps without stepping the
+ * video player or repainting the tracker panel. A decoder thread reads
+ * frames from a private copy of the video ahead of the template matcher, and
+ * the accepted matches are marked on the track in a single batch that fires
+ * one "steps" event.
+ * <p>
+ * The batch works on its own copy of the key frames and templates of the
+ * AutoTrackerCore it is created from, so key frames must be defined before it
+ * is created. The results are merged back into that core when marked.
+ */
+public class AutoTrackerBatch {
+
+    private static final int defaultPrefetchCount = 4;
+
+    private final AutoTrackerCore source;
+    private final AutoTrackerCore core;
+    private final BatchControl control = new BatchControl();
+    private final Video video;
+    private final VideoClip clip;
+    private final ImageCoordSystem coords;
+    private int prefetchCount = defaultPrefetchCount;
+    private volatile boolean cancelled;
+
+    /**
+     * Constructs an AutoTrackerBatch for the autotracker of a TrackerPanel.
+     * Must be called on the event dispatch thread.
+     *
+     * @param trackerPanel the TrackerPanel
+     */
+    public AutoTrackerBatch(TrackerPanel trackerPanel) {
+        this(trackerPanel.getAutoTracker().core, trackerPanel.getVideo(),
+                trackerPanel.getPlayer().getVideoClip(), trackerPanel.getCoords());
+    }
+
+    /**
+     * Constructs an AutoTrackerBatch. Must be called on the event dispatch thread.
+     *
+     * @param source the core that defines the track, key frames and options
+     * @param video  the video whose frames are searched; a copy is read
+     * @param clip   the video clip that maps steps to frames
+     * @param coords the image coordinate system
+     */
+    public AutoTrackerBatch(AutoTrackerCore source, Video video, VideoClip clip, ImageCoordSystem coords) {
+        this.source = source;
+        this.video = video;
+        this.clip = clip;
+        this.coords = coords;
+        core = new AutoTrackerCore(control, new AutoTrackerFeedback());
+        core.options = source.options;
+        core.copyFrameData(source);
+    }
+
+    /**
+     * Sets the number of frames decoded ahead of the template matcher.
+     *
+     * @param count the prefetch count
+     */
+    public void setPrefetchCount(int count) {
+        prefetchCount = Math.max(1, count);
+    }
+
+    /**
+     * Gets the number of frames decoded ahead of the template matcher.
+     *
+     * @return the prefetch count
+     */
+    public int getPrefetchCount() {
+        return prefetchCount;
+    }
+
+    /**
+     * Cancels a running batch. Matches found so far are still marked.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Searches a range of steps and marks the accepted matches. The search stops
+     * early when no good match is found in more consecutive frames than the
+     * autoskip count allows. This blocks until the batch is complete, so it
+     * should not be called on the event dispatch thread.
+     *
+     * @param startStep the first step number to search
+     * @param endStep   the last step number to search
+     * @return the number of frames marked
+     */
+    public int run(int startStep, int endStep) {
+        TTrack track = core.getTrack();
+        if (track == null) return 0;
+        Video reader = TrackerIO.getVideoCopy(video);
+        if (reader == null) return 0;
+        cancelled = false;
+        int direction = endStep >= startStep ? 1 : -1;
+        int[] frames = new int[Math.abs(endStep - startStep) + 1];
+        for (int i = 0; i < frames.length; i++) {
+            frames[i] = clip.stepToFrame(startStep + i * direction);
+        }
+        Collection<Integer> indices = core.options.isMultiPoint() ?
+                new ArrayList<>(core.getIndexFrameData().keySet()) :
+                Collections.singletonList(track.getTargetIndex());
+
+        // decode frames on a separate thread
+        BlockingQueue<DecodedFrame> queue = new ArrayBlockingQueue<>(prefetchCount);
+        Thread decoder = new Thread(() -> decode(reader, frames, queue), "AutoTracker decoder"); //$NON-NLS-1$
+        decoder.setDaemon(true);
+        decoder.start();
+
+        // match frames as they become available
+        ArrayList<Match> matches = new ArrayList<>();
+        Map<Integer, TPoint> prevCenters = new HashMap<>();
+        TreeSet<Integer> markedFrames = new TreeSet<>();
+        int skipsRemaining = core.options.getAutoskipCount();
+        try {
+            for (int i = 0; i < frames.length && !cancelled; i++) {
+                DecodedFrame decoded = queue.take();
+                if (decoded.image == null) break; // decoder stopped
+                control.frameNumber = decoded.frameNumber;
+                control.image = decoded.image;
+                Map<Integer, TPoint> targets = core.findMatchTargets(indices);
+                if (targets.isEmpty()) continue; // nothing to search in this frame
+                boolean found = true;
+                for (Map.Entry<Integer, TPoint> entry : targets.entrySet()) {
+                    TPoint p = entry.getValue();
+                    if (p == null) {
+                        found = false;
+                        continue;
+                    }
+                    matches.add(new Match(entry.getKey(), decoded.frameNumber, p));
+                    markedFrames.add(decoded.frameNumber);
+                    if (i < frames.length - 1) {
+                        moveSearchPoints(entry.getKey(), decoded.frameNumber, frames[i + 1], prevCenters);
+                    }
+                }
+                if (found) {
+                    skipsRemaining = core.options.getAutoskipCount();
+                } else if (skipsRemaining-- <= 0) {
+                    break;
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            cancelled = true;
+            decoder.interrupt();
+            try {
+                decoder.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            control.image = null;
+            reader.dispose();
+        }
+
+        // mark the matches on the event dispatch thread
+        Runnable runner = () -> mark(track, matches);
+        if (SwingUtilities.isEventDispatchThread()) {
+            runner.run();
+        } else {
+            try {
+                SwingUtilities.invokeAndWait(runner);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (InvocationTargetException ex) {
+                ex.printStackTrace();
+            }
+        }
+        return markedFrames.size();
+    }
+
+    /**
+     * Decodes frames into a queue, followed by an end marker.
+     *
+     * @param reader the video to decode
+     * @param frames the frame numbers to decode
+     * @param queue  the queue
+     */
+    private void decode(Video reader, int[] frames, BlockingQueue<DecodedFrame> queue) {
+        try {
+            for (int i = 0; i < frames.length && !cancelled; i++) {
+                reader.setFrameNumber(frames[i]);
+                BufferedImage source = reader.getImage();
+                if (source == null) break;
+                // copy since videos may reuse their image buffers
+                BufferedImage image = new BufferedImage(
+                        source.getWidth(), source.getHeight(), BufferedImage.TYPE_INT_RGB);
+                Graphics2D g = image.createGraphics();
+                g.drawImage(source, 0, 0, null);
+                g.dispose();
+                queue.put(new DecodedFrame(frames[i], image));
+            }
+            queue.put(new DecodedFrame(-1, null));
+        } catch (InterruptedException ex) {
+            // cancelled
+        }
+    }
+
+    /**
+     * Centers the search area of the next frame on a match, moved ahead by the
+     * most recent displacement if looking ahead.
+     *
+     * @param index       the point index
+     * @param frameNumber the matched frame number
+     * @param nextFrame   the next frame number to search
+     * @param prevCenters the previous match centers by point index
+     */
+    private void moveSearchPoints(int index, int frameNumber, int nextFrame, Map<Integer, TPoint> prevCenters) {
+        FrameData frame = core.getFrame(index, frameNumber);
+        TPoint[] matchPts = frame.getMatchPoints();
+        TPoint[] searchPts = frame.getSearchPoints(true);
+        FrameData next = core.getFrame(index, nextFrame);
+        if (matchPts == null || searchPts == null || next.isKeyFrame()) return;
+        TPoint center = matchPts[0];
+        double dx = 0, dy = 0;
+        TPoint prev = prevCenters.put(index, center);
+        if (prev != null && core.options.isLookAhead()) {
+            dx = center.x - prev.x;
+            dy = center.y - prev.y;
+        }
+        next.setSearchPoints(new TPoint[]{
+                new TPoint(center.x + dx, center.y + dy),
+                new TPoint(center.x + dx + searchPts[1].x - searchPts[0].x,
+                        center.y + dy + searchPts[1].y - searchPts[0].y)});
+    }
+
+    /**
+     * Marks matches on a track with "step" events suspended, merges the
+     * results into the source core, then fires a single "steps" event.
+     *
+     * @param track   the track
+     * @param matches the matches
+     */
+    private void mark(TTrack track, ArrayList<Match> matches) {
+        if (matches.isEmpty()) {
+            source.mergeFrameData(core);
+            return;
+        }
+        int targetIndex = track.getTargetIndex();
+        boolean suppress = track.skippedStepWarningSuppress;
+        track.skippedStepWarningSuppress = true;
+        track.setStepEventsSuspended(true);
+        try {
+            for (Match match : matches) {
+                track.setTargetIndex(match.index);
+                track.autoTrackerMarking = true;
+                TPoint p = track.autoMarkAt(match.frameNumber, match.target.x, match.target.y);
+                if (p != null) {
+                    FrameData frame = core.getFrame(match.index, match.frameNumber);
+                    frame.setAutoMarkPoint(p);
+                    frame.decided = true;
+                }
+            }
+        } finally {
+            track.autoTrackerMarking = false;
+            track.setTargetIndex(targetIndex);
+            track.setStepEventsSuspended(false);
+            track.skippedStepWarningSuppress = suppress;
+        }
+        source.mergeFrameData(core);
+        if (track instanceof PointMass) {
+            PointMass pointMass = (PointMass) track;
+            pointMass.updateDerivatives();
+        }
+        track.firePropertyChange("steps", null, null); //$NON-NLS-1$
+    }
+
+    /**
+     * A decoded video frame.
+     */
+    private static class DecodedFrame {
+
+        private final int frameNumber;
+        private final BufferedImage image;
+
+        DecodedFrame(int frameNumber, BufferedImage image) {
+            this.frameNumber = frameNumber;
+            this.image = image;
+        }
+    }
+
+    /**
+     * An accepted match target for a point index in a frame.
+     */
+    private static class Match {
+
+        private final int index;
+        private final int frameNumber;
+        private final TPoint target;
+
+        Match(int index, int frameNumber, TPoint target) {
+            this.index = index;
+            this.frameNumber = frameNumber;
+            this.target = target;
+        }
+    }
+
+    /**
+     * A control that serves decoded frames to the core instead of the video player.
+     */
+    private class BatchControl implements AutoTrackerControl {
+
+        private int frameNumber;
+        private BufferedImage image;
+
+        @Override
+        public void step() {
+            // frames are supplied by the decoder
+        }
+
+        @Override
+        public int getFrameNumber() {
+            return frameNumber;
+        }
+
+        @Override
+        public int getFrameNumber(TPoint p) {
+            return frameNumber;
+        }
+
+        @Override
+        public BufferedImage getImage() {
+            return image;
+        }
+
+        @Override
+        public boolean canStep() {
+            return false;
+        }
+
+        @Override
+        public boolean isReverse() {
+            return clip.reverse;
+        }
+
+        @Override
+        public int stepToFrame(int stepNumber) {
+            return clip.stepToFrame(stepNumber);
+        }
+
+        @Override
+        public int frameToStep(int frameNumber) {
+            return clip.frameToStep(frameNumber);
+        }
+
+        @Override
+        public int getFrameCount() {
+            return clip.getFrameCount();
+        }
+
+        @Override
+        public ImageCoordSystem getCoords() {
+            return coords;
+        }
+
+        @Override
+        public boolean isVideoValid() {
+            return image != null;
+        }
+    }
+}
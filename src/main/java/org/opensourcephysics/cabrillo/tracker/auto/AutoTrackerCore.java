@@ -1,5 +1,6 @@
 package org.opensourcephysics.cabrillo.tracker.auto;
 
+import org.opensourcephysics.cabrillo.tracker.WorkerPool;
 import org.opensourcephysics.cabrillo.tracker.calibration.Calibration;
 import org.opensourcephysics.cabrillo.tracker.component.TTrack;
 import org.opensourcephysics.cabrillo.tracker.coord.CoordAxes;
@@ -14,12 +15,18 @@ import org.opensourcephysics.media.core.TemplateMatcher;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class AutoTrackerCore {
 
     private static final int templateIconMagnification = 2;
+    private static final int maxIconFrames = 4;
 
     public AutoTrackerOptions options;
     private final AutoTrackerControl control;
@@ -30,6 +37,15 @@ public class AutoTrackerCore {
     to frameData which maps frame number to individual FrameData objects */
     public Map<TTrack, Map<Integer, Map<Integer, FrameData>>> trackFrameData
             = new HashMap<>();
+    // icons are built on demand for the few most recently displayed frames
+    private final Map<FrameData, Icon[]> frameIcons = Collections.synchronizedMap(
+            new LinkedHashMap<FrameData, Icon[]>(8, 0.75f, true) {
+                protected boolean removeEldestEntry(Map.Entry<FrameData, Icon[]> eldest) {
+                    return size() > maxIconFrames;
+                }
+            });
+    // templates, working pixels and match images of all frames
+    private final PackedImage.Store packedImages = new PackedImage.Store();
 
     public AutoTrackerCore(AutoTrackerControl c, AutoTrackerFeedback f) {
         control = c;
@@ -141,14 +157,24 @@ public class AutoTrackerCore {
         TPoint[] matchPts = frame.getMatchPoints();
         if (matchPts == null) return; // can't build template without a match
 //  	System.out.println("building evolved for "+frame.getFrameNumber());
-        TemplateMatcher matcher = getTemplateMatcher();
-        matcher.setTemplate(frame.getTemplate());
-        matcher.setWorkingPixels(frame.getWorkingPixels());
+        buildEvolvedTemplate(frame, getTemplateMatcher(), control.getImage());
+    }
+
+    /**
+     * Builds an evolved template based on data in the specified FrameData
+     * and a source image, using a specified template matcher.
+     *
+     * @param frame   the FrameData frame
+     * @param matcher the template matcher of the frame's key frame
+     * @param source  the video image
+     */
+    protected void buildEvolvedTemplate(FrameData frame, TemplateMatcher matcher, BufferedImage source) {
+        TPoint[] matchPts = frame.getMatchPoints();
+        if (matchPts == null || matcher == null) return;
+        if (!frame.restoreTemplate(matcher)) return; // can't evolve from an unreadable template
         Rectangle rect = frame.getKeyFrame().getMask().getBounds();
-        // get new image to rebuild template
         int x = (int) Math.round(matchPts[2].getX());
         int y = (int) Math.round(matchPts[2].getY());
-        BufferedImage source = control.getImage();
         BufferedImage matchImage = new BufferedImage(
                 rect.width, rect.height, BufferedImage.TYPE_INT_RGB);
         matchImage.createGraphics().drawImage(source, -x, -y, null);
@@ -156,12 +182,129 @@ public class AutoTrackerCore {
         matcher.setIndex(frame.getFrameNumber());
     }
 
+    /**
+     * Searches the current frame for every point index of the track that has a
+     * key frame. Each index has its own template matcher, so the searches run
+     * concurrently on a bounded thread pool. Frame data for all indices is updated
+     * when the searches are complete.
+     *
+     * @return map of point index to match target (null if no good match was found)
+     */
+    public Map<Integer, TPoint> findMatchTargets() {
+        return findMatchTargets(new ArrayList<>(getIndexFrameData().keySet()));
+    }
+
+    /**
+     * Searches the current frame for the specified point indices concurrently.
+     *
+     * @param indices the point indices to search
+     * @return map of point index to match target (null if no good match was found)
+     */
+    public Map<Integer, TPoint> findMatchTargets(Collection<Integer> indices) {
+        Map<Integer, TPoint> targets = new TreeMap<>();
+        TTrack track = getTrack();
+        if (track == null || !control.isVideoValid()) return targets;
+        int n = control.getFrameNumber();
+        if (track.isStepComplete(n)) return targets;
+        BufferedImage image = control.getImage();
+        ImageCoordSystem coords = control.getCoords();
+
+        // prepare frame data, templates and search rectangles on this thread
+        ArrayList<PointSearch> searches = new ArrayList<>();
+        for (Integer index : indices) {
+            if (!track.isAutoTrackable(index)) continue;
+            FrameData frame = getFrame(index, n);
+            KeyFrame keyFrame = frame.getKeyFrame();
+            if (keyFrame == null || keyFrame.getTemplateMatcher() == null) continue;
+            TPoint[] searchPts = frame.getSearchPoints(true);
+            if (searchPts == null) continue;
+            Rectangle2D searchRect = new Rectangle2D.Double();
+            searchRect.setFrameFromCenter(searchPts[0], searchPts[1]);
+            BufferedImageUtils.moveRectIntoImage(searchRect, image);
+            frame.setSearchPoints(new TPoint[]{
+                    new TPoint(searchRect.getCenterX(), searchRect.getCenterY()),
+                    new TPoint(searchRect.getMaxX(), searchRect.getMaxY())});
+            frame.decided = false;
+            BufferedImage template = frame.getTemplateToMatch();
+            if (template == null) continue; // template could not be read or rebuilt
+            searches.add(new PointSearch(frame, keyFrame.getTemplateMatcher(),
+                    template, searchRect.getBounds()));
+        }
+        if (searches.isEmpty()) return targets;
+
+        // run the template matchers concurrently
+        int spread = options.getLineSpread();
+        double theta = coords.getAngle(n);
+        double x0 = coords.getOriginX(n);
+        double y0 = coords.getOriginY(n);
+        ArrayList<Callable<Object>> tasks = new ArrayList<>();
+        for (PointSearch search : searches) {
+            tasks.add(Executors.callable(() -> search.run(image, spread, x0, y0, theta)));
+        }
+        if (searches.size() == 1) {
+            searches.get(0).run(image, spread, x0, y0, theta);
+        } else {
+            try {
+                for (Future<Object> future : WorkerPool.getExecutor().invokeAll(tasks)) {
+                    future.get();
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException ex) {
+                ex.printStackTrace();
+            }
+        }
+
+        // save the results
+        for (PointSearch search : searches) {
+            targets.put(search.frame.getIndex(), saveMatch(search, image));
+        }
+        return targets;
+    }
+
+    /**
+     * Saves the result of a point search in its frame data.
+     *
+     * @param search the completed search
+     * @param image  the searched image
+     * @return the match target, or null if no good match was found
+     */
+    private TPoint saveMatch(PointSearch search, BufferedImage image) {
+        FrameData frame = search.frame;
+        double[] matchWidthAndHeight = search.matchWidthAndHeight;
+        if (matchWidthAndHeight == null) return null; // search failed
+        if (!options.isMatchGood(matchWidthAndHeight[1]) && frame.isAutoMarked()) {
+            frame.trackPoint = null;
+        }
+        frame.setMatchWidthAndHeight(matchWidthAndHeight);
+        frame.searched = true;
+        TPoint p = search.location;
+        if (p == null || !options.isMatchPossible(matchWidthAndHeight[1])) {
+            frame.setMatchPoints(null);
+            return null;
+        }
+        frame.setMatchImage(search.matchImage);
+        KeyFrame keyFrame = frame.getKeyFrame();
+        Rectangle rect = keyFrame.getMask().getBounds();
+        TPoint maskCenter = keyFrame.getMaskPoints()[0];
+        TPoint center = new TPoint(p.x + maskCenter.x - rect.getX(), p.y + maskCenter.y - rect.getY());
+        TPoint corner = new TPoint(
+                center.x + options.getMaskWidth() / 2,
+                center.y + options.getMaskHeight() / 2
+        );
+        frame.setMatchPoints(new TPoint[]{center, corner, p});
+        if (options.isMatchGood(matchWidthAndHeight[1])) {
+            buildEvolvedTemplate(frame, search.matcher, image);
+            double[] offset = frame.getTargetOffset();
+            return new TPoint(center.x + offset[0], center.y + offset[1]);
+        }
+        return null;
+    }
+
     public void forceAccept(int frameNumber) {
         FrameData frame = getFrame(frameNumber);
         // build evolved template
-        TemplateMatcher matcher = getTemplateMatcher();
-        matcher.setTemplate(frame.getTemplate());
-        matcher.setWorkingPixels(frame.getWorkingPixels());
+        frame.restoreTemplate(getTemplateMatcher());
         buildEvolvedTemplate(frame);
         // mark the target
         TPoint p = getMatchTarget(frame.getMatchPoints()[0]);
@@ -454,7 +597,7 @@ public class AutoTrackerCore {
         for (int i : frameData.keySet()) {
             if (i <= n) continue;
             FrameData frame = frameData.get(i);
-            frame.clear();
+            frame.release();
             toRemove.add(i);
         }
         for (int i : toRemove) {
@@ -465,7 +608,7 @@ public class AutoTrackerCore {
         if (!isAlwaysMarked) {
             Step[] steps = track.getSteps();
             for (int i = n + 1; i < steps.length; i++) {
-                steps[i] = null;
+                track.steps.setStep(i, null);
             }
         }
         track.dataValid = false;
@@ -477,7 +620,7 @@ public class AutoTrackerCore {
         Map<Integer, FrameData> frameData = getFrameData();
         FrameData frame = frameData.get(n);
         if (!frame.isKeyFrame()) {
-            frameData.get(n).clear();
+            frame.release();
             frameData.remove(n);
         } else {
             frame.clear();
@@ -486,7 +629,7 @@ public class AutoTrackerCore {
         TTrack track = getTrack();
         boolean isAlwaysMarked = track.steps.isAutofill() || track instanceof CoordAxes;
         if (!isAlwaysMarked && track.getSteps().length > n)
-            track.getSteps()[n] = null;
+            track.steps.setStep(n, null);
         track.dataValid = false;
         track.firePropertyChange("data", null, track); //$NON-NLS-1$
     }
@@ -530,7 +673,7 @@ public class AutoTrackerCore {
             for (int i : frameData.keySet()) {
                 if (nextKey > -1 && i >= nextKey) break;
                 FrameData frame = frameData.get(i);
-                frame.clear();
+                frame.release();
                 toRemove.add(i);
             }
             for (int i : toRemove) {
@@ -542,7 +685,7 @@ public class AutoTrackerCore {
         if (track.getStep(n) == null) {
             FrameData frame = getFrame(n);
             if (frame != null) {
-                frame.setTemplateIcon(null);
+                frame.clearTemplateIcon();
                 frame.setSearchPoints(null);
             }
             for (int i : frameData.keySet()) {
@@ -654,6 +797,30 @@ public class AutoTrackerCore {
     }
 
 
+    /**
+     * Removes the frame data of a track and releases its images.
+     *
+     * @param track the track
+     */
+    public void removeFrameData(TTrack track) {
+        Map<Integer, Map<Integer, FrameData>> indexFrameData = trackFrameData.remove(track);
+        if (indexFrameData == null) return;
+        for (Map<Integer, FrameData> frames : indexFrameData.values()) {
+            for (FrameData frame : frames.values()) {
+                frame.release();
+            }
+        }
+    }
+
+    /**
+     * Removes the frame data of all tracks and releases all images.
+     */
+    public void clearFrameData() {
+        trackFrameData.clear();
+        frameIcons.clear();
+        packedImages.clear();
+    }
+
     // indexFrameData maps point index to frameData
     protected Map<Integer, Map<Integer, FrameData>> getIndexFrameData() {
         TTrack track = getTrack();
@@ -671,6 +838,16 @@ public class AutoTrackerCore {
         return getFrameData(index);
     }
 
+    protected FrameData getFrame(int index, int frameNumber) {
+        Map<Integer, FrameData> frameData = getFrameData(index);
+        FrameData frame = frameData.get(frameNumber);
+        if (frame == null) {
+            frame = new FrameData(index, frameNumber);
+            frameData.put(frameNumber, frame);
+        }
+        return frame;
+    }
+
     protected FrameData getFrame(int frameNumber) {
         FrameData frame = getFrameData().get(frameNumber);
         if (frame == null) {
@@ -682,6 +859,116 @@ public class AutoTrackerCore {
         return frame;
     }
 
+    /**
+     * Copies the key frames and search areas of the track of another core into
+     * this core so the track can be searched without touching the other core.
+     * Key frames get their own template matchers so evolved templates are not
+     * shared. Must be called on the event dispatch thread.
+     *
+     * @param source the core to copy from
+     */
+    void copyFrameData(AutoTrackerCore source) {
+        trackID = source.trackID;
+        TTrack track = getTrack();
+        if (track == null) return;
+        Map<Integer, Map<Integer, FrameData>> indexFrameData = new TreeMap<>();
+        for (Map.Entry<Integer, Map<Integer, FrameData>> entry : source.getIndexFrameData().entrySet()) {
+            Map<Integer, FrameData> frames = new TreeMap<>();
+            for (FrameData frame : entry.getValue().values()) {
+                FrameData copy;
+                if (frame.isKeyFrame()) {
+                    copy = new KeyFrame((KeyFrame) frame);
+                } else if (frame.searchPoints != null) {
+                    copy = new FrameData(frame.index, frame.frameNum);
+                    copy.searchPoints = copyPoints(frame.searchPoints);
+                } else continue;
+                frames.put(frame.frameNum, copy);
+            }
+            indexFrameData.put(entry.getKey(), frames);
+        }
+        trackFrameData.put(track, indexFrameData);
+    }
+
+    /**
+     * Takes over the search results of a core that was set up with
+     * copyFrameData(), and carries its evolved templates over to the key
+     * frames of this core. Must be called on the event dispatch thread after
+     * the other core is done searching.
+     *
+     * @param batch the core to take the results from
+     */
+    void mergeFrameData(AutoTrackerCore batch) {
+        TTrack track = getTrack();
+        if (track == null || batch.trackID != trackID) return;
+        for (Map.Entry<Integer, Map<Integer, FrameData>> entry : batch.getIndexFrameData().entrySet()) {
+            int index = entry.getKey();
+            for (FrameData result : entry.getValue().values()) {
+                if (result.isKeyFrame()) {
+                    FrameData frame = getFrameData(index).get(result.frameNum);
+                    if (frame != null && frame.isKeyFrame()) {
+                        TemplateMatcher matcher = ((KeyFrame) frame).matcher;
+                        TemplateMatcher evolved = ((KeyFrame) result).matcher;
+                        if (matcher != null && evolved != null) {
+                            matcher.setTemplate(evolved.getTemplate());
+                            matcher.setWorkingPixels(evolved.getWorkingPixels(null));
+                            matcher.setIndex(evolved.getIndex());
+                        }
+                    }
+                }
+                if (!result.searched) continue;
+                FrameData frame = getFrame(index, result.frameNum);
+                frame.searchPoints = result.searchPoints;
+                frame.matchPoints = result.matchPoints;
+                frame.matchWidthAndHeight = result.matchWidthAndHeight;
+                frame.autoMarkLoc = result.autoMarkLoc;
+                frame.trackPoint = result.trackPoint;
+                frame.searched = true;
+                frame.decided = result.decided;
+                if (frame.matchImage != null) frame.matchImage.release();
+                frame.matchImage = packedImages.copy(result.matchImage);
+                if (!frame.isKeyFrame() && result.template != null) {
+                    if (frame.template != null) frame.template.release();
+                    if (frame.workingPixels != null) frame.workingPixels.release();
+                    frame.template = packedImages.copy(result.template);
+                    frame.workingPixels = packedImages.copy(result.workingPixels);
+                    frame.templateAlpha = result.templateAlpha;
+                    frame.templateIconVisible = result.templateIconVisible;
+                    frame.matcherHashCode = 0; // matched with the other core's matcher
+                }
+                frameIcons.remove(frame);
+            }
+        }
+    }
+
+    /**
+     * Creates a copy of a template matcher with the same template, working
+     * pixels and index.
+     *
+     * @param matcher the matcher to copy (may be null)
+     * @param mask    the key frame mask
+     * @return the copy, or null if matcher is null
+     */
+    private static TemplateMatcher copyTemplateMatcher(TemplateMatcher matcher, Shape mask) {
+        if (matcher == null) return null;
+        Rectangle rect = mask.getBounds();
+        AffineTransform transform = AffineTransform.getTranslateInstance(-rect.x, -rect.y);
+        BufferedImage template = matcher.getTemplate();
+        TemplateMatcher copy = new TemplateMatcher(template, transform.createTransformedShape(mask));
+        copy.setTemplate(template);
+        copy.setWorkingPixels(matcher.getWorkingPixels(null));
+        copy.setIndex(matcher.getIndex());
+        return copy;
+    }
+
+    private static TPoint[] copyPoints(TPoint[] points) {
+        if (points == null) return null;
+        TPoint[] copy = new TPoint[points.length];
+        for (int i = 0; i < points.length; i++) {
+            copy[i] = points[i] == null ? null : new TPoint(points[i].x, points[i].y);
+        }
+        return copy;
+    }
+
     public int getIndex(TPoint p) {
         int n = control.getFrameNumber(p);
         TTrack track = getTrack();
@@ -697,6 +984,43 @@ public class AutoTrackerCore {
     }
 
 
+    /**
+     * A template match of a single point index, run on a worker thread.
+     */
+    private static class PointSearch {
+
+        private final FrameData frame;
+        private final TemplateMatcher matcher;
+        private final BufferedImage template;
+        private final Rectangle searchRect;
+        private TPoint location;
+        private double[] matchWidthAndHeight;
+        private BufferedImage matchImage;
+
+        PointSearch(FrameData frame, TemplateMatcher matcher, BufferedImage template, Rectangle searchRect) {
+            this.frame = frame;
+            this.matcher = matcher;
+            this.template = template;
+            this.searchRect = searchRect;
+        }
+
+        /**
+         * Finds the match location. Touches only this search's own matcher.
+         */
+        void run(BufferedImage image, int spread, double x0, double y0, double theta) {
+            matcher.setTemplate(template);
+            if (spread >= 0) {
+                location = matcher.getMatchLocation(image, searchRect, x0, y0, theta, spread);
+            } else {
+                location = matcher.getMatchLocation(image, searchRect);
+            }
+            matchWidthAndHeight = matcher.getMatchWidthAndHeight();
+            if (location != null) {
+                matchImage = matcher.getMatchImage();
+            }
+        }
+    }
+
     /**
      * A class to hold frame data.
      */
@@ -712,12 +1036,12 @@ public class AutoTrackerCore {
         private TPoint[] searchPoints;
         TPoint trackPoint;
         private double[] autoMarkLoc;
-        private BufferedImage template;
-        private Icon templateIcon; // shows template used for search
-        private Icon matchIcon; // only if match is found
+        private PackedImage template;
+        private PackedImage matchImage; // only if match is found
+        private PackedImage workingPixels;
+        private boolean templateIconVisible; // shows template used for search
         boolean searched; // true when searched
         boolean decided; // true when accepted, skipped or marked point is dragged; assumed false for calibration tools and axes
-        int[] workingPixels;
 
         FrameData(int pointIndex, int frameNumber) {
             index = pointIndex;
@@ -731,8 +1055,11 @@ public class AutoTrackerCore {
             matchPoints = keyFrame.getMatchPoints();
             searchPoints = keyFrame.getSearchPoints(false);
             targetOffset = keyFrame.getTargetOffset();
-            matchIcon = keyFrame.getMatchIcon();
-            templateIcon = keyFrame.getTemplateIcon();
+            // copy the images since the replaced key frame may be restored by undo
+            FrameData source = keyFrame;
+            matchImage = packedImages.copy(source.matchImage);
+            template = packedImages.copy(source.template); // shown as icon until a template is set
+            templateIconVisible = source.templateIconVisible;
             autoMarkLoc = keyFrame.getAutoMarkLoc();
             trackPoint = keyFrame.trackPoint;
             searched = keyFrame.searched;
@@ -753,28 +1080,55 @@ public class AutoTrackerCore {
             );
         }
 
-        Icon getTemplateIcon() {
-            return templateIcon;
+        /**
+         * Gets the icons of this frame, building them if needed.
+         *
+         * @return {template icon, match icon}
+         */
+        private Icon[] getIcons() {
+            Icon[] icons = frameIcons.get(this);
+            if (icons == null) {
+                icons = new Icon[2];
+                BufferedImage image = templateIconVisible && template != null ? template.toImage() : null;
+                if (image != null) {
+                    icons[0] = createMagnifiedIcon(image);
+                }
+                image = matchImage == null ? null : matchImage.toImage();
+                if (image != null) {
+                    icons[1] = createMagnifiedIcon(image);
+                }
+                frameIcons.put(this, icons);
+            }
+            return icons;
         }
 
-        void setTemplateImage(BufferedImage image) {
-            setTemplateIcon(createMagnifiedIcon(image));
+        Icon getTemplateIcon() {
+            return getIcons()[0];
         }
 
-        void setTemplateIcon(Icon icon) {
-            templateIcon = icon;
+        /**
+         * Hides the template icon until a new template is set.
+         */
+        void clearTemplateIcon() {
+            templateIconVisible = false;
+            frameIcons.remove(this);
         }
 
         Icon getMatchIcon() {
-            return matchIcon;
+            return getIcons()[1];
         }
 
         void setMatchImage(BufferedImage image) {
-            setMatchIcon(createMagnifiedIcon(image));
+            if (matchImage != null) matchImage.release();
+            matchImage = packedImages.pack(image);
+            frameIcons.remove(this);
         }
 
-        void setMatchIcon(Icon icon) {
-            matchIcon = icon;
+        /**
+         * Removes the match image and icon.
+         */
+        void clearMatchIcon() {
+            setMatchImage(null);
         }
 
         /**
@@ -783,26 +1137,38 @@ public class AutoTrackerCore {
          * @param matcher the template matcher
          */
         void setTemplate(TemplateMatcher matcher) {
-            template = matcher.getTemplate();
+            if (template != null) template.release();
+            if (workingPixels != null) workingPixels.release();
+            template = packedImages.pack(matcher.getTemplate());
             templateAlpha = matcher.getAlphas()[0];
-            workingPixels = matcher.getWorkingPixels(workingPixels);
+            workingPixels = packedImages.pack(matcher.getWorkingPixels(null));
             matcherHashCode = matcher.hashCode();
 
             // refresh icons
-            setMatchIcon(null);
-            setTemplateImage(template);
+            if (matchImage != null) matchImage.release();
+            matchImage = null;
+            templateIconVisible = true;
+            frameIcons.remove(this);
         }
 
         /**
          * Returns the template to match. Replaces the existing template if
-         * a new one exists.
+         * a new one exists or if it can no longer be read from the packed image store.
+         *
+         * @return the template, or null if none is available
          */
         BufferedImage getTemplateToMatch() {
-            if (template == null || newTemplateExists()) {
+            if (template == null || !template.isAvailable() || newTemplateExists()) {
                 // replace current template with new one
                 setTemplate(getTemplateMatcher());
             }
-            return template;
+            BufferedImage image = template == null ? null : template.toImage();
+            if (image == null && template != null) {
+                // the packed template could not be read, so replace it
+                setTemplate(getTemplateMatcher());
+                image = template == null ? null : template.toImage();
+            }
+            return image;
         }
 
         /**
@@ -825,14 +1191,31 @@ public class AutoTrackerCore {
          * Returns the previously matched template.
          */
         BufferedImage getTemplate() {
-            return template;
+            return template == null ? null : template.toImage();
         }
 
         /**
          * Returns the working pixels used to generate the current template.
          */
         int[] getWorkingPixels() {
-            return workingPixels;
+            return workingPixels == null ? null : workingPixels.getPixels();
+        }
+
+        /**
+         * Sets the template and working pixels of a matcher to those of this frame.
+         *
+         * @param matcher the template matcher
+         * @return false if the packed template or working pixels could not be read
+         */
+        boolean restoreTemplate(TemplateMatcher matcher) {
+            BufferedImage image = getTemplate();
+            int[] pixels = getWorkingPixels();
+            if ((image == null && template != null) || (pixels == null && workingPixels != null)) {
+                return false;
+            }
+            matcher.setTemplate(image);
+            matcher.setWorkingPixels(pixels);
+            return true;
         }
 
         TemplateMatcher getTemplateMatcher() {
@@ -951,19 +1334,32 @@ public class AutoTrackerCore {
         void clear() {
             matchPoints = null;
             matchWidthAndHeight = null;
-            matchIcon = null;
+            clearMatchIcon();
             autoMarkLoc = null;
             searched = false;
             decided = false;
             trackPoint = null;
+            if (workingPixels != null) workingPixels.release();
             workingPixels = null;
             matcherHashCode = 0;
             if (!isKeyFrame()) {
                 searchPoints = null;
-                templateIcon = null;
+                templateIconVisible = false;
                 templateAlpha = 0;
+                if (template != null) template.release();
                 template = null;
             }
+            frameIcons.remove(this);
+        }
+
+        /**
+         * Clears this frame and releases all of its images, including the
+         * template of a key frame. Called when the frame is removed.
+         */
+        void release() {
+            clear();
+            if (template != null) template.release();
+            template = null;
         }
     }
 
@@ -986,6 +1382,24 @@ public class AutoTrackerCore {
             maskPoints[1].setLocation(corner);
         }
 
+        /**
+         * Constructs a copy of a key frame of another core, with a copy of
+         * its template matcher.
+         *
+         * @param source the key frame to copy
+         */
+        KeyFrame(KeyFrame source) {
+            super(source.getIndex(), source.getFrameNumber());
+            mask = source.mask;
+            target = new TPoint(source.target.x, source.target.y);
+            maskPoints[0].setLocation(source.maskPoints[0]);
+            maskPoints[1].setLocation(source.maskPoints[1]);
+            double[] offset = source.getTargetOffset();
+            setTargetOffset(offset[0], offset[1]);
+            setSearchPoints(copyPoints(source.getSearchPoints(false)));
+            matcher = copyTemplateMatcher(source.matcher, mask);
+        }
+
         boolean isKeyFrame() {
             return true;
         }
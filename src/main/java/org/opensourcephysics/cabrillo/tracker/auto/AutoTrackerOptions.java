@@ -26,6 +26,7 @@ public class AutoTrackerOptions implements Cloneable {
     private double maskWidth = 16.0, maskHeight = 16.0;
     private boolean lookAhead = true;
     private int maskShapeType = 0; // 0 for ellipse, 1 for rect
+    private boolean multiPoint = false; // true to search all point indices of a frame at once
 
     private final int predictionLookback = 4;
     public static final int maxEvolveRate = 100;
@@ -145,6 +146,18 @@ public class AutoTrackerOptions implements Cloneable {
         changes.firePropertyChange("maskShapeType", old, maskShapeType);
     }
 
+    public boolean isMultiPoint() {
+        return multiPoint;
+    }
+
+    public void setMultiPoint(boolean multiPoint) {
+        if (this.multiPoint == multiPoint) {
+            return;
+        }
+        this.multiPoint = multiPoint;
+        changes.firePropertyChange("multiPoint", !multiPoint, multiPoint);
+    }
+
     public Shape getMaskShape() {
         switch (maskShapeType) {
             case 0:
@@ -0,0 +1,428 @@
+/*
+ * The tracker package defines a set of video/image analysis tools built on the
+ * Open Source Physics framework by Wolfgang Christian.
+ *
+ * Copyright (c) 2018  Douglas Brown
+ *
+ * Tracker is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Tracker is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Tracker; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place, Suite 330, Boston MA 02111-1307 USA or view the license online at
+ * <http://www.gnu.org/copyleft/gpl.html>
+ *
+ * For additional Tracker information and documentation, please see
+ * <http://physlets.org/tracker/>.
+ */
+package org.opensourcephysics.cabrillo.tracker.auto;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Holds the pixels of a small image, such as an autotracker template, as a
+ * packed int array. Packed images belong to a Store owned by the object that
+ * uses them, so they are discarded together with their owner. When the
+ * resident pixels of a store exceed its budget, the least recently used images
+ * are deflated and are inflated again when next accessed. When the deflated
+ * bytes exceed their own budget, the oldest deflated images are spilled to a
+ * temporary file and are read back when next accessed.
+ * <p>
+ * A packed image has a single owner: an object that needs the same pixels as
+ * another must pack a copy, since release() makes an image unusable.
+ */
+public class PackedImage {
+
+    private final Store store;
+    private final int width, height, type;
+    private int[] pixels; // null unless resident
+    private byte[] deflated; // null unless deflated in memory
+    private long spillOffset = -1; // position in the spill file, or -1 unless spilled
+    private int spillLength;
+
+    /**
+     * Constructs a PackedImage with pixels that are not copied.
+     *
+     * @param store  the store that holds the image
+     * @param width  the width
+     * @param height the height
+     * @param type   the BufferedImage type used to unpack
+     * @param pixels the pixels in row order
+     */
+    private PackedImage(Store store, int width, int height, int type, int[] pixels) {
+        this.store = store;
+        this.width = width;
+        this.height = height;
+        this.type = type;
+        this.pixels = pixels;
+    }
+
+    /**
+     * Gets a copy of the pixels.
+     *
+     * @return the pixels in row order, or null if the image could not be read
+     */
+    public int[] getPixels() {
+        int[] data = store.restore(this);
+        return data == null ? null : data.clone();
+    }
+
+    /**
+     * Creates a new image with the packed pixels.
+     *
+     * @return the image, or null if the image could not be read
+     */
+    public BufferedImage toImage() {
+        int[] source = store.restore(this);
+        if (source == null) return null;
+        BufferedImage image = new BufferedImage(width, height, type);
+        int[] data = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        System.arraycopy(source, 0, data, 0, data.length);
+        return image;
+    }
+
+    /**
+     * Determines if the pixels can still be read.
+     *
+     * @return false if the image was released or could not be read back
+     */
+    public boolean isAvailable() {
+        synchronized (store) {
+            return pixels != null || deflated != null || spillOffset >= 0;
+        }
+    }
+
+    /**
+     * Gets the width.
+     *
+     * @return the width
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Gets the height.
+     *
+     * @return the height
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Releases this image from its store. It must not be used afterwards.
+     */
+    public void release() {
+        store.remove(this);
+    }
+
+    /**
+     * A Store holds the packed images of one owner within a byte budget for
+     * resident pixels and another for deflated pixels. Deflated images beyond
+     * the budget are appended to a temporary spill file that is deleted when
+     * the store is cleared.
+     */
+    public static class Store {
+
+        private static final long defaultResidentBudget = 64L << 20; // 64 MB
+        private static final long defaultDeflatedBudget = 32L << 20; // 32 MB
+
+        private long residentBudget = defaultResidentBudget;
+        private long deflatedBudget = defaultDeflatedBudget;
+        private long residentBytes, deflatedBytes;
+        // resident images in access order
+        private final LinkedHashMap<PackedImage, PackedImage> resident
+                = new LinkedHashMap<>(64, 0.75f, true);
+        // deflated images in the order they were deflated
+        private final LinkedHashSet<PackedImage> deflatedImages = new LinkedHashSet<>();
+        private final HashSet<PackedImage> spilledImages = new HashSet<>();
+        private File spillFile;
+        private RandomAccessFile spill;
+        private long spillEnd;
+
+        /**
+         * Packs a copy of the pixels of an image.
+         *
+         * @param image the image, may be null
+         * @return the packed image, or null if image is null
+         */
+        public PackedImage pack(BufferedImage image) {
+            if (image == null) return null;
+            int w = image.getWidth(), h = image.getHeight();
+            int type = image.getType();
+            int[] pixels = new int[w * h];
+            if (type == BufferedImage.TYPE_INT_RGB || type == BufferedImage.TYPE_INT_ARGB) {
+                image.getRaster().getDataElements(0, 0, w, h, pixels);
+            } else {
+                image.getRGB(0, 0, w, h, pixels, 0, w);
+                type = BufferedImage.TYPE_INT_ARGB;
+            }
+            return add(new PackedImage(this, w, h, type, pixels));
+        }
+
+        /**
+         * Packs a copy of an int array.
+         *
+         * @param pixels the array, may be null
+         * @return the packed array, or null if pixels is null
+         */
+        public PackedImage pack(int[] pixels) {
+            if (pixels == null) return null;
+            return add(new PackedImage(this, pixels.length, 1, BufferedImage.TYPE_INT_ARGB, pixels.clone()));
+        }
+
+        /**
+         * Packs a copy of a packed image, which may belong to another store.
+         *
+         * @param image the packed image, may be null
+         * @return the copy, or null if image is null or could not be read
+         */
+        public PackedImage copy(PackedImage image) {
+            if (image == null) return null;
+            int[] pixels = image.store.restore(image);
+            if (pixels == null) return null;
+            return add(new PackedImage(this, image.width, image.height, image.type, pixels.clone()));
+        }
+
+        /**
+         * Sets the byte budgets of this store.
+         *
+         * @param resident the budget for resident pixels in bytes
+         * @param deflated the budget for deflated pixels in bytes
+         */
+        public synchronized void setMemoryBudget(long resident, long deflated) {
+            residentBudget = Math.max(0, resident);
+            deflatedBudget = Math.max(0, deflated);
+            trim();
+        }
+
+        /**
+         * Gets the number of bytes held by resident images.
+         *
+         * @return the resident bytes
+         */
+        public synchronized long getResidentBytes() {
+            return residentBytes;
+        }
+
+        /**
+         * Gets the number of bytes held by deflated images.
+         *
+         * @return the deflated bytes
+         */
+        public synchronized long getDeflatedBytes() {
+            return deflatedBytes;
+        }
+
+        /**
+         * Releases all images of this store and deletes its spill file.
+         */
+        public synchronized void clear() {
+            for (PackedImage image : resident.keySet()) {
+                image.pixels = null;
+            }
+            for (PackedImage image : deflatedImages) {
+                image.deflated = null;
+            }
+            for (PackedImage image : spilledImages) {
+                image.spillOffset = -1;
+            }
+            resident.clear();
+            deflatedImages.clear();
+            spilledImages.clear();
+            residentBytes = deflatedBytes = 0;
+            closeSpillFile();
+        }
+
+        private synchronized PackedImage add(PackedImage image) {
+            resident.put(image, image);
+            residentBytes += 4L * image.pixels.length;
+            trim();
+            return image;
+        }
+
+        private synchronized void remove(PackedImage image) {
+            if (resident.remove(image) != null) {
+                residentBytes -= 4L * image.pixels.length;
+            } else if (deflatedImages.remove(image)) {
+                deflatedBytes -= image.deflated.length;
+            } else if (spilledImages.remove(image) && spilledImages.isEmpty()) {
+                spillEnd = 0; // reuse the spill file from the start
+            }
+            image.pixels = null;
+            image.deflated = null;
+            image.spillOffset = -1;
+        }
+
+        /**
+         * Returns the resident pixels of an image, reading and inflating them
+         * if needed.
+         *
+         * @param image the image
+         * @return the pixels, or null if the image was released or could not be read
+         */
+        private synchronized int[] restore(PackedImage image) {
+            if (image.pixels != null) {
+                resident.get(image); // moves the image to the end of the access order
+                return image.pixels;
+            }
+            byte[] bytes = image.deflated;
+            if (bytes != null) {
+                deflatedImages.remove(image);
+                deflatedBytes -= bytes.length;
+                image.deflated = null;
+            } else if (image.spillOffset >= 0) {
+                spilledImages.remove(image);
+                bytes = readSpill(image);
+                image.spillOffset = -1;
+                if (spilledImages.isEmpty()) spillEnd = 0; // reuse the spill file from the start
+                if (bytes == null) return null;
+            } else {
+                return null;
+            }
+            image.pixels = inflate(bytes, image.width * image.height);
+            add(image);
+            return image.pixels;
+        }
+
+        /**
+         * Deflates the least recently used images until the resident bytes are
+         * within the budget, then spills the oldest deflated images until the
+         * deflated bytes are within theirs. The most recently used image always
+         * stays resident. If the spill file cannot be written, deflated images
+         * are kept in memory.
+         */
+        private void trim() {
+            Iterator<PackedImage> it = resident.keySet().iterator();
+            while (residentBytes > residentBudget && resident.size() > 1 && it.hasNext()) {
+                PackedImage eldest = it.next();
+                it.remove();
+                residentBytes -= 4L * eldest.pixels.length;
+                eldest.deflated = deflate(eldest.pixels);
+                eldest.pixels = null;
+                deflatedImages.add(eldest);
+                deflatedBytes += eldest.deflated.length;
+            }
+            it = deflatedImages.iterator();
+            while (deflatedBytes > deflatedBudget && it.hasNext()) {
+                PackedImage eldest = it.next();
+                if (!writeSpill(eldest)) break;
+                it.remove();
+                deflatedBytes -= eldest.deflated.length;
+                eldest.deflated = null;
+                spilledImages.add(eldest);
+            }
+        }
+
+        /**
+         * Appends the deflated bytes of an image to the spill file.
+         *
+         * @param image the deflated image
+         * @return true if written
+         */
+        private boolean writeSpill(PackedImage image) {
+            try {
+                if (spill == null) {
+                    spillFile = File.createTempFile("tracker_packed", ".tmp"); //$NON-NLS-1$ //$NON-NLS-2$
+                    spillFile.deleteOnExit();
+                    spill = new RandomAccessFile(spillFile, "rw"); //$NON-NLS-1$
+                    spillEnd = 0;
+                }
+                spill.seek(spillEnd);
+                spill.write(image.deflated);
+            } catch (IOException ex) {
+                ex.printStackTrace();
+                return false;
+            }
+            image.spillOffset = spillEnd;
+            image.spillLength = image.deflated.length;
+            spillEnd += image.spillLength;
+            return true;
+        }
+
+        /**
+         * Reads the deflated bytes of a spilled image.
+         *
+         * @param image the spilled image
+         * @return the bytes, or null if they could not be read
+         */
+        private byte[] readSpill(PackedImage image) {
+            byte[] bytes = new byte[image.spillLength];
+            try {
+                spill.seek(image.spillOffset);
+                spill.readFully(bytes);
+            } catch (IOException ex) {
+                ex.printStackTrace();
+                return null;
+            }
+            return bytes;
+        }
+
+        private void closeSpillFile() {
+            if (spill == null) return;
+            try {
+                spill.close();
+            } catch (IOException ex) {
+                ex.printStackTrace();
+            }
+            spillFile.delete();
+            spill = null;
+            spillFile = null;
+            spillEnd = 0;
+        }
+    }
+
+    private static byte[] deflate(int[] pixels) {
+        ByteBuffer buffer = ByteBuffer.allocate(4 * pixels.length);
+        buffer.asIntBuffer().put(pixels);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        deflater.setInput(buffer.array());
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(pixels.length);
+        byte[] chunk = new byte[4096];
+        while (!deflater.finished()) {
+            out.write(chunk, 0, deflater.deflate(chunk));
+        }
+        deflater.end();
+        return out.toByteArray();
+    }
+
+    private static int[] inflate(byte[] bytes, int length) {
+        byte[] raw = new byte[4 * length];
+        Inflater inflater = new Inflater();
+        inflater.setInput(bytes);
+        try {
+            int n = 0;
+            while (n < raw.length && !inflater.finished()) {
+                n += inflater.inflate(raw, n, raw.length - n);
+            }
+        } catch (DataFormatException ex) {
+            ex.printStackTrace();
+        } finally {
+            inflater.end();
+        }
+        int[] pixels = new int[length];
+        ByteBuffer.wrap(raw).asIntBuffer().get(pixels);
+        return pixels;
+    }
+}
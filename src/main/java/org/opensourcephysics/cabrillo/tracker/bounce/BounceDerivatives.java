@@ -26,8 +26,12 @@
 package org.opensourcephysics.cabrillo.tracker.bounce;
 
 import org.opensourcephysics.cabrillo.tracker.derivative.Derivative;
+import org.opensourcephysics.cabrillo.tracker.derivative.DerivativeData;
+import org.opensourcephysics.cabrillo.tracker.derivative.DerivativeEvaluator;
 
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
  * This implements an algorithm for estimating both the first and second
@@ -46,7 +50,18 @@ import java.util.Arrays;
  *
  * @author Kevin Karplus
  */
-public class BounceDerivatives implements Derivative {
+public class BounceDerivatives implements Derivative, DerivativeEvaluator {
+
+    // degree is the complexity of the polynomial model
+    // constant acceleration model
+    private static final int degree = 2;
+
+    // models, sliding fit and cached window fits for the current window size and index step
+    private BounceModel poly_model, step_model;
+    private SlidingPolynomialFit sliding_fit;
+    private int fit_window_size, fit_index_step;
+    private final Map<Integer, WindowFit> window_fits = new HashMap<>();
+    private int evaluation; // incremented by each evaluation to find unused window fits
 
 
     /**
@@ -72,39 +87,43 @@ public class BounceDerivatives implements Derivative {
      */
     public Object[] evaluate(Object[] data) {
         int[] params = (int[]) data[0];
+        DerivativeData derivs = new DerivativeData(
+                (double[]) data[1], (double[]) data[2], (boolean[]) data[3]);
+        derivs.setSpill(params[0], params[0]);
+        derivs.setRange(params[1], params[2], params[3]);
+        evaluate(derivs);
+        return new Object[]{derivs.vx, derivs.vy, derivs.ax, derivs.ay};
+    }
+
+    /**
+     * Evaluates two derivatives at count points (start, start+stepSize, ...)
+     * of the data. The first derivative spill sets the size of the window
+     * used for fitting a model.
+     *
+     * @param data the derivative data
+     */
+    public void evaluate(DerivativeData data) {
         // window_size is the number of data points used for fitting a model
-        int window_size = 1 + params[0] * 2;
-        int start = params[1];
-        int index_step = params[2];
-        int count = params[3];
-        double[] x = (double[]) data[1];
-        double[] y = (double[]) data[2];
-        boolean[] validData = (boolean[]) data[3];
+        int window_size = 1 + data.vSpill * 2;
+        int start = data.start;
+        int index_step = data.stepSize;
+        int count = data.count;
+        double[] x = data.x;
+        double[] y = data.y;
+        boolean[] validData = data.valid;
 
         int length = x.length;
         assert (x.length == y.length);
 
-        double[] xDeriv1, yDeriv1, xDeriv2, yDeriv2;
+        double[] xDeriv1 = data.vx, yDeriv1 = data.vy, xDeriv2 = data.ax, yDeriv2 = data.ay;
 
-        double[][] result = new double[4][];
-
-        result[0] = xDeriv1 = new double[length];
-        result[1] = yDeriv1 = new double[length];
-        result[2] = xDeriv2 = new double[length];
-        result[3] = yDeriv2 = new double[length];
+        if (start >= length) {    // this was a dummy call, probably with initial (empty) data arrays
+            return;
+        }
 
-        for (int n = 0; n < length; n++) {    // mark all the outputs as invalid
+        for (int n = start, end = data.getEnd(); n <= end; n += index_step) {    // mark the outputs as invalid
             xDeriv1[n] = yDeriv1[n] = Double.NaN;
             xDeriv2[n] = yDeriv2[n] = Double.NaN;
-
-            // make sure that the input data arrays are marked with NaNs
-            if (!validData[n]) {
-                x[n] = y[n] = Double.NaN;
-            }
-        }
-
-        if (start >= length) {    // this was a dummy call, probably with initial (empty) data arrays
-            return result;
         }
 
         // reset count so indexing does not run over
@@ -113,16 +132,16 @@ public class BounceDerivatives implements Derivative {
         assert (start >= 0);
         assert (index_step > 0);
 
-        // degree is the complexity of the polynomial model
-        // constant acceleration model
-        int degree = 2;
-        //  a simple polynomial model
-        BounceModel poly_model = new BounceModel(window_size, degree, 0);
+        //  a simple polynomial model, and
+        // model that tries to fit both the time and size of the step
+        prepareModels(window_size, index_step);
+        // samples may have changed since the last evaluation, so slide only within this one
+        sliding_fit.invalidate();
+        evaluation++;
+        BounceModel poly_model = this.poly_model;
         BounceParameters[] poly_fit = new BounceParameters[count];
         //	poly_fit[c] are the parameters for polynomial fitted for a window around cth time step
 
-        // model that tries to fit both the time and size of the step
-        BounceModel step_model = new BounceModel(window_size, degree, Double.NaN);
         BounceParameters[] step_fit = new BounceParameters[count];
         //	step_fit[c] are the parameters for model with unspecified step fit
         //	They are initially created for windows looking for steps around each c value,
@@ -146,7 +165,7 @@ public class BounceDerivatives implements Derivative {
             int highest_bad_index = -1;
             for (int in_w = window_size - 1; in_w >= 0; in_w--) {
                 int index = i + index_step * (in_w - c_at[c]);
-                if (index < 0 || index >= length || Double.isNaN(x[index]) || Double.isNaN(y[index])) {
+                if (isInvalid(x, y, validData, index)) {
                     highest_bad_index = in_w;
                     break;
                 }
@@ -158,7 +177,7 @@ public class BounceDerivatives implements Derivative {
                 int lowest_bad_index = window_size;
                 for (int in_w = 0; in_w < window_size; in_w++) {
                     int index = i + index_step * (in_w - c_at[c]);
-                    if (index < 0 || index >= length || Double.isNaN(x[index]) || Double.isNaN(y[index])) {
+                    if (isInvalid(x, y, validData, index)) {
                         lowest_bad_index = in_w;
                         break;
                     }
@@ -176,18 +195,22 @@ public class BounceDerivatives implements Derivative {
 
                 for (int in_w = window_size - 1; in_w >= 0; in_w--) {
                     int index = i + index_step * (in_w - c_at[c]);
-                    if (index < 0 || index >= length || Double.isNaN(x[index]) || Double.isNaN(y[index])) {
+                    if (isInvalid(x, y, validData, index)) {
                         continue fit_models;    // moved window also failed
                     }
                 }
 
             }
 
-            poly_fit[c] = poly_model.fit_xy(x, y, i - c_at[c] * index_step, index_step);
-            step_fit[c] = step_model.fit_xy(x, y, i - c_at[c] * index_step, index_step);
+            WindowFit fit = getWindowFit(x, y, i - c_at[c] * index_step, index_step, window_size);
+            poly_fit[c] = fit.poly_fit;
+            step_fit[c] = fit.step_fit;
 
         }
 
+        // keep only the fits of windows used by this evaluation
+        window_fits.values().removeIf(fit -> fit.evaluation != evaluation);
+
         // How useful does each step look?
         // step_value[c] is reduction in square error for c within
         // 0.5*(window_size-1) of step  for refit model vs polynomial model
@@ -301,6 +324,106 @@ public class BounceDerivatives implements Derivative {
             xDeriv2[i] = deriv2[0];
             yDeriv2[i] = deriv2[1];
         }
-        return result;
     }
-}
\ No newline at end of file
+
+    /**
+     * Discards all cached window fits.
+     */
+    public void clearCache() {
+        window_fits.clear();
+        if (sliding_fit != null) sliding_fit.invalidate();
+    }
+
+    /**
+     * Creates the models for a window size and index step, discarding cached
+     * fits if either has changed.
+     *
+     * @param window_size the number of data points in a window
+     * @param index_step  the increment between subscripts of the data points
+     */
+    private void prepareModels(int window_size, int index_step) {
+        if (poly_model != null && window_size == fit_window_size && index_step == fit_index_step) return;
+        if (poly_model == null || window_size != fit_window_size) {
+            poly_model = new BounceModel(window_size, degree, 0);
+            step_model = new BounceModel(window_size, degree, Double.NaN);
+            sliding_fit = new SlidingPolynomialFit(poly_model);
+        }
+        fit_window_size = window_size;
+        fit_index_step = index_step;
+        clearCache();
+    }
+
+    /**
+     * Gets the polynomial and step fits for a window of valid data. Fits are
+     * cached by window start and reused while the window data is unchanged,
+     * so only windows overlapping edited samples are refit. The cache holds
+     * only the windows used by the latest evaluation.
+     *
+     * @param x           the x data
+     * @param y           the y data
+     * @param start       subscript of the first point in the window
+     * @param index_step  the increment between subscripts of the data points
+     * @param window_size the number of data points in the window
+     * @return the window fit
+     */
+    private WindowFit getWindowFit(double[] x, double[] y, int start, int index_step, int window_size) {
+        WindowFit fit = window_fits.get(start);
+        if (fit != null && fit.matches(x, y, start, index_step)) {
+            fit.evaluation = evaluation;
+            return fit;
+        }
+        fit = new WindowFit(x, y, start, index_step, window_size);
+        fit.evaluation = evaluation;
+        double[][] params = sliding_fit.fit(x, y, start, index_step);
+        fit.poly_fit = poly_model.fit_xy(x, y, start, index_step, params);
+        fit.step_fit = step_model.fit_xy(x, y, start, index_step);
+        window_fits.put(start, fit);
+        return fit;
+    }
+
+    /**
+     * The cached fits for a window, with a copy of the window data.
+     */
+    private static class WindowFit {
+
+        private final double[] data;    // x values followed by y values
+        private BounceParameters poly_fit, step_fit;
+        private int evaluation;    // the last evaluation that used this fit
+
+        WindowFit(double[] x, double[] y, int start, int index_step, int window_size) {
+            data = new double[2 * window_size];
+            for (int t = 0; t < window_size; t++) {
+                data[t] = x[start + index_step * t];
+                data[window_size + t] = y[start + index_step * t];
+            }
+        }
+
+        /**
+         * Determines if the window data is unchanged.
+         */
+        boolean matches(double[] x, double[] y, int start, int index_step) {
+            int window_size = data.length / 2;
+            for (int t = 0; t < window_size; t++) {
+                if (data[t] != x[start + index_step * t]
+                        || data[window_size + t] != y[start + index_step * t]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Determines if a sample is missing or invalid.
+     *
+     * @param x     the x data
+     * @param y     the y data
+     * @param valid the valid data flags
+     * @param index the sample index
+     * @return true if the sample cannot be used for fitting
+     */
+    private static boolean isInvalid(double[] x, double[] y, boolean[] valid, int index) {
+        return index < 0 || index >= x.length || !valid[index]
+                || Double.isNaN(x[index]) || Double.isNaN(y[index]);
+    }
+}
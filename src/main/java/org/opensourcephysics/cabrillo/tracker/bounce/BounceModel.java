@@ -73,10 +73,14 @@ public class BounceModel {
 
         model = new BounceMatrix(mapping1D);
         inverseModel = model.inverse();
+        modelArray = model.getArray();
+        inverseArray = inverseModel.getArray();
     }
 
     private final BounceMatrix model;        /* model*params should match data in least-squares sense */
     private final BounceMatrix inverseModel;  /* inverseModel*data sets params */
+    private final double[][] modelArray, inverseArray;
+    private double[][] normalInverse;  /* inverse of transpose(model)*model, for fits from moments */
 
     private final double stepAt;        /* where is a step modeled */
     private final boolean useStep;       /* one more parameter than polynomial, to fit step at stepAt */
@@ -150,9 +154,8 @@ public class BounceModel {
             return null;
         }
 
-        // copy data points into a matrix
-        BounceMatrix data_matrix = new BounceMatrix(num_data, 2);
-        double[][] data = data_matrix.getArray();
+        // copy data points
+        double[][] data = new double[num_data][2];
         for (int t = 0; t < num_data; t++) {
             data[t][0] = xData[start + index_step * t];
             data[t][1] = yData[start + index_step * t];
@@ -161,14 +164,8 @@ public class BounceModel {
             }
         }
 
-        BounceMatrix params = inverseModel.times(data_matrix);
-
-        double[][] error_array = model.times(params).minus(data_matrix).getArray();
-        double square_error = 0;
-        for (int t = 0; t < num_data; t++) {
-            square_error += error_array[t][0] * error_array[t][0];
-            square_error += error_array[t][1] * error_array[t][1];
-        }
+        BounceMatrix params = new BounceMatrix(solve(data));
+        double square_error = square_error(params.getArray(), data);
 
         if (!useUnknownStep) {
             return new BounceParameters(this, params, square_error);
@@ -249,9 +246,8 @@ public class BounceModel {
             return null;
         }
 
-        // copy data points into a matrix
-        BounceMatrix data_matrix = new BounceMatrix(num_data, 2);
-        double[][] data = data_matrix.getArray();
+        // copy data points, removing the step
+        double[][] data = new double[num_data][2];
         for (int t = 0; t < num_data; t++) {
             data[t][0] = xData[start + index_step * t] - (t > initial_stepAt ? initial_step_size[0] * (t - initial_stepAt) : 0);
             data[t][1] = yData[start + index_step * t] - (t > initial_stepAt ? initial_step_size[1] * (t - initial_stepAt) : 0);
@@ -260,16 +256,121 @@ public class BounceModel {
             }
         }
 
-        BounceMatrix params = inverseModel.times(data_matrix);
+        BounceMatrix params = new BounceMatrix(solve(data));
+        double square_error = square_error(params.getArray(), data);
 
-        double[][] error_array = model.times(params).minus(data_matrix).getArray();
-        double square_error = 0;
+        return new BounceParameters(this, params, square_error, initial_stepAt, initial_step_size);
+    }
+
+    /**
+     * fit a polynomial model to a window of (x,y) points using parameters
+     * already found from the window's moments (see SlidingPolynomialFit).
+     * Only the residual square error is computed here.
+     * <p>
+     * returns null if the window goes out of range or has NaN data
+     *
+     * @param xData      array of x values
+     * @param yData      array of y values
+     * @param start      subscript of first (x,y) pair for window
+     * @param index_step increment between subscripts for subsequent data points
+     * @param params     the parameters (numParams x 2), used by reference
+     * @return LinearModelParams containing parameters and residual square error
+     */
+    public BounceParameters fit_xy(double[] xData, double[] yData, int start, int index_step, double[][] params) {
+        int num_data = model.getRowDimension();
+        int last_index = start + (num_data - 1) * index_step;
+        if (usesStep() || start < 0 || last_index >= xData.length || last_index >= yData.length) {
+            return null;
+        }
+        double[][] data = new double[num_data][2];
         for (int t = 0; t < num_data; t++) {
-            square_error += error_array[t][0] * error_array[t][0];
-            square_error += error_array[t][1] * error_array[t][1];
+            data[t][0] = xData[start + index_step * t];
+            data[t][1] = yData[start + index_step * t];
+            if (Double.isNaN(data[t][0]) || Double.isNaN(data[t][1])) {
+                return null;
+            }
         }
+        return new BounceParameters(this, new BounceMatrix(params), square_error(params, data));
+    }
 
-        return new BounceParameters(this, params, square_error, initial_stepAt, initial_step_size);
+    /**
+     * least-squares parameters for the data: inverseModel*data
+     *
+     * @param data num_data x 2 data array
+     * @return numParams x 2 parameter array
+     */
+    private double[][] solve(double[][] data) {
+        int num_params = inverseArray.length;
+        int num_data = data.length;
+        double[][] params = new double[num_params][2];
+        for (int k = 0; k < num_params; k++) {
+            double[] row = inverseArray[k];
+            double px = 0, py = 0;
+            for (int t = 0; t < num_data; t++) {
+                px += row[t] * data[t][0];
+                py += row[t] * data[t][1];
+            }
+            params[k][0] = px;
+            params[k][1] = py;
+        }
+        return params;
+    }
+
+    /**
+     * residual square error of model*params compared to data
+     *
+     * @param params numParams x 2 parameter array
+     * @param data   num_data x 2 data array
+     * @return the sum of the squared residuals
+     */
+    private double square_error(double[][] params, double[][] data) {
+        double square_error = 0;
+        for (int t = 0; t < data.length; t++) {
+            double[] row = modelArray[t];
+            double ex = -data[t][0], ey = -data[t][1];
+            for (int k = 0; k < row.length; k++) {
+                ex += row[k] * params[k][0];
+                ey += row[k] * params[k][1];
+            }
+            square_error += ex * ex + ey * ey;
+        }
+        return square_error;
+    }
+
+    /**
+     * inverse of the normal matrix transpose(model)*model, which maps the
+     * moments transpose(model)*data of a window to the fitted parameters
+     *
+     * @return numParams x numParams inverse normal matrix
+     */
+    public double[][] getNormalInverse() {
+        if (normalInverse == null) {
+            int num_params = modelArray[0].length;
+            double[][] normal = new double[num_params][num_params];
+            for (double[] row : modelArray) {
+                for (int i = 0; i < num_params; i++) {
+                    for (int j = 0; j < num_params; j++) {
+                        normal[i][j] += row[i] * row[j];
+                    }
+                }
+            }
+            normalInverse = new BounceMatrix(normal).inverse().getArray();
+        }
+        return normalInverse;
+    }
+
+    /**
+     * @return the number of data points in a window
+     */
+    public int getNumData() {
+        return modelArray.length;
+    }
+
+    /**
+     * @return the degree of the polynomial
+     */
+    public int getDegree() {
+        return degree;
     }
 
     /**
@@ -0,0 +1,162 @@
+/*
+ * The tracker package defines a set of video/image analysis tools
+ * built on the Open Source Physics framework by Wolfgang Christian.
+ *
+ * Copyright (c) 2018  Douglas Brown
+ *
+ * Tracker is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Tracker is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Tracker; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston MA 02111-1307 USA
+ * or view the license online at <http://www.gnu.org/copyleft/gpl.html>
+ *
+ * For additional Tracker information and documentation, please see
+ * <http://physlets.org/tracker/>.
+ */
+package org.opensourcephysics.cabrillo.tracker.bounce;
+
+/**
+ * A SlidingPolynomialFit finds the parameters of a polynomial BounceModel
+ * for a window that slides along the data one sample at a time.
+ * <p>
+ * The parameters are inverse(transpose(A)*A) * transpose(A)*data, where A is the
+ * model matrix. Only the moments transpose(A)*data depend on the data, and they
+ * are updated in constant time when the window moves by one sample: the first
+ * point is dropped, the next point is added and the moments are shifted to the
+ * new time origin with the binomial theorem. The moments are recomputed from
+ * scratch at regular intervals to limit the accumulation of rounding error.
+ */
+public class SlidingPolynomialFit {
+
+    private static final int resyncInterval = 32;
+
+    private final int num_data;
+    private final int num_params;
+    private final double[][] normalInverse;
+    private final double[][] moments;    // moments[j][dim] = sum over t of t^j * data[t][dim]
+    private final double[][] shifted;    // moments before shifting the time origin
+    private final long[][] binomial;
+    private int start = -1;    // subscript of the first point in the current window
+    private int index_step;
+    private int slides;
+
+    /**
+     * Constructs a SlidingPolynomialFit for a polynomial model.
+     *
+     * @param model the polynomial model
+     */
+    public SlidingPolynomialFit(BounceModel model) {
+        if (model.usesStep()) {
+            throw new IllegalArgumentException("Sliding fits require a polynomial model"); //$NON-NLS-1$
+        }
+        num_data = model.getNumData();
+        num_params = model.getDegree() + 1;
+        normalInverse = model.getNormalInverse();
+        moments = new double[num_params][2];
+        shifted = new double[num_params][2];
+        binomial = new long[num_params][num_params];
+        for (int j = 0; j < num_params; j++) {
+            binomial[j][0] = binomial[j][j] = 1;
+            for (int i = 1; i < j; i++) {
+                binomial[j][i] = binomial[j - 1][i - 1] + binomial[j - 1][i];
+            }
+        }
+    }
+
+    /**
+     * Finds the parameters for a window of (x,y) points. If the window follows
+     * the previous window by one sample, the moments are updated incrementally.
+     * The caller must ensure the window is in range and has no NaN data.
+     *
+     * @param xData      array of x values
+     * @param yData      array of y values
+     * @param start      subscript of first (x,y) pair for window
+     * @param index_step increment between subscripts for subsequent data points
+     * @return the parameters (numParams x 2)
+     */
+    public double[][] fit(double[] xData, double[] yData, int start, int index_step) {
+        if (this.start >= 0 && index_step == this.index_step
+                && start == this.start + index_step && slides < resyncInterval) {
+            slide(xData[this.start], yData[this.start],
+                    xData[start + (num_data - 1) * index_step],
+                    yData[start + (num_data - 1) * index_step]);
+            slides++;
+        } else {
+            reset(xData, yData, start, index_step);
+            slides = 0;
+        }
+        this.start = start;
+        this.index_step = index_step;
+
+        double[][] params = new double[num_params][2];
+        for (int k = 0; k < num_params; k++) {
+            for (int j = 0; j < num_params; j++) {
+                params[k][0] += normalInverse[k][j] * moments[j][0];
+                params[k][1] += normalInverse[k][j] * moments[j][1];
+            }
+        }
+        return params;
+    }
+
+    /**
+     * Forgets the current window so the next fit starts from scratch.
+     */
+    public void invalidate() {
+        start = -1;
+    }
+
+    /**
+     * Computes the moments of a window from scratch.
+     */
+    private void reset(double[] xData, double[] yData, int start, int index_step) {
+        for (int j = 0; j < num_params; j++) {
+            moments[j][0] = moments[j][1] = 0;
+        }
+        for (int t = 0; t < num_data; t++) {
+            double x = xData[start + index_step * t];
+            double y = yData[start + index_step * t];
+            double power = 1;
+            for (int j = 0; j < num_params; j++) {
+                moments[j][0] += power * x;
+                moments[j][1] += power * y;
+                power *= t;
+            }
+        }
+    }
+
+    /**
+     * Moves the window by one sample: drops the point at t=0, adds a point at
+     * t=num_data, then shifts the time origin by one.
+     */
+    private void slide(double xOut, double yOut, double xIn, double yIn) {
+        double power = 1;
+        for (int j = 0; j < num_params; j++) {
+            shifted[j][0] = moments[j][0] + power * xIn;
+            shifted[j][1] = moments[j][1] + power * yIn;
+            power *= num_data;
+        }
+        // only the zeroth power of t=0 is nonzero
+        shifted[0][0] -= xOut;
+        shifted[0][1] -= yOut;
+        // sum of (t-1)^j * data = sum over i of C(j,i) (-1)^(j-i) * shifted[i]
+        for (int j = 0; j < num_params; j++) {
+            double mx = 0, my = 0;
+            for (int i = 0; i <= j; i++) {
+                double coeff = ((j - i) % 2 == 0 ? 1 : -1) * binomial[j][i];
+                mx += coeff * shifted[i][0];
+                my += coeff * shifted[i][1];
+            }
+            moments[j][0] = mx;
+            moments[j][1] = my;
+        }
+    }
+}
@@ -140,7 +140,7 @@ public class Calibration extends TTrack {
         if (step == null) {
             step = new CalibrationStep(this, n, x, y);
             step.setFootprint(getFootprint());
-            steps = new StepArray(step);
+            steps = new StepArray(step, true);
         } else if (step.getPoints()[1] == null) {
             if (trackerPanel != null && trackerPanel.getSelectedPoint() == step.getPoints()[0]) {
                 trackerPanel.setSelectedPoint(null);
@@ -148,14 +148,9 @@ public class Calibration extends TTrack {
             }
             TPoint p = step.addSecondPoint(x, y); // may be null
             if (this.isFixedCoordinates()) {
-                steps = new StepArray(step);
+                steps = new StepArray(step, true);
             } else if (p != null) {
-                for (Step next : getSteps()) {
-                    if (next != null && next.getPoints()[1] == null) {
-                        CalibrationStep nextStep = (CalibrationStep) next;
-                        next.getPoints()[1] = nextStep.new Position(p.x, p.y);
-                    }
-                }
+                addSecondPoints(p);
             }
         } else if (trackerPanel != null) {
             TPoint p = trackerPanel.getSelectedPoint();
@@ -231,19 +226,14 @@ public class Calibration extends TTrack {
                 }
                 p = step.addSecondPoint(x, y);
                 if (this.isFixedCoordinates()) {
-                    steps = new StepArray(step);
+                    steps = new StepArray(step, true);
                 } else if (p != null) {
-                    for (Step next : getSteps()) {
-                        if (next != null && next.getPoints()[1] == null) {
-                            CalibrationStep nextStep = (CalibrationStep) next;
-                            next.getPoints()[1] = nextStep.new Position(p.x, p.y);
-                        }
-                    }
+                    addSecondPoints(p);
                 }
                 return step.getPoints()[index];
             }
             // both points exist, so move target point
-            Mark mark = step.marks.get(trackerPanel);
+            Mark mark = step.getCachedMark(trackerPanel);
             if (mark == null) {
                 double worldX = index == 0 ? step.worldX0 : step.worldX1;
                 double worldY = index == 0 ? step.worldY0 : step.worldY1;
@@ -343,7 +333,7 @@ public class Calibration extends TTrack {
             int n = trackerPanel.getFrameNumber();
             Step step = getStep(n);
             if (step != null) {
-                steps = new StepArray(getStep(n));
+                steps = new StepArray(getStep(n), true);
             }
             trackerPanel.repaint();
         }
@@ -557,6 +547,23 @@ public class Calibration extends TTrack {
         return list;
     }
 
+    /**
+     * Adds a second point at the specified position to every step that has
+     * only one, including the steps not yet cloned into their frames.
+     *
+     * @param p the position of the second point
+     */
+    private void addSecondPoints(TPoint p) {
+        ArrayList<Step> all = new ArrayList<>(Arrays.asList(getSteps()));
+        all.addAll(steps.getTemplates());
+        for (Step next : all) {
+            if (next != null && next.getPoints()[1] == null) {
+                CalibrationStep nextStep = (CalibrationStep) next;
+                next.getPoints()[1] = nextStep.new Position(p.x, p.y);
+            }
+        }
+    }
+
     /**
      * Refreshes a step by setting it equal to the previous keyframe step.
      *
@@ -564,11 +571,7 @@ public class Calibration extends TTrack {
      */
     protected void refreshStep(CalibrationStep step) {
         if (step == null) return;
-        int key = 0;
-        for (int i : keyFrames) {
-            if (i <= step.n)
-                key = i;
-        }
+        int key = getKeyFrame(step.n);
         // compare step with keyStep
         CalibrationStep keyStep = (CalibrationStep) steps.getStep(key);
         boolean different = keyStep.worldX0 != step.worldX0 || keyStep.worldY0 != step.worldY0
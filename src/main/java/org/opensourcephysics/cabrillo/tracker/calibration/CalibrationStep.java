@@ -114,7 +114,7 @@ public class CalibrationStep extends Step {
      * @return the mark
      */
     protected Mark getMark(TrackerPanel trackerPanel) {
-        Mark mark = marks.get(trackerPanel);
+        Mark mark = getCachedMark(trackerPanel);
         TPoint selection;
         if (mark == null) {
             ImageCoordSystem coords = trackerPanel.getCoords();
@@ -171,7 +171,7 @@ public class CalibrationStep extends Step {
                     return bounds;
                 }
             };
-            marks.put(trackerPanel, mark);
+            setCachedMark(trackerPanel, mark);
         }
         return mark;
     }
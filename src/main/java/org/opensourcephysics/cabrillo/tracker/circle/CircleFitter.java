@@ -33,6 +33,8 @@ import java.awt.datatransfer.StringSelection;
 import java.awt.event.*;
 import java.awt.geom.Point2D;
 import java.beans.PropertyChangeEvent;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import javax.swing.*;
 import javax.swing.border.Border;
@@ -63,6 +65,7 @@ import org.opensourcephysics.controls.*;
 public class CircleFitter extends TTrack {
 
     public static int maxDataPointCount = 50;
+    private static final int minParallelCount = 64; // fewer steps than this are fit serially
     public static String[] dataVariables;
     public static String[] fieldVariables; // associated with number fields
     public static String[] formatVariables; // used by NumberFormatSetter
@@ -512,7 +515,7 @@ public class CircleFitter extends TTrack {
     @Override
     public Step getStep(TPoint point, TrackerPanel trackerPanel) {
         if (point == null) return null;
-        Step[] stepArray = steps.array;
+        Step[] stepArray = steps.getSteps();
         for (Step step : stepArray) {
             if (step == null) continue;
             TPoint[] points = step.getPoints();
@@ -932,15 +935,11 @@ public class CircleFitter extends TTrack {
 
                 // refresh circles
                 CircleFitterStep.doRefresh = true;
-
-                for (int n : framesToRefresh) {
-                    if (abortRefreshAttachments) {
-                        refreshingAttachments = false;
-                        return;
-                    }
-                    CircleFitterStep step = (CircleFitterStep) steps.getStep(n);
-                    step.refreshCircle();
+                if (abortRefreshAttachments) {
+                    refreshingAttachments = false;
+                    return;
                 }
+                fitCircles(framesToRefresh);
 
                 TTrackBar.getTrackbar(trackerPanel).refresh();
                 repaint();
@@ -957,6 +956,72 @@ public class CircleFitter extends TTrack {
         new Thread(runner).start();
     }
 
+    /**
+     * Fits the circles in every step of the video clip, then fires a single
+     * "data" event. Steps are fit in parallel.
+     */
+    public void fitAllFrames() {
+        if (trackerPanel == null) return;
+        VideoClip clip = trackerPanel.getPlayer().getVideoClip();
+        TreeSet<Integer> frames = new TreeSet<>();
+        for (int i = 0; i < clip.getStepCount(); i++) {
+            frames.add(clip.stepToFrame(i));
+        }
+        fitCircles(frames);
+        repaint();
+        dataValid = false;
+        firePropertyChange("data", null, this); //$NON-NLS-1$
+    }
+
+    /**
+     * Fits the circles in the steps at specified frames and repaints or erases
+     * the steps that changed. The steps are fit in parallel on a worker pool
+     * when there are enough of them, with this thread waiting for the results.
+     *
+     * @param frames the frame numbers
+     */
+    protected void fitCircles(Collection<Integer> frames) {
+        // get the steps on this thread since the step array fills itself
+        ArrayList<CircleFitterStep> list = new ArrayList<>(frames.size());
+        for (int n : frames) {
+            CircleFitterStep step = (CircleFitterStep) steps.getStep(n);
+            if (step != null) list.add(step);
+        }
+        TPoint selected = trackerPanel == null ? null : trackerPanel.getSelectedPoint();
+        int size = list.size();
+        boolean[] changed = new boolean[size];
+        int threads = WorkerPool.getThreadCount();
+        if (size < minParallelCount || threads == 1) {
+            for (int i = 0; i < size; i++) {
+                changed[i] = list.get(i).fitCircle(selected);
+            }
+        } else {
+            // fit contiguous blocks of steps, several per thread to balance the load
+            int blockSize = Math.max(1, size / (4 * threads));
+            ArrayList<Future<?>> futures = new ArrayList<>();
+            for (int start = 0; start < size; start += blockSize) {
+                int first = start, last = Math.min(size, start + blockSize);
+                futures.add(WorkerPool.getExecutor().submit(() -> {
+                    for (int i = first; i < last; i++) {
+                        changed[i] = list.get(i).fitCircle(selected);
+                    }
+                }));
+            }
+            try {
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException ex) {
+                ex.printStackTrace();
+            }
+        }
+        for (int i = 0; i < size; i++) {
+            if (changed[i]) list.get(i).refreshDisplay();
+        }
+    }
+
     @Override
     public JMenu getMenu(TrackerPanel trackerPanel) {
         JMenu menu = super.getMenu(trackerPanel);
@@ -1331,13 +1396,7 @@ public class CircleFitter extends TTrack {
      * @return the key step
      */
     protected CircleFitterStep getKeyStep(CircleFitterStep step) {
-        int key = 0;
-        if (!this.isFixed()) {
-            for (int i : keyFrames) {
-                if (i <= step.n)
-                    key = i;
-            }
-        }
+        int key = isFixed() ? 0 : getKeyFrame(step.n);
         return (CircleFitterStep) steps.getStep(key);
     }
 
@@ -1393,7 +1452,7 @@ public class CircleFitter extends TTrack {
                 trackerPanel.getCoords().setOriginXY(i, pt.x, pt.y);
             }
         } else {
-            Step[] stepArray = steps.array;
+            Step[] stepArray = steps.getSteps();
             for (Step step : stepArray) {
                 if (step == null) continue;
                 CircleFitterStep circleStep = (CircleFitterStep) step;
@@ -65,6 +65,10 @@ public class CircleFitterStep extends Step {
     protected Map<TrackerPanel, Shape> centerHitShapes = new HashMap<>();
     protected ArrayList<Map<TrackerPanel, Shape>> pointHitShapes = new ArrayList<>();
     protected Shape selectedShape;
+    protected CircleMoments moments = new CircleMoments();
+    private int momentsGeneration; // data points counted in the moments are stamped with this
+    private DataPoint[] firstPoints = new DataPoint[3]; // first 3 valid points found by syncMoments
+    private double[] fitCenter = new double[2];
 
     /**
      * Constructs an empty CircleFitterStep.
@@ -107,6 +111,9 @@ public class CircleFitterStep extends Step {
         }
 
         // set the array element
+        if (dataPoints[column][row] != p) {
+            removeFromMoments(dataPoints[column][row]);
+        }
         dataPoints[column][row] = p;
         if (p == null && reduceArrayLengthIfNull) {
             DataPoint[] newPoints = new DataPoint[dataPoints[column].length - 1];
@@ -161,6 +168,7 @@ public class CircleFitterStep extends Step {
                 circleFitter.keyFrames.add(n);
             }
 
+            removeFromMoments(p);
             // make new array
             DataPoint[] newPoints = new DataPoint[dataPoints[0].length - 1];
             System.arraycopy(dataPoints[0], 0, newPoints, 0, index);
@@ -234,6 +242,7 @@ public class CircleFitterStep extends Step {
             System.arraycopy(dataPoints[1], 0, newPoints, 0, len);
             for (int i = len; i < dataPoints[1].length; i++) {
                 changed = changed || dataPoints[1][i] != null;
+                removeFromMoments(dataPoints[1][i]);
             }
             dataPoints[1] = newPoints;
         }
@@ -296,7 +305,7 @@ public class CircleFitterStep extends Step {
 
     @Override
     protected Mark getMark(TrackerPanel trackerPanel) {
-        Mark mark = marks.get(trackerPanel);
+        Mark mark = getCachedMark(trackerPanel);
         TPoint selection;
         if (mark == null) {
             selection = trackerPanel.getSelectedPoint();
@@ -353,7 +362,7 @@ public class CircleFitterStep extends Step {
                     }
                 };
             }
-            marks.put(trackerPanel, mark);
+            setCachedMark(trackerPanel, mark);
 
             // get new hit shapes
             Shape[] shapes = footprint.getHitShapes();
@@ -417,55 +426,131 @@ public class CircleFitterStep extends Step {
      * Refreshes the circle based on the current data points.
      */
     public void refreshCircle() {
+        TPoint selected = null;
+        if (circleFitter.trackerPanel != null) {
+            selected = circleFitter.trackerPanel.getSelectedPoint();
+        }
+        if (fitCircle(selected)) {
+            refreshDisplay();
+        }
+    }
+
+    /**
+     * Fits the circle to the current data points without repainting. This
+     * changes only this step and its data points, so different steps may be
+     * fit on different threads.
+     *
+     * @param selected the selected point, used to place the edge when there is no circle
+     * @return true if the circle changed
+     */
+    protected boolean fitCircle(TPoint selected) {
         double prevR = radius, prevX = center.x, prevY = center.y;
 
-        ArrayList<DataPoint> pts = getValidDataPoints();
-        int len = pts.size();
-        TPoint p = null;
+        int len = syncMoments();
+        DataPoint p0 = firstPoints[0], p1 = firstPoints[1], p2 = firstPoints[2];
         switch (len) {
             case 0:
                 break;
             case 1:
-                DataPoint p0 = pts.get(0);
                 center.setLocation(p0);
                 break;
             case 2:
-                p0 = pts.get(0);
-                DataPoint p1 = pts.get(1);
                 center.center(p0, p1);
                 edge.setLocation(p0);
                 break;
             case 3:
-                p0 = pts.get(0);
-                p1 = pts.get(1);
-                DataPoint p2 = pts.get(2);
                 refreshCircle(p0, p1, p2);
-                if (circleFitter.trackerPanel != null) {
-                    p = circleFitter.trackerPanel.getSelectedPoint();
-                }
-                edge.setLocation(p == p1 ? p1 : p == p2 ? p2 : p0);
+                edge.setLocation(selected == p1 ? p1 : selected == p2 ? p2 : p0);
                 break;
             default:
-                refreshCircle(pts);
+                refreshCircleFromMoments();
                 if (Double.isInfinite(radius) || radius > CircleFitterFootprint.MAX_RADIUS) {
-                    if (circleFitter.trackerPanel != null) {
-                        p = circleFitter.trackerPanel.getSelectedPoint();
-                    }
-                    p0 = pts.get(0);
-                    p1 = pts.get(1);
-                    p2 = pts.get(2);
-                    edge.setLocation(p == p1 ? p1 : p == p2 ? p2 : p0);
+                    edge.setLocation(selected == p1 ? p1 : selected == p2 ? p2 : p0);
                 } else {
                     edge.setLocation(center.x, center.y + radius);
                 }
         }
+        Arrays.fill(firstPoints, null);
+        return radius != prevR || center.x != prevX || center.y != prevY;
+    }
 
+    /**
+     * Repaints this step if visible, otherwise erases it.
+     */
+    protected void refreshDisplay() {
         boolean isVisible = circleFitter.trackerPanel != null && n == circleFitter.trackerPanel.getFrameNumber();
-        if (radius != prevR || center.x != prevX || center.y != prevY) {
-            if (isVisible) {
-                repaint();
-            } else erase();
+        if (isVisible) {
+            repaint();
+        } else erase();
+    }
+
+    /**
+     * Brings the moments up to date with the valid data points. Points that
+     * were added or moved since the last call are applied incrementally.
+     * Points removed other than by setDataPoint or removeDataPoint are
+     * detected by count, in which case the moments are rebuilt.
+     *
+     * @return the number of valid data points
+     */
+    private int syncMoments() {
+        if (moments.isStale()) {
+            resetMoments();
+        }
+        int len = syncPoints();
+        if (len != moments.getCount()) {
+            resetMoments();
+            len = syncPoints();
+        }
+        return len;
+    }
+
+    /**
+     * Adds new points to and moves changed points in the moments, and
+     * records the first 3 valid points.
+     *
+     * @return the number of valid data points
+     */
+    private int syncPoints() {
+        int len = 0;
+        for (DataPoint[] pts : dataPoints) {
+            for (DataPoint p : pts) {
+                if (p == null) continue;
+                if (len < firstPoints.length) {
+                    firstPoints[len] = p;
+                }
+                len++;
+                if (p.momentsGeneration != momentsGeneration) {
+                    moments.add(p.x, p.y);
+                    p.momentsGeneration = momentsGeneration;
+                } else if (p.momentX != p.x || p.momentY != p.y) {
+                    moments.move(p.momentX, p.momentY, p.x, p.y);
+                } else {
+                    continue;
+                }
+                p.momentX = p.x;
+                p.momentY = p.y;
+            }
         }
+        return len;
+    }
+
+    /**
+     * Clears the moments. All data points are added again by the next sync.
+     */
+    private void resetMoments() {
+        moments.clear();
+        momentsGeneration++;
+    }
+
+    /**
+     * Removes a data point from the moments if it has been counted.
+     *
+     * @param p the data point (may be null)
+     */
+    private void removeFromMoments(DataPoint p) {
+        if (p == null || p.momentsGeneration != momentsGeneration) return;
+        moments.remove(p.momentX, p.momentY);
+        p.momentsGeneration = -1;
     }
 
     /**
@@ -524,74 +609,28 @@ public class CircleFitterStep extends Step {
 
     /**
      * Refreshes the circle center and radius based on 4 or more points.
-     * Uses the Modified Least Squares method in closed form described in
-     * Dale Umbach & Kerry N. Jones, A Few Methods for Fitting Circles to Data,
-     * IEEE TRANSACTIONS ON INSTRUMENTATION AND MEASUREMENT, date unknown (2000?)
+     * The center is found from the moments in constant time and the
+     * radius is the mean distance of the points from the center.
      */
-    private void refreshCircle(ArrayList<DataPoint> pts) {
-        // check for colinear points
-        double[] deltax = new double[pts.size() - 1];
-        double[] deltay = new double[pts.size() - 1];
-        double[] slope = new double[pts.size() - 1];
-        DataPoint prev = null;
-        boolean allDeltaXZero = true, allSameSlope = true;
-        for (int i = 0; i < pts.size(); i++) {
-            DataPoint p = pts.get(i);
-            if (i == 0) {
-                prev = p;
-                continue;
-            }
-            deltax[i - 1] = p.x - prev.x;
-            deltay[i - 1] = p.y - prev.y;
-            slope[i - 1] = deltay[i - 1] / deltax[i - 1];
-            if (i > 1) {
-                allDeltaXZero = allDeltaXZero && deltax[i - 1] == deltax[i - 2];
-                allSameSlope = allSameSlope && slope[i - 1] == slope[i - 2];
-            }
-        }
-        if (allDeltaXZero || allSameSlope) {
+    private void refreshCircleFromMoments() {
+        if (!moments.getCenter(fitCenter)) {
             radius = Double.POSITIVE_INFINITY;
             return;
         }
-
-        // find center
-        double sumx = 0, sumy = 0, sumx2 = 0, sumy2 = 0, sumx3 = 0, sumy3 = 0, sumxy = 0, sumxy2 = 0, sumx2y = 0;
-        double val;
-        for (DataPoint p : pts) {
-            val = p.x;
-            sumx += val;
-            val *= p.x;
-            sumx2 += val;
-            val *= p.x;
-            sumx3 += val;
-            val = p.y;
-            sumy += val;
-            val *= p.y;
-            sumy2 += val;
-            val *= p.y;
-            sumy3 += val;
-            val = p.x * p.y;
-            sumxy += val;
-            sumxy2 += val * p.y;
-            sumx2y += val * p.x;
-        }
-        double n = pts.size();
-        double a = n * sumx2 - sumx * sumx;
-        double b = n * sumxy - sumx * sumy;
-        double c = n * sumy2 - sumy * sumy;
-        double d = 0.5 * (n * sumxy2 - sumx * sumy2 + n * sumx3 - sumx * sumx2);
-        double e = 0.5 * (n * sumx2y - sumy * sumx2 + n * sumy3 - sumy * sumy2);
-        double denom = a * c - b * b;
-        double x = (d * c - b * e) / denom; // center x-coordinate
-        double y = (a * e - b * d) / denom; // center y-coordinate
+        double x = fitCenter[0], y = fitCenter[1];
         center.setLocation(x, y);
 
         // find radius
         double r = 0, dx, dy;
-        for (DataPoint p : pts) {
-            dx = p.x - x;
-            dy = p.y - y;
-            r += Math.sqrt(dx * dx + dy * dy);
+        int n = 0;
+        for (DataPoint[] pts : dataPoints) {
+            for (DataPoint p : pts) {
+                if (p == null) continue;
+                dx = p.x - x;
+                dy = p.y - y;
+                r += Math.sqrt(dx * dx + dy * dy);
+                n++;
+            }
         }
         radius = r / n;
     }
@@ -608,6 +647,9 @@ public class CircleFitterStep extends Step {
             step.points[1] = step.edge = new TPoint(edge.getX(), edge.getY());
             step.circleHitShapes = new HashMap<>();
             step.pointHitShapes = new ArrayList<>();
+            step.moments = new CircleMoments();
+            step.firstPoints = new DataPoint[3];
+            step.fitCenter = new double[2];
             step.dataPoints = new DataPoint[2][0];
             step.dataPoints[0] = new DataPoint[dataPoints[0].length];
             for (int i = 0; i < dataPoints[0].length; i++) {
@@ -679,6 +721,10 @@ public class CircleFitterStep extends Step {
 
     class DataPoint extends TPoint {
 
+        // location last applied to the moments
+        private int momentsGeneration = -1;
+        private double momentX, momentY;
+
         /**
          * Constructs a DataPoint with specified image coordinates.
          *
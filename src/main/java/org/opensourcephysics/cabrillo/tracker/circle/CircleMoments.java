@@ -0,0 +1,165 @@
+/*
+ * The tracker package defines a set of video/image analysis tools
+ * built on the Open Source Physics framework by Wolfgang Christian.
+ *
+ * Copyright (c) 2018  Douglas Brown
+ *
+ * Tracker is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Tracker is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Tracker; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston MA 02111-1307 USA
+ * or view the license online at <http://www.gnu.org/copyleft/gpl.html>
+ *
+ * For additional Tracker information and documentation, please see
+ * <http://physlets.org/tracker/>.
+ */
+package org.opensourcephysics.cabrillo.tracker.circle;
+
+/**
+ * A CircleMoments keeps the running power sums of a set of points needed to
+ * find the center of a best-fit circle. Points are added, removed and moved
+ * in constant time, so the center can be found without summing all points
+ * again whenever a single point changes.
+ * <p>
+ * Sums are taken relative to the first point added to reduce round-off, and
+ * the number of incremental updates is counted so that callers can rebuild
+ * the sums from scratch before round-off accumulates.
+ */
+public class CircleMoments {
+
+    // static fields
+    private static final int maxUpdates = 1024; // incremental updates before a rebuild is advised
+
+    // instance fields
+    private int count, updates;
+    private double originX, originY;
+    private double sumx, sumy, sumx2, sumy2, sumxy, sumx3, sumy3, sumx2y, sumxy2;
+
+    /**
+     * Removes all points.
+     */
+    public void clear() {
+        count = updates = 0;
+        sumx = sumy = sumx2 = sumy2 = sumxy = sumx3 = sumy3 = sumx2y = sumxy2 = 0;
+    }
+
+    /**
+     * Gets the number of points.
+     *
+     * @return the point count
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Determines if enough incremental updates have been made that the sums
+     * should be rebuilt from scratch.
+     *
+     * @return true if a rebuild is advised
+     */
+    public boolean isStale() {
+        return updates > maxUpdates;
+    }
+
+    /**
+     * Adds a point.
+     *
+     * @param x the x coordinate
+     * @param y the y coordinate
+     */
+    public void add(double x, double y) {
+        if (count == 0) {
+            clear();
+            originX = x;
+            originY = y;
+        }
+        accumulate(x - originX, y - originY, 1);
+        count++;
+    }
+
+    /**
+     * Removes a point previously added with the same coordinates.
+     *
+     * @param x the x coordinate
+     * @param y the y coordinate
+     */
+    public void remove(double x, double y) {
+        if (count <= 1) {
+            clear();
+            return;
+        }
+        accumulate(x - originX, y - originY, -1);
+        count--;
+        updates++;
+    }
+
+    /**
+     * Moves a point previously added.
+     *
+     * @param prevX the previous x coordinate
+     * @param prevY the previous y coordinate
+     * @param x     the new x coordinate
+     * @param y     the new y coordinate
+     */
+    public void move(double prevX, double prevY, double x, double y) {
+        if (prevX == x && prevY == y) return;
+        accumulate(prevX - originX, prevY - originY, -1);
+        accumulate(x - originX, y - originY, 1);
+        updates++;
+    }
+
+    /**
+     * Finds the center of the best-fit circle using the Modified Least Squares
+     * method in closed form described in Dale Umbach & Kerry N. Jones, A Few
+     * Methods for Fitting Circles to Data, IEEE TRANSACTIONS ON INSTRUMENTATION
+     * AND MEASUREMENT.
+     *
+     * @param center a double[2] to receive the center coordinates
+     * @return false if there are fewer than 3 points or all points are colinear
+     */
+    public boolean getCenter(double[] center) {
+        if (count < 3) return false;
+        double n = count;
+        double a = n * sumx2 - sumx * sumx;
+        double b = n * sumxy - sumx * sumy;
+        double c = n * sumy2 - sumy * sumy;
+        double d = 0.5 * (n * sumxy2 - sumx * sumy2 + n * sumx3 - sumx * sumx2);
+        double e = 0.5 * (n * sumx2y - sumy * sumx2 + n * sumy3 - sumy * sumy2);
+        double denom = a * c - b * b;
+        // denom is zero (to within round-off) only when the points are colinear
+        if (!(denom > 1.0E-12 * a * c)) return false;
+        center[0] = originX + (d * c - b * e) / denom;
+        center[1] = originY + (a * e - b * d) / denom;
+        return true;
+    }
+
+    /**
+     * Adds or subtracts the powers of a point relative to the origin.
+     *
+     * @param x    the relative x coordinate
+     * @param y    the relative y coordinate
+     * @param sign 1 to add, -1 to subtract
+     */
+    private void accumulate(double x, double y, int sign) {
+        double x2 = x * x, y2 = y * y, xy = x * y;
+        sumx += sign * x;
+        sumy += sign * y;
+        sumx2 += sign * x2;
+        sumy2 += sign * y2;
+        sumxy += sign * xy;
+        sumx3 += sign * x2 * x;
+        sumy3 += sign * y2 * y;
+        sumx2y += sign * xy * x;
+        sumxy2 += sign * xy * y;
+    }
+}
@@ -117,7 +117,9 @@ public class ReferenceFrame extends ImageCoordSystem implements PropertyChangeLi
      */
     public void propertyChange(PropertyChangeEvent e) {
         String name = e.getPropertyName();
-        if (name.equals("step") || name.equals("steps")) // from PointMass //$NON-NLS-1$ //$NON-NLS-2$
+        if (name.equals("step") && e.getNewValue() instanceof Integer) // from PointMass //$NON-NLS-1$
+            setOrigins((Integer) e.getNewValue());
+        else if (name.equals("step") || name.equals("steps")) // from PointMass //$NON-NLS-1$ //$NON-NLS-2$
             setOrigins();
         else if (name.equals("transform")) {  // from ImageCoordSystem //$NON-NLS-1$
             Integer integer = (Integer) e.getNewValue();
@@ -195,4 +197,49 @@ public class ReferenceFrame extends ImageCoordSystem implements PropertyChangeLi
         support.firePropertyChange("transform", null, null); //$NON-NLS-1$
     }
 
+    /**
+     * Sets the origins affected by a change to the origin track step at a
+     * single frame. Each origin is the position of the latest origin step at
+     * or before its frame, so only the frames up to the next origin step
+     * change, plus any frames before the first origin step. This fires a
+     * "transform" event with the affected {start, end} frame range.
+     *
+     * @param frameNumber the frame number of the changed step
+     */
+    public void setOrigins(int frameNumber) {
+        int length = coords.getLength();
+        if (frameNumber < 0 || frameNumber >= length) {
+            setOrigins();
+            return;
+        }
+        // find the neighboring origin steps
+        int prev = originTrack.steps.prevStepIndex(frameNumber - 1);
+        int next = originTrack.steps.nextStepIndex(frameNumber + 1);
+        int start = prev < 0 ? 0 : frameNumber;
+        int end = next < 0 ? length - 1 : Math.min(next, length) - 1;
+        // find starting origin position
+        double x = coords.getOriginX(0); // in case origin is empty
+        double y = coords.getOriginY(0);
+        int first = prev > -1 ? prev : originTrack.steps.nextStepIndex(start);
+        Step step = first < 0 ? null : originTrack.getStep(first);
+        if (step != null) {
+            TPoint p = ((PositionStep) step).getPosition();
+            x = p.getX();
+            y = p.getY();
+        }
+        // set coord system origins in the affected range
+        firePropChange = false;
+        for (int n = start; n <= end; n++) {
+            step = originTrack.getStep(n);
+            if (step != null) {
+                TPoint p = ((PositionStep) step).getPosition();
+                x = p.getX();
+                y = p.getY();
+            }
+            setOriginXY(n, x, y);
+        }
+        firePropChange = true;
+        support.firePropertyChange("transform", null, new int[]{start, end}); //$NON-NLS-1$
+    }
+
 }
@@ -36,6 +36,7 @@ import javax.swing.Timer;
 import javax.swing.border.*;
 import javax.swing.event.*;
 
+import org.opensourcephysics.cabrillo.tracker.step.MarkStore;
 import org.opensourcephysics.cabrillo.tracker.step.Step;
 import org.opensourcephysics.cabrillo.tracker.step.StepArray;
 import org.opensourcephysics.cabrillo.tracker.Undo;
@@ -144,6 +145,10 @@ public abstract class TTrack implements Interactive, Trackable, PropertyChangeLi
     protected String[] dataDescriptions;
     public boolean dataValid; // true if data is valid
     protected boolean refreshDataLater;
+    protected int dirtyStartFrame = -1, dirtyEndFrame = -1; // frames awaiting incremental data refresh
+    protected int dataRevision; // incremented whenever the data is refreshed
+    protected int changeCount; // incremented by every property change this track fires
+    protected int changedRowStart = -1, changedRowEnd = -1; // rows changed by the last refresh, -1 if all
     protected int[] preferredColumnOrder;
     protected ArrayList<Integer> dataFrames = new ArrayList<>();
     protected String partName, hint;
@@ -152,6 +157,7 @@ public abstract class TTrack implements Interactive, Trackable, PropertyChangeLi
     // for autotracking
     public boolean autoTrackerMarking;
     protected int targetIndex;
+    protected boolean stepEventsSuspended; // true to drop "step" events during batch marking
     // attached tracks--used by AttachmentDialog with TapeMeasure, Protractor and CircleFitter tracks
     public TTrack[] attachments;
     protected String[] attachmentNames; // used when loading attachments
@@ -172,7 +178,21 @@ public abstract class TTrack implements Interactive, Trackable, PropertyChangeLi
      */
     protected TTrack() {
         ID = nextID++;
-        support = new SwingPropertyChangeSupport(this);
+        support = new PropertyChangeSupport(this) {
+            @Override
+            public void firePropertyChange(PropertyChangeEvent e) {
+                changeCount++;
+                if (stepEventsSuspended && "step".equals(e.getPropertyName())) //$NON-NLS-1$
+                    return;
+                if ("data".equals(e.getPropertyName()) //$NON-NLS-1$
+                        && dataValid && dirtyStartFrame < 0) {
+                    // data was refreshed directly rather than by getData()
+                    dataRevision++;
+                    changedRowStart = changedRowEnd = -1;
+                }
+                super.firePropertyChange(e);
+            }
+        };
         // create toolbar components
         stepLabel = new JLabel();
         stepLabel.setBorder(BorderFactory.createEmptyBorder(0, 4, 0, 0));
@@ -869,10 +889,12 @@ public abstract class TTrack implements Interactive, Trackable, PropertyChangeLi
                 if (footprint instanceof CircleFootprint) {
                     ((CircleFootprint) footprint).setProperties(props);
                 }
-                Step[] stepArray = steps.array;
+                Step[] stepArray = steps.getSteps();
                 for (Step step : stepArray)
                     if (step != null)
                         step.setFootprint(footprint);
+                for (Step step : steps.getTemplates())
+                    step.setFootprint(footprint);
                 repaint();
                 if (trackerPanel != null) {
                     trackerPanel.changed = true;
@@ -1076,7 +1098,7 @@ public abstract class TTrack implements Interactive, Trackable, PropertyChangeLi
      */
     public Step getStep(TPoint point, TrackerPanel trackerPanel) {
         if (point == null) return null;
-        Step[] stepArray = steps.array;
+        Step[] stepArray = steps.getSteps();
         for (Step step : stepArray)
             if (step != null) {
                 TPoint[] points = step.getPoints();
@@ -1091,7 +1113,7 @@ public abstract class TTrack implements Interactive, Trackable, PropertyChangeLi
      * @return the step array
      */
     public Step[] getSteps() {
-        return steps.array;
+        return steps.getSteps();
     }
 
     /**
@@ -1210,7 +1232,7 @@ public abstract class TTrack implements Interactive, Trackable, PropertyChangeLi
      * @return <code>true</code> if this contains no steps
      */
     public boolean isEmpty() {
-        Step[] array = steps.array;
+        Step[] array = steps.getSteps();
         for (Step step : array) if (step != null) return false;
         return true;
     }
@@ -1252,6 +1274,9 @@ public abstract class TTrack implements Interactive, Trackable, PropertyChangeLi
             return data;
         if (!dataValid) {
             dataValid = true;
+            dirtyStartFrame = dirtyEndFrame = -1;
+            dataRevision++;
+            changedRowStart = changedRowEnd = -1;
             // refresh track data
             refreshData(data, trackerPanel);
             // check for newly loaded dataFunctions
@@ -1283,22 +1308,106 @@ public abstract class TTrack implements Interactive, Trackable, PropertyChangeLi
                 }
                 constantsLoadedFromXML = null;
             }
-            // refresh dataFunctions
-            ArrayList<Dataset> datasets = data.getDatasets();
-            for (Dataset dataset : datasets) {
-                if (dataset instanceof DataFunction) {
-                    ((DataFunction) dataset).refreshFunctionData();
-                }
-            }
-            DataTool tool = DataTool.getTool();
-            if (trackerPanel != null && tool.isVisible()
-                    && tool.getSelectedTab() != null && tool.getSelectedTab().isInterestedIn(data)) {
-                tool.getSelectedTab().refreshData();
-            }
+            refreshDataFunctions(trackerPanel);
+        } else if (dirtyStartFrame > -1) {
+            int startFrame = dirtyStartFrame;
+            int endFrame = dirtyEndFrame;
+            dirtyStartFrame = dirtyEndFrame = -1;
+            dataRevision++;
+            changedRowStart = changedRowEnd = -1;
+            // refresh only the data affected by the dirty frames
+            refreshData(data, trackerPanel, startFrame, endFrame);
+            refreshDataFunctions(trackerPanel);
         }
         return data;
     }
 
+    /**
+     * Marks the data of a single frame invalid. If the data is otherwise valid,
+     * the frame is added to a dirty frame range that is refreshed incrementally
+     * by the next call to getData().
+     *
+     * @param frameNumber the frame number
+     */
+    public void invalidateData(int frameNumber) {
+        if (frameNumber < 0) {
+            dataValid = false;
+            return;
+        }
+        // if a full refresh is already pending there is nothing more to do
+        if (!dataValid) return;
+        if (dirtyStartFrame < 0) {
+            dirtyStartFrame = dirtyEndFrame = frameNumber;
+        } else {
+            dirtyStartFrame = Math.min(dirtyStartFrame, frameNumber);
+            dirtyEndFrame = Math.max(dirtyEndFrame, frameNumber);
+        }
+    }
+
+    /**
+     * Gets the data revision. This is incremented each time getData() refreshes
+     * the data, and when a "data" event reports data that was refreshed directly,
+     * so views can tell whether the data changed since they last read it.
+     *
+     * @return the data revision
+     */
+    public int getDataRevision() {
+        return dataRevision;
+    }
+
+    /**
+     * Gets the change count. This is incremented by every property change
+     * this track fires, so cached drawings of the track can tell whether the
+     * track may have changed since they were drawn.
+     *
+     * @return the change count
+     */
+    public int getChangeCount() {
+        return changeCount;
+    }
+
+    /**
+     * Gets the range of data rows changed by the latest refresh.
+     *
+     * @return {first row, last row}, or null if all rows may have changed
+     */
+    public int[] getChangedDataRows() {
+        if (changedRowStart < 0) return null;
+        return new int[]{changedRowStart, changedRowEnd};
+    }
+
+    /**
+     * Records the range of data rows changed by an incremental refresh.
+     * Subclasses that patch only some rows should call this from
+     * refreshData(data, trackerPanel, startFrame, endFrame).
+     *
+     * @param first the first changed row
+     * @param last  the last changed row
+     */
+    protected void setChangedDataRows(int first, int last) {
+        changedRowStart = first;
+        changedRowEnd = last;
+    }
+
+    /**
+     * Refreshes the data functions and the DataTool tab (if any) interested in the data.
+     *
+     * @param trackerPanel the tracker panel
+     */
+    private void refreshDataFunctions(TrackerPanel trackerPanel) {
+        ArrayList<Dataset> datasets = data.getDatasets();
+        for (Dataset dataset : datasets) {
+            if (dataset instanceof DataFunction) {
+                ((DataFunction) dataset).refreshFunctionData();
+            }
+        }
+        DataTool tool = DataTool.getTool();
+        if (trackerPanel != null && tool.isVisible()
+                && tool.getSelectedTab() != null && tool.getSelectedTab().isInterestedIn(data)) {
+            tool.getSelectedTab().refreshData();
+        }
+    }
+
     /**
      * Refreshes the data in the specified DatasetManager. Subclasses should use this
      * method to refresh track-specific data sets.
@@ -1322,6 +1431,21 @@ public abstract class TTrack implements Interactive, Trackable, PropertyChangeLi
         refreshData(data, trackerPanel);
     }
 
+    /**
+     * Refreshes the data affected by changes to the steps in a specified frame range.
+     * This default implementation refreshes all data. Subclasses may override to
+     * patch only the affected rows of the existing datasets.
+     *
+     * @param data         the DatasetManager
+     * @param trackerPanel the tracker panel
+     * @param startFrame   the first changed frame
+     * @param endFrame     the last changed frame
+     */
+    protected void refreshData(DatasetManager data, TrackerPanel trackerPanel,
+                               int startFrame, int endFrame) {
+        refreshData(data, trackerPanel);
+    }
+
     /**
      * Gets the name of a data variable. Index zero is the
      * shared x-variable, indices 1-n+1 are the y-variables.
@@ -1460,6 +1584,30 @@ public abstract class TTrack implements Interactive, Trackable, PropertyChangeLi
         return numberFields;
     }
 
+    /**
+     * Gets the key frame that governs the specified frame. This is the last
+     * position key frame at or before the frame, or 0 if none.
+     *
+     * @param n the frame number
+     * @return the key frame number
+     */
+    public int getKeyFrame(int n) {
+        return getKeyFrame(keyFrames, n);
+    }
+
+    /**
+     * Gets the last key frame at or before the specified frame, or 0 if none.
+     * Key frame sets are sorted so this is a floor lookup rather than a scan.
+     *
+     * @param keys the key frames
+     * @param n    the frame number
+     * @return the key frame number
+     */
+    public static int getKeyFrame(NavigableSet<Integer> keys, int n) {
+        Integer key = keys.floor(n);
+        return key == null ? 0 : key;
+    }
+
     /**
      * Gets a list of data variables for a given track type.
      *
@@ -2105,7 +2253,7 @@ public abstract class TTrack implements Interactive, Trackable, PropertyChangeLi
      * Erases all steps on all panels.
      */
     public void erase() {
-        Step[] stepArray = steps.array;
+        Step[] stepArray = steps.getSteps();
         for (Step step : stepArray) if (step != null) step.erase();
         if (trackerPanel != null && trackerPanel.autoTracker != null) {
             AutoTracker autoTracker = trackerPanel.getAutoTracker();
@@ -2116,11 +2264,27 @@ public abstract class TTrack implements Interactive, Trackable, PropertyChangeLi
         }
     }
 
+    /**
+     * Invalidates the marks of all steps on all panels at once, without
+     * adding their bounds to the dirty regions. Use this instead of erase()
+     * when the panels are about to be repainted in full.
+     */
+    public void invalidateMarks() {
+        steps.getMarkStore().invalidate();
+        if (trackerPanel != null && trackerPanel.autoTracker != null) {
+            AutoTracker autoTracker = trackerPanel.getAutoTracker();
+            if (autoTracker.getWizard().isVisible()
+                    && autoTracker.getTrack() == this) {
+                autoTracker.erase();
+            }
+        }
+    }
+
     /**
      * Remarks all steps on all panels.
      */
     public void remark() {
-        Step[] stepArray = steps.array;
+        Step[] stepArray = steps.getSteps();
         for (Step step : stepArray) if (step != null) step.remark();
     }
 
@@ -2140,7 +2304,7 @@ public abstract class TTrack implements Interactive, Trackable, PropertyChangeLi
      * @param trackerPanel the tracker panel
      */
     public void erase(TrackerPanel trackerPanel) {
-        Step[] stepArray = steps.array;
+        Step[] stepArray = steps.getSteps();
         for (Step step : stepArray) if (step != null) step.erase(trackerPanel);
         if (trackerPanel.autoTracker != null) {
             AutoTracker autoTracker = trackerPanel.getAutoTracker();
@@ -2157,7 +2321,7 @@ public abstract class TTrack implements Interactive, Trackable, PropertyChangeLi
      * @param trackerPanel the tracker panel
      */
     public void remark(TrackerPanel trackerPanel) {
-        Step[] stepArray = steps.array;
+        Step[] stepArray = steps.getSteps();
         for (Step step : stepArray) if (step != null) step.remark(trackerPanel);
     }
 
@@ -2199,7 +2363,7 @@ public abstract class TTrack implements Interactive, Trackable, PropertyChangeLi
         int stepSize = trackerPanel.getPlayer().getVideoClip().getStepSize();
         if (trailVisible) {
             boolean shortTrail = getTrailLength() > 0;
-            Step[] stepArray = steps.array;
+            Step[] stepArray = steps.getSteps();
             for (int frame = 0; frame < stepArray.length; frame++) {
                 if (shortTrail && (n - frame > (getTrailLength() - 1) * stepSize || frame > n))
                     continue;
@@ -2229,13 +2393,11 @@ public abstract class TTrack implements Interactive, Trackable, PropertyChangeLi
         TrackerPanel trackerPanel = (TrackerPanel) panel;
         Interactive iad;
         int n = trackerPanel.getFrameNumber();
-        int stepSize = trackerPanel.getPlayer().getVideoClip().getStepSize();
         if (trailVisible) {
-            boolean shortTrail = getTrailLength() > 0;
-            Step[] stepArray = steps.array;
-            for (int frame = 0; frame < stepArray.length; frame++) {
-                if (shortTrail && (n - frame > (getTrailLength() - 1) * stepSize || frame > n))
-                    continue;
+            Step[] stepArray = steps.getSteps();
+            BitSet hitFrames = getHitFrames(trackerPanel, xpix, ypix, steps.getMarkStore());
+            for (int frame = hitFrames.nextSetBit(0); frame > -1 && frame < stepArray.length;
+                 frame = hitFrames.nextSetBit(frame + 1)) {
                 if (stepArray[frame] != null &&
                         trackerPanel.getPlayer().getVideoClip().includesFrame(frame)) {
                     iad = stepArray[frame].findInteractive(trackerPanel, xpix, ypix);
@@ -2254,6 +2416,33 @@ public abstract class TTrack implements Interactive, Trackable, PropertyChangeLi
     }
 
 
+    /**
+     * Gets the trail frames whose steps may be hit at a screen position. Marks
+     * cached in the specified stores are looked up in their spatial indexes, and
+     * steps with no valid cached mark are always included.
+     *
+     * @param trackerPanel the tracker panel
+     * @param xpix         the x pixel position
+     * @param ypix         the y pixel position
+     * @param stores       the mark stores of the steps to hit-test
+     * @return the candidate frames
+     */
+    protected BitSet getHitFrames(TrackerPanel trackerPanel, int xpix, int ypix, MarkStore... stores) {
+        int n = trackerPanel.getFrameNumber();
+        int stepSize = trackerPanel.getPlayer().getVideoClip().getStepSize();
+        int first = 0, last = Integer.MAX_VALUE - 1;
+        if (getTrailLength() > 0) {
+            first = Math.max(0, n - (getTrailLength() - 1) * stepSize);
+            last = n;
+        }
+        BitSet frames = steps.getStepFrames(first, last);
+        BitSet hitFrames = new BitSet();
+        for (MarkStore store : stores) {
+            store.addHitCandidates(trackerPanel, xpix, ypix, frames, hitFrames);
+        }
+        return hitFrames;
+    }
+
     /**
      * Gets x. Tracks have no meaningful position, so returns 0.
      *
@@ -2448,11 +2637,11 @@ public abstract class TTrack implements Interactive, Trackable, PropertyChangeLi
                     if (!(this instanceof PointMass)) {
                         dataValid = false;
                     }
-                    erase();
+                    invalidateMarks();
                     trackerPanel.repaint();
                     break;
                 case "magnification":  //$NON-NLS-1$
-                    erase();
+                    invalidateMarks();
                     trackerPanel.repaint();
                     break;
                 case "imagespace":
@@ -2469,6 +2658,17 @@ public abstract class TTrack implements Interactive, Trackable, PropertyChangeLi
         }
     }
 
+    /**
+     * Suspends or resumes "step" property change events. Used when many steps
+     * are marked at once: the caller is responsible for firing a single "step"
+     * or "steps" event covering the marked frames when the batch is complete.
+     *
+     * @param suspend true to suspend "step" events
+     */
+    public void setStepEventsSuspended(boolean suspend) {
+        stepEventsSuspended = suspend;
+    }
+
     /**
      * Adds a PropertyChangeListener.
      *
@@ -2566,7 +2766,7 @@ public abstract class TTrack implements Interactive, Trackable, PropertyChangeLi
         // then convert it into world units
         bounds = new double[4];
         Rectangle2D rect = new Rectangle2D.Double();
-        Step[] array = steps.array;
+        Step[] array = steps.getSteps();
         for (Step step : array) {
             if (step != null) {
                 TPoint[] points = step.getPoints();
@@ -2620,7 +2820,7 @@ public abstract class TTrack implements Interactive, Trackable, PropertyChangeLi
         }
         attachments = null;
         attachmentNames = null;
-        for (Step step : steps.array) {
+        for (Step step : steps.getSteps()) {
             if (step != null) {
                 step.dispose();
             }
@@ -82,7 +82,9 @@ public class TableTrackView extends TrackView {
     protected Set<String> textColumnsVisible = new TreeSet<>();
     private JButton columnsButton, gapsButton;
     private JPanel columnsPanel;
-    private DatasetManager tableData;
+    private TrackTableModel tableModel;
+    private ArrayList<Object> tableStructure;
+    private int tableRowCount, tableDataRevision;
     private JPopupMenu popup;
     protected JMenu textColumnMenu, deleteTextColumnMenu, renameTextColumnMenu;
     protected JMenuItem createTextColumnItem;
@@ -126,9 +128,8 @@ public class TableTrackView extends TrackView {
         textColumnEditor = new TextColumnEditor();
         dataTable = new TrackDataTable();
         data = track.getData(trackerPanel);
-        tableData = new DatasetManager();
-        tableData.setXPointsLinked(true);
-        dataTable.add(tableData);
+        tableModel = new TrackTableModel();
+        dataTable.add(tableModel);
         TextColumnTableModel textColumnModel = new TextColumnTableModel();
         dataTable.add(textColumnModel);
         setViewportView(dataTable);
@@ -204,7 +205,10 @@ public class TableTrackView extends TrackView {
     }
 
     /**
-     * Refreshes this view.
+     * Refreshes this view. The table reads directly from the track datasets,
+     * so the table structure is rebuilt only when the selected columns or
+     * row count change. Otherwise only the visible rows changed by the
+     * latest data refresh are repainted.
      *
      * @param frameNumber the frame number
      */
@@ -216,88 +220,37 @@ public class TableTrackView extends TrackView {
         TTrack track = getTrack();
         try {
             track.getData(trackerPanel);
-            // copy datasets into table data based on checkbox states
-            tableData.clear();
-            int colCount = 0;
             ArrayList<Dataset> datasets = data.getDatasets();
-            dataTable.setUnits(datasets.get(0).getXColumnName(), "", track.getDataDescription(0)); //$NON-NLS-1$
+            boolean degrees = trackerPanel.getTFrame() != null
+                    && !trackerPanel.getTFrame().anglesInRadians;
+            // identify the table structure by its datasets and column names
+            ArrayList<Object> structure = new ArrayList<>();
+            structure.add(degrees);
+            structure.add(datasets.get(0));
+            structure.add(datasets.get(0).getXColumnName());
+            structure.add(new TreeSet<>(textColumnsVisible));
             int count = datasets.size();
             for (int i = 0; i < count; i++) {
                 if (checkBoxes[i].isSelected()) {
-                    Dataset in = datasets.get(i);
-                    String xTitle = in.getXColumnName();
-                    String yTitle = in.getYColumnName();
-                    boolean yIsAngle = yTitle.startsWith(Tracker.THETA)
-                            || yTitle.startsWith(Tracker.OMEGA)
-                            || yTitle.startsWith(Tracker.ALPHA);
-                    boolean degrees = trackerPanel.getTFrame() != null
-                            && !trackerPanel.getTFrame().anglesInRadians;
-                    Dataset local = tableData.getDataset(colCount++);
-                    double[] yPoints = in.getYPoints();
-                    String tooltip = track.getDataDescription(i + 1) + " "; //$NON-NLS-1$
-                    String units = ""; //$NON-NLS-1$
-                    if (yIsAngle) { // angle columns
-                        if (yTitle.startsWith(Tracker.THETA)) {
-                            if (degrees) {
-                                units = Tracker.DEGREES;
-                                tooltip += TrackerRes.getString("TableTrackView.Degrees.Tooltip"); //$NON-NLS-1$
-                            } else {
-                                tooltip += TrackerRes.getString("TableTrackView.Radians.Tooltip"); //$NON-NLS-1$
-                            }
-                        } else if (yTitle.startsWith(Tracker.OMEGA)) {
-                            if (degrees) {
-                                tooltip += TrackerRes.getString("TableTrackView.DegreesPerSecond.Tooltip"); //$NON-NLS-1$
-                            } else {
-                                tooltip += TrackerRes.getString("TableTrackView.RadiansPerSecond.Tooltip"); //$NON-NLS-1$
-                            }
-                        } else if (yTitle.startsWith(Tracker.ALPHA)) {
-                            if (degrees) {
-                                tooltip += TrackerRes.getString("TableTrackView.DegreesPerSecondSquared.Tooltip"); //$NON-NLS-1$
-                            } else {
-                                tooltip += TrackerRes.getString("TableTrackView.RadiansPerSecondSquared.Tooltip"); //$NON-NLS-1$
-                            }
-                        }
-                        TableCellRenderer precisionRenderer = dataTable.getPrecisionRenderer(yTitle);
-                        if (degrees) {
-                            // convert values from radians to degrees
-                            for (int k = 0; k < yPoints.length; k++) {
-                                if (!Double.isNaN(yPoints[k])) {
-                                    yPoints[k] *= 180 / Math.PI;
-                                }
-                            }
-                            // set default degrees precision
-                            if (precisionRenderer == null) {
-                                dataTable.setFormatPattern(yTitle, NumberField.DECIMAL_1_PATTERN);
-                                degreeRenderers.put(yTitle, dataTable.getPrecisionRenderer(yTitle));
-                            }
-                        } else if (precisionRenderer != null) { // radians display
-                            if (precisionRenderer == degreeRenderers.get(yTitle)) {
-                                dataTable.setFormatPattern(yTitle, null);
-                                degreeRenderers.remove(yTitle);
-                            }
-                        }
-                    }
-                    if ("".equals(tooltip.trim())) tooltip = ""; //$NON-NLS-1$ //$NON-NLS-2$
-                    dataTable.setUnits(yTitle, units, tooltip);
-                    local.append(in.getXPoints(), yPoints);
-                    local.setXYColumnNames(xTitle, yTitle);
-                    local.setYColumnVisible(true);
+                    structure.add(datasets.get(i));
+                    structure.add(datasets.get(i).getYColumnName());
                 }
             }
-            for (int i = colCount; i < tableData.getDatasets().size(); i++) {
-                tableData.setYColumnVisible(i, false);
-            }
-            if (colCount == 0) {
-                // show independent variable
-                Dataset in = datasets.get(0);
-                String xTitle = in.getXColumnName();
-                Dataset local = tableData.getDataset(colCount++);
-                double[] x = in.getXPoints();
-                local.append(x, x);
-                local.setXYColumnNames(xTitle, xTitle);
-                local.setYColumnVisible(false);
+            boolean structureChanged = !structure.equals(tableStructure);
+            if (structureChanged) {
+                refreshColumns(datasets, degrees);
+                tableStructure = structure;
+            }
+            SortDecorator decorator = (SortDecorator) dataTable.getModel();
+            int rowCount = tableModel.getRowCount();
+            if (!refreshed || structureChanged || rowCount != tableRowCount
+                    || decorator.getSortedColumn() > 0) {
+                dataTable.refreshTable();
+                tableRowCount = rowCount;
+                tableDataRevision = track.getDataRevision();
+            } else {
+                repaintChangedRows(track);
             }
-            dataTable.refreshTable();
             refreshed = true;
         } catch (Exception e) {
             e.printStackTrace();
@@ -315,6 +268,100 @@ public class TableTrackView extends TrackView {
         setHighlighted(highlightFrames);
     }
 
+    /**
+     * Sets the table model columns and refreshes their units, tooltips
+     * and angle formats based on the checkbox states.
+     *
+     * @param datasets the track datasets
+     * @param degrees  true if angles are displayed in degrees
+     */
+    private void refreshColumns(ArrayList<Dataset> datasets, boolean degrees) {
+        TTrack track = getTrack();
+        dataTable.setUnits(datasets.get(0).getXColumnName(), "", track.getDataDescription(0)); //$NON-NLS-1$
+        ArrayList<Dataset> columns = new ArrayList<>();
+        ArrayList<Boolean> angles = new ArrayList<>();
+        int count = datasets.size();
+        for (int i = 0; i < count; i++) {
+            if (checkBoxes[i].isSelected()) {
+                Dataset in = datasets.get(i);
+                String yTitle = in.getYColumnName();
+                boolean yIsAngle = yTitle.startsWith(Tracker.THETA)
+                        || yTitle.startsWith(Tracker.OMEGA)
+                        || yTitle.startsWith(Tracker.ALPHA);
+                String tooltip = track.getDataDescription(i + 1) + " "; //$NON-NLS-1$
+                String units = ""; //$NON-NLS-1$
+                if (yIsAngle) { // angle columns
+                    if (yTitle.startsWith(Tracker.THETA)) {
+                        if (degrees) {
+                            units = Tracker.DEGREES;
+                            tooltip += TrackerRes.getString("TableTrackView.Degrees.Tooltip"); //$NON-NLS-1$
+                        } else {
+                            tooltip += TrackerRes.getString("TableTrackView.Radians.Tooltip"); //$NON-NLS-1$
+                        }
+                    } else if (yTitle.startsWith(Tracker.OMEGA)) {
+                        if (degrees) {
+                            tooltip += TrackerRes.getString("TableTrackView.DegreesPerSecond.Tooltip"); //$NON-NLS-1$
+                        } else {
+                            tooltip += TrackerRes.getString("TableTrackView.RadiansPerSecond.Tooltip"); //$NON-NLS-1$
+                        }
+                    } else if (yTitle.startsWith(Tracker.ALPHA)) {
+                        if (degrees) {
+                            tooltip += TrackerRes.getString("TableTrackView.DegreesPerSecondSquared.Tooltip"); //$NON-NLS-1$
+                        } else {
+                            tooltip += TrackerRes.getString("TableTrackView.RadiansPerSecondSquared.Tooltip"); //$NON-NLS-1$
+                        }
+                    }
+                    TableCellRenderer precisionRenderer = dataTable.getPrecisionRenderer(yTitle);
+                    if (degrees) {
+                        // set default degrees precision
+                        if (precisionRenderer == null) {
+                            dataTable.setFormatPattern(yTitle, NumberField.DECIMAL_1_PATTERN);
+                            degreeRenderers.put(yTitle, dataTable.getPrecisionRenderer(yTitle));
+                        }
+                    } else if (precisionRenderer != null) { // radians display
+                        if (precisionRenderer == degreeRenderers.get(yTitle)) {
+                            dataTable.setFormatPattern(yTitle, null);
+                            degreeRenderers.remove(yTitle);
+                        }
+                    }
+                }
+                if ("".equals(tooltip.trim())) tooltip = ""; //$NON-NLS-1$ //$NON-NLS-2$
+                dataTable.setUnits(yTitle, units, tooltip);
+                columns.add(in);
+                // values are converted from radians to degrees as cells are read
+                angles.add(yIsAngle && degrees);
+            }
+        }
+        tableModel.setColumns(datasets.get(0), columns, angles);
+    }
+
+    /**
+     * Repaints the visible table rows changed by the latest data refresh.
+     * All visible rows are repainted if the changed rows are unknown.
+     *
+     * @param track the track
+     */
+    private void repaintChangedRows(TTrack track) {
+        int revision = track.getDataRevision();
+        int[] changed = revision == tableDataRevision + 1 ? track.getChangedDataRows() : null;
+        tableDataRevision = revision;
+        Rectangle visible = dataTable.getVisibleRect();
+        if (visible.isEmpty() || dataTable.getRowCount() == 0) return;
+        int first = dataTable.rowAtPoint(visible.getLocation());
+        int last = dataTable.rowAtPoint(new Point(visible.x, visible.y + visible.height - 1));
+        if (first < 0) return; // no rows visible
+        if (last < 0) last = dataTable.getRowCount() - 1;
+        if (changed != null) {
+            // view rows match data rows when unsorted or sorted by the independent variable
+            first = Math.max(first, changed[0]);
+            last = Math.min(last, changed[1]);
+            if (first > last) return;
+        }
+        Rectangle dirty = dataTable.getCellRect(first, 0, true);
+        dirty = dirty.union(dataTable.getCellRect(last, dataTable.getColumnCount() - 1, true));
+        dataTable.repaint(dirty.intersection(visible));
+    }
+
     /**
      * Refreshes the GUI.
      */
@@ -440,8 +487,8 @@ public class TableTrackView extends TrackView {
         getTrack().removePropertyChangeListener("text_column", this); //$NON-NLS-1$
         setViewportView(null);
         columnsPanel.removeAll();
-        tableData.clear();
-        tableData = null;
+        tableModel.setColumns(null, new ArrayList<>(), new ArrayList<>());
+        tableModel = null;
         dataTable.clear();
         dataTable.setRefreshDelay(-1); // stops the refresh timer
         dataTable = null;
@@ -1601,7 +1648,7 @@ public class TableTrackView extends TrackView {
         }
 
         public int getRowCount() {
-            return tableData.getRowCount();
+            return tableModel.getRowCount();
         }
 
         public int getColumnCount() {
@@ -1660,6 +1707,67 @@ public class TableTrackView extends TrackView {
 
     }
 
+    /**
+     * A class to provide the track data for the dataTable. This reads directly
+     * from the track datasets and converts angles to degrees as cells are read.
+     */
+    class TrackTableModel extends AbstractTableModel {
+
+        private Dataset xData;
+        private ArrayList<Dataset> columns = new ArrayList<>();
+        private boolean[] toDegrees = new boolean[0];
+
+        /**
+         * Sets the datasets displayed by this model.
+         *
+         * @param x       the dataset that supplies the independent variable
+         * @param yData   the datasets that supply the dependent variables
+         * @param degrees true for each column to be converted to degrees
+         */
+        void setColumns(Dataset x, ArrayList<Dataset> yData, ArrayList<Boolean> degrees) {
+            xData = x;
+            columns = yData;
+            toDegrees = new boolean[degrees.size()];
+            for (int i = 0; i < toDegrees.length; i++) {
+                toDegrees[i] = degrees.get(i);
+            }
+        }
+
+        public String getColumnName(int col) {
+            if (col == 0) return xData.getXColumnName();
+            return columns.get(col - 1).getYColumnName();
+        }
+
+        public int getRowCount() {
+            if (xData == null) return 0;
+            int rows = columns.isEmpty() ? xData.getIndex() : 0;
+            for (Dataset next : columns) {
+                rows = Math.max(rows, next.getIndex());
+            }
+            return rows;
+        }
+
+        public int getColumnCount() {
+            return xData == null ? 0 : columns.size() + 1;
+        }
+
+        public Object getValueAt(int row, int col) {
+            Dataset dataset = col == 0 ? xData : columns.get(col - 1);
+            if (row >= dataset.getIndex()) return null;
+            Object value = dataset.getValueAt(row, col == 0 ? 0 : 1);
+            if (col > 0 && toDegrees[col - 1] && value instanceof Double) {
+                double val = (Double) value;
+                if (!Double.isNaN(val)) return val * 180 / Math.PI;
+            }
+            return value;
+        }
+
+        public Class<?> getColumnClass(int col) {
+            return Double.class;
+        }
+
+    }
+
     /**
      * A cell editor for textColumn cells.
      */
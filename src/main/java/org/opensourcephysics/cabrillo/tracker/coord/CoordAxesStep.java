@@ -180,7 +180,7 @@ public class CoordAxesStep extends Step {
      * @return the mark
      */
     protected Mark getMark(TrackerPanel trackerPanel) {
-        Mark mark = marks.get(trackerPanel);
+        Mark mark = getCachedMark(trackerPanel);
         TPoint selection;
         if (mark == null) {
             selection = trackerPanel.getSelectedPoint();
@@ -246,7 +246,7 @@ public class CoordAxesStep extends Step {
                     return bounds;
                 }
             };
-            marks.put(trackerPanel, mark);
+            setCachedMark(trackerPanel, mark);
         }
         return mark;
     }
@@ -0,0 +1,380 @@
+/*
+ * The tracker package defines a set of video/image analysis tools built on the
+ * Open Source Physics framework by Wolfgang Christian.
+ *
+ * Copyright (c) 2018  Douglas Brown
+ *
+ * Tracker is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Tracker is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Tracker; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place, Suite 330, Boston MA 02111-1307 USA or view the license online at
+ * <http://www.gnu.org/copyleft/gpl.html>
+ *
+ * For additional Tracker information and documentation, please see
+ * <http://physlets.org/tracker/>.
+ */
+package org.opensourcephysics.cabrillo.tracker.data.track;
+
+import java.awt.EventQueue;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import javax.swing.Timer;
+
+import org.opensourcephysics.cabrillo.tracker.component.TFrame;
+import org.opensourcephysics.cabrillo.tracker.particle.ParticleDataTrack;
+import org.opensourcephysics.cabrillo.tracker.tracker.TrackerPanel;
+import org.opensourcephysics.controls.OSPLog;
+import org.opensourcephysics.display.DataClip;
+import org.opensourcephysics.media.core.VideoClip;
+import org.opensourcephysics.media.core.VideoPlayer;
+
+/**
+ * Receives live samples for existing ParticleDataTracks as a stream of compact
+ * binary frames from a local socket or from the standard output of a data
+ * source process launched by Tracker. Unlike the XML Data sent to the
+ * DataTrackTool, each frame holds only new samples, which are appended to the
+ * track data without copying it. Frames are read on background threads and
+ * applied on the event dispatch thread at a fixed refresh rate, so any number
+ * of frames received between refreshes cost a single display refresh.
+ * <p>
+ * The track must first be created by sending Data to the DataTrackTool.
+ * Each frame is written in big-endian (DataOutputStream) order as:
+ * <pre>
+ * int     MAGIC
+ * UTF     data name (may be empty)
+ * int     data ID
+ * byte    flags (FLAG_TIME if time values are included)
+ * int     point count
+ * int     sample count
+ * double  per sample: [t] x0 y0 x1 y1 ...
+ * </pre>
+ * The target track is found by name or data ID in the selected TrackerPanel.
+ * A frame may hold at most maxFrameValues doubles; larger sample sets must be
+ * split into several frames.
+ */
+public class DataTrackStream {
+
+    // static fields
+    public static final int MAGIC = 0x54524B44; // "TRKD"
+    public static final int FLAG_TIME = 1;
+    private static final int maxPointCount = 1024;
+    public static final int maxFrameValues = 1 << 19; // 4 MB of doubles
+    private static final int initialSampleCapacity = 256;
+    private static final int defaultRefreshInterval = 50; // ms
+
+    // instance fields
+    private final TFrame frame;
+    private final ConcurrentLinkedQueue<Chunk> pending = new ConcurrentLinkedQueue<>();
+    private final Timer refreshTimer;
+    private ServerSocket serverSocket;
+    private final ArrayList<Process> processes = new ArrayList<>();
+    private int readerCount; // guarded by this
+
+    /**
+     * Constructor for a TFrame.
+     *
+     * @param tFrame the TFrame
+     */
+    public DataTrackStream(TFrame tFrame) {
+        frame = tFrame;
+        refreshTimer = new Timer(defaultRefreshInterval, e -> applyPending());
+        refreshTimer.setCoalesce(true);
+    }
+
+    /**
+     * Sets the interval at which received samples are applied and displayed.
+     *
+     * @param millis the interval in milliseconds
+     */
+    public void setRefreshInterval(int millis) {
+        refreshTimer.setDelay(Math.max(1, millis));
+    }
+
+    /**
+     * Starts listening for senders on a loopback socket. Each connection is
+     * read on its own thread until the sender closes it.
+     *
+     * @param port the port, or 0 for any free port
+     * @return the port
+     * @throws IOException if the socket cannot be opened
+     */
+    public synchronized int listen(int port) throws IOException {
+        if (serverSocket != null && !serverSocket.isClosed()) {
+            return serverSocket.getLocalPort();
+        }
+        serverSocket = new ServerSocket(port, 4, InetAddress.getLoopbackAddress());
+        final ServerSocket server = serverSocket;
+        startThread(() -> {
+            while (!server.isClosed()) {
+                try {
+                    final Socket socket = server.accept();
+                    startThread(() -> {
+                        try {
+                            read(socket.getInputStream());
+                        } catch (IOException ex) {
+                            OSPLog.warning("data stream closed: " + ex.getMessage()); //$NON-NLS-1$
+                        } finally {
+                            try {
+                                socket.close();
+                            } catch (IOException ignored) {
+                            }
+                        }
+                    }, "DataTrackStream reader"); //$NON-NLS-1$
+                } catch (IOException ex) {
+                    // server socket closed
+                }
+            }
+        }, "DataTrackStream listener"); //$NON-NLS-1$
+        OSPLog.fine("listening for data streams on port " + serverSocket.getLocalPort()); //$NON-NLS-1$
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Launches a data source process and reads frames from its standard output
+     * on a background thread until the process closes it. The standard error
+     * of the process is passed through to Tracker's.
+     *
+     * @param command the command and its arguments
+     * @throws IOException if the process cannot be started
+     */
+    public synchronized void launch(String... command) throws IOException {
+        final Process process = new ProcessBuilder(command)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        processes.add(process);
+        startThread(() -> {
+            try {
+                read(process.getInputStream());
+            } catch (IOException ex) {
+                OSPLog.warning("data stream closed: " + ex.getMessage()); //$NON-NLS-1$
+            } finally {
+                process.destroy();
+                synchronized (DataTrackStream.this) {
+                    processes.remove(process);
+                }
+            }
+        }, "DataTrackStream pipe"); //$NON-NLS-1$
+        OSPLog.fine("reading data stream from " + Arrays.toString(command)); //$NON-NLS-1$
+    }
+
+    /**
+     * Reads frames from an input stream, such as a socket or the output of a
+     * data source process, until the end of the stream. This blocks, so it
+     * should not be called on the event dispatch thread. Refreshing stops
+     * once the last reader has finished and its samples have been applied.
+     *
+     * @param in the input stream
+     * @throws IOException if the stream is not a valid frame stream
+     */
+    public void read(InputStream in) throws IOException {
+        DataInputStream input = new DataInputStream(new BufferedInputStream(in));
+        synchronized (this) {
+            readerCount++;
+            refreshTimer.start();
+        }
+        try {
+            while (true) {
+                Chunk chunk;
+                try {
+                    chunk = readFrame(input);
+                } catch (EOFException ex) {
+                    return;
+                }
+                if (chunk.count > 0) {
+                    pending.add(chunk);
+                }
+            }
+        } finally {
+            synchronized (this) {
+                readerCount--;
+            }
+            // apply the last samples, then stop refreshing if no reader is left
+            EventQueue.invokeLater(() -> {
+                applyPending();
+                synchronized (DataTrackStream.this) {
+                    if (readerCount == 0) refreshTimer.stop();
+                }
+            });
+        }
+    }
+
+    /**
+     * Stops listening, stops any launched data source processes and stops
+     * refreshing. Samples not yet applied are discarded.
+     */
+    public synchronized void close() {
+        for (Process process : processes) {
+            process.destroy();
+        }
+        processes.clear();
+        if (serverSocket != null) {
+            try {
+                serverSocket.close();
+            } catch (IOException ignored) {
+            }
+            serverSocket = null;
+        }
+        refreshTimer.stop();
+        pending.clear();
+    }
+
+    /**
+     * Writes a frame. The x and y arrays are indexed by point, then sample.
+     *
+     * @param out    the output stream
+     * @param name   the data name (may be null)
+     * @param dataID the data ID
+     * @param t      the time values in seconds (may be null)
+     * @param x      the x values for each point
+     * @param y      the y values for each point
+     * @param count  the number of samples
+     * @throws IOException if the frame cannot be written
+     */
+    public static void writeFrame(DataOutputStream out, String name, int dataID,
+                                  double[] t, double[][] x, double[][] y, int count) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeUTF(name == null ? "" : name); //$NON-NLS-1$
+        out.writeInt(dataID);
+        out.writeByte(t == null ? 0 : FLAG_TIME);
+        out.writeInt(x.length);
+        out.writeInt(count);
+        for (int i = 0; i < count; i++) {
+            if (t != null) out.writeDouble(t[i]);
+            for (int j = 0; j < x.length; j++) {
+                out.writeDouble(x[j][i]);
+                out.writeDouble(y[j][i]);
+            }
+        }
+    }
+
+    /**
+     * Reads a single frame. The sample arrays grow as samples arrive, so a
+     * frame header that claims more samples than are sent costs no memory.
+     *
+     * @param in the input
+     * @return the samples
+     * @throws IOException if the frame is invalid or the stream ends
+     */
+    private static Chunk readFrame(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("invalid data stream frame"); //$NON-NLS-1$
+        }
+        String name = in.readUTF();
+        int dataID = in.readInt();
+        boolean hasTime = (in.readByte() & FLAG_TIME) != 0;
+        int points = in.readInt();
+        int count = in.readInt();
+        long values = (long) count * (2 * points + (hasTime ? 1 : 0));
+        if (points < 1 || points > maxPointCount || count < 0 || values > maxFrameValues) {
+            throw new IOException("invalid data stream frame size"); //$NON-NLS-1$
+        }
+        Chunk chunk = new Chunk(name, dataID, hasTime, points, Math.min(count, initialSampleCapacity));
+        for (int i = 0; i < count; i++) {
+            if (i == chunk.x[0].length) chunk.grow(count);
+            if (hasTime) chunk.t[i] = in.readDouble();
+            for (int j = 0; j < points; j++) {
+                chunk.x[j][i] = in.readDouble();
+                chunk.y[j][i] = in.readDouble();
+            }
+            chunk.count = i + 1;
+        }
+        return chunk;
+    }
+
+    /**
+     * Appends all pending samples to their tracks and refreshes each changed
+     * track once. Called on the event dispatch thread by the refresh timer.
+     */
+    private void applyPending() {
+        if (pending.isEmpty()) return;
+        TrackerPanel trackerPanel = frame.getTrackerPanel(frame.getSelectedTab());
+        LinkedHashSet<ParticleDataTrack> changed = new LinkedHashSet<>();
+        Chunk chunk;
+        while ((chunk = pending.poll()) != null) {
+            ParticleDataTrack track = DataTrackTool.findParticleDataTrack(trackerPanel, chunk.name, chunk.dataID);
+            if (track == null) {
+                OSPLog.fine("no track found for data stream " + chunk.name); //$NON-NLS-1$
+                continue;
+            }
+            track = track.getLeader();
+            ArrayList<ParticleDataTrack> points = track.allPoints();
+            for (int j = 0; j < Math.min(points.size(), chunk.x.length); j++) {
+                points.get(j).appendSamples(chunk.x[j], chunk.y[j], j == 0 ? chunk.t : null, 0, chunk.count);
+            }
+            changed.add(track);
+        }
+        for (ParticleDataTrack track : changed) {
+            track.refreshAppendedData();
+            // display the last point appended
+            if (trackerPanel != null) {
+                VideoPlayer player = trackerPanel.getPlayer();
+                VideoClip videoClip = player.getVideoClip();
+                DataClip dataClip = track.getDataClip();
+                dataClip.setClipLength(-1); // set clip length to data length
+                int dataEndFrame = track.getStartFrame() + dataClip.getDataLength() - 1;
+                player.setStepNumber(videoClip.frameToStep(dataEndFrame));
+            }
+        }
+    }
+
+    private static void startThread(Runnable runner, String name) {
+        Thread thread = new Thread(runner, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * The samples of a single frame, by point. The arrays may be longer than
+     * the sample count.
+     */
+    private static class Chunk {
+
+        private final String name;
+        private final int dataID;
+        private int count;
+        private double[] t;
+        private final double[][] x, y;
+
+        Chunk(String name, int dataID, boolean hasTime, int points, int capacity) {
+            this.name = name;
+            this.dataID = dataID;
+            t = hasTime ? new double[capacity] : null;
+            x = new double[points][capacity];
+            y = new double[points][capacity];
+        }
+
+        /**
+         * Doubles the capacity, up to a limit.
+         *
+         * @param limit the maximum capacity
+         */
+        void grow(int limit) {
+            int capacity = (int) Math.min(limit, Math.max(1, 2L * x[0].length));
+            if (t != null) t = Arrays.copyOf(t, capacity);
+            for (int j = 0; j < x.length; j++) {
+                x[j] = Arrays.copyOf(x[j], capacity);
+                y[j] = Arrays.copyOf(y[j], capacity);
+            }
+        }
+    }
+}
@@ -55,6 +55,7 @@ public class DataTrackTool extends UnicastRemoteObject implements Tool {
     private final TFrame frame;
     private final TreeMap<Integer, Tool> replyToTools = new TreeMap<>();
     private final TreeMap<Integer, String> jarPaths = new TreeMap<>();
+    private DataTrackStream stream;
 
     /**
      * Constructor for a TFrame.
@@ -89,6 +90,23 @@ public class DataTrackTool extends UnicastRemoteObject implements Tool {
             replyToTools.put(sourceID, replyTo);
             // save jarPath
             jarPaths.put(sourceID, control.getString("jar_path")); //$NON-NLS-1$
+            // open a binary stream for live data if requested
+            if (control.getBoolean("stream")) { //$NON-NLS-1$
+                try {
+                    control.setValue("stream_port", getStream().listen(0)); //$NON-NLS-1$
+                } catch (IOException ex) {
+                    OSPLog.warning("failed to open data stream: " + ex.getMessage()); //$NON-NLS-1$
+                }
+            }
+            // launch a data source process and read its output if requested
+            Object command = control.getObject("stream_command"); //$NON-NLS-1$
+            if (command instanceof String[] && ((String[]) command).length > 0) {
+                try {
+                    getStream().launch((String[]) command);
+                } catch (IOException ex) {
+                    OSPLog.warning("failed to launch data stream: " + ex.getMessage()); //$NON-NLS-1$
+                }
+            }
             // send handshake reply
             job.setXML(control.toXML());
             replyTo.send(job, null);
@@ -326,6 +344,18 @@ public class DataTrackTool extends UnicastRemoteObject implements Tool {
         }
     }
 
+    /**
+     * Gets the stream that receives live binary data for existing tracks.
+     *
+     * @return the DataTrackStream
+     */
+    public synchronized DataTrackStream getStream() {
+        if (stream == null) {
+            stream = new DataTrackStream(frame);
+        }
+        return stream;
+    }
+
     /**
      * Sends a message to a replyTo tool in the form of a String-to-String mapping.
      *
@@ -353,6 +383,9 @@ public class DataTrackTool extends UnicastRemoteObject implements Tool {
      * Informs all replyTo tools that Tracker is exiting.
      */
     public void trackerExiting() {
+        if (stream != null) {
+            stream.close();
+        }
         XMLControl control = new XMLControlElement();
         control.setValue("exiting", true); //$NON-NLS-1$
         Job job = new LocalJob(control.toXML());
@@ -423,7 +456,7 @@ public class DataTrackTool extends UnicastRemoteObject implements Tool {
      * @param dataID       the Data ID
      * @return the ParticleDataTrack, or null if none found
      */
-    private ParticleDataTrack findParticleDataTrack(TrackerPanel trackerPanel, String name, int dataID) {
+    static ParticleDataTrack findParticleDataTrack(TrackerPanel trackerPanel, String name, int dataID) {
         if (trackerPanel != null) {
             if (name == null || name.trim().equals("")) { //$NON-NLS-1$
                 name = TrackerRes.getString("ParticleDataTrack.New.Name"); //$NON-NLS-1$
@@ -0,0 +1,177 @@
+/*
+ * The tracker package defines a set of video/image analysis tools
+ * built on the Open Source Physics framework by Wolfgang Christian.
+ *
+ * Copyright (c) 2018  Douglas Brown
+ *
+ * Tracker is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Tracker is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Tracker; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston MA 02111-1307 USA
+ * or view the license online at <http://www.gnu.org/copyleft/gpl.html>
+ *
+ * For additional Tracker information and documentation, please see
+ * <http://physlets.org/tracker/>.
+ */
+package org.opensourcephysics.cabrillo.tracker.derivative;
+
+import java.util.Arrays;
+
+/**
+ * This holds the primitive input and output buffers of a DerivativeEvaluator.
+ * Buffers are reused between evaluations and only grow when needed, so
+ * evaluating derivatives allocates nothing once the buffers are large enough.
+ * <p>
+ * Input data: x, y and valid, indexed by frame number.
+ * Output data: vx, vy (first derivatives) and ax, ay (second derivatives),
+ * set only at the evaluated indices (start, start+stepSize, ...). Values are
+ * NaN where no derivative could be determined.
+ */
+public class DerivativeData {
+
+    public double[] x, y;
+    public boolean[] valid;
+    public double[] vx, vy, ax, ay;
+    public int vSpill = 1, aSpill = 2;
+    public int start, stepSize = 1, count;
+    private int[] validRun; // count of consecutive valid samples ending at each index
+
+    /**
+     * Constructs an empty DerivativeData.
+     */
+    public DerivativeData() {
+        this(new double[0], new double[0], new boolean[0]);
+    }
+
+    /**
+     * Constructs a DerivativeData that wraps existing input arrays.
+     *
+     * @param x     the x data
+     * @param y     the y data
+     * @param valid the valid data flags
+     */
+    public DerivativeData(double[] x, double[] y, boolean[] valid) {
+        this.x = x;
+        this.y = y;
+        this.valid = valid;
+        int length = x.length;
+        vx = newOutput(length);
+        vy = newOutput(length);
+        ax = newOutput(length);
+        ay = newOutput(length);
+        validRun = new int[length];
+    }
+
+    /**
+     * Gets the length of the buffers.
+     *
+     * @return the length
+     */
+    public int getLength() {
+        return x.length;
+    }
+
+    /**
+     * Ensures the buffers have at least the specified length. Existing input
+     * data is kept.
+     *
+     * @param length the minimum length
+     */
+    public void ensureCapacity(int length) {
+        if (x.length >= length) return;
+        x = Arrays.copyOf(x, length);
+        y = Arrays.copyOf(y, length);
+        valid = Arrays.copyOf(valid, length);
+        vx = newOutput(length);
+        vy = newOutput(length);
+        ax = newOutput(length);
+        ay = newOutput(length);
+        validRun = new int[length];
+    }
+
+    /**
+     * Sets the range of indices to evaluate.
+     *
+     * @param start    the first index
+     * @param stepSize the index step size
+     * @param count    the number of indices
+     */
+    public void setRange(int start, int stepSize, int count) {
+        this.start = start;
+        this.stepSize = Math.max(1, stepSize);
+        this.count = count;
+    }
+
+    /**
+     * Sets the spill (number of steps on each side) of the first and
+     * second derivatives.
+     *
+     * @param vSpill the first derivative spill
+     * @param aSpill the second derivative spill
+     */
+    public void setSpill(int vSpill, int aSpill) {
+        this.vSpill = vSpill;
+        this.aSpill = aSpill;
+    }
+
+    /**
+     * Gets the last index to evaluate.
+     *
+     * @return the end index, less than start if there is nothing to evaluate
+     */
+    public int getEnd() {
+        return Math.min(start + stepSize * (count - 1), x.length - 1);
+    }
+
+    /**
+     * Counts the consecutive valid samples (at stepSize intervals) that end at
+     * each index needed to evaluate the range with a given spill. This must be
+     * called before isWindowValid.
+     *
+     * @param spill the largest spill to be checked
+     */
+    public void countValidRuns(int spill) {
+        int lower = start - spill * stepSize;
+        while (lower < 0) lower += stepSize;
+        int upper = Math.min(getEnd() + spill * stepSize, x.length - 1);
+        for (int j = lower; j <= upper; j += stepSize) {
+            if (!valid[j]) validRun[j] = 0;
+            else validRun[j] = j - stepSize >= lower ? validRun[j - stepSize] + 1 : 1;
+        }
+    }
+
+    /**
+     * Determines if all samples between i-spill*stepSize and i+spill*stepSize
+     * are valid.
+     *
+     * @param i     the index
+     * @param spill the spill
+     * @return true if the window is valid
+     */
+    public boolean isWindowValid(int i, int spill) {
+        int lower = i - spill * stepSize;
+        int upper = i + spill * stepSize;
+        return lower >= 0 && upper < x.length && validRun[upper] >= 2 * spill + 1;
+    }
+
+    /**
+     * Creates an output array filled with NaN.
+     *
+     * @param length the length
+     * @return the array
+     */
+    private static double[] newOutput(int length) {
+        double[] output = new double[length];
+        Arrays.fill(output, Double.NaN);
+        return output;
+    }
+}
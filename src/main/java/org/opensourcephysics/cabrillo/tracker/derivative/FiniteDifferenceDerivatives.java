@@ -0,0 +1,92 @@
+/*
+ * The tracker package defines a set of video/image analysis tools
+ * built on the Open Source Physics framework by Wolfgang Christian.
+ *
+ * Copyright (c) 2018  Douglas Brown
+ *
+ * Tracker is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Tracker is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Tracker; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston MA 02111-1307 USA
+ * or view the license online at <http://www.gnu.org/copyleft/gpl.html>
+ *
+ * For additional Tracker information and documentation, please see
+ * <http://physlets.org/tracker/>.
+ */
+package org.opensourcephysics.cabrillo.tracker.derivative;
+
+/**
+ * This evaluates first and second derivatives by central finite differences
+ * in a single pass over the samples. The validity of each window is checked
+ * in constant time using counts of consecutive valid samples.
+ */
+public class FiniteDifferenceDerivatives implements DerivativeEvaluator {
+
+    /**
+     * Evaluates the first and second derivatives.
+     *
+     * @param data the derivative data
+     */
+    public void evaluate(DerivativeData data) {
+        int step = data.stepSize;
+        int end = data.getEnd();
+        int vSpill = data.vSpill;
+        int aSpill = data.aSpill;
+        double[] x = data.x, y = data.y;
+        double[] vx = data.vx, vy = data.vy, ax = data.ax, ay = data.ay;
+        data.countValidRuns(Math.max(vSpill, aSpill));
+
+        for (int i = data.start; i <= end; i += step) {
+            // first derivative
+            if (!data.isWindowValid(i, vSpill)) {
+                vx[i] = vy[i] = Double.NaN;
+            } else if (vSpill == 1) {
+                vx[i] = (-x[i - step]
+                        + x[i + step]) / 2;
+                vy[i] = (-y[i - step]
+                        + y[i + step]) / 2;
+            } else { // spill is 2
+                vx[i] = (-2 * x[i - 2 * step]
+                        - x[i - step]
+                        + x[i + step]
+                        + 2 * x[i + 2 * step]) / 10;
+                vy[i] = (-2 * y[i - 2 * step]
+                        - y[i - step]
+                        + y[i + step]
+                        + 2 * y[i + 2 * step]) / 10;
+            }
+
+            // second derivative
+            if (!data.isWindowValid(i, aSpill)) {
+                ax[i] = ay[i] = Double.NaN;
+            } else if (aSpill == 1) {
+                ax[i] = (+x[i - step]
+                        - 2 * x[i]
+                        + x[i + step]);
+                ay[i] = (+y[i - step]
+                        - 2 * y[i]
+                        + y[i + step]);
+            } else { // spill is 2
+                ax[i] = (+2 * x[i - 2 * step]
+                        - x[i - step]
+                        - 2 * x[i]
+                        - x[i + step]
+                        + 2 * x[i + 2 * step]) / 7;
+                ay[i] = (+2 * y[i - 2 * step]
+                        - y[i - step]
+                        - 2 * y[i]
+                        - y[i + step]
+                        + 2 * y[i + 2 * step]) / 7;
+            }
+        }
+    }
+}
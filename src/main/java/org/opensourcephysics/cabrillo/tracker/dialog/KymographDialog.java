@@ -0,0 +1,146 @@
+/*
+ * The tracker package defines a set of video/image analysis tools built on the
+ * Open Source Physics framework by Wolfgang Christian.
+ *
+ * Copyright (c) 2018  Douglas Brown
+ *
+ * Tracker is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Tracker is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Tracker; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place, Suite 330, Boston MA 02111-1307 USA or view the license online at
+ * <http://www.gnu.org/copyleft/gpl.html>
+ *
+ * For additional Tracker information and documentation, please see
+ * <http://physlets.org/tracker/>.
+ */
+package org.opensourcephysics.cabrillo.tracker.dialog;
+
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.awt.image.BufferedImage;
+
+import javax.swing.*;
+
+import org.opensourcephysics.cabrillo.tracker.line.LineProfile;
+import org.opensourcephysics.cabrillo.tracker.line.LineProfileKymograph;
+import org.opensourcephysics.cabrillo.tracker.tracker.TrackerPanel;
+import org.opensourcephysics.cabrillo.tracker.tracker.TrackerRes;
+import org.opensourcephysics.tools.FontSizer;
+
+/**
+ * A dialog that profiles a line profile in all steps of the video clip and
+ * displays the resulting kymograph as an image with one row per step.
+ * Clicking a row steps the video to that step.
+ */
+public class KymographDialog extends JDialog {
+
+    private final TrackerPanel trackerPanel;
+    private final LineProfile line;
+    private final JLabel imageLabel, statusLabel;
+    private final JButton cancelButton, closeButton;
+    private SwingWorker<Integer, Void> worker;
+
+    /**
+     * Constructor.
+     *
+     * @param panel the tracker panel
+     * @param line  the line profile
+     */
+    public KymographDialog(TrackerPanel panel, LineProfile line) {
+        super(panel.getTFrame(), false);
+        trackerPanel = panel;
+        this.line = line;
+        setTitle(TrackerRes.getString("KymographDialog.Title") + " " + line.getName()); //$NON-NLS-1$ //$NON-NLS-2$
+        JPanel contentPane = new JPanel(new BorderLayout());
+        setContentPane(contentPane);
+        imageLabel = new JLabel();
+        imageLabel.setHorizontalAlignment(SwingConstants.LEFT);
+        imageLabel.setVerticalAlignment(SwingConstants.TOP);
+        imageLabel.setToolTipText(TrackerRes.getString("KymographDialog.Image.Tooltip")); //$NON-NLS-1$
+        imageLabel.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                LineProfileKymograph kymograph = line.getKymograph();
+                if (imageLabel.getIcon() == null || e.getY() >= kymograph.getRowCount()) return;
+                trackerPanel.getPlayer().setStepNumber(e.getY());
+            }
+        });
+        JScrollPane scroller = new JScrollPane(imageLabel);
+        scroller.setPreferredSize(new Dimension(400, 300));
+        statusLabel = new JLabel(TrackerRes.getString("KymographDialog.Status.Profiling")); //$NON-NLS-1$
+        cancelButton = new JButton(TrackerRes.getString("Dialog.Button.Cancel")); //$NON-NLS-1$
+        cancelButton.addActionListener(e -> line.getKymograph().cancel());
+        closeButton = new JButton(TrackerRes.getString("Dialog.Button.Close")); //$NON-NLS-1$
+        closeButton.addActionListener(e -> {
+            line.getKymograph().cancel();
+            dispose();
+        });
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                line.getKymograph().cancel();
+            }
+        });
+        JPanel labelbar = new JPanel();
+        labelbar.add(statusLabel);
+        JPanel buttonbar = new JPanel();
+        buttonbar.add(cancelButton);
+        buttonbar.add(closeButton);
+        JPanel south = new JPanel(new BorderLayout());
+        south.add(labelbar, BorderLayout.NORTH);
+        south.add(buttonbar, BorderLayout.SOUTH);
+        contentPane.add(scroller, BorderLayout.CENTER);
+        contentPane.add(south, BorderLayout.SOUTH);
+        FontSizer.setFonts(contentPane, FontSizer.getLevel());
+        pack();
+        setLocationRelativeTo(panel.getTFrame());
+    }
+
+    /**
+     * Profiles all steps on a background thread and displays the kymograph
+     * when done.
+     */
+    public void compute() {
+        if (worker != null && !worker.isDone()) return;
+        statusLabel.setText(TrackerRes.getString("KymographDialog.Status.Profiling")); //$NON-NLS-1$
+        cancelButton.setEnabled(true);
+        worker = new SwingWorker<Integer, Void>() {
+            @Override
+            protected Integer doInBackground() {
+                return line.profileAllFrames(trackerPanel);
+            }
+
+            @Override
+            protected void done() {
+                refresh();
+            }
+        };
+        worker.execute();
+    }
+
+    /**
+     * Displays the current kymograph image.
+     */
+    private void refresh() {
+        cancelButton.setEnabled(false);
+        LineProfileKymograph kymograph = line.getKymograph();
+        BufferedImage image = kymograph.getImage();
+        imageLabel.setIcon(image == null ? null : new ImageIcon(image));
+        String status = kymograph.getRowCount() + " x " + kymograph.getColumnCount(); //$NON-NLS-1$
+        if (!kymograph.isValid()) {
+            status += " " + TrackerRes.getString("KymographDialog.Status.Incomplete"); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        statusLabel.setText(status);
+    }
+}
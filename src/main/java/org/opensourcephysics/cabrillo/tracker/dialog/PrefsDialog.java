@@ -95,14 +95,15 @@ public class PrefsDialog extends JDialog {
             videoTypeSubPanelBorder, videoSpeedSubPanelBorder, warningsSubPanelBorder, recentSubPanelBorder,
             cacheSubPanelBorder, logLevelSubPanelBorder, upgradeSubPanelBorder, fontSubPanelBorder,
             resetToStep0SubPanelBorder, decimalSeparatorBorder, mouseWheelSubPanelBorder, calibrationStickSubPanelBorder,
-            dataGapSubPanelBorder, trailLengthSubPanelBorder, pointmassFootprintSubPanelBorder;
+            dataGapSubPanelBorder, trailLengthSubPanelBorder, pointmassFootprintSubPanelBorder, savingSubPanelBorder;
 
     protected IntegerField memoryField;
     protected JLabel memoryLabel;
     protected JLabel recentSizeLabel;
     protected JLabel cacheLabel;
     protected JCheckBox defaultMemoryCheckbox, hintsCheckbox, vidWarningCheckbox, showGapsCheckbox,
-            ffmpegErrorCheckbox, variableDurationCheckBox, resetToStep0Checkbox, autofillCheckbox;
+            ffmpegErrorCheckbox, variableDurationCheckBox, resetToStep0Checkbox, autofillCheckbox,
+            packFrameDataCheckbox;
     protected int memorySize = Tracker.requestedMemorySize;
     protected JSpinner recentSizeSpinner, runSpinner;
     protected JComboBox lookFeelDropdown, languageDropdown, jreDropdown, trailLengthDropdown,
@@ -131,6 +132,7 @@ public class PrefsDialog extends JDialog {
     protected boolean prevWarnNoVideoEngine;
     protected boolean prevWarnFFMPegError;
     protected boolean prevShowGaps;
+    protected boolean prevPackFrameData;
     protected boolean prevMarkAtCurrentFrame;
     protected boolean prevZoomMouseWheel;
     protected boolean prevAutofill;
@@ -186,7 +188,8 @@ public class PrefsDialog extends JDialog {
                 videoTypeSubPanelBorder, videoSpeedSubPanelBorder, warningsSubPanelBorder, recentSubPanelBorder,
                 cacheSubPanelBorder, logLevelSubPanelBorder, upgradeSubPanelBorder, fontSubPanelBorder,
                 resetToStep0SubPanelBorder, decimalSeparatorBorder, mouseWheelSubPanelBorder, calibrationStickSubPanelBorder,
-                dataGapSubPanelBorder, trailLengthSubPanelBorder, pointmassFootprintSubPanelBorder};
+                dataGapSubPanelBorder, trailLengthSubPanelBorder, pointmassFootprintSubPanelBorder,
+                savingSubPanelBorder};
         FontSizer.setFonts(borders, level);
         JComboBox[] dropdowns = new JComboBox[]{lookFeelDropdown, languageDropdown, fontSizeDropdown,
                 jreDropdown, checkForUpgradeDropdown, versionDropdown, logLevelDropdown, footprintDropdown};
@@ -1068,6 +1071,20 @@ public class PrefsDialog extends JDialog {
         });
         dataGapSubPanel.add(autofillCheckbox);
 
+        // saving subpanel
+        JPanel savingSubPanel = new JPanel();
+        box.add(savingSubPanel);
+        savingSubPanel.setBackground(color);
+        savingSubPanelBorder = BorderFactory.createTitledBorder(
+                TrackerRes.getString("PrefsDialog.Saving.BorderTitle")); //$NON-NLS-1$
+        savingSubPanel.setBorder(BorderFactory.createCompoundBorder(etched, savingSubPanelBorder));
+
+        packFrameDataCheckbox = new JCheckBox();
+        packFrameDataCheckbox.setOpaque(false);
+        packFrameDataCheckbox.setSelected(Tracker.packFrameData);
+        packFrameDataCheckbox.addActionListener(e -> Tracker.packFrameData = packFrameDataCheckbox.isSelected());
+        savingSubPanel.add(packFrameDataCheckbox);
+
         // "general" panel
         generalPanel = new JPanel(new BorderLayout());
         tabbedPane.addTab(null, generalPanel);
@@ -1361,6 +1378,7 @@ public class PrefsDialog extends JDialog {
         prevCenterCalibrationStick = Tracker.centerCalibrationStick;
         prevAutofill = Tracker.enableAutofill;
         prevShowGaps = Tracker.showGaps;
+        prevPackFrameData = Tracker.packFrameData;
         prevTrailLengthIndex = Tracker.trailLengthIndex;
         prevPointmassFootprint = Tracker.preferredPointMassFootprint;
     }
@@ -1390,6 +1408,7 @@ public class PrefsDialog extends JDialog {
         Tracker.centerCalibrationStick = prevCenterCalibrationStick;
         Tracker.enableAutofill = prevAutofill;
         Tracker.showGaps = prevShowGaps;
+        Tracker.packFrameData = prevPackFrameData;
         Tracker.trailLengthIndex = prevTrailLengthIndex;
         ResourceLoader.setOSPCache(prevCache);
         Tracker.checkForUpgradeInterval = prevUpgradeInterval;
@@ -1442,6 +1461,7 @@ public class PrefsDialog extends JDialog {
         resetToStep0SubPanelBorder.setTitle(TrackerRes.getString("PrefsDialog.Marking.BorderTitle")); //$NON-NLS-1$
         mouseWheelSubPanelBorder.setTitle(TrackerRes.getString("PrefsDialog.Mousewheel.BorderTitle")); //$NON-NLS-1$
         dataGapSubPanelBorder.setTitle(TrackerRes.getString("PrefsDialog.DataGap.BorderTitle")); //$NON-NLS-1$
+        savingSubPanelBorder.setTitle(TrackerRes.getString("PrefsDialog.Saving.BorderTitle")); //$NON-NLS-1$
         decimalSeparatorBorder.setTitle(TrackerRes.getString("NumberFormatSetter.TitledBorder.DecimalSeparator.Text")); //$NON-NLS-1$
         defaultDecimalButton.setText(TrackerRes.getString("NumberFormatSetter.Button.DecimalSeparator.Default")); //$NON-NLS-1$
         periodDecimalButton.setText(TrackerRes.getString("NumberFormatSetter.Button.DecimalSeparator.Period")); //$NON-NLS-1$
@@ -1474,6 +1494,8 @@ public class PrefsDialog extends JDialog {
         resetToStep0Checkbox.setText(TrackerRes.getString("PrefsDialog.Checkbox.ResetToZero.Text")); //$NON-NLS-1$
         autofillCheckbox.setText(TrackerRes.getString("PrefsDialog.Checkbox.Autofill.Text")); //$NON-NLS-1$
         showGapsCheckbox.setText(TrackerRes.getString("PrefsDialog.Checkbox.ShowGaps.Text")); //$NON-NLS-1$
+        packFrameDataCheckbox.setText(TrackerRes.getString("PrefsDialog.Checkbox.PackFrameData.Text")); //$NON-NLS-1$
+        packFrameDataCheckbox.setToolTipText(TrackerRes.getString("PrefsDialog.Checkbox.PackFrameData.Tooltip")); //$NON-NLS-1$
         vm32Button.setText(TrackerRes.getString("PrefsDialog.Checkbox.32BitVM")); //$NON-NLS-1$
         vm64Button.setText(TrackerRes.getString("PrefsDialog.Checkbox.64BitVM")); //$NON-NLS-1$
         ffmpegButton.setText(TrackerRes.getString("PrefsDialog.Button.FFMPeg")); //$NON-NLS-1$
@@ -1636,6 +1658,7 @@ public class PrefsDialog extends JDialog {
             }
         }
         Tracker.showGaps = showGapsCheckbox.isSelected();
+        Tracker.packFrameData = packFrameDataCheckbox.isSelected();
         Tracker.trailLengthIndex = trailLengthDropdown.getSelectedIndex();
         // refresh the toolbar
         if (trackerPanel != null) {
@@ -1790,6 +1813,9 @@ public class PrefsDialog extends JDialog {
         // show gaps
         showGapsCheckbox.setSelected(Tracker.showGaps);
 
+        // packed frame data
+        packFrameDataCheckbox.setSelected(Tracker.packFrameData);
+
         // autofill
         autofillCheckbox.setSelected(Tracker.enableAutofill);
 
@@ -28,7 +28,7 @@ import java.awt.Graphics;
 import java.awt.geom.*;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
-import java.util.HashMap;
+import java.util.Arrays;
 
 import org.opensourcephysics.cabrillo.tracker.point.PointMass;
 import org.opensourcephysics.cabrillo.tracker.step.PositionStep;
@@ -63,7 +63,8 @@ public class DynamicParticle extends ParticleModel implements ODE {
     protected int iterationsPerStep = 100;
     public DynamicSystem system;
     protected Point2D[] points;
-    protected HashMap<Integer, double[]> frameStates = new HashMap<>();
+    protected StateCheckpoints checkpoints = new StateCheckpoints();
+    protected String checkpointKey; // identifies the model the checkpoints belong to
     public ModelBooster modelBooster = new ModelBooster();
 
     /**
@@ -184,8 +185,7 @@ public class DynamicParticle extends ParticleModel implements ODE {
                         model.getVArray(panel).setLength(0);
                         model.getAArray(panel).setLength(0);
                     }
-                    model.traceX = new double[0];
-                    model.traceY = new double[0];
+                    model.tracePoints.clear();
                     model.support.firePropertyChange("steps", null, null); //$NON-NLS-1$
                 }
                 return;
@@ -201,18 +201,36 @@ public class DynamicParticle extends ParticleModel implements ODE {
             while (useDefault && coords instanceof ReferenceFrame) {
                 coords = ((ReferenceFrame) coords).getCoords();
             }
-            // step solver forward to first frame in clip
-            int count = (firstFrameInClip - getStartFrame()) * tracePtsPerStep * iterationsPerStep / clip.getStepSize();
-            for (int i = 0; i < count; i++) {
-                solver.step();
+            // discard checkpoints if the model or time step has changed
+            String key = getCheckpointKey(clip.getStepSize());
+            if (!key.equals(checkpointKey)) {
+                checkpoints.clear();
+                checkpointKey = key;
             }
+            // step solver forward to first frame in clip from nearest checkpoint, if any
+            int frame = getStartFrame();
+            int checkpoint = checkpoints.floorFrame(firstFrameInClip);
+            if (checkpoint > frame && checkpoints.get(checkpoint, getState())) {
+                frame = checkpoint;
+            }
+            while (frame < firstFrameInClip) {
+                int next = Math.min(frame + clip.getStepSize(), firstFrameInClip);
+                int count = getSolverStepCount(next, clip.getStepSize())
+                        - getSolverStepCount(frame, clip.getStepSize());
+                for (int i = 0; i < count; i++) {
+                    solver.step();
+                }
+                frame = next;
+                if (frame < firstFrameInClip) saveState(frame);
+            }
+            saveState(firstFrameInClip);
             setTracePositions(getState());
             AffineTransform transform = coords.getToImageTransform(firstFrameInClip);
             for (int i = 0; i < models.length; i++) {
                 models[i].lastValidFrame = firstFrameInClip;
                 models[i].steps.setLength(firstFrameInClip + 1);
                 PositionStep step = (PositionStep) models[i].getStep(firstFrameInClip);
-                for (int j = 0; j < models[i].steps.length; j++) {
+                for (int j = 0; j < models[i].steps.getLength(); j++) {
                     if (j < firstFrameInClip)
                         models[i].steps.setStep(j, null);
                     else if (step == null) {
@@ -226,8 +244,7 @@ public class DynamicParticle extends ParticleModel implements ODE {
                     models[i].getAArray(panel).setLength(0);
                 }
                 transform.transform(points[i], points[i]);
-                models[i].traceX = new double[]{points[i].getX()};
-                models[i].traceY = new double[]{points[i].getY()};
+                models[i].tracePoints.reset(points[i].getX(), points[i].getY());
                 step.getPosition().setPosition(points[i]); // this method is fast
                 models[i].support.firePropertyChange("step", null, firstFrameInClip); //$NON-NLS-1$
             }
@@ -252,22 +269,70 @@ public class DynamicParticle extends ParticleModel implements ODE {
      * @param frameNumber the frame number
      */
     protected void saveState(int frameNumber) {
-        frameStates.put(frameNumber, getState().clone());
+        checkpoints.save(frameNumber, getState());
     }
 
     /**
-     * Restores the state to a previously saved state, if any.
+     * Restores the state at a frame by resuming from the nearest earlier checkpoint.
      *
      * @param frameNumber the frame number
      * @return true if state successfully restored
      */
     protected boolean restoreState(int frameNumber) {
-        double[] savedState = frameStates.get(frameNumber);
-        if (savedState != null) {
-            System.arraycopy(savedState, 0, state, 0, state.length);
-            return true;
+        if (trackerPanel == null || checkpointKey == null) return false;
+        int checkpoint = checkpoints.floorFrame(frameNumber);
+        if (checkpoint < getStartFrame() || !checkpoints.get(checkpoint, state)) {
+            return false;
         }
-        return false;
+        int stepSize = trackerPanel.getPlayer().getVideoClip().getStepSize();
+        int count = getSolverStepCount(frameNumber, stepSize)
+                - getSolverStepCount(checkpoint, stepSize);
+        for (int i = 0; i < count; i++) {
+            solver.step();
+        }
+        return true;
+    }
+
+    /**
+     * Gets the number of solver steps from the start frame to a specified frame.
+     *
+     * @param frameNumber the frame number
+     * @param stepSize    the video clip step size
+     * @return the solver step count
+     */
+    protected int getSolverStepCount(int frameNumber, int stepSize) {
+        return (frameNumber - getStartFrame()) * tracePtsPerStep * iterationsPerStep / stepSize;
+    }
+
+    /**
+     * Gets a key that identifies the model and time step from which checkpoints
+     * were integrated. Checkpoints are discarded whenever this key changes.
+     *
+     * @param stepSize the video clip step size
+     * @return the key
+     */
+    protected String getCheckpointKey(int stepSize) {
+        StringBuilder buf = new StringBuilder();
+        buf.append(solver.getClass().getName()).append(' ').append(dt)
+                .append(' ').append(iterationsPerStep).append(' ').append(tracePtsPerStep)
+                .append(' ').append(stepSize).append(' ').append(getStartFrame())
+                .append(' ').append(Arrays.toString(getState()));
+        ParticleModel[] models = getModels();
+        ParticleModel[] all = new ParticleModel[models.length + 1];
+        all[0] = this;
+        System.arraycopy(models, 0, all, 1, models.length);
+        for (ParticleModel model : all) {
+            buf.append('|').append(model.getMass());
+            buf.append(' ').append(Arrays.toString(model.getParamEditor().getValues()));
+            buf.append(' ').append(Arrays.toString(model.getInitEditor().getValues()));
+            for (UserFunction f : model.getFunctionEditor().getMainFunctions()) {
+                buf.append(' ').append(f.getInputString());
+            }
+            for (UserFunction f : model.getFunctionEditor().getSupportFunctions()) {
+                buf.append(' ').append(f.getName()).append('=').append(f.getInputString());
+            }
+        }
+        return buf.toString();
     }
 
     /**
@@ -0,0 +1,202 @@
+/*
+ * The tracker package defines a set of video/image analysis tools
+ * built on the Open Source Physics framework by Wolfgang Christian.
+ *
+ * Copyright (c) 2018  Douglas Brown
+ *
+ * Tracker is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Tracker is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Tracker; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston MA 02111-1307 USA
+ * or view the license online at <http://www.gnu.org/copyleft/gpl.html>
+ *
+ * For additional Tracker information and documentation, please see
+ * <http://physlets.org/tracker/>.
+ */
+package org.opensourcephysics.cabrillo.tracker.dynamics;
+
+import java.util.Arrays;
+
+/**
+ * StateCheckpoints saves ODE states at intervals of frames so a dynamic model
+ * can resume integration from the nearest earlier state. States are kept in a
+ * single flat array and the number of checkpoints is bounded: when full, every
+ * other checkpoint is dropped and the interval is doubled.
+ */
+public class StateCheckpoints {
+
+    public static final int DEFAULT_INTERVAL = 10; // frames
+    public static final int DEFAULT_MAX_COUNT = 2048;
+
+    private int interval;
+    private int initialInterval;
+    private int maxCount;
+    private int stateLength;
+    private int count;
+    private int[] frames = new int[16];
+    private double[] states = new double[0];
+
+    /**
+     * Constructs StateCheckpoints with default interval and maximum count.
+     */
+    public StateCheckpoints() {
+        this(DEFAULT_INTERVAL, DEFAULT_MAX_COUNT);
+    }
+
+    /**
+     * Constructs StateCheckpoints with a specified interval and maximum count.
+     *
+     * @param interval the minimum number of frames between checkpoints
+     * @param maxCount the maximum number of checkpoints
+     */
+    public StateCheckpoints(int interval, int maxCount) {
+        setInterval(interval);
+        setMaxCount(maxCount);
+    }
+
+    /**
+     * Sets the minimum number of frames between checkpoints and clears all checkpoints.
+     *
+     * @param frames the interval in frames
+     */
+    public void setInterval(int frames) {
+        initialInterval = Math.max(1, frames);
+        clear();
+    }
+
+    /**
+     * Gets the current interval. This may exceed the interval set
+     * if checkpoints have been thinned to stay within the maximum count.
+     *
+     * @return the interval in frames
+     */
+    public int getInterval() {
+        return interval;
+    }
+
+    /**
+     * Sets the maximum number of checkpoints and clears all checkpoints.
+     *
+     * @param max the maximum count
+     */
+    public void setMaxCount(int max) {
+        maxCount = Math.max(2, max);
+        clear();
+    }
+
+    /**
+     * Gets the maximum number of checkpoints.
+     *
+     * @return the maximum count
+     */
+    public int getMaxCount() {
+        return maxCount;
+    }
+
+    /**
+     * Gets the number of checkpoints.
+     *
+     * @return the count
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Removes all checkpoints and restores the initial interval.
+     */
+    public void clear() {
+        count = 0;
+        interval = initialInterval;
+    }
+
+    /**
+     * Saves a state for a frame if no other checkpoint is within the current interval.
+     *
+     * @param frame the frame number
+     * @param state the state
+     * @return true if the state was saved
+     */
+    public boolean save(int frame, double[] state) {
+        if (state.length != stateLength) {
+            count = 0;
+            stateLength = state.length;
+            states = new double[frames.length * stateLength];
+        }
+        int i = Arrays.binarySearch(frames, 0, count, frame);
+        if (i >= 0) {
+            // replace existing state
+            System.arraycopy(state, 0, states, i * stateLength, stateLength);
+            return true;
+        }
+        i = -i - 1;
+        if (i > 0 && frame - frames[i - 1] < interval) return false;
+        if (i < count && frames[i] - frame < interval) return false;
+        if (count == maxCount) {
+            thin();
+            return save(frame, state);
+        }
+        if (count == frames.length) {
+            frames = Arrays.copyOf(frames, Math.min(2 * count, maxCount));
+            states = Arrays.copyOf(states, frames.length * stateLength);
+        }
+        System.arraycopy(frames, i, frames, i + 1, count - i);
+        System.arraycopy(states, i * stateLength, states, (i + 1) * stateLength, (count - i) * stateLength);
+        frames[i] = frame;
+        System.arraycopy(state, 0, states, i * stateLength, stateLength);
+        count++;
+        return true;
+    }
+
+    /**
+     * Gets the frame of the latest checkpoint at or before a specified frame.
+     *
+     * @param frame the frame number
+     * @return the checkpoint frame, or -1 if none
+     */
+    public int floorFrame(int frame) {
+        int i = Arrays.binarySearch(frames, 0, count, frame);
+        if (i < 0) i = -i - 2;
+        return i < 0 ? -1 : frames[i];
+    }
+
+    /**
+     * Copies the state saved for a frame into a specified array.
+     *
+     * @param frame the checkpoint frame number
+     * @param state the array to fill
+     * @return true if a state was found
+     */
+    public boolean get(int frame, double[] state) {
+        if (state.length != stateLength) return false;
+        int i = Arrays.binarySearch(frames, 0, count, frame);
+        if (i < 0) return false;
+        System.arraycopy(states, i * stateLength, state, 0, stateLength);
+        return true;
+    }
+
+    /**
+     * Drops every other checkpoint and doubles the interval.
+     */
+    private void thin() {
+        interval *= 2;
+        int n = 1;
+        for (int i = 1; i < count; i++) {
+            if (frames[i] - frames[n - 1] < interval) continue;
+            frames[n] = frames[i];
+            System.arraycopy(states, i * stateLength, states, n * stateLength, stateLength);
+            n++;
+        }
+        count = n;
+    }
+
+}
@@ -34,6 +34,7 @@ import javax.swing.border.Border;
 
 import org.opensourcephysics.cabrillo.tracker.*;
 import org.opensourcephysics.cabrillo.tracker.component.TTrack;
+import org.opensourcephysics.cabrillo.tracker.dialog.KymographDialog;
 import org.opensourcephysics.cabrillo.tracker.footprint.Footprint;
 import org.opensourcephysics.cabrillo.tracker.step.Step;
 import org.opensourcephysics.cabrillo.tracker.step.StepArray;
@@ -99,11 +100,13 @@ public class LineProfile extends TTrack {
     protected JMenu orientationMenu;
     protected JMenuItem horizOrientationItem;
     protected JMenuItem xaxisOrientationItem;
+    protected JMenuItem kymographItem;
     protected int spread = 0;
     protected JLabel spreadLabel;
     protected IntegerField spreadField;
     protected boolean isHorizontal = true;
     protected boolean loading;
+    protected LineProfileKymograph kymograph = new LineProfileKymograph(this);
 
     /**
      * Constructs a LineProfile.
@@ -189,6 +192,14 @@ public class LineProfile extends TTrack {
                 TrackerRes.getString("LineProfile.MenuItem.XAxis")); //$NON-NLS-1$
         orientationMenu.add(xaxisOrientationItem);
         group.add(xaxisOrientationItem);
+        // create kymograph item
+        kymographItem = new JMenuItem(TrackerRes.getString("LineProfile.MenuItem.Kymograph")); //$NON-NLS-1$
+        kymographItem.addActionListener(e -> {
+            if (trackerPanel == null) return;
+            KymographDialog dialog = new KymographDialog(trackerPanel, LineProfile.this);
+            dialog.setVisible(true);
+            dialog.compute();
+        });
     }
 
     /**
@@ -484,6 +495,27 @@ public class LineProfile extends TTrack {
         }
     }
 
+    /**
+     * Profiles the line in all steps of the video clip. The resulting
+     * space-time brightness matrix is available from getKymograph() and is
+     * reused until the video or line changes. This blocks until complete.
+     *
+     * @param trackerPanel the tracker panel
+     * @return the number of steps profiled
+     */
+    public int profileAllFrames(TrackerPanel trackerPanel) {
+        return kymograph.compute(trackerPanel);
+    }
+
+    /**
+     * Gets the kymograph that holds the profiles of all steps.
+     *
+     * @return the kymograph
+     */
+    public LineProfileKymograph getKymograph() {
+        return kymograph;
+    }
+
     /**
      * Overrides TTrack getMenu method.
      *
@@ -500,6 +532,10 @@ public class LineProfile extends TTrack {
         menu.add(orientationMenu);
         menu.addSeparator();
         menu.add(fixedLineItem);
+        kymographItem.setText(TrackerRes.getString("LineProfile.MenuItem.Kymograph")); //$NON-NLS-1$
+        Video video = trackerPanel.getVideo();
+        kymographItem.setEnabled(video != null && video.isVisible() && !isEmpty());
+        menu.add(kymographItem);
         // replace delete item
         if (trackerPanel.isEnabled("track.delete")) { //$NON-NLS-1$
             if (menu.getItemCount() > 0 && menu.getItem(menu.getItemCount() - 1) != null)
@@ -546,6 +582,7 @@ public class LineProfile extends TTrack {
                 dataValid = false;
             } else if (name.equals("image")) { //$NON-NLS-1$
                 dataValid = false;
+                kymograph.invalidate(); // pixels may have changed
                 support.firePropertyChange(e); // to views
             } else if (name.equals("transform") && !steps.isEmpty()) { //$NON-NLS-1$
                 int n = trackerPanel.getFrameNumber();
@@ -574,11 +611,7 @@ public class LineProfile extends TTrack {
      */
     protected void refreshStep(LineProfileStep step) {
         if (step == null) return;
-        int key = 0;
-        for (int i : keyFrames) {
-            if (i <= step.n)
-                key = i;
-        }
+        int key = getKeyFrame(step.n);
         // compare step with keyStep
         LineProfileStep keyStep = (LineProfileStep) steps.getStep(key);
         boolean different =
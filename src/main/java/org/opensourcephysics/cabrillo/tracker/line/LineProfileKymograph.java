@@ -0,0 +1,338 @@
+/*
+ * The tracker package defines a set of video/image analysis tools
+ * built on the Open Source Physics framework by Wolfgang Christian.
+ *
+ * Copyright (c) 2018  Douglas Brown
+ *
+ * Tracker is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Tracker is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Tracker; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston MA 02111-1307 USA
+ * or view the license online at <http://www.gnu.org/copyleft/gpl.html>
+ *
+ * For additional Tracker information and documentation, please see
+ * <http://physlets.org/tracker/>.
+ */
+package org.opensourcephysics.cabrillo.tracker.line;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.opensourcephysics.cabrillo.tracker.WorkerPool;
+import org.opensourcephysics.cabrillo.tracker.tracker.TrackerIO;
+import org.opensourcephysics.cabrillo.tracker.tracker.TrackerPanel;
+import org.opensourcephysics.display.Dataset;
+import org.opensourcephysics.media.core.*;
+
+/**
+ * A LineProfileKymograph profiles the line of a LineProfile in every step of
+ * the video clip and holds the brightness (luma) as a space-time matrix with
+ * one row per step and one column per pixel along the line.
+ * <p>
+ * Frames are read from a private copy of the video, so the video shown in
+ * the tracker panel is neither stepped nor repainted, and are profiled on a
+ * worker pool while the next frames are read. The matrix is
+ * stored as fixed-point shorts and is reused until the video, clip, spread,
+ * orientation or line positions change.
+ */
+public class LineProfileKymograph {
+
+    // static fields
+    private static final int scale = 128; // fixed-point luma scale
+    private static final short missing = -1;
+
+    // instance fields
+    private final LineProfile line;
+    private short[] luma = new short[0]; // rows * columns
+    private int[] frames = new int[0];
+    private double[] times = new double[0];
+    private int rows, columns;
+    private long signature;
+    private boolean valid;
+    private int generation; // incremented whenever the matrix is invalidated
+    private BufferedImage image;
+    private volatile boolean cancelled;
+
+    /**
+     * Constructs a LineProfileKymograph for a LineProfile.
+     *
+     * @param line the LineProfile
+     */
+    public LineProfileKymograph(LineProfile line) {
+        this.line = line;
+    }
+
+    /**
+     * Profiles all steps in the video clip. If nothing that affects the
+     * profiles has changed since the last call, the existing matrix is kept.
+     * This blocks until the profiles are complete, so it should not be called
+     * on the event dispatch thread for long clips.
+     *
+     * @param trackerPanel the tracker panel
+     * @return the number of rows (steps)
+     */
+    public int compute(TrackerPanel trackerPanel) {
+        Video video = trackerPanel.getVideo();
+        if (video == null || !video.isVisible() || line.isEmpty()) return 0;
+        cancelled = false;
+        VideoClip clip = trackerPanel.getPlayer().getVideoClip();
+        int stepCount = clip.getStepCount();
+
+        // snapshot the line ends in each step
+        int[] stepFrames = new int[stepCount];
+        double[][] ends = new double[stepCount][];
+        long hash = System.identityHashCode(video);
+        hash = 31 * hash + line.getSpread();
+        hash = 31 * hash + (line.isHorizontal ? 1 : 0);
+        int maxLength = 0;
+        for (int i = 0; i < stepCount; i++) {
+            int frame = clip.stepToFrame(i);
+            stepFrames[i] = frame;
+            LineProfileStep step = (LineProfileStep) line.getStep(frame);
+            hash = 31 * hash + frame;
+            if (step == null) continue;
+            TPoint end0 = step.getLineEnd0(), end1 = step.getLineEnd1();
+            ends[i] = new double[]{end0.getX(), end0.getY(), end1.getX(), end1.getY()};
+            for (double d : ends[i]) {
+                hash = 31 * hash + Double.doubleToLongBits(d);
+            }
+            hash = 31 * hash + Double.doubleToLongBits(trackerPanel.getCoords().getAngle(frame));
+            maxLength = Math.max(maxLength, (int) Math.ceil(end0.distance(end1)) + 1);
+        }
+        int gen;
+        synchronized (this) {
+            if (valid && hash == signature && rows == stepCount) return rows;
+            gen = generation;
+            valid = false;
+            image = null;
+            rows = stepCount;
+            columns = maxLength;
+            frames = stepFrames;
+            times = new double[stepCount];
+            for (int i = 0; i < stepCount; i++) {
+                times[i] = trackerPanel.getPlayer().getStepTime(i) / 1000.0;
+            }
+            if (luma.length < rows * columns) luma = new short[rows * columns];
+            Arrays.fill(luma, 0, rows * columns, missing);
+        }
+
+        // read frames from a copy of the video on this thread and profile them on the worker pool
+        Video reader = TrackerIO.getVideoCopy(video);
+        if (reader == null) return 0;
+        int maxPending = 2 * WorkerPool.getThreadCount();
+        ArrayDeque<Future<?>> pending = new ArrayDeque<>();
+        boolean complete = false;
+        try {
+            for (int i = 0; i < stepCount && !cancelled; i++) {
+                if (ends[i] == null) continue;
+                reader.setFrameNumber(stepFrames[i]);
+                BufferedImage source = reader.getImage();
+                if (source == null) break;
+                // copy since videos may reuse their image buffers
+                BufferedImage frameImage = new BufferedImage(
+                        source.getWidth(), source.getHeight(), BufferedImage.TYPE_INT_RGB);
+                Graphics2D g = frameImage.createGraphics();
+                g.drawImage(source, 0, 0, null);
+                g.dispose();
+                pending.add(WorkerPool.getExecutor().submit(new Job(trackerPanel, i, stepFrames[i], ends[i], frameImage)));
+                while (pending.size() >= maxPending) {
+                    pending.poll().get();
+                }
+            }
+            while (!pending.isEmpty()) {
+                pending.poll().get();
+            }
+            complete = !cancelled;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            ex.printStackTrace();
+        } finally {
+            for (Future<?> future : pending) {
+                future.cancel(true);
+            }
+            reader.dispose();
+        }
+        synchronized (this) {
+            valid = complete && gen == generation; // not if invalidated while computing
+            signature = hash;
+            image = null;
+        }
+        return rows;
+    }
+
+    /**
+     * Cancels a running computation. Rows found so far are kept but the matrix
+     * is recomputed by the next call to compute().
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Marks the matrix invalid so it is recomputed by the next call to
+     * compute(). This must be called whenever the video images change.
+     */
+    public synchronized void invalidate() {
+        valid = false;
+        generation++;
+    }
+
+    /**
+     * Determines if the matrix is complete and up to date as of the last
+     * call to compute().
+     *
+     * @return true if valid
+     */
+    public synchronized boolean isValid() {
+        return valid;
+    }
+
+    /**
+     * Gets the number of rows (steps).
+     *
+     * @return the row count
+     */
+    public synchronized int getRowCount() {
+        return rows;
+    }
+
+    /**
+     * Gets the number of columns (pixels along the longest line).
+     *
+     * @return the column count
+     */
+    public synchronized int getColumnCount() {
+        return columns;
+    }
+
+    /**
+     * Gets the frame number of a row.
+     *
+     * @param row the row
+     * @return the frame number
+     */
+    public synchronized int getFrameNumber(int row) {
+        return frames[row];
+    }
+
+    /**
+     * Gets the brightness at a row and column.
+     *
+     * @param row    the row (step number)
+     * @param column the column (pixel number along the line)
+     * @return the luma, or NaN if not profiled
+     */
+    public synchronized double getLuma(int row, int column) {
+        short value = luma[row * columns + column];
+        return value == missing ? Double.NaN : value / (double) scale;
+    }
+
+    /**
+     * Gets the brightness profile of a single step as a dataset.
+     *
+     * @param row the row (step number)
+     * @return a dataset of luma vs pixel number
+     */
+    public synchronized Dataset getRowDataset(int row) {
+        Dataset dataset = new Dataset();
+        dataset.setXYColumnNames(LineProfile.dataVariables[0], LineProfile.dataVariables[6]);
+        for (int col = 0; col < columns; col++) {
+            double value = getLuma(row, col);
+            if (!Double.isNaN(value)) dataset.append(col, value);
+        }
+        return dataset;
+    }
+
+    /**
+     * Gets the brightness of a single pixel along the line over time as a dataset.
+     *
+     * @param column the column (pixel number along the line)
+     * @return a dataset of luma vs time
+     */
+    public synchronized Dataset getColumnDataset(int column) {
+        Dataset dataset = new Dataset();
+        dataset.setXYColumnNames("t", LineProfile.dataVariables[6]); //$NON-NLS-1$
+        for (int row = 0; row < rows; row++) {
+            double value = getLuma(row, column);
+            if (!Double.isNaN(value)) dataset.append(times[row], value);
+        }
+        return dataset;
+    }
+
+    /**
+     * Gets a grayscale image of the matrix with one image row per step.
+     * Pixels that were not profiled are black. The image is reused until the
+     * matrix changes.
+     *
+     * @return the image, or null if there is no data
+     */
+    public synchronized BufferedImage getImage() {
+        if (rows == 0 || columns == 0) return null;
+        if (image != null) return image;
+        image = new BufferedImage(columns, rows, BufferedImage.TYPE_BYTE_GRAY);
+        byte[] data = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+        for (int i = 0, n = rows * columns; i < n; i++) {
+            short value = luma[i];
+            data[i] = (byte) (value == missing ? 0 : Math.min(255, (value + scale / 2) / scale));
+        }
+        return image;
+    }
+
+    /**
+     * Stores the profile of a single row.
+     *
+     * @param row     the row
+     * @param profile the profile data from LineProfileStep.getProfileData
+     */
+    private synchronized void setRow(int row, double[][] profile) {
+        if (row >= rows) return;
+        int n = Math.min(columns, profile[5].length);
+        for (int col = 0; col < n; col++) {
+            double value = profile[5][col];
+            luma[row * columns + col] = Double.isNaN(value)
+                    ? missing : (short) Math.round(Math.max(0, value) * scale);
+        }
+    }
+
+    /**
+     * Profiles a single frame. Each job uses its own step so that the step's
+     * working geometry is not shared between threads.
+     */
+    private class Job implements Runnable {
+
+        private final TrackerPanel trackerPanel;
+        private final int row, frame;
+        private final double[] ends;
+        private final BufferedImage frameImage;
+
+        Job(TrackerPanel trackerPanel, int row, int frame, double[] ends, BufferedImage frameImage) {
+            this.trackerPanel = trackerPanel;
+            this.row = row;
+            this.frame = frame;
+            this.ends = ends;
+            this.frameImage = frameImage;
+        }
+
+        @Override
+        public void run() {
+            LineProfileStep probe = new LineProfileStep(line, frame, ends[0], ends[1], ends[2], ends[3]);
+            double[][] profile = probe.getProfileData(trackerPanel, frameImage, frame);
+            if (profile != null) setRow(row, profile);
+        }
+    }
+}
@@ -73,6 +73,12 @@ public class LineProfileStep extends Step {
     private final Intersection[] polygon = new Intersection[8]; // polygon shape vertices
     private final Point polyLoc = new Point();
     private final double[] quadAreas = new double[4]; // used for GridVertex quadrant areas
+    // compiled tilted profile kernels shared by all steps, by line geometry
+    private static final Map<KernelKey, TiltedKernel> kernels = new LinkedHashMap<KernelKey, TiltedKernel>(16, 0.75f, true) {
+        protected boolean removeEldestEntry(Map.Entry<KernelKey, TiltedKernel> eldest) {
+            return size() > 32;
+        }
+    };
 
     /**
      * Constructs a LineProfileStep with specified end point coordinates in image
@@ -209,7 +215,7 @@ public class LineProfileStep extends Step {
      * @return the mark
      */
     protected Mark getMark(TrackerPanel trackerPanel) {
-        Mark mark = marks.get(trackerPanel);
+        Mark mark = getCachedMark(trackerPanel);
         TPoint selection;
         if (mark == null) {
             if (footprint instanceof OutlineFootprint) {
@@ -263,7 +269,7 @@ public class LineProfileStep extends Step {
                     }
                 };
             }
-            marks.put(trackerPanel, mark);
+            setCachedMark(trackerPanel, mark);
             // get new hit shapes
             Shape[] shapes = footprint.getHitShapes();
             end0Shapes.put(trackerPanel, shapes[0]);
@@ -332,13 +338,26 @@ public class LineProfileStep extends Step {
      */
     public double[][] getProfileData(TrackerPanel trackerPanel) {
         if (trackerPanel.getVideo() == null) return null;
-        LineProfile profile = (LineProfile) getTrack();
-        int frame = trackerPanel.getFrameNumber();
+        BufferedImage image = trackerPanel.getVideo().getImage();
+        return getProfileData(trackerPanel, image, trackerPanel.getFrameNumber());
+    }
+
+    /**
+     * Gets the line profile data from a specified video frame image. This does
+     * not use the video or player, so frames other than the current one can be
+     * profiled.
+     *
+     * @param trackerPanel the tracker panel
+     * @param image        the frame image
+     * @param frame        the frame number of the image
+     * @return an integer array of values for image pixels along the line
+     */
+    public double[][] getProfileData(TrackerPanel trackerPanel, BufferedImage image, int frame) {
         double angle = trackerPanel.getCoords().getAngle(frame);
-        if (profile.isHorizontal || Math.abs(Math.sin(angle)) < .00001) {
-            return getHorizontalProfileData(trackerPanel);
+        if (line.isHorizontal || Math.abs(Math.sin(angle)) < .00001) {
+            return getHorizontalProfileData(trackerPanel, image, frame);
         }
-        return getTiltedProfileData(trackerPanel);
+        return getTiltedProfileData(trackerPanel, image, frame);
     }
 
     /**
@@ -367,214 +386,270 @@ public class LineProfileStep extends Step {
     //_________________________ private methods ________________________
 
     /**
-     * Gets the tilted line profile data.
+     * Gets the tilted line profile data. The pixel weights are compiled into
+     * a kernel that is cached by line geometry, so only a multiply-accumulate
+     * pass over the image pixels is needed when just the frame changes.
      *
      * @param trackerPanel the tracker panel
+     * @param image        the frame image
+     * @param frame        the frame number of the image
      * @return an integer array of values for image pixels along the line
      */
-    private double[][] getTiltedProfileData(TrackerPanel trackerPanel) {
+    private double[][] getTiltedProfileData(TrackerPanel trackerPanel, BufferedImage image, int frame) {
+        if (image == null || image.getType() != BufferedImage.TYPE_INT_RGB) return null;
+        TiltedKernel kernel = getTiltedKernel(image.getWidth(), image.getHeight());
+        if (kernel == null) return null;
+        int len = kernel.length;
+        double[][] values = new double[7][len];
+        int[] pixels = new int[kernel.w * kernel.h];
+        Point2D imagePixel = new Point2D.Double();
+        Point2D worldPixel = new Point2D.Double();
+        try {
+            // get affine transform
+            AffineTransform at = trackerPanel.getCoords().getToWorldTransform(frame);
+            // fill pixels array with pixel data
+            image.getRaster().getDataElements(kernel.pixXMin, kernel.pixYMin, kernel.w, kernel.h, pixels);
+            int[] index = kernel.index;
+            double[] weight = kernel.weight;
+            for (int i = 0; i < len; i++) {
+                // get position data at center of bounds
+                imagePixel.setLocation(kernel.centerX[i], kernel.centerY[i]);
+                at.transform(imagePixel, worldPixel);
+                values[0][i] = worldPixel.getX();
+                values[1][i] = worldPixel.getY();
+                // find area-weighted RGB values
+                double red = 0, green = 0, blue = 0;
+                for (int k = kernel.start[i], end = kernel.start[i + 1]; k < end; k++) {
+                    int pixel = pixels[index[k]];
+                    double a = weight[k];
+                    red += a * ((pixel >> 16) & 0xff);
+                    green += a * ((pixel >> 8) & 0xff);
+                    blue += a * (pixel & 0xff);
+                }
+                double area = kernel.area[i];
+                values[2][i] = red = red / area;
+                values[3][i] = green = green / area;
+                values[4][i] = blue = blue / area;
+                values[5][i] = RGBRegion.getLuma(red, green, blue);
+                values[6][i] = kernel.width; // should equal 2*spread + 1
+            }
+        } catch (ArrayIndexOutOfBoundsException ex) {
+            ex.printStackTrace();
+            return null;
+        }
+        return values;
+    }
+
+    /**
+     * Gets the tilted profile kernel for the current line ends and spread,
+     * compiling it if it is not cached.
+     *
+     * @param imageWidth  the image width
+     * @param imageHeight the image height
+     * @return the kernel, or null if the line has no pixels in the image
+     */
+    private TiltedKernel getTiltedKernel(int imageWidth, int imageHeight) {
+        KernelKey key = new KernelKey(lineEnd0.x, lineEnd0.y, lineEnd1.x, lineEnd1.y,
+                line.getSpread(), imageWidth, imageHeight);
+        synchronized (kernels) {
+            TiltedKernel kernel = kernels.get(key);
+            if (kernel != null || kernels.containsKey(key)) return kernel;
+        }
+        TiltedKernel kernel = compileTiltedKernel(imageWidth, imageHeight);
+        synchronized (kernels) {
+            kernels.put(key, kernel);
+        }
+        return kernel;
+    }
+
+    /**
+     * Compiles the pixel indices and area weights of the tilted profile.
+     *
+     * @param imageWidth  the image width
+     * @param imageHeight the image height
+     * @return the kernel, or null if the line has no pixels in the image
+     */
+    private TiltedKernel compileTiltedKernel(int imageWidth, int imageHeight) {
         double length = lineEnd0.distance(lineEnd1);
         if (length < 1) return null;
-        BufferedImage image = trackerPanel.getVideo().getImage();
-        if (image != null && image.getType() == BufferedImage.TYPE_INT_RGB) {
-            Shape bounds = new Rectangle(image.getWidth(), image.getHeight());
-            // get line profile width and angle/slope data
-            int width = 1 + 2 * line.getSpread();
-            int len = (int) Math.floor(length); // length of line profile data array
-            double theta = lineEnd0.angle(lineEnd1);
-            cos = Math.cos(theta);
-            sin = Math.sin(theta);
-            // determine min and max values and set initial corner positions
-            double dx = width * sin / 2.0;
-            double dy = width * cos / 2.0;
-            // set corners at lineEnd0
-            corners[0][0].x = lineEnd0.x - dx;
-            corners[0][0].y = lineEnd0.y + dy;
-            corners[0][1].x = lineEnd0.x + dx;
-            corners[0][1].y = lineEnd0.y - dy;
-            // step the corners forward until both are inside image bounds
-            while (len > 0 && (!bounds.contains(corners[0][0]) || !bounds.contains(corners[0][1]))) {
-                len--;
-                corners[0][0].x += cos;
-                corners[0][0].y += sin;
-                corners[0][1].x += cos;
-                corners[0][1].y += sin;
-            }
-            // set corners at lineEnd1
-            corners[1][0].x = lineEnd1.x - dx;
-            corners[1][0].y = lineEnd1.y + dy;
-            corners[1][1].x = lineEnd1.x + dx;
-            corners[1][1].y = lineEnd1.y - dy;
-            // step the corners back until inside bounds
-            while (len > 0 && (!bounds.contains(corners[1][0]) || !bounds.contains(corners[1][1]))) {
-                len--;
-                corners[1][0].x -= cos;
-                corners[1][0].y -= sin;
-                corners[1][1].x -= cos;
-                corners[1][1].y -= sin;
+        Shape bounds = new Rectangle(imageWidth, imageHeight);
+        // get line profile width and angle/slope data
+        int width = 1 + 2 * line.getSpread();
+        int len = (int) Math.floor(length); // length of line profile data array
+        double theta = lineEnd0.angle(lineEnd1);
+        cos = Math.cos(theta);
+        sin = Math.sin(theta);
+        // determine min and max values and set initial corner positions
+        double dx = width * sin / 2.0;
+        double dy = width * cos / 2.0;
+        // set corners at lineEnd0
+        corners[0][0].x = lineEnd0.x - dx;
+        corners[0][0].y = lineEnd0.y + dy;
+        corners[0][1].x = lineEnd0.x + dx;
+        corners[0][1].y = lineEnd0.y - dy;
+        // step the corners forward until both are inside image bounds
+        while (len > 0 && (!bounds.contains(corners[0][0]) || !bounds.contains(corners[0][1]))) {
+            len--;
+            corners[0][0].x += cos;
+            corners[0][0].y += sin;
+            corners[0][1].x += cos;
+            corners[0][1].y += sin;
+        }
+        // set corners at lineEnd1
+        corners[1][0].x = lineEnd1.x - dx;
+        corners[1][0].y = lineEnd1.y + dy;
+        corners[1][1].x = lineEnd1.x + dx;
+        corners[1][1].y = lineEnd1.y - dy;
+        // step the corners back until inside bounds
+        while (len > 0 && (!bounds.contains(corners[1][0]) || !bounds.contains(corners[1][1]))) {
+            len--;
+            corners[1][0].x -= cos;
+            corners[1][0].y -= sin;
+            corners[1][1].x -= cos;
+            corners[1][1].y -= sin;
+        }
+        if (len < 1) return null;
+        // get the min and max bounds
+        double xMax;
+        double xMin = xMax = corners[0][0].x;
+        // borders of the current probe
+        double yMax;
+        double yMin = yMax = corners[0][0].y;
+        for (int i = 0; i < 2; i++) {
+            for (int j = 0; j < 2; j++) {
+                xMin = Math.min(xMin, corners[i][j].x);
+                yMin = Math.min(yMin, corners[i][j].y);
+                xMax = Math.max(xMax, corners[i][j].x);
+                yMax = Math.max(yMax, corners[i][j].y);
             }
-            if (len < 1) return null;
-            // get the min and max bounds
-            double xMax;
-            double xMin = xMax = corners[0][0].x;
-            // borders of the current probe
-            double yMax;
-            double yMin = yMax = corners[0][0].y;
-            for (int i = 0; i < 2; i++) {
-                for (int j = 0; j < 2; j++) {
-                    xMin = Math.min(xMin, corners[i][j].x);
-                    yMin = Math.min(yMin, corners[i][j].y);
-                    xMax = Math.max(xMax, corners[i][j].x);
-                    yMax = Math.max(yMax, corners[i][j].y);
-                }
+        }
+        // use min and max to determine image pixels needed
+        int pixXMin = (int) Math.floor(xMin);
+        int pixYMin = (int) Math.floor(yMin);
+        int pixXMax = (int) Math.ceil(xMax);
+        int pixYMax = (int) Math.ceil(yMax);
+        int w = pixXMax - pixXMin;
+        int h = pixYMax - pixYMin;
+        TiltedKernel kernel = new TiltedKernel(len, width, pixXMin, pixYMin, w, h);
+        // prepare GridIntersection arrays if needed
+        if (sweepX == null || sweepX[0].length < width) {
+            sweepX = new GridIntersection[2][width];
+            sweepY = new GridIntersection[2][width];
+            for (int i = 0; i < width; i++) {
+                sweepX[0][i] = new GridIntersection(0, 0, true);
+                sweepX[1][i] = new GridIntersection(0, 0, true);
+                sweepY[0][i] = new GridIntersection(0, 0, false);
+                sweepY[1][i] = new GridIntersection(0, 0, false);
             }
-            double[][] values = new double[7][len];
-            // use min and max to determine image pixels needed
-            int pixXMin = (int) Math.floor(xMin);
-            int pixYMin = (int) Math.floor(yMin);
-            int pixXMax = (int) Math.ceil(xMax);
-            int pixYMax = (int) Math.ceil(yMax);
-            int w = pixXMax - pixXMin;
-            int h = pixYMax - pixYMin;
-            int[] pixels = new int[w * h];
-            // prepare GridIntersection arrays if needed
-            if (sweepX == null || sweepX[0].length < width) {
-                sweepX = new GridIntersection[2][width];
-                sweepY = new GridIntersection[2][width];
-                for (int i = 0; i < width; i++) {
-                    sweepX[0][i] = new GridIntersection(0, 0, true);
-                    sweepX[1][i] = new GridIntersection(0, 0, true);
-                    sweepY[0][i] = new GridIntersection(0, 0, false);
-                    sweepY[1][i] = new GridIntersection(0, 0, false);
+        }
+        // find initial "leading edge" intersections
+        leadingIndex = 0;
+        findLeadingIntersections();
+        try {
+            // step along length of the line
+            for (int i = 0; i < len; i++) {
+                Corner end0 = corners[leadingIndex][0];
+                Corner end1 = corners[leadingIndex][1];
+                // leading index is toggled at every step
+                // so leading becomes trailing edge data
+                leadingIndex = leadingIndex == 0 ? 1 : 0;
+                // set new corner positions
+                corners[leadingIndex][0].x = end0.x + cos;
+                corners[leadingIndex][0].y = end0.y + sin;
+                corners[leadingIndex][1].x = end1.x + cos;
+                corners[leadingIndex][1].y = end1.y + sin;
+                // find new bounds of corners
+                xMin = xMax = corners[0][0].x;
+                yMin = yMax = corners[0][0].y;
+                for (int k = 0; k < 2; k++) {
+                    for (int j = 0; j < 2; j++) {
+                        xMin = Math.min(xMin, corners[k][j].x);
+                        yMin = Math.min(yMin, corners[k][j].y);
+                        xMax = Math.max(xMax, corners[k][j].x);
+                        yMax = Math.max(yMax, corners[k][j].y);
+                    }
                 }
-            }
-            // find initial "leading edge" intersections
-            leadingIndex = 0;
-            findLeadingIntersections();
-            Point2D imagePixel = new Point2D.Double();
-            Point2D worldPixel = new Point2D.Double();
-            try {
-                // get affine transform
-                int n = trackerPanel.getFrameNumber();
-                AffineTransform at = trackerPanel.getCoords().getToWorldTransform(n);
-                // fill pixels array with pixel data
-                image.getRaster().getDataElements(pixXMin, pixYMin, w, h, pixels);
-                // step along length of the line
-                for (int i = 0; i < len; i++) {
-                    Corner end0 = corners[leadingIndex][0];
-                    Corner end1 = corners[leadingIndex][1];
-                    // leading index is toggled at every step
-                    // so leading becomes trailing edge data
-                    leadingIndex = leadingIndex == 0 ? 1 : 0;
-                    // set new corner positions
-                    corners[leadingIndex][0].x = end0.x + cos;
-                    corners[leadingIndex][0].y = end0.y + sin;
-                    corners[leadingIndex][1].x = end1.x + cos;
-                    corners[leadingIndex][1].y = end1.y + sin;
-                    // find new bounds of corners
-                    xMin = xMax = corners[0][0].x;
-                    yMin = yMax = corners[0][0].y;
-                    for (int k = 0; k < 2; k++) {
-                        for (int j = 0; j < 2; j++) {
-                            xMin = Math.min(xMin, corners[k][j].x);
-                            yMin = Math.min(yMin, corners[k][j].y);
-                            xMax = Math.max(xMax, corners[k][j].x);
-                            yMax = Math.max(yMax, corners[k][j].y);
+                // position at center of bounds
+                kernel.centerX[i] = (xMax + xMin) / 2;
+                kernel.centerY[i] = (yMax + yMin) / 2;
+                // make areas array
+                int minCol = (int) Math.floor(xMin);
+                int minRow = (int) Math.floor(yMin);
+                int colCount = (int) Math.ceil(xMax) - minCol;
+                int rowCount = (int) Math.ceil(yMax) - minRow;
+                double[][] areas = new double[colCount][rowCount];
+                // find and link leading intersections to corners
+                findLeadingIntersections();
+                // find and link end intersections to corners
+                findEndIntersections();
+                // find grid segments and vertices
+                findGridSegments();
+                findGridVertices();
+                double a;
+                int column, row;
+                // step through vertices, if any
+                if (!vertices.isEmpty()) {
+                    for (GridVertex next : vertices) {
+                        // fill areas array from quadrant areas
+                        column = (int) next.x - minCol;
+                        row = (int) next.y - minRow;
+                        // set initial quadrant areas
+                        quadAreas[0] = areas[column][row];
+                        quadAreas[1] = column > 0 ? areas[column - 1][row] : 1;
+                        quadAreas[2] = row > 0 && column > 0 ? areas[column - 1][row - 1] : 1;
+                        quadAreas[3] = row > 0 ? areas[column][row - 1] : 1;
+                        getAreas(next, quadAreas);
+                        areas[column][row] = quadAreas[0];
+                        if (column > 0) areas[column - 1][row] = quadAreas[1];
+                        if (row > 0) {
+                            areas[column][row - 1] = quadAreas[3];
+                            if (column > 0) areas[column - 1][row - 1] = quadAreas[2];
                         }
                     }
-                    // get position data at center of bounds
-                    imagePixel.setLocation((xMax + xMin) / 2, (yMax + yMin) / 2);
-                    at.transform(imagePixel, worldPixel);
-                    values[0][i] = worldPixel.getX();
-                    values[1][i] = worldPixel.getY();
-                    // make areas array
-                    int minCol = (int) Math.floor(xMin);
-                    int minRow = (int) Math.floor(yMin);
-                    int colCount = (int) Math.ceil(xMax) - minCol;
-                    int rowCount = (int) Math.ceil(yMax) - minRow;
-                    double[][] areas = new double[colCount][rowCount];
-                    // find and link leading intersections to corners
-                    findLeadingIntersections();
-                    // find and link end intersections to corners
-                    findEndIntersections();
-                    // find grid segments and vertices
-                    findGridSegments();
-                    findGridVertices();
-                    // define local rgb and area accumulators
-                    double area = 0, red = 0, green = 0, blue = 0;
-                    double a;
-                    int column, row;
-                    // step through vertices, if any
-                    if (!vertices.isEmpty()) {
-                        for (GridVertex next : vertices) {
-                            // fill areas array from quadrant areas
-                            column = (int) next.x - minCol;
-                            row = (int) next.y - minRow;
-                            // set initial quadrant areas
-                            quadAreas[0] = areas[column][row];
-                            quadAreas[1] = column > 0 ? areas[column - 1][row] : 1;
-                            quadAreas[2] = row > 0 && column > 0 ? areas[column - 1][row - 1] : 1;
-                            quadAreas[3] = row > 0 ? areas[column][row - 1] : 1;
-                            getAreas(next, quadAreas);
-                            areas[column][row] = quadAreas[0];
-                            if (column > 0) areas[column - 1][row] = quadAreas[1];
-                            if (row > 0) {
-                                areas[column][row - 1] = quadAreas[3];
-                                if (column > 0) areas[column - 1][row - 1] = quadAreas[2];
-                            }
-                        }
-                    } else { // no vertices found: single pixel case
-                        // pick any grid segment and find areas on both sides
-                        GridSegment seg = xSegments.iterator().next();
-                        a = getArea(seg.lower, seg.higher);
-                        column = polyLoc.x - minCol;
-                        row = polyLoc.y - minRow;
-                        if (a > 0) areas[column][row] = a;
-                        a = getArea(seg.higher, seg.lower);
+                } else { // no vertices found: single pixel case
+                    // pick any grid segment and find areas on both sides
+                    GridSegment seg = xSegments.iterator().next();
+                    a = getArea(seg.lower, seg.higher);
+                    column = polyLoc.x - minCol;
+                    row = polyLoc.y - minRow;
+                    if (a > 0) areas[column][row] = a;
+                    a = getArea(seg.higher, seg.lower);
+                    column = polyLoc.x - minCol;
+                    row = polyLoc.y - minRow;
+                    if (a > 0) areas[column][row] = a;
+                }
+                // in all cases find corner areas
+                for (int j = 0; j < 2; j++) {
+                    for (int k = 0; k < 2; k++) {
+                        a = getArea(corners[j][k]);
                         column = polyLoc.x - minCol;
                         row = polyLoc.y - minRow;
                         if (a > 0) areas[column][row] = a;
                     }
-                    // in all cases find corner areas
-                    for (int j = 0; j < 2; j++) {
-                        for (int k = 0; k < 2; k++) {
-                            a = getArea(corners[j][k]);
-                            column = polyLoc.x - minCol;
-                            row = polyLoc.y - minRow;
-                            if (a > 0) areas[column][row] = a;
-                        }
-                    }
-                    // find total area and area-weighted RGB values
-                    for (int ro = 0; ro < areas[0].length; ro++) {
-                        for (int col = 0; col < areas.length; col++) {
-                            int pixCol = col + minCol - pixXMin;
-                            int pixRow = ro + minRow - pixYMin;
-                            int pixIndex = pixCol + pixRow * w;
-                            int pixel = pixels[pixIndex];
-                            int r = (pixel >> 16) & 0xff; // red
-                            int g = (pixel >> 8) & 0xff; // green
-                            int b = (pixel) & 0xff; // blue
-                            a = areas[col][ro];
-                            red += a * r;
-                            green += a * g;
-                            blue += a * b;
-                            area += a;
-                        }
+                }
+                // add the nonzero areas and their pixel indices to the kernel
+                double area = 0;
+                for (int ro = 0; ro < areas[0].length; ro++) {
+                    for (int col = 0; col < areas.length; col++) {
+                        a = areas[col][ro];
+                        area += a;
+                        if (a == 0) continue;
+                        int pixCol = col + minCol - pixXMin;
+                        int pixRow = ro + minRow - pixYMin;
+                        if (pixCol < 0 || pixCol >= w || pixRow < 0 || pixRow >= h) return null;
+                        kernel.add(pixCol + pixRow * w, a);
                     }
-                    if (area == 0) return null;
-                    values[2][i] = red = red / area;
-                    values[3][i] = green = green / area;
-                    values[4][i] = blue = blue / area;
-                    values[5][i] = RGBRegion.getLuma(red, green, blue);
-                    values[6][i] = width; // should equal 2*spread + 1
                 }
-            } catch (ArrayIndexOutOfBoundsException ex) {
-                ex.printStackTrace();
-                return null;
+                if (area == 0) return null;
+                kernel.area[i] = area;
+                kernel.start[i + 1] = kernel.size;
             }
-            return values;
+        } catch (ArrayIndexOutOfBoundsException ex) {
+            ex.printStackTrace();
+            return null;
         }
-        return null;
+        kernel.trim();
+        return kernel;
     }
 
     /**
@@ -965,10 +1040,11 @@ public class LineProfileStep extends Step {
      * Gets the line profile data for a horizontal line.
      *
      * @param trackerPanel the tracker panel
+     * @param image        the frame image
+     * @param frame        the frame number of the image
      * @return an integer array of values for image pixels along the line
      */
-    private double[][] getHorizontalProfileData(TrackerPanel trackerPanel) {
-        if (trackerPanel.getVideo() == null) return null;
+    private double[][] getHorizontalProfileData(TrackerPanel trackerPanel, BufferedImage image, int frame) {
         int spread = line.getSpread();
         // get line end points
         int x0 = Math.min((int) lineEnd0.getX(), (int) lineEnd1.getX());
@@ -985,15 +1061,13 @@ public class LineProfileStep extends Step {
         double[][] values = new double[10][length];
         Point2D imagePixel = new Point2D.Double();
         Point2D worldPixel = new Point2D.Double();
-        BufferedImage image = trackerPanel.getVideo().getImage();
         if (image != null && image.getType() == BufferedImage.TYPE_INT_RGB) {
             try {
                 // locate starting pixel
                 int y = (int) lineEnd0.getY();
                 int y0 = y - spread;
                 // get affine transform
-                int n = trackerPanel.getFrameNumber();
-                AffineTransform at = trackerPanel.getCoords().getToWorldTransform(n);
+                AffineTransform at = trackerPanel.getCoords().getToWorldTransform(frame);
                 // fill pixels array with pixel data
                 image.getRaster().getDataElements(x0, y0, length, width, pixels);
                 // step along length of the line
@@ -1321,5 +1395,87 @@ public class LineProfileStep extends Step {
         }
     }
 
+
+    //______________________ kernel classes ________________________
+
+    /**
+     * The pixel indices and area weights of a tilted line profile. Weights of
+     * profile point i are at indices start[i] to start[i+1]-1.
+     */
+    private static class TiltedKernel {
+
+        final int length, width, pixXMin, pixYMin, w, h;
+        final double[] centerX, centerY, area;
+        final int[] start;
+        int[] index;
+        double[] weight;
+        int size;
+
+        TiltedKernel(int length, int width, int pixXMin, int pixYMin, int w, int h) {
+            this.length = length;
+            this.width = width;
+            this.pixXMin = pixXMin;
+            this.pixYMin = pixYMin;
+            this.w = w;
+            this.h = h;
+            centerX = new double[length];
+            centerY = new double[length];
+            area = new double[length];
+            start = new int[length + 1];
+            index = new int[length * (width + 2)];
+            weight = new double[index.length];
+        }
+
+        void add(int pixelIndex, double a) {
+            if (size == index.length) {
+                index = Arrays.copyOf(index, 2 * size + 16);
+                weight = Arrays.copyOf(weight, index.length);
+            }
+            index[size] = pixelIndex;
+            weight[size++] = a;
+        }
+
+        void trim() {
+            index = Arrays.copyOf(index, size);
+            weight = Arrays.copyOf(weight, size);
+        }
+    }
+
+    /**
+     * A kernel cache key.
+     */
+    private static class KernelKey {
+
+        private final long x0, y0, x1, y1;
+        private final int spread, imageWidth, imageHeight;
+
+        KernelKey(double x0, double y0, double x1, double y1, int spread, int imageWidth, int imageHeight) {
+            this.x0 = Double.doubleToLongBits(x0);
+            this.y0 = Double.doubleToLongBits(y0);
+            this.x1 = Double.doubleToLongBits(x1);
+            this.y1 = Double.doubleToLongBits(y1);
+            this.spread = spread;
+            this.imageWidth = imageWidth;
+            this.imageHeight = imageHeight;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof KernelKey)) return false;
+            KernelKey key = (KernelKey) obj;
+            return key.x0 == x0 && key.y0 == y0 && key.x1 == x1 && key.y1 == y1
+                    && key.spread == spread && key.imageWidth == imageWidth && key.imageHeight == imageHeight;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = Long.hashCode(x0);
+            hash = 31 * hash + Long.hashCode(y0);
+            hash = 31 * hash + Long.hashCode(x1);
+            hash = 31 * hash + Long.hashCode(y1);
+            hash = 31 * hash + spread;
+            return 31 * (31 * hash + imageWidth) + imageHeight;
+        }
+    }
 }
 
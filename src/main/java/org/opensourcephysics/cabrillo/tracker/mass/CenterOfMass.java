@@ -24,6 +24,7 @@
  */
 package org.opensourcephysics.cabrillo.tracker.mass;
 
+import org.opensourcephysics.cabrillo.tracker.step.FrameSums;
 import org.opensourcephysics.cabrillo.tracker.step.PositionStep;
 import org.opensourcephysics.cabrillo.tracker.step.Step;
 import org.opensourcephysics.cabrillo.tracker.component.TTrack;
@@ -60,6 +61,7 @@ public class CenterOfMass extends PointMass {
     protected JMenuItem inspectorItem;
     protected DatasetManager newData;
     protected CenterOfMassInspector inspector;
+    protected FrameSums sums = new FrameSums(); // mass-weighted positions by frame
 
     /**
      * Constructs an empty CenterOfMass.
@@ -283,16 +285,20 @@ public class CenterOfMass extends PointMass {
                 removeMass((PointMass) track);
         }
         if (e.getSource() instanceof PointMass) {
+            PointMass m = (PointMass) e.getSource();
             switch (name) {
                 case "mass": //$NON-NLS-1$
-                    update();
+                    updateMass(m);
                     break;
                 case "step":  //$NON-NLS-1$
                     int n = (Integer) e.getNewValue();
-                    update(n, true);
+                    int i = indexOf(m);
+                    if (i > -1 && updateSums(i, n, m.getSteps()))
+                        update(n, true);
                     break;
                 case "steps":  //$NON-NLS-1$
-                    update();
+                    Object range = e.getNewValue();
+                    update(m, range instanceof int[] ? (int[]) range : null);
                     break;
             }
         } else super.propertyChange(e);
@@ -315,23 +321,114 @@ public class CenterOfMass extends PointMass {
     }
 
     /**
-     * Updates all cm steps.
+     * Rebuilds the mass-weighted sums and updates all cm steps.
      */
     private void update() {
-        // update mass and count steps
+        // update mass and sums
         mass = 0;
-        int length = getSteps().length;
-        for (PointMass pointMass : masses) {
+        sums.reset(masses.length);
+        for (int i = 0; i < masses.length; i++) {
+            PointMass pointMass = masses[i];
             mass += pointMass.getMass();
-            length = Math.max(length, pointMass.getSteps().length);
+            sums.setWeight(i, pointMass.getMass());
+            Step[] memberSteps = pointMass.getSteps();
+            for (int n = 0; n < memberSteps.length; n++)
+                updateSums(i, n, memberSteps);
         }
         // update steps
+        int length = Math.max(getSteps().length, sums.getLength());
+        for (int n = 0; n < length; n++)
+            update(n, false);
+        updateDerivatives();
+        support.firePropertyChange("steps", null, null); //$NON-NLS-1$
+        refreshDisplay();
+    }
+
+    /**
+     * Updates the cm steps after a change to the steps of a single mass.
+     * Only frames whose mass position changed are updated, and derivatives
+     * are updated only around them.
+     *
+     * @param m     the mass
+     * @param range the {first, last} changed frame range, or null if unknown
+     */
+    private void update(PointMass m, int[] range) {
+        int i = indexOf(m);
+        if (i < 0) return;
+        Step[] memberSteps = m.getSteps();
+        int first = range == null ? 0 : Math.max(0, range[0]);
+        int last = Math.max(memberSteps.length, sums.getLength()) - 1;
+        if (range != null) last = Math.min(last, range[1]);
+        int changedFirst = -1, changedLast = -1;
+        for (int n = first; n <= last; n++) {
+            if (updateSums(i, n, memberSteps)) {
+                update(n, false);
+                if (changedFirst < 0) changedFirst = n;
+                changedLast = n;
+            }
+        }
+        if (changedFirst < 0) return;
+        updateDerivativesInRange(changedFirst, changedLast);
+        support.firePropertyChange("steps", null, new int[]{changedFirst, changedLast}); //$NON-NLS-1$
+        refreshDisplay();
+    }
+
+    /**
+     * Rescales the sums and updates all cm steps after a change to the
+     * mass of a single mass.
+     *
+     * @param m the mass
+     */
+    private void updateMass(PointMass m) {
+        int i = indexOf(m);
+        if (i < 0 || !sums.setWeight(i, m.getMass())) return;
+        mass = 0;
+        for (int j = 0; j < sums.getMemberCount(); j++) {
+            mass += sums.getWeight(j);
+        }
+        int length = Math.max(getSteps().length, sums.getLength());
         for (int n = 0; n < length; n++)
             update(n, false);
         updateDerivatives();
         support.firePropertyChange("steps", null, null); //$NON-NLS-1$
+        refreshDisplay();
+    }
+
+    /**
+     * Applies the position of a mass in a frame to the mass-weighted sums.
+     *
+     * @param i           the index of the mass
+     * @param n           the frame number
+     * @param memberSteps the steps of the mass
+     * @return true if the sums changed
+     */
+    private boolean updateSums(int i, int n, Step[] memberSteps) {
+        PositionStep step = n < memberSteps.length ? (PositionStep) memberSteps[n] : null;
+        if (step == null || !step.valid)
+            return sums.set(i, n, false, 0, 0);
+        TPoint p = step.getPosition();
+        return sums.set(i, n, true, p.getX(), p.getY());
+    }
+
+    /**
+     * Gets the index of a mass in the masses array.
+     *
+     * @param m the mass
+     * @return the index, or -1 if not found
+     */
+    private int indexOf(PointMass m) {
+        PointMass[] masses = this.masses;
+        for (int i = 0; i < masses.length; i++) {
+            if (masses[i] == m) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Repaints this track and updates the inspector, if visible.
+     */
+    private void refreshDisplay() {
         repaint();
-        // update inspector, if visible
         if (inspector != null &&
                 inspector.isVisible()) {
             inspector.updateDisplay();
@@ -339,9 +436,10 @@ public class CenterOfMass extends PointMass {
     }
 
     /**
-     * Updates the specified cm step.
+     * Updates the specified cm step from the mass-weighted sums.
      *
-     * @param n the frame number
+     * @param n                  the frame number
+     * @param firePropertyChange true to create, move or delete the step with events
      */
     private void update(int n, boolean firePropertyChange) {
         if (mass == 0) {   // delete cm step, if any
@@ -354,31 +452,22 @@ public class CenterOfMass extends PointMass {
             locked = true;
             return;
         }
-        double x = 0, y = 0; // cm x and y coordinates in imagespace
-        // determine cm step position in imagespace
-        for (PointMass pointMass : masses) {
-            PositionStep step = (PositionStep) pointMass.getStep(n);
-            if (step == null || !step.valid) {           // if any mass data missing,
-                if (getStep(n) != null) {   // delete existing cm step if any
-                    if (firePropertyChange) {
-                        locked = false;
-                        Step deletedStep = deleteStep(n);
-                        repaint(deletedStep);
-                    } else {
-                        steps.setStep(n, null);
-                    }
-                    locked = true;
+        if (!sums.isComplete(n)) {           // if any mass data missing,
+            if (getStep(n) != null) {   // delete existing cm step if any
+                if (firePropertyChange) {
+                    locked = false;
+                    Step deletedStep = deleteStep(n);
+                    repaint(deletedStep);
+                } else {
+                    steps.setStep(n, null);
                 }
-                return;
+                locked = true;
             }
-
-            double m = pointMass.getMass();
-            x += m * step.getPosition().getX();
-            y += m * step.getPosition().getY();
+            return;
         }
 
-        x /= mass;    // cm x coordinate
-        y /= mass;    // cm y coordinate
+        double x = sums.getX(n) / mass;    // cm x coordinate in imagespace
+        double y = sums.getY(n) / mass;    // cm y coordinate in imagespace
 
         // create cm step if none exists
         PositionStep cmStep = (PositionStep) getStep(n);
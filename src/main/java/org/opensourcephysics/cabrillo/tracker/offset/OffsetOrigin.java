@@ -117,7 +117,7 @@ public class OffsetOrigin extends TTrack {
         if (step == null) {
             step = new OffsetOriginStep(this, n, x, y);
             step.setFootprint(getFootprint());
-            steps = new StepArray(step);
+            steps = new StepArray(step, true);
             support.firePropertyChange("step", null, n); //$NON-NLS-1$
         } else if (trackerPanel != null) {
             XMLControl currentState = new XMLControlElement(this);
@@ -153,7 +153,7 @@ public class OffsetOrigin extends TTrack {
         } else {
             TPoint p = step.getPoints()[0];
             if (p != null) {
-                Mark mark = step.marks.get(trackerPanel);
+                Mark mark = step.getCachedMark(trackerPanel);
                 if (mark == null) {
                     // set step location to image position of current world coordinates
                     double xx = coords.worldToImageX(n, step.worldX, step.worldY);
@@ -200,7 +200,7 @@ public class OffsetOrigin extends TTrack {
         if (trackerPanel != null) {
             trackerPanel.changed = true;
             int n = trackerPanel.getFrameNumber();
-            steps = new StepArray(getStep(n));
+            steps = new StepArray(getStep(n), true);
             trackerPanel.repaint();
         }
         if (fixed) {
@@ -434,11 +434,7 @@ public class OffsetOrigin extends TTrack {
      */
     protected void refreshStep(OffsetOriginStep step) {
         if (step == null) return;
-        int key = 0;
-        for (int i : keyFrames) {
-            if (i <= step.n)
-                key = i;
-        }
+        int key = getKeyFrame(step.n);
         // compare step with keyStep
         OffsetOriginStep keyStep = (OffsetOriginStep) steps.getStep(key);
         boolean different = keyStep.worldX != step.worldX || keyStep.worldY != step.worldY;
@@ -113,7 +113,7 @@ public class OffsetOriginStep extends Step {
      * @return the mark
      */
     protected Mark getMark(TrackerPanel trackerPanel) {
-        Mark mark = marks.get(trackerPanel);
+        Mark mark = getCachedMark(trackerPanel);
         TPoint selection;
         if (mark == null) {
             ImageCoordSystem coords = trackerPanel.getCoords();
@@ -153,7 +153,7 @@ public class OffsetOriginStep extends Step {
                     return fillShape.getBounds();
                 }
             };
-            marks.put(trackerPanel, mark);
+            setCachedMark(trackerPanel, mark);
         }
         return mark;
     }
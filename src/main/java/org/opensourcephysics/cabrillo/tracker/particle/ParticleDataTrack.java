@@ -60,6 +60,7 @@ import java.awt.geom.Point2D;
 import java.beans.PropertyChangeEvent;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
  * This is a particle model with steps based on world positions defined in a Data object.
@@ -74,7 +75,8 @@ public class ParticleDataTrack extends ParticleModel implements DataTrack {
 
     private DataClip dataClip;
     private Data sourceData;
-    private double[] xData = {0}, yData = {0}, tData = {0};
+    private double[] xData = {0}, yData = {0}, tData = {0}; // may have spare capacity past dataLength
+    private int dataLength = 1; // number of samples in the data arrays
     private final Point2D[] tracePosition; // used by getNextTracePositions() method
     private int stepCounter;
     private Object dataSource; // may be ParticleDataTrack leader
@@ -819,6 +821,7 @@ public class ParticleDataTrack extends ParticleModel implements DataTrack {
 
         // save current time array for comparison
         double[] tPrev = tData;
+        int tPrevLength = getTimeLength();
         // set core {x,y,t} data for the leader (this)
         Object[] coreData = pointData.get(0);
         setPointName(coreData[0].toString());
@@ -862,7 +865,7 @@ public class ParticleDataTrack extends ParticleModel implements DataTrack {
             next.setPointName(next.pointName);
         }
         // check for changed time data
-        if (tData != null && tData.length > 1 && tPrev != null && tPrev.length > 1 && getVideoPanel() != null) {
+        if (getTimeLength() > 1 && tPrevLength > 1 && getVideoPanel() != null) {
             boolean changed = tData[0] != tPrev[0] || (tData[1] - tData[0]) != (tPrev[1] - tPrev[0]);
             VideoPlayer player = getVideoPanel().getPlayer();
             boolean isDataTime = player.getClipControl().getTimeSource() == this;
@@ -963,7 +966,7 @@ public class ParticleDataTrack extends ParticleModel implements DataTrack {
     public double getStepTime(int step) {
         if (tData == null) return Double.NaN;
         int index = getDataClip().stepToIndex(step);
-        if (index < tData.length) return tData[index];
+        if (index < getTimeLength()) return tData[index];
         return Double.NaN;
     }
 
@@ -975,7 +978,7 @@ public class ParticleDataTrack extends ParticleModel implements DataTrack {
     public boolean isTimeDataAvailable() {
         if (dataClip == null || getVideoClip() == null) return false;
         int n = Math.max(dataClip.getStride(), dataClip.getStartIndex());
-        return tData != null && tData.length > n;
+        return getTimeLength() > n;
     }
 
     /**
@@ -1077,7 +1080,7 @@ public class ParticleDataTrack extends ParticleModel implements DataTrack {
     public Point2D[] getNextTracePositions() {
         stepCounter++;
         int index = getDataIndexAtVideoStepNumber(stepCounter);
-        if (index < 0 || index >= xData.length || index >= yData.length) {
+        if (index < 0 || index >= dataLength) {
             return null;
         }
         point.setLocation(xData[index], yData[index]);
@@ -1200,7 +1203,7 @@ public class ParticleDataTrack extends ParticleModel implements DataTrack {
     @Override
     public void reset() {
         // clear existing steps
-        for (int i = 0; i < steps.length; i++) {
+        for (int i = 0; i < steps.getLength(); i++) {
             Step step = steps.getStep(i);
             if (step != null) {
                 step.erase();
@@ -1228,7 +1231,7 @@ public class ParticleDataTrack extends ParticleModel implements DataTrack {
 
         // mark a step at firstFrameInVideoClip unless dataclip length is zero
         steps.setLength(firstFrameInVideoClip + 1);
-        for (int i = 0; i < steps.length; i++) {
+        for (int i = 0; i < steps.getLength(); i++) {
             if (i < firstFrameInVideoClip || index == -1)
                 steps.setStep(i, null);
             else {
@@ -1244,8 +1247,7 @@ public class ParticleDataTrack extends ParticleModel implements DataTrack {
         getAArray(trackerPanel).setLength(0);
 
         // reset trace data
-        traceX = new double[]{point.getX()};
-        traceY = new double[]{point.getY()};
+        tracePoints.reset(point.getX(), point.getY());
         lastValidFrame = firstFrameInVideoClip;
         stepCounter = 0;
     }
@@ -1275,7 +1277,13 @@ public class ParticleDataTrack extends ParticleModel implements DataTrack {
      * @return double[][] {x, y, t}
      */
     public double[][] getDataArray() {
-        return new double[][]{xData, yData, tData};
+        if (xData.length == dataLength && yData.length == dataLength
+                && (tData == null || tData.length == dataLength)) {
+            return new double[][]{xData, yData, tData};
+        }
+        // trim spare capacity
+        return new double[][]{Arrays.copyOf(xData, dataLength), Arrays.copyOf(yData, dataLength),
+                tData == null ? null : Arrays.copyOf(tData, Math.min(dataLength, tData.length))};
     }
 
     /**
@@ -1291,8 +1299,7 @@ public class ParticleDataTrack extends ParticleModel implements DataTrack {
         sourceData = data;
         Object[] coreData = pointData.get(0);
         double[][] xyArray = (double[][]) coreData[1];
-        double[][] oldData = getDataArray();
-        int n = oldData[0].length;
+        int n = dataLength;
         if (xyArray[0].length <= n) {
             // inform user that no new data was found
             TFrame frame = trackerPanel != null ? trackerPanel.getTFrame() : null;
@@ -1302,14 +1309,9 @@ public class ParticleDataTrack extends ParticleModel implements DataTrack {
                     JOptionPane.WARNING_MESSAGE);
             return;
         }
+        // append only the new values
         double[] timeArray = getTimeData(data); // may be null
-        double[][] newData = new double[][]{xyArray[0], xyArray[1], timeArray};
-        for (int i = 0; i < newData.length; i++) {
-            if (newData[i] != null && oldData[i] != null) {
-                System.arraycopy(oldData[i], 0, newData[i], 0, n);
-            }
-        }
-        setCoreData(newData, false);
+        appendSamples(xyArray[0], xyArray[1], timeArray, n, xyArray[0].length - n);
 
         // append values to other points
         int len = Math.min(pointData.size() - 1, morePoints.size());
@@ -1318,10 +1320,84 @@ public class ParticleDataTrack extends ParticleModel implements DataTrack {
             // get the new data
             Object[] next = pointData.get(i + 1);
             xyArray = (double[][]) next[1];
-            // set target's data
-            target.setCoreData(xyArray, true);
+            int m = target.dataLength;
+            target.appendSamples(xyArray[0], xyArray[1], null, m, Math.max(0, xyArray[0].length - m));
+        }
+        refreshAppendedData();
+    }
+
+    /**
+     * Appends samples to the end of the data of this point without copying
+     * the existing data. The data arrays grow geometrically so appending n
+     * samples in small batches takes O(n) time overall.
+     * Call refreshAppendedData() on the leader after appending to all points.
+     *
+     * @param x      the x values
+     * @param y      the y values
+     * @param t      the time values in seconds (may be null to continue the
+     *               existing times at the last sample interval)
+     * @param offset the index of the first value to append
+     * @param count  the number of values to append
+     */
+    public void appendSamples(double[] x, double[] y, double[] t, int offset, int count) {
+        if (count <= 0) return;
+        int size = dataLength + count;
+        xData = ensureCapacity(xData, size);
+        yData = ensureCapacity(yData, size);
+        System.arraycopy(x, offset, xData, dataLength, count);
+        System.arraycopy(y, offset, yData, dataLength, count);
+        if (tData != null) {
+            tData = ensureCapacity(tData, size);
+            if (t != null) {
+                System.arraycopy(t, offset, tData, dataLength, count);
+            } else {
+                // continue the times at the last sample interval
+                double dt = getAppendInterval();
+                double t0 = dataLength > 0 ? tData[dataLength - 1] : 0;
+                for (int i = 0; i < count; i++) {
+                    tData[dataLength + i] = t0 + (dataLength > 0 ? i + 1 : i) * dt;
+                }
+            }
+        }
+        dataLength = size;
+    }
+
+    /**
+     * Gets the time interval for samples appended without time values: the
+     * interval between the last two samples, or the video frame duration if
+     * there are fewer than two.
+     *
+     * @return the interval in seconds
+     */
+    private double getAppendInterval() {
+        if (dataLength > 1) {
+            double dt = tData[dataLength - 1] - tData[dataLength - 2];
+            if (dt > 0) return dt;
+        }
+        if (trackerPanel != null) {
+            return trackerPanel.getPlayer().getMeanStepDuration() / 1000;
+        }
+        return 1;
+    }
+
+    /**
+     * Refreshes the data clip and display of this and all other points after
+     * samples have been appended.
+     */
+    public void refreshAppendedData() {
+        refreshCoreData(false);
+        for (ParticleDataTrack next : morePoints) {
+            next.refreshCoreData(true);
         }
+    }
 
+    /**
+     * Gets the number of data samples.
+     *
+     * @return the data length
+     */
+    public int getDataLength() {
+        return dataLength;
     }
 
     /**
@@ -1657,7 +1733,17 @@ public class ParticleDataTrack extends ParticleModel implements DataTrack {
         xData = data[0];
         yData = data[1];
         tData = data.length > 2 ? data[2] : null;
-        getDataClip().setDataLength(data[0].length);
+        dataLength = data[0].length;
+        refreshCoreData(reset);
+    }
+
+    /**
+     * Refreshes the data clip, video clip and display after the data has changed.
+     *
+     * @param reset true to redraw all frames
+     */
+    private void refreshCoreData(boolean reset) {
+        getDataClip().setDataLength(dataLength);
         firePropertyChange("dataclip", null, dataClip); //$NON-NLS-1$
         adjustVideoClip();
         if (reset) {
@@ -1669,6 +1755,27 @@ public class ParticleDataTrack extends ParticleModel implements DataTrack {
         repaint();
     }
 
+    /**
+     * Gets the number of valid time values.
+     *
+     * @return the time length, or 0 if no time data
+     */
+    private int getTimeLength() {
+        return tData == null ? 0 : Math.min(dataLength, tData.length);
+    }
+
+    /**
+     * Returns an array with at least a minimum length, growing it by half if needed.
+     *
+     * @param array the array
+     * @param size  the minimum length
+     * @return the array or a longer copy
+     */
+    private static double[] ensureCapacity(double[] array, int size) {
+        if (array.length >= size) return array;
+        return Arrays.copyOf(array, Math.max(size, array.length * 3 / 2 + 16));
+    }
+
     /**
      * Adjusts the video clip by (a) extending it if it currently ends
      * at the last frame and the data clip extends past that point, or (b)
@@ -1759,17 +1866,19 @@ public class ParticleDataTrack extends ParticleModel implements DataTrack {
 //      Parameter[] inits = model.getInitEditor().getParameters();
 //    	control.setValue("initial_values", inits); //$NON-NLS-1$
             // save the data
-            control.setValue("x", dataTrack.xData); //$NON-NLS-1$
-            control.setValue("y", dataTrack.yData); //$NON-NLS-1$
-            control.setValue("t", dataTrack.tData); //$NON-NLS-1$
+            double[][] dataArray = dataTrack.getDataArray();
+            control.setValue("x", dataArray[0]); //$NON-NLS-1$
+            control.setValue("y", dataArray[1]); //$NON-NLS-1$
+            control.setValue("t", dataArray[2]); //$NON-NLS-1$
             // save point name
             control.setValue("pointname", dataTrack.pointName); //$NON-NLS-1$
             // save additional point data: x, y, mass, point name, color, footprint
             for (int i = 0; i < dataTrack.morePoints.size(); i++) {
                 ParticleDataTrack pointTrack = dataTrack.morePoints.get(i);
                 // save the data
-                control.setValue("x" + i, pointTrack.xData); //$NON-NLS-1$
-                control.setValue("y" + i, pointTrack.yData); //$NON-NLS-1$
+                double[][] pointArray = pointTrack.getDataArray();
+                control.setValue("x" + i, pointArray[0]); //$NON-NLS-1$
+                control.setValue("y" + i, pointArray[1]); //$NON-NLS-1$
                 // save point name
                 control.setValue("mass" + i, pointTrack.getMass()); //$NON-NLS-1$
                 control.setValue("pointname" + i, pointTrack.pointName); //$NON-NLS-1$
@@ -84,8 +84,7 @@ public abstract class ParticleModel extends PointMass {
             inspectorY, inspectorH = Integer.MIN_VALUE;
     protected boolean showModelBuilder;
     public boolean refreshing = false;
-    public double[] traceX = {}, traceY = {};
-    protected double[] prevX, prevY;
+    public final TraceBuffer tracePoints = new TraceBuffer();
     protected TPoint tracePt = new TPoint();
     public int lastValidFrame = -1;  // used in draw method
     protected double t0, dt = 0.1, time;
@@ -159,7 +158,9 @@ public abstract class ParticleModel extends PointMass {
                     && coords.isFixedScale();
             if (fixed && (!(tPanel instanceof WorldTView) || !isRefFrame)) {
                 trace.reset();
-                for (int i = 0; i < traceX.length; i++) {
+                double[] traceX = tracePoints.getXArray();
+                double[] traceY = tracePoints.getYArray();
+                for (int i = 0, len = tracePoints.getLength(); i < len; i++) {
                     if (Double.isNaN(traceX[i])) continue;
                     tracePt.setLocation(traceX[i], traceY[i]);
                     java.awt.Point p = tracePt.getScreenPosition(tPanel);
@@ -627,6 +628,18 @@ public abstract class ParticleModel extends PointMass {
      */
     public abstract Point2D[] getNextTracePositions();
 
+    /**
+     * Gets the world positions of this model at an array of times, for models
+     * whose positions depend only on time. Returns null by default, in which
+     * case positions are stepped forward with getNextTracePositions().
+     *
+     * @param times the times in seconds
+     * @return interleaved x and y world positions, or null if not supported
+     */
+    protected double[] getTracePositions(double[] times) {
+        return null;
+    }
+
     /**
      * Resets model parameters and sets position(s) for start frame.
      * Most of the work in this method must be done by subclasses.
@@ -715,26 +728,46 @@ public abstract class ParticleModel extends PointMass {
             double stepSize = 1.0 * clip.getStepSize() / tracePtsPerStep;
             int stepCount = (tracePtsPerStep * (end - start)) / clip.getStepSize();
             ParticleModel[] models = getModels();
-            // prepare larger trace arrays and copy existing points into them
-            for (ParticleModel next : models) {
+            // extend the traces to make room for the new points
+            int[] traceStart = new int[models.length];
+            for (int j = 0; j < models.length; j++) {
+                ParticleModel next = models[j];
                 next.locked = false;
-                int traceLength = next.traceX.length + stepCount;
-                next.prevX = next.traceX;
-                next.prevY = next.traceY;
-                next.traceX = new double[traceLength];
-                next.traceY = new double[traceLength];
-                System.arraycopy(next.prevX, 0, next.traceX, 0, next.prevX.length);
-                System.arraycopy(next.prevY, 0, next.traceY, 0, next.prevY.length);
+                traceStart[j] = next.tracePoints.getLength();
+                next.tracePoints.setLength(traceStart[j] + stepCount);
+            }
+            // evaluate time-only models in a single batch
+            double[] positions = null;
+            if (models.length == 1 && stepCount > 0) {
+                double[] times = new double[stepCount];
+                for (int i = 0; i < stepCount; i++) {
+                    times[i] = startTime + (i + 1) * dt;
+                }
+                positions = getTracePositions(times);
+                if (positions != null) {
+                    transformTracePositions(coords, positions, start, stepSize);
+                    time = times[stepCount - 1];
+                }
             }
+            Point2D[] batchPoints = {new Point2D.Double()};
             for (int i = 0; i < stepCount; i++) {
                 int stepNumber = i + 1;
                 int frameNumber = start + (int) (stepNumber * stepSize);
-                time = startTime + stepNumber * dt;
-                Point2D[] points = getNextTracePositions();
-                if (points == null) continue;
-                AffineTransform transform = coords.getToImageTransform(frameNumber);
+                Point2D[] points;
+                if (positions != null) {
+                    // already transformed to image space
+                    batchPoints[0].setLocation(positions[2 * i], positions[2 * i + 1]);
+                    points = batchPoints;
+                } else {
+                    time = startTime + stepNumber * dt;
+                    points = getNextTracePositions();
+                    if (points == null) continue;
+                    AffineTransform transform = coords.getToImageTransform(frameNumber);
+                    for (int j = 0; j < models.length; j++) {
+                        transform.transform(points[j], points[j]);
+                    }
+                }
                 for (int j = 0; j < models.length; j++) {
-                    transform.transform(points[j], points[j]);
                     // determine if point is invalid due to out of bounds
                     boolean valid = Math.abs(points[j].getX()) < xLimit
                             && Math.abs(points[j].getY()) < yLimit;
@@ -751,10 +784,9 @@ public abstract class ParticleModel extends PointMass {
                         };
                         SwingUtilities.invokeLater(runner);
                     }
-                    models[j].traceX[models[j].prevX.length + i] =
-                            valid ? points[j].getX() : Double.NaN;
-                    models[j].traceY[models[j].prevY.length + i] =
-                            valid ? points[j].getY() : Double.NaN;
+                    models[j].tracePoints.set(traceStart[j] + i,
+                            valid ? points[j].getX() : Double.NaN,
+                            valid ? points[j].getY() : Double.NaN);
                     if (stepNumber % tracePtsPerStep == 0) { // refresh position step
                         saveState(frameNumber);
                         PositionStep step = (PositionStep) models[j].getStep(frameNumber);
@@ -819,6 +851,29 @@ public abstract class ParticleModel extends PointMass {
         }
     }
 
+    /**
+     * Transforms a batch of trace positions from world to image space in place,
+     * using one transform per frame for all the trace points in the frame.
+     *
+     * @param coords    the coordinate system
+     * @param positions interleaved x and y positions
+     * @param start     the frame preceding the first position
+     * @param stepSize  the frames per trace point
+     */
+    private void transformTracePositions(ImageCoordSystem coords, double[] positions, int start, double stepSize) {
+        int count = positions.length / 2;
+        int i = 0;
+        while (i < count) {
+            int frameNumber = start + (int) ((i + 1) * stepSize);
+            int next = i + 1;
+            while (next < count && start + (int) ((next + 1) * stepSize) == frameNumber) {
+                next++;
+            }
+            coords.getToImageTransform(frameNumber).transform(positions, 2 * i, positions, 2 * i, next - i);
+            i = next;
+        }
+    }
+
     /**
      * Creates a position step with image coordinates. Overridden by ParticleDataTrack.
      *
@@ -862,25 +917,20 @@ public abstract class ParticleModel extends PointMass {
         int trimCount = (tracePtsPerStep * (lastValidFrame - end)) / clip.getStepSize();
         ParticleModel[] models = getModels();
         for (ParticleModel next : models) {
-            // create smaller trace arrays and copy existing points into them
+            // trim the trace
             next.locked = false;
-            int traceLength = next.traceX.length - trimCount;
+            int traceLength = next.tracePoints.getLength() - trimCount;
             if (traceLength < 0) return;  // trap for error during closing
-            next.prevX = next.traceX;
-            next.prevY = next.traceY;
-            next.traceX = new double[traceLength];
-            next.traceY = new double[traceLength];
-            System.arraycopy(next.prevX, 0, next.traceX, 0, traceLength);
-            System.arraycopy(next.prevY, 0, next.traceY, 0, traceLength);
+            next.tracePoints.setLength(traceLength);
             // reduce number of steps
             next.steps.setLength(end + 1);
             // refresh derivatives
             next.updateDerivatives(end - 2, lastValidFrame - end + 2);
-            // restore state
-            restoreState(end);
             next.support.firePropertyChange("steps", null, null); //$NON-NLS-1$
             next.locked = true;
         }
+        // restore state
+        restoreState(end);
         lastValidFrame = end;
         repaint();
 //		trackerPanel.repaint();
@@ -896,7 +946,7 @@ public abstract class ParticleModel extends PointMass {
     }
 
     /**
-     * Restores the state to a previously saved state, if any.
+     * Restores the state at a frame from a previously saved state, if any.
      * Does nothing by default, but DynamicParticle overrides.
      *
      * @param frameNumber the frame number
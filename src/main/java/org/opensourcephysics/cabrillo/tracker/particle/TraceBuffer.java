@@ -0,0 +1,158 @@
+/*
+ * The tracker package defines a set of video/image analysis tools built on the
+ * Open Source Physics framework by Wolfgang Christian.
+ *
+ * Copyright (c) 2018  Douglas Brown
+ *
+ * Tracker is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Tracker is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Tracker; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place, Suite 330, Boston MA 02111-1307 USA or view the license online at
+ * <http://www.gnu.org/copyleft/gpl.html>
+ *
+ * For additional Tracker information and documentation, please see
+ * <http://physlets.org/tracker/>.
+ */
+package org.opensourcephysics.cabrillo.tracker.particle;
+
+import java.util.Arrays;
+
+/**
+ * A TraceBuffer holds the image positions of a particle model trace in growable
+ * primitive arrays. Capacity doubles as points are added, and the logical length
+ * can be extended or trimmed without allocating or copying.
+ */
+public class TraceBuffer {
+
+    private double[] x = new double[16], y = new double[16];
+    private int length;
+
+    /**
+     * Gets the number of trace points.
+     *
+     * @return the length
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Sets the number of trace points. Points added by lengthening are
+     * initialized to (0, 0).
+     *
+     * @param len the new length
+     */
+    public void setLength(int len) {
+        len = Math.max(len, 0);
+        if (len > length) {
+            ensureCapacity(len);
+            Arrays.fill(x, length, len, 0);
+            Arrays.fill(y, length, len, 0);
+        }
+        length = len;
+    }
+
+    /**
+     * Removes all trace points.
+     */
+    public void clear() {
+        length = 0;
+    }
+
+    /**
+     * Replaces the trace with a single point.
+     *
+     * @param px the x position
+     * @param py the y position
+     */
+    public void reset(double px, double py) {
+        length = 0;
+        append(px, py);
+    }
+
+    /**
+     * Appends a trace point.
+     *
+     * @param px the x position
+     * @param py the y position
+     */
+    public void append(double px, double py) {
+        ensureCapacity(length + 1);
+        x[length] = px;
+        y[length] = py;
+        length++;
+    }
+
+    /**
+     * Sets the trace point at a specified index.
+     *
+     * @param i  the index (must be less than the length)
+     * @param px the x position
+     * @param py the y position
+     */
+    public void set(int i, double px, double py) {
+        x[i] = px;
+        y[i] = py;
+    }
+
+    /**
+     * Gets the x position of the trace point at a specified index.
+     *
+     * @param i the index
+     * @return the x position
+     */
+    public double getX(int i) {
+        return x[i];
+    }
+
+    /**
+     * Gets the y position of the trace point at a specified index.
+     *
+     * @param i the index
+     * @return the y position
+     */
+    public double getY(int i) {
+        return y[i];
+    }
+
+    /**
+     * Gets the backing x array. Only the first getLength() elements are valid.
+     * The array is replaced when the capacity grows, so callers should not keep it.
+     *
+     * @return the x array
+     */
+    public double[] getXArray() {
+        return x;
+    }
+
+    /**
+     * Gets the backing y array. Only the first getLength() elements are valid.
+     * The array is replaced when the capacity grows, so callers should not keep it.
+     *
+     * @return the y array
+     */
+    public double[] getYArray() {
+        return y;
+    }
+
+    /**
+     * Ensures the capacity is at least the specified number of points.
+     *
+     * @param capacity the minimum capacity
+     */
+    public void ensureCapacity(int capacity) {
+        if (capacity <= x.length) return;
+        int newCapacity = Math.max(capacity, 2 * x.length);
+        x = Arrays.copyOf(x, newCapacity);
+        y = Arrays.copyOf(y, newCapacity);
+    }
+
+}
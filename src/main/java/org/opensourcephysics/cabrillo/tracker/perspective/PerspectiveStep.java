@@ -88,10 +88,10 @@ public class PerspectiveStep extends Step {
      * @return the mark
      */
     protected Mark getMark(TrackerPanel trackerPanel) {
-        Mark mark = marks.get(trackerPanel);
+        Mark mark = getCachedMark(trackerPanel);
         if (mark == null) {
             mark = footprint.getMark(screenPoints);
-            marks.put(trackerPanel, mark);
+            setCachedMark(trackerPanel, mark);
         }
         return mark;
     }
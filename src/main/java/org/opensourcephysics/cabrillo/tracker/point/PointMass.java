@@ -25,7 +25,17 @@
 package org.opensourcephysics.cabrillo.tracker.point;
 
 import java.beans.*;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.*;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
 import java.awt.*;
 import java.awt.event.*;
 import java.awt.geom.*;
@@ -39,15 +49,16 @@ import org.opensourcephysics.cabrillo.tracker.bounce.BounceDerivatives;
 import org.opensourcephysics.cabrillo.tracker.circle.CircleFootprint;
 import org.opensourcephysics.cabrillo.tracker.component.TToolBar;
 import org.opensourcephysics.cabrillo.tracker.component.TTrack;
-import org.opensourcephysics.cabrillo.tracker.derivative.Derivative;
-import org.opensourcephysics.cabrillo.tracker.derivative.FirstDerivative;
-import org.opensourcephysics.cabrillo.tracker.derivative.SecondDerivative;
+import org.opensourcephysics.cabrillo.tracker.derivative.DerivativeData;
+import org.opensourcephysics.cabrillo.tracker.derivative.DerivativeEvaluator;
+import org.opensourcephysics.cabrillo.tracker.derivative.FiniteDifferenceDerivatives;
 import org.opensourcephysics.cabrillo.tracker.dialog.MovingAverageDialog;
 import org.opensourcephysics.cabrillo.tracker.dynamics.DynamicSystem;
 import org.opensourcephysics.cabrillo.tracker.footprint.Footprint;
 import org.opensourcephysics.cabrillo.tracker.line.LineFootprint;
 import org.opensourcephysics.cabrillo.tracker.mass.CenterOfMass;
 import org.opensourcephysics.cabrillo.tracker.particle.ParticleModel;
+import org.opensourcephysics.cabrillo.tracker.step.MarkStore;
 import org.opensourcephysics.cabrillo.tracker.step.PositionStep;
 import org.opensourcephysics.cabrillo.tracker.step.Step;
 import org.opensourcephysics.cabrillo.tracker.step.StepArray;
@@ -74,17 +85,21 @@ public class PointMass extends TTrack {
     public static final int BOUNCE_DETECT = 1;
     public static final int FINITE_DIFF_VSPILL2 = 2;
     public static final double MINIMUM_MASS = 1E-30;
+    protected static final String PACKED_FRAME_DATA = "packed:"; //$NON-NLS-1$
+    protected static final int MAX_TRAIL_LAYER_PIXELS = 4000000; // larger panels draw trails directly
 
     // static fields
-    protected static Derivative vDeriv = new FirstDerivative();
-    protected static Derivative aDeriv = new SecondDerivative();
-    protected static BounceDerivatives bounceDerivs = new BounceDerivatives();
+    protected static DerivativeEvaluator finiteDiffDerivs = new FiniteDifferenceDerivatives();
+    protected BounceDerivatives bounceDerivs = new BounceDerivatives(); // per track, since it caches window fits
     public static String[] dataVariables; // used for data, tables
     public static String[] fieldVariables; // associated with number fields
     public static String[] formatVariables; // used by NumberFormatSetter
     public static Map<String, ArrayList<String>> formatMap;
     public static Map<String, String> formatDescriptionMap;
     public static boolean isAutoKeyDown;
+    // tracks with at least this many steps save packed frame data when Tracker.packFrameData is set
+    private static final int packedFrameDataMinSteps = 1000;
+    private static int panelSaveCount; // positive while tracks are saved with their TrackerPanel
     public static String[] footprintNames = new String[]
             {"Footprint.Diamond", //$NON-NLS-1$
                     "Footprint.Triangle", //$NON-NLS-1$
@@ -283,11 +298,10 @@ public class PointMass extends TTrack {
     protected int vDerivSpill = 1;
     protected int aDerivSpill = 2;
     protected int bounceDerivsSpill = 3;
-    protected int[] params = new int[4];
-    protected double[] xData = new double[5];
-    protected double[] yData = new double[5];
-    protected boolean[] validData = new boolean[5];
-    protected Object[] derivData = new Object[]{params, xData, yData, validData};
+    protected DerivativeData derivData = new DerivativeData();
+    // data values of the most recent refresh, used for incremental refreshes
+    protected double[][] dataColumns; // [dataset][row]
+    protected double[] dataTimes; // [row]
     // identify skipped steps
     public TreeSet<Integer> skippedSteps = new TreeSet<>();
     public boolean isAutofill = false;
@@ -315,6 +329,7 @@ public class PointMass extends TTrack {
     protected boolean traceVisible = false;
     protected GeneralPath trace = new GeneralPath();
     protected Stroke traceStroke = new BasicStroke(1);
+    protected Map<TrackerPanel, TrailLayer> trailLayers = new HashMap<>(); // cached trails and traces
 
     /**
      * Constructs a PointMass with mass 1.0.
@@ -485,7 +500,7 @@ public class PointMass extends TTrack {
         for (int n = 0; n < 3; n++) {
             switch (n) {
                 case 0:
-                    stepArray = steps.array;
+                    stepArray = steps.getSteps();
                     break;
                 case 1:
                     stepArray = getVelocities(trackerPanel);
@@ -647,7 +662,7 @@ public class PointMass extends TTrack {
             if (name.equals(value.getName())) {
                 vFootprint = value;
                 for (TrackerPanel panel : panels) {
-                    Step[] stepArray = getVArray(panel).array;
+                    Step[] stepArray = getVArray(panel).getSteps();
                     for (Step step : stepArray)
                         if (step != null)
                             step.setFootprint(vFootprint);
@@ -706,7 +721,7 @@ public class PointMass extends TTrack {
             if (name.equals(value.getName())) {
                 aFootprint = value;
                 for (TrackerPanel panel : panels) {
-                    Step[] stepArray = getAArray(panel).array;
+                    Step[] stepArray = getAArray(panel).getSteps();
                     for (Step step : stepArray)
                         if (step != null)
                             step.setFootprint(aFootprint);
@@ -1058,6 +1073,10 @@ public class PointMass extends TTrack {
                 }
             }
         }
+        for (TrailLayer layer : trailLayers.values()) {
+            layer.dispose();
+        }
+        trailLayers.clear();
         super.dispose();
     }
 
@@ -1085,6 +1104,15 @@ public class PointMass extends TTrack {
                 && !getClass().equals(DynamicSystem.class)) {
             count++; // extra dataset for KE
         }
+        if (data.getDatasets().isEmpty()) {
+            // use datasets whose rows can be patched in place
+            for (int i = 0; i < count; i++) {
+                RowDataset dataset = new RowDataset();
+                dataset.setSorted(true);
+                if (i > 0) dataset.setXColumnVisible(false);
+                data.addDataset(dataset);
+            }
+        }
         if (data.getDataset(0).getColumnName(0).equals("x")) { //$NON-NLS-1$
             // assign column names to the datasets
             String timeVar = dataVariables[0];
@@ -1132,15 +1160,14 @@ public class PointMass extends TTrack {
         // get data at each non-null position step in the videoclip
         VideoPlayer player = trackerPanel.getPlayer();
         VideoClip clip = player.getVideoClip();
-        ImageCoordSystem coords = trackerPanel.getCoords();
         Step[] stepArray = getSteps();
+        dataColumns = new double[count][stepArray.length];
+        dataTimes = new double[stepArray.length];
+        keyFrames.removeIf(k -> k < stepArray.length && stepArray[k] == null);
         Step curStep, prevNonNullStep = null;
-        for (int n = 0; n < stepArray.length; n++) {
+        BitSet stepFrames = steps.getStepFrames(0, stepArray.length - 1);
+        for (int n = stepFrames.nextSetBit(0); n > -1; n = stepFrames.nextSetBit(n + 1)) {
             curStep = stepArray[n];
-            if (curStep == null) {
-                keyFrames.remove(n);
-                continue;
-            }
 
             boolean inFrame = clip.includesFrame(n);
             if (!inFrame) continue;
@@ -1154,68 +1181,14 @@ public class PointMass extends TTrack {
             }
             prevNonNullStep = curStep;
 
-            int stepNumber = clip.frameToStep(n);
-            double t = player.getStepTime(stepNumber) / 1000.0;
-            double tf = player.getStepTime(stepNumber + vDerivSpill) / 1000.0;
-            double to = player.getStepTime(stepNumber - vDerivSpill) / 1000.0;
-            double dt_v = (tf - to) / (2 * vDerivSpill);
-            tf = player.getStepTime(stepNumber + aDerivSpill) / 1000.0;
-            to = player.getStepTime(stepNumber - aDerivSpill) / 1000.0;
-            double dt_a2 = (tf - to) * (tf - to) / (4 * aDerivSpill * aDerivSpill);
             // assemble the data values for this step
             double[] vals = new double[count];
-            TPoint p = ((PositionStep) stepArray[n]).getPosition();
-            Point2D pt = p.getWorldPosition(trackerPanel);
-            vals[0] = pt.getX(); // x
-            vals[1] = pt.getY(); // y
-            vals[2] = pt.distance(0, 0); //mag
-            vals[3] = Math.atan2(pt.getY(), pt.getX()); // ang between +/-pi
-            vals[4] = Double.NaN; // vx
-            vals[5] = Double.NaN; //vy
-            vals[6] = Double.NaN; // vmag
-            vals[7] = Double.NaN; // vang
-            vals[8] = Double.NaN; // ax
-            vals[9] = Double.NaN; // ay
-            vals[10] = Double.NaN; // amag
-            vals[11] = Double.NaN; // aang
+            Point2D pt = getDataValues(n, vals, trackerPanel);
+            int stepNumber = clip.frameToStep(n);
+            double t = player.getStepTime(stepNumber) / 1000.0;
             vals[12] = theta_data[n]; // theta
-            vals[13] = omega_data[n] / dt_v; // omega
-            vals[14] = alpha_data[n] / dt_a2; // alpha
-            vals[15] = stepNumber; // step
-            vals[16] = n; // frame
-            vals[17] = Double.NaN; // px
-            vals[18] = Double.NaN; // py
-            vals[19] = Double.NaN; // pmag
-            vals[20] = Double.NaN; // pang
-            vals[21] = p.x; // pixel x
-            vals[22] = p.y; // pixel y
-            // for vals[23] (pathlength) see below
-            if (count > baseCount) vals[baseCount] = Double.NaN; // KE
-            VectorStep veloc = getVelocity(n, trackerPanel);
-            if (veloc != null) {
-                double imageX = veloc.getXComponent();
-                double imageY = veloc.getYComponent();
-                vals[4] = coords.imageToWorldXComponent(n, imageX, imageY) / dt_v;
-                vals[5] = coords.imageToWorldYComponent(n, imageX, imageY) / dt_v;
-                double vsquared = vals[4] * vals[4] + vals[5] * vals[5];
-                vals[6] = Math.sqrt(vsquared);
-                vals[7] = Math.atan2(vals[5], vals[4]);
-                double mass = getMass();
-                vals[17] = mass * vals[4];
-                vals[18] = mass * vals[5];
-                vals[19] = mass * vals[6];
-                vals[20] = mass * vals[7];
-                if (count > baseCount) vals[baseCount] = 0.5 * mass * vsquared;
-            }
-            VectorStep accel = getAcceleration(n, trackerPanel);
-            if (accel != null) {
-                double imageX = accel.getXComponent();
-                double imageY = accel.getYComponent();
-                vals[8] = coords.imageToWorldXComponent(n, imageX, imageY) / dt_a2;
-                vals[9] = coords.imageToWorldYComponent(n, imageX, imageY) / dt_a2;
-                vals[10] = Math.sqrt(vals[8] * vals[8] + vals[9] * vals[9]);
-                vals[11] = Math.atan2(vals[9], vals[8]);
-            }
+            vals[13] = omega_data[n] / getDerivativeTime(player, stepNumber, vDerivSpill); // omega
+            vals[14] = alpha_data[n] / getDerivativeTimeSquared(player, stepNumber, aDerivSpill); // alpha
             // path length
             if (prevPt != null) {
                 pathlength += prevPt.distance(pt);
@@ -1223,9 +1196,12 @@ public class PointMass extends TTrack {
             vals[23] = pathlength;
             prevPt = pt;
             // append points to datasets
+            int row = dataFrames.size();
             for (int i = 0; i < count; i++) {
                 data.getDataset(i).append(t, vals[i]);
+                dataColumns[i][row] = vals[i];
             }
+            dataTimes[row] = t;
             dataFrames.add(n);
         }
         // store the mass in the data properties
@@ -1234,6 +1210,252 @@ public class PointMass extends TTrack {
         data.setConstant("m", m, Double.toString(m), desc); //$NON-NLS-1$
     }
 
+    /**
+     * Refreshes the data affected by changes to the steps in a specified frame range.
+     * Only the rows within the derivative spill of the changed frames are recomputed
+     * and patched into the existing datasets. Falls back to a full refresh when steps
+     * have been added or removed, or when no previous refresh is available.
+     *
+     * @param data         the DatasetManager
+     * @param trackerPanel the tracker panel
+     * @param startFrame   the first changed frame
+     * @param endFrame     the last changed frame
+     */
+    @Override
+    protected void refreshData(DatasetManager data, TrackerPanel trackerPanel,
+                               int startFrame, int endFrame) {
+        if (refreshDataLater || trackerPanel == null || data == null) return;
+        int rowCount = dataFrames.size();
+        if (isDependent() || dataColumns == null || dataTimes.length < rowCount
+                || data.getDatasets().size() < dataColumns.length
+                || data.getDataset(0).getIndex() != rowCount
+                || !(data.getDataset(dataColumns.length - 1) instanceof RowDataset)) {
+            refreshData(data, trackerPanel);
+            return;
+        }
+        VideoPlayer player = trackerPanel.getPlayer();
+        VideoClip clip = player.getVideoClip();
+        int stepSize = clip.getStepSize();
+        Step[] stepArray = getSteps();
+        // a full refresh is needed if any step in the range was added or removed
+        for (int n = startFrame; n <= endFrame; n++) {
+            boolean hasStep = n < stepArray.length && stepArray[n] != null && clip.includesFrame(n);
+            if (hasStep != Collections.binarySearch(dataFrames, n) >= 0) {
+                refreshData(data, trackerPanel);
+                return;
+            }
+        }
+        // find the rows within the derivative spill of the changed frames
+        int spill = Math.max(aDerivSpill, algorithm == BOUNCE_DETECT ? bounceDerivsSpill : 2) * stepSize;
+        int first = getDataRowAtOrAfter(startFrame - spill);
+        int last = getDataRowAtOrBefore(endFrame + spill);
+        if (first > last) return;
+
+        // recompute the step values of the affected rows
+        int count = dataColumns.length;
+        double[] vals = new double[count];
+        for (int row = first; row <= last; row++) {
+            int n = dataFrames.get(row);
+            getDataValues(n, vals, trackerPanel);
+            for (int i = 0; i < count; i++) {
+                if (i < 12 || i > 14 && i != 23) dataColumns[i][row] = vals[i];
+            }
+        }
+
+        // patch the cumulative theta and path length, then shift later rows
+        double[] x = dataColumns[0], y = dataColumns[1], angle = dataColumns[3];
+        double[] theta = dataColumns[12], path = dataColumns[23];
+        boolean shifted = false;
+        for (int row = first; row <= last + 1 && row < rowCount; row++) {
+            double prevTheta = row == 0 ? 0 : theta[row - 1];
+            double delta = angle[row] - (row == 0 ? 0 : angle[row - 1]);
+            if (delta < -Math.PI) delta += 2 * Math.PI;
+            else if (delta > Math.PI) delta -= 2 * Math.PI;
+            double newTheta = prevTheta + delta;
+            double newPath = 0;
+            if (row > 0) {
+                double dx = x[row] - x[row - 1], dy = y[row] - y[row - 1];
+                newPath = path[row - 1] + Math.sqrt(dx * dx + dy * dy);
+            }
+            if (row > last) {
+                // shift later rows only if their cumulative values have changed
+                double thetaOffset = newTheta - theta[row];
+                double pathOffset = newPath - path[row];
+                shifted = thetaOffset != 0 || pathOffset != 0;
+                if (thetaOffset != 0) {
+                    for (int i = row; i < rowCount; i++) {
+                        theta[i] += thetaOffset;
+                    }
+                }
+                if (pathOffset != 0) {
+                    for (int i = row; i < rowCount; i++) {
+                        path[i] += pathOffset;
+                    }
+                }
+            } else {
+                theta[row] = newTheta;
+                path[row] = newPath;
+            }
+        }
+
+        // evaluate the rotational derivatives over the affected rows only
+        derivData.ensureCapacity(steps.getLength() + 5);
+        double[] xData = derivData.x, yData = derivData.y;
+        boolean[] validData = derivData.valid;
+        int firstFrame = dataFrames.get(first);
+        int lastFrame = dataFrames.get(last);
+        int lower = Math.max(0, firstFrame - spill);
+        int upper = Math.min(validData.length, lastFrame + spill + 1);
+        Arrays.fill(validData, lower, upper, false);
+        for (int row = getDataRowAtOrAfter(lower); row < rowCount; row++) {
+            int n = dataFrames.get(row);
+            if (n >= upper) break;
+            xData[n] = theta[row];
+            yData[n] = 0; // ignored
+            validData[n] = true;
+        }
+        derivData.setRange(firstFrame, stepSize, (lastFrame - firstFrame) / stepSize + 1);
+        derivData.setSpill(vDerivSpill, aDerivSpill);
+        finiteDiffDerivs.evaluate(derivData);
+        double[] omega = derivData.vx;
+        double[] alpha = derivData.ax;
+        for (int row = first; row <= last; row++) {
+            int n = dataFrames.get(row);
+            int stepNumber = clip.frameToStep(n);
+            dataColumns[13][row] = omega[n] / getDerivativeTime(player, stepNumber, vDerivSpill);
+            dataColumns[14][row] = alpha[n] / getDerivativeTimeSquared(player, stepNumber, aDerivSpill);
+        }
+
+        // patch the affected rows of the datasets in place
+        for (int i = 0; i < count; i++) {
+            RowDataset dataset = (RowDataset) data.getDataset(i);
+            int end = shifted && (i == 12 || i == 23) ? rowCount - 1 : last;
+            for (int row = first; row <= end; row++) {
+                dataset.setY(row, dataColumns[i][row]);
+            }
+        }
+        setChangedDataRows(first, shifted ? rowCount - 1 : last);
+    }
+
+    /**
+     * Assembles the data values for a position step. Values that depend on
+     * neighboring steps (theta, omega, alpha and path length) are not set.
+     *
+     * @param n            the frame number
+     * @param vals         the array to fill
+     * @param trackerPanel the tracker panel
+     * @return the world position of the step
+     */
+    private Point2D getDataValues(int n, double[] vals, TrackerPanel trackerPanel) {
+        int baseCount = 24;
+        int count = vals.length;
+        VideoPlayer player = trackerPanel.getPlayer();
+        VideoClip clip = player.getVideoClip();
+        ImageCoordSystem coords = trackerPanel.getCoords();
+        int stepNumber = clip.frameToStep(n);
+        double dt_v = getDerivativeTime(player, stepNumber, vDerivSpill);
+        double dt_a2 = getDerivativeTimeSquared(player, stepNumber, aDerivSpill);
+        TPoint p = ((PositionStep) getStep(n)).getPosition();
+        Point2D pt = p.getWorldPosition(trackerPanel);
+        vals[0] = pt.getX(); // x
+        vals[1] = pt.getY(); // y
+        vals[2] = pt.distance(0, 0); //mag
+        vals[3] = Math.atan2(pt.getY(), pt.getX()); // ang between +/-pi
+        vals[4] = Double.NaN; // vx
+        vals[5] = Double.NaN; //vy
+        vals[6] = Double.NaN; // vmag
+        vals[7] = Double.NaN; // vang
+        vals[8] = Double.NaN; // ax
+        vals[9] = Double.NaN; // ay
+        vals[10] = Double.NaN; // amag
+        vals[11] = Double.NaN; // aang
+        vals[15] = stepNumber; // step
+        vals[16] = n; // frame
+        vals[17] = Double.NaN; // px
+        vals[18] = Double.NaN; // py
+        vals[19] = Double.NaN; // pmag
+        vals[20] = Double.NaN; // pang
+        vals[21] = p.x; // pixel x
+        vals[22] = p.y; // pixel y
+        if (count > baseCount) vals[baseCount] = Double.NaN; // KE
+        VectorStep veloc = getVelocity(n, trackerPanel);
+        if (veloc != null) {
+            double imageX = veloc.getXComponent();
+            double imageY = veloc.getYComponent();
+            vals[4] = coords.imageToWorldXComponent(n, imageX, imageY) / dt_v;
+            vals[5] = coords.imageToWorldYComponent(n, imageX, imageY) / dt_v;
+            double vsquared = vals[4] * vals[4] + vals[5] * vals[5];
+            vals[6] = Math.sqrt(vsquared);
+            vals[7] = Math.atan2(vals[5], vals[4]);
+            double mass = getMass();
+            vals[17] = mass * vals[4];
+            vals[18] = mass * vals[5];
+            vals[19] = mass * vals[6];
+            vals[20] = mass * vals[7];
+            if (count > baseCount) vals[baseCount] = 0.5 * mass * vsquared;
+        }
+        VectorStep accel = getAcceleration(n, trackerPanel);
+        if (accel != null) {
+            double imageX = accel.getXComponent();
+            double imageY = accel.getYComponent();
+            vals[8] = coords.imageToWorldXComponent(n, imageX, imageY) / dt_a2;
+            vals[9] = coords.imageToWorldYComponent(n, imageX, imageY) / dt_a2;
+            vals[10] = Math.sqrt(vals[8] * vals[8] + vals[9] * vals[9]);
+            vals[11] = Math.atan2(vals[9], vals[8]);
+        }
+        return pt;
+    }
+
+    /**
+     * Gets the time per step used to scale a first derivative.
+     *
+     * @param player     the video player
+     * @param stepNumber the step number
+     * @param spill      the derivative spill
+     * @return the time in seconds
+     */
+    private double getDerivativeTime(VideoPlayer player, int stepNumber, int spill) {
+        double tf = player.getStepTime(stepNumber + spill) / 1000.0;
+        double to = player.getStepTime(stepNumber - spill) / 1000.0;
+        return (tf - to) / (2 * spill);
+    }
+
+    /**
+     * Gets the squared time per step used to scale a second derivative.
+     *
+     * @param player     the video player
+     * @param stepNumber the step number
+     * @param spill      the derivative spill
+     * @return the squared time in seconds^2
+     */
+    private double getDerivativeTimeSquared(VideoPlayer player, int stepNumber, int spill) {
+        double tf = player.getStepTime(stepNumber + spill) / 1000.0;
+        double to = player.getStepTime(stepNumber - spill) / 1000.0;
+        return (tf - to) * (tf - to) / (4 * spill * spill);
+    }
+
+    /**
+     * Gets the index of the first data row at or after a specified frame.
+     *
+     * @param frameNumber the frame number
+     * @return the row index (equals the row count if none)
+     */
+    private int getDataRowAtOrAfter(int frameNumber) {
+        int row = Collections.binarySearch(dataFrames, frameNumber);
+        return row < 0 ? -row - 1 : row;
+    }
+
+    /**
+     * Gets the index of the last data row at or before a specified frame.
+     *
+     * @param frameNumber the frame number
+     * @return the row index (-1 if none)
+     */
+    private int getDataRowAtOrBefore(int frameNumber) {
+        int row = Collections.binarySearch(dataFrames, frameNumber);
+        return row < 0 ? -row - 2 : row;
+    }
+
     /**
      * Overrides TTrack draw method.
      *
@@ -1248,70 +1470,185 @@ public class PointMass extends TTrack {
         VideoClip clip = trackerPanel.getPlayer().getVideoClip();
         int n = trackerPanel.getFrameNumber();
         int stepSize = clip.getStepSize();
+        // only steps in the trail are remarked
+        boolean shortTrail = getTrailLength() > 0;
+        int windowStart = !trailVisible ? n : shortTrail ? Math.max(0, n - (getTrailLength() - 1) * stepSize) : 0;
+        int windowEnd = trailVisible && !shortTrail ? Integer.MAX_VALUE : n;
+        steps.getMarkStore().setVisibleWindow(trackerPanel, windowStart, windowEnd);
+        getVArray(trackerPanel).getMarkStore().setVisibleWindow(trackerPanel, windowStart, windowEnd);
+        getAArray(trackerPanel).getMarkStore().setVisibleWindow(trackerPanel, windowStart, windowEnd);
+        if (isTrailLayerUsable(trackerPanel, g)) {
+            // draw the cached trail, then the steps left out of it
+            TrailLayer layer = getTrailLayer(trackerPanel, g);
+            layer.drawImage(g);
+            drawFrame(trackerPanel, g, n);
+            if (layer.getFrame() != n) {
+                drawFrame(trackerPanel, g, layer.getFrame());
+            }
+            return;
+        }
         if (trailVisible) {
-            boolean shortTrail = getTrailLength() > 0;
-            Step[] stepArray = steps.array;
-            for (int i = 0; i < stepArray.length; i++) {
-                if (shortTrail && (n - i > (getTrailLength() - 1) * stepSize || i > n))
-                    continue;
-                if (stepArray[i] != null) {
-                    if (isStepVisible(stepArray[i], trackerPanel)) {
-                        stepArray[i].draw(trackerPanel, g);
-                    }
-                    Step v = getVelocity(i, trackerPanel);
-                    if (v != null && isStepVisible(v, trackerPanel)) {
-                        v.draw(trackerPanel, g);
-                    }
-                    Step a = getAcceleration(i, trackerPanel);
-                    if (a != null && isStepVisible(a, trackerPanel)) {
-                        a.draw(trackerPanel, g);
-                    }
-                }
+            Step[] stepArray = steps.getSteps();
+            BitSet stepFrames = steps.getStepFrames(windowStart, stepArray.length - 1);
+            for (int i = stepFrames.nextSetBit(0); i > -1; i = stepFrames.nextSetBit(i + 1)) {
+                if (shortTrail && i > n) break;
+                drawFrame(trackerPanel, g, i);
             }
         } else {
-            Step step = getStep(n);
-            if (step != null) {
-                if (isStepVisible(step, trackerPanel)) {
-                    step.draw(trackerPanel, g);
-                }
-                Step v = getVelocity(n, trackerPanel);
-                if (v != null && isStepVisible(v, trackerPanel)) {
-                    v.draw(trackerPanel, g);
-                }
-                Step a = getAcceleration(n, trackerPanel);
-                if (a != null && isStepVisible(a, trackerPanel)) {
-                    a.draw(trackerPanel, g);
-                }
-            }
+            drawFrame(trackerPanel, g, n);
         }
         if (isTraceVisible() && !(this instanceof ParticleModel)) {
-            Color c = g.getColor();
-            Stroke s = g.getStroke();
-            g.setColor(getColor());
-            g.setStroke(traceStroke);
-            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
-            trace.reset();
-            int startFrame = clip.getStartFrameNumber();
+            drawTrace(trackerPanel, g);
+        }
+    }
+
+    /**
+     * Draws the visible position, velocity and acceleration steps of a frame.
+     *
+     * @param trackerPanel the tracker panel
+     * @param g            the graphics context
+     * @param n            the frame number
+     */
+    private void drawFrame(TrackerPanel trackerPanel, Graphics2D g, int n) {
+        Step step = getStep(n);
+        if (step == null) return;
+        if (isStepVisible(step, trackerPanel)) {
+            step.draw(trackerPanel, g);
+        }
+        Step v = getVelocity(n, trackerPanel);
+        if (v != null && isStepVisible(v, trackerPanel)) {
+            v.draw(trackerPanel, g);
+        }
+        Step a = getAcceleration(n, trackerPanel);
+        if (a != null && isStepVisible(a, trackerPanel)) {
+            a.draw(trackerPanel, g);
+        }
+    }
+
+    /**
+     * Draws the trace through the positions in the video clip. The trace path
+     * is rebuilt only when the track, its marks or the clip change.
+     *
+     * @param trackerPanel the tracker panel
+     * @param g            the graphics context
+     */
+    private void drawTrace(TrackerPanel trackerPanel, Graphics2D g) {
+        TrailLayer layer = trailLayers.computeIfAbsent(trackerPanel, k -> new TrailLayer());
+        Object[] key = getTraceKey(trackerPanel);
+        GeneralPath path = layer.getTrace(key);
+        if (path == null) {
+            path = layer.resetTrace(key);
+            VideoClip clip = trackerPanel.getPlayer().getVideoClip();
+            int stepSize = clip.getStepSize();
             int endFrame = clip.getEndFrameNumber();
             boolean reset = true;
-            for (int i = startFrame; i <= endFrame; i += stepSize) {
+            for (int i = clip.getStartFrameNumber(); i <= endFrame; i += stepSize) {
                 PositionStep step = (PositionStep) getStep(i);
                 if (step == null) {
-                    g.draw(trace);
                     reset = true;
                     continue;
                 }
                 Point p = step.getPosition().getScreenPosition(trackerPanel);
                 if (reset) {
-                    trace.reset();
-                    trace.moveTo((float) p.getX(), (float) p.getY());
+                    path.moveTo((float) p.getX(), (float) p.getY());
                     reset = false;
-                } else trace.lineTo((float) p.getX(), (float) p.getY());
+                } else path.lineTo((float) p.getX(), (float) p.getY());
             }
-            g.draw(trace);
-            g.setColor(c);
-            g.setStroke(s);
         }
+        Color c = g.getColor();
+        Stroke s = g.getStroke();
+        g.setColor(getColor());
+        g.setStroke(traceStroke);
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+        g.draw(path);
+        g.setColor(c);
+        g.setStroke(s);
+    }
+
+    /**
+     * Determines if the full trail can be drawn from a cached trail layer. Short
+     * trails change every frame and are drawn directly, as are model tracks and
+     * tracks being autotracked. Very large panels are not cached.
+     *
+     * @param trackerPanel the tracker panel
+     * @param g            the graphics context
+     * @return true if a trail layer can be used
+     */
+    private boolean isTrailLayerUsable(TrackerPanel trackerPanel, Graphics2D g) {
+        if (!trailVisible || getTrailLength() > 0 || this instanceof ParticleModel) return false;
+        if (trackerPanel.autoTracker != null
+                && trackerPanel.autoTracker.getWizard().isVisible()
+                && trackerPanel.autoTracker.getTrack() == this) {
+            return false;
+        }
+        AffineTransform at = g.getTransform();
+        if ((at.getType() & ~(AffineTransform.TYPE_TRANSLATION | AffineTransform.TYPE_MASK_SCALE)) != 0
+                || at.getScaleX() <= 0 || at.getScaleY() <= 0) {
+            return false;
+        }
+        double pixels = trackerPanel.getWidth() * at.getScaleX() * trackerPanel.getHeight() * at.getScaleY();
+        return pixels > 0 && pixels <= MAX_TRAIL_LAYER_PIXELS;
+    }
+
+    /**
+     * Gets the trail layer for a panel, redrawing its image if anything it
+     * depends on has changed. The image holds every trail step except those of
+     * the current frame, plus the trace.
+     *
+     * @param trackerPanel the tracker panel
+     * @param g            the graphics context
+     * @return the trail layer
+     */
+    private TrailLayer getTrailLayer(TrackerPanel trackerPanel, Graphics2D g) {
+        TrailLayer layer = trailLayers.computeIfAbsent(trackerPanel, k -> new TrailLayer());
+        AffineTransform at = g.getTransform();
+        double sx = at.getScaleX(), sy = at.getScaleY();
+        if (layer.isImageValid(getTrailLayerKey(trackerPanel, sx, sy))) return layer;
+        int n = trackerPanel.getFrameNumber();
+        Graphics2D layerGraphics = layer.beginImage(trackerPanel.getWidth(), trackerPanel.getHeight(), sx, sy);
+        layerGraphics.setRenderingHints(g.getRenderingHints());
+        Step[] stepArray = steps.getSteps();
+        BitSet stepFrames = steps.getStepFrames(0, stepArray.length - 1);
+        for (int i = stepFrames.nextSetBit(0); i > -1; i = stepFrames.nextSetBit(i + 1)) {
+            if (i != n) drawFrame(trackerPanel, layerGraphics, i);
+        }
+        if (isTraceVisible()) {
+            drawTrace(trackerPanel, layerGraphics);
+        }
+        // drawing may set marks, so get the key afterwards
+        layer.endImage(layerGraphics, getTrailLayerKey(trackerPanel, sx, sy), n);
+        return layer;
+    }
+
+    /**
+     * Gets a key listing everything the trace depends on.
+     *
+     * @param trackerPanel the tracker panel
+     * @return the key
+     */
+    private Object[] getTraceKey(TrackerPanel trackerPanel) {
+        VideoClip clip = trackerPanel.getPlayer().getVideoClip();
+        return new Object[]{getChangeCount(), steps.getMarkStore().getModCount(trackerPanel),
+                new AffineTransform(trackerPanel.getPixelTransform()),
+                clip.getStartFrameNumber(), clip.getEndFrameNumber(), clip.getStepSize()};
+    }
+
+    /**
+     * Gets a key listing everything the trail layer image depends on.
+     *
+     * @param trackerPanel the tracker panel
+     * @param sx           the device x scale
+     * @param sy           the device y scale
+     * @return the key
+     */
+    private Object[] getTrailLayerKey(TrackerPanel trackerPanel, double sx, double sy) {
+        MarkStore vStore = getVArray(trackerPanel).getMarkStore();
+        MarkStore aStore = getAArray(trackerPanel).getMarkStore();
+        return new Object[]{Arrays.asList(getTraceKey(trackerPanel)),
+                trackerPanel.getWidth(), trackerPanel.getHeight(), sx, sy,
+                isPositionVisible(trackerPanel), isVVisible(trackerPanel), isAVisible(trackerPanel),
+                isTraceVisible(), vStore, vStore.getModCount(trackerPanel),
+                aStore, aStore.getModCount(trackerPanel)};
     }
 
     /**
@@ -1328,13 +1665,15 @@ public class PointMass extends TTrack {
         TrackerPanel trackerPanel = (TrackerPanel) panel;
         Interactive iad;
         int n = trackerPanel.getFrameNumber();
-        int stepSize = trackerPanel.getPlayer().getVideoClip().getStepSize();
         if (trailVisible) {
-            boolean shortTrail = getTrailLength() > 0;
-            Step[] stepArray = steps.array;
-            for (int i = 0; i < stepArray.length; i++) {
-                if (shortTrail && (n - i > (getTrailLength() - 1) * stepSize || i > n))
-                    continue;
+            Step[] stepArray = steps.getSteps();
+            // hit-test only steps and visible vectors with marks near the mouse
+            ArrayList<MarkStore> stores = new ArrayList<>(3);
+            if (isPositionVisible(trackerPanel)) stores.add(steps.getMarkStore());
+            if (isVVisible(trackerPanel)) stores.add(getVArray(trackerPanel).getMarkStore());
+            if (isAVisible(trackerPanel)) stores.add(getAArray(trackerPanel).getMarkStore());
+            BitSet hitFrames = getHitFrames(trackerPanel, xpix, ypix, stores.toArray(new MarkStore[0]));
+            for (int i = hitFrames.nextSetBit(0); i > -1 && i < stepArray.length; i = hitFrames.nextSetBit(i + 1)) {
                 if (stepArray[i] != null) {
                     if (isStepVisible(stepArray[i], trackerPanel)) {
                         iad = stepArray[i].findInteractive(trackerPanel, xpix, ypix);
@@ -1567,7 +1906,7 @@ public class PointMass extends TTrack {
      * @return the velocity step array
      */
     public Step[] getVelocities(TrackerPanel trackerPanel) {
-        return getVArray(trackerPanel).array;
+        return getVArray(trackerPanel).getSteps();
     }
 
     /**
@@ -1635,7 +1974,7 @@ public class PointMass extends TTrack {
      * @return the acceleration step array
      */
     public Step[] getAccelerations(TrackerPanel trackerPanel) {
-        return getAArray(trackerPanel).array;
+        return getAArray(trackerPanel).getSteps();
     }
 
     /**
@@ -1746,10 +2085,27 @@ public class PointMass extends TTrack {
      * Updates coordinate arrays
      */
     private void updatePositionData() {
-        Arrays.fill(validData, false);
-        Step[] stepArray = steps.array;
+        updatePositionData(0, derivData.valid.length - 1);
+    }
+
+    /**
+     * Updates the worldspace position data in a range of frames. Data outside
+     * the range is left unchanged.
+     *
+     * @param firstFrame the first frame number
+     * @param lastFrame  the last frame number
+     */
+    private void updatePositionData(int firstFrame, int lastFrame) {
+        double[] xData = derivData.x, yData = derivData.y;
+        boolean[] validData = derivData.valid;
+        int first = Math.max(0, firstFrame);
+        int last = Math.min(lastFrame, validData.length - 1);
+        if (last < first) return;
+        Arrays.fill(validData, first, last + 1, false);
+        Step[] stepArray = steps.getSteps();
         VideoClip clip = trackerPanel.getPlayer().getVideoClip();
-        for (int n = 0; n < stepArray.length; n++) {
+        BitSet stepFrames = steps.getStepFrames(first, Math.min(last, stepArray.length - 1));
+        for (int n = stepFrames.nextSetBit(first); n > -1; n = stepFrames.nextSetBit(n + 1)) {
             if (stepArray[n] != null && clip.includesFrame(n)) {
                 PositionStep step = (PositionStep) stepArray[n];
                 Point2D p = step.getPosition().getWorldPosition(trackerPanel);
@@ -1760,6 +2116,52 @@ public class PointMass extends TTrack {
         }
     }
 
+    /**
+     * Refreshes the data and derivatives affected by a coordinate system change
+     * limited to a range of frames.
+     *
+     * @param trackerPanel the tracker panel
+     * @param range        the {start, end} frame range
+     */
+    protected void refreshTransformRange(TrackerPanel trackerPanel, int[] range) {
+        invalidateData(range[0]);
+        invalidateData(range[1]);
+        if (isEmpty() || refreshDataLater) return;
+        updateDerivativesInRange(trackerPanel, range[0], range[1]);
+    }
+
+    /**
+     * Updates the velocity and acceleration steps affected by position changes
+     * in a range of frames on all TrackerPanels.
+     *
+     * @param firstFrame the first changed frame
+     * @param lastFrame  the last changed frame
+     */
+    public void updateDerivativesInRange(int firstFrame, int lastFrame) {
+        if (isEmpty() || refreshDataLater) return;
+        for (TrackerPanel trackerPanel : vMap.keySet()) {
+            updateDerivativesInRange(trackerPanel, firstFrame, lastFrame);
+        }
+    }
+
+    /**
+     * Updates the velocity and acceleration steps affected by position changes
+     * in a range of frames on a TrackerPanel.
+     *
+     * @param trackerPanel the TrackerPanel
+     * @param firstFrame   the first changed frame
+     * @param lastFrame    the last changed frame
+     */
+    protected void updateDerivativesInRange(TrackerPanel trackerPanel, int firstFrame, int lastFrame) {
+        // derivatives change within the spill of the changed frames
+        VideoClip clip = trackerPanel.getPlayer().getVideoClip();
+        int spill = Math.max(aDerivSpill, algorithm == BOUNCE_DETECT ? bounceDerivsSpill : 2);
+        int startStep = Math.max(0, clip.frameToStep(firstFrame) - spill);
+        int endStep = Math.min(clip.getStepCount() - 1, clip.frameToStep(lastFrame) + spill);
+        if (endStep < startStep) return;
+        updateDerivatives(trackerPanel, clip.stepToFrame(startStep), endStep - startStep + 1);
+    }
+
     /**
      * Updates all velocity and acceleration steps on all TrackerPanels.
      */
@@ -1837,17 +2239,15 @@ public class PointMass extends TTrack {
             return;
         VideoClip clip = trackerPanel.getPlayer().getVideoClip();
         // initialize data arrays
-        if (xData.length < steps.length) {
-            derivData[1] = xData = new double[steps.length + 5];
-            derivData[2] = yData = new double[steps.length + 5];
-            derivData[3] = validData = new boolean[steps.length + 5];
-        }
-        // set up derivative parameters
-        params[1] = startFrame;
-        params[2] = clip.getStepSize();
-        params[3] = stepCount;
+        derivData.ensureCapacity(steps.getLength() + 5);
+        // set up derivative range
+        derivData.setRange(startFrame, clip.getStepSize(), stepCount);
 
-        updatePositionData();
+        // evaluators read positions at most a full window beyond the range
+        int margin = (2 * Math.max(Math.max(vDerivSpill, aDerivSpill),
+                Math.max(bounceDerivsSpill, 2)) + 1) * clip.getStepSize();
+        updatePositionData(startFrame - margin, derivData.getEnd() + margin);
+        boolean[] validData = derivData.valid;
 
         // unlock track while updating
         boolean isLocked = locked; // save for later restoration
@@ -1863,22 +2263,16 @@ public class PointMass extends TTrack {
 //  	protected static final int BOUNCE_DETECT = 1;
 //  	protected static final int FINITE_DIFF_VSPREAD2
         if (algorithm == BOUNCE_DETECT) {
-            params[0] = bounceDerivsSpill; // spill
-            Object[] result = bounceDerivs.evaluate(derivData);
-            xDeriv1 = (double[]) result[0];
-            yDeriv1 = (double[]) result[1];
-            xDeriv2 = (double[]) result[2];
-            yDeriv2 = (double[]) result[3];
+            derivData.setSpill(bounceDerivsSpill, bounceDerivsSpill);
+            bounceDerivs.evaluate(derivData);
         } else {
-            params[0] = algorithm == FINITE_DIFF_VSPILL2 ? 2 : vDerivSpill; // spill
-            Object[] result = vDeriv.evaluate(derivData);
-            xDeriv1 = (double[]) result[0];
-            yDeriv1 = (double[]) result[1];
-            params[0] = aDerivSpill; // spill
-            result = aDeriv.evaluate(derivData);
-            xDeriv2 = (double[]) result[2];
-            yDeriv2 = (double[]) result[3];
+            derivData.setSpill(algorithm == FINITE_DIFF_VSPILL2 ? 2 : vDerivSpill, aDerivSpill);
+            finiteDiffDerivs.evaluate(derivData);
         }
+        xDeriv1 = derivData.vx;
+        yDeriv1 = derivData.vy;
+        xDeriv2 = derivData.ax;
+        yDeriv2 = derivData.ay;
 
         // create, delete and/or set components of velocity vectors
         StepArray array = vMap.get(trackerPanel);
@@ -1969,9 +2363,9 @@ public class PointMass extends TTrack {
             return;
         }
         updatePositionData();
-        double[] xDataWorking = Arrays.copyOfRange(xData, 0, xData.length);
-        double[] yDataWorking = Arrays.copyOfRange(yData, 0, yData.length);
-        boolean[] validDataWorking = Arrays.copyOfRange(validData, 0, validData.length);
+        double[] xDataWorking = derivData.x.clone();
+        double[] yDataWorking = derivData.y.clone();
+        boolean[] validDataWorking = derivData.valid.clone();
         for (int i = 0; i < validDataWorking.length; i++) {
             double xCumulated = 0, yCumulated = 0;
             int pointsFound = 0;
@@ -1999,20 +2393,16 @@ public class PointMass extends TTrack {
      */
     protected Object[] getRotationData() {
         // initialize data arrays once, for all panels
-        if (xData.length < steps.length) {
-            derivData[1] = xData = new double[steps.length + 5];
-            derivData[2] = yData = new double[steps.length + 5];
-            derivData[3] = validData = new boolean[steps.length + 5];
-        }
-        for (int i = 0; i < steps.length; i++)
+        derivData.ensureCapacity(steps.getLength() + 5);
+        double[] xData = derivData.x, yData = derivData.y;
+        boolean[] validData = derivData.valid;
+        for (int i = 0; i < steps.getLength(); i++)
             validData[i] = false;
         // set up derivative parameters
         VideoClip clip = trackerPanel.getPlayer().getVideoClip();
-        params[1] = clip.getStartFrameNumber();
-        params[2] = clip.getStepSize();
-        params[3] = clip.getStepCount();
+        derivData.setRange(clip.getStartFrameNumber(), clip.getStepSize(), clip.getStepCount());
         // set up angular position data
-        Step[] stepArray = steps.array;
+        Step[] stepArray = steps.getSteps();
         double rotation = 0;
         double prevAngle = 0;
         for (int n = 0; n < stepArray.length; n++) {
@@ -2035,82 +2425,17 @@ public class PointMass extends TTrack {
         boolean isLocked = locked; // save for later restoration
         locked = false;
 
-        // evaluate first derivative
-        params[0] = vDerivSpill; // spill
-        Object[] result = vDeriv.evaluate(derivData);
-        double[] omega = (double[]) result[0];
-
-        // evaluate second derivative
-        params[0] = aDerivSpill; // spill
-        result = aDeriv.evaluate(derivData);
-        double[] alpha = (double[]) result[2];
+        // evaluate first and second derivatives
+        derivData.setSpill(vDerivSpill, aDerivSpill);
+        finiteDiffDerivs.evaluate(derivData);
+        double[] omega = derivData.vx;
+        double[] alpha = derivData.ax;
 
         // restore locked state
         locked = isLocked;
         return new Object[]{xData, omega, alpha};
     }
 
-    /**
-     * Gets the rotational data for a range of frame numbers.
-     *
-     * @param startFrame the start frame
-     * @param stepCount  the number of steps
-     * @return Object[] {theta, omega, alpha}
-     */
-    protected Object[] getRotationData(int startFrame, int stepCount) {
-        // initialize data arrays once, for all panels
-        if (xData.length < steps.length) {
-            derivData[1] = xData = new double[steps.length + 5];
-            derivData[2] = yData = new double[steps.length + 5];
-            derivData[3] = validData = new boolean[steps.length + 5];
-        }
-        for (int i = 0; i < steps.length; i++)
-            validData[i] = false;
-        // set up derivative parameters
-        VideoClip clip = trackerPanel.getPlayer().getVideoClip();
-        params[1] = startFrame;
-        params[2] = clip.getStepSize();
-        params[3] = stepCount;
-        // set up angular position data
-        Step[] stepArray = steps.array;
-        double rotation = 0;
-        double prevAngle = 0;
-        for (int n = 0; n < stepArray.length; n++) {
-            if (stepArray[n] != null && clip.includesFrame(n)) {
-                PositionStep step = (PositionStep) stepArray[n];
-                Point2D p = step.getPosition().getWorldPosition(trackerPanel);
-                double angle = Math.atan2(p.getY(), p.getX()); // between +/-pi
-                // determine the cumulative rotation angle
-                double delta = angle - prevAngle;
-                if (delta < -Math.PI) delta += 2 * Math.PI;
-                else if (delta > Math.PI) delta -= 2 * Math.PI;
-                rotation += delta;
-                prevAngle = angle;
-                xData[n] = rotation;
-                yData[n] = 0; // ignored
-                validData[n] = true;
-            } else xData[n] = Double.NaN;
-        }
-        // unlock track while updating
-        boolean isLocked = locked; // save for later restoration
-        locked = false;
-        // evaluate first derivative
-        params[0] = vDerivSpill; // spill
-        Object[] result = vDeriv.evaluate(derivData);
-        double[] omega = (double[]) result[0];
-        boolean[] validDeriv = (boolean[]) result[2];
-        for (int i = 0; i < omega.length; i++) {
-            if (!validDeriv[i]) omega[i] = Double.NaN;
-        }
-        // evaluate second derivative
-        params[0] = aDerivSpill; // spill
-        result = aDeriv.evaluate(derivData);
-        double[] alpha = (double[]) result[2];
-        // restore locked state
-        locked = isLocked;
-        return new Object[]{xData, omega, alpha};
-    }
-
     /**
      * Overrides TTrack erase method to include v and a.
      */
@@ -2127,6 +2452,20 @@ public class PointMass extends TTrack {
         }
     }
 
+    /**
+     * Overrides TTrack invalidateMarks method to include v and a.
+     */
+    @Override
+    public void invalidateMarks() {
+        super.invalidateMarks();
+        for (StepArray array : vMap.values()) {
+            array.getMarkStore().invalidate();
+        }
+        for (StepArray array : aMap.values()) {
+            array.getMarkStore().invalidate();
+        }
+    }
+
     /**
      * Overrides TTrack remark method.
      */
@@ -2183,8 +2522,13 @@ public class PointMass extends TTrack {
             String name = e.getPropertyName();
             switch (name) {
                 case "transform":  //$NON-NLS-1$
-                    dataValid = false;
-                    updateDerivatives();
+                    if (e.getNewValue() instanceof int[]) {
+                        // only the frames in the {start, end} range have changed
+                        refreshTransformRange((TrackerPanel) e.getSource(), (int[]) e.getNewValue());
+                    } else {
+                        dataValid = false;
+                        updateDerivatives();
+                    }
                     support.firePropertyChange("data", null, null); //$NON-NLS-1$
 
                     break;
@@ -2488,12 +2832,17 @@ public class PointMass extends TTrack {
             // save step data if not dependent
             if (!p.isDependent()) {
                 Step[] steps = p.getSteps();
-                FrameData[] data = new FrameData[steps.length];
-                for (int n = 0; n < steps.length; n++) {
-                    if (steps[n] == null) continue;
-                    data[n] = new FrameData((PositionStep) steps[n]);
+                if (Tracker.packFrameData && panelSaveCount > 0
+                        && p.steps.getStepCount() >= packedFrameDataMinSteps) {
+                    control.setValue("framedata", packFrameData(steps)); //$NON-NLS-1$
+                } else {
+                    FrameData[] data = new FrameData[steps.length];
+                    for (int n = 0; n < steps.length; n++) {
+                        if (steps[n] == null) continue;
+                        data[n] = new FrameData((PositionStep) steps[n]);
+                    }
+                    control.setValue("framedata", data); //$NON-NLS-1$
                 }
-                control.setValue("framedata", data); //$NON-NLS-1$
             }
             // save keyFrames
             int[] keys = new int[p.keyFrames.size()];
@@ -2536,7 +2885,17 @@ public class PointMass extends TTrack {
             else p.setAccelerationFootprint(p.getAccelerationFootprints()[0].getName());
 
             // load step data
-            FrameData[] data = (FrameData[]) control.getObject("framedata"); //$NON-NLS-1$
+            Object frameData = control.getObject("framedata"); //$NON-NLS-1$
+            FrameData[] data = null;
+            if (frameData instanceof String) {
+                try {
+                    data = unpackFrameData((String) frameData);
+                } catch (IOException ex) {
+                    reportUnreadableFrameData(p, ex);
+                }
+            } else {
+                data = (FrameData[]) frameData;
+            }
             if (data != null) {
                 for (int n = 0; n < data.length; n++) {
                     if (data[n] == null) {
@@ -2936,6 +3295,113 @@ public class PointMass extends TTrack {
         }
     }
 
+    /**
+     * Starts or ends saving tracks as part of a TrackerPanel. Frame data is
+     * packed only while a panel is saved, so undo and clipboard snapshots of
+     * single tracks are always saved unpacked.
+     *
+     * @param saving true when starting, false when done
+     */
+    public static void setPanelSaving(boolean saving) {
+        panelSaveCount += saving ? 1 : -1;
+    }
+
+    /**
+     * Packs the positions of an array of steps into a compact string. The frame
+     * numbers are delta encoded and the x and y columns are XOR encoded against
+     * the previous value, then the whole is deflated and base64 encoded.
+     *
+     * @param steps the steps, may contain nulls
+     * @return the packed string
+     */
+    protected static String packFrameData(Step[] steps) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DeflaterOutputStream deflater = new DeflaterOutputStream(bytes, new Deflater(Deflater.BEST_SPEED));
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(deflater));
+        try {
+            int count = 0;
+            for (Step step : steps) {
+                if (step != null) count++;
+            }
+            out.writeInt(steps.length);
+            out.writeInt(count);
+            // frame numbers
+            int prev = -1;
+            for (int n = 0; n < steps.length; n++) {
+                if (steps[n] == null) continue;
+                out.writeInt(n - prev);
+                prev = n;
+            }
+            // x column then y column
+            for (int col = 0; col < 2; col++) {
+                long prevBits = 0;
+                for (Step step : steps) {
+                    if (step == null) continue;
+                    TPoint pt = ((PositionStep) step).getPosition();
+                    long bits = Double.doubleToLongBits(col == 0 ? pt.getX() : pt.getY());
+                    out.writeLong(bits ^ prevBits);
+                    prevBits = bits;
+                }
+            }
+            out.close();
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+        return PACKED_FRAME_DATA + Base64.getEncoder().encodeToString(bytes.toByteArray());
+    }
+
+    /**
+     * Unpacks frame data packed by packFrameData.
+     *
+     * @param packed the packed string
+     * @return the frame data, with nulls for frames without steps
+     * @throws IOException if the string is not valid packed frame data
+     */
+    protected static FrameData[] unpackFrameData(String packed) throws IOException {
+        if (!packed.startsWith(PACKED_FRAME_DATA)) {
+            throw new IOException("frame data is not packed"); //$NON-NLS-1$
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new InflaterInputStream(new ByteArrayInputStream(
+                        Base64.getDecoder().decode(packed.substring(PACKED_FRAME_DATA.length()))))))) {
+            FrameData[] data = new FrameData[in.readInt()];
+            int[] frames = new int[in.readInt()];
+            int prev = -1;
+            for (int i = 0; i < frames.length; i++) {
+                frames[i] = prev += in.readInt();
+                data[frames[i]] = new FrameData();
+            }
+            for (int col = 0; col < 2; col++) {
+                long prevBits = 0;
+                for (int frame : frames) {
+                    prevBits ^= in.readLong();
+                    if (col == 0) data[frame].x = Double.longBitsToDouble(prevBits);
+                    else data[frame].y = Double.longBitsToDouble(prevBits);
+                }
+            }
+            return data;
+        } catch (RuntimeException ex) {
+            // bad base64 or frame numbers out of range
+            throw new IOException("invalid packed frame data", ex); //$NON-NLS-1$
+        }
+    }
+
+    /**
+     * Warns that the saved positions of a track could not be read, so the
+     * track was loaded without them.
+     *
+     * @param p  the track
+     * @param ex the exception
+     */
+    private static void reportUnreadableFrameData(PointMass p, IOException ex) {
+        OSPLog.warning(p.getName() + ": " + ex.getMessage()); //$NON-NLS-1$
+        EventQueue.invokeLater(() -> JOptionPane.showMessageDialog(null,
+                TrackerRes.getString("PointMass.Dialog.UnreadableFrameData.Message") //$NON-NLS-1$
+                        + " \"" + p.getName() + "\".", //$NON-NLS-1$ //$NON-NLS-2$
+                TrackerRes.getString("PointMass.Dialog.UnreadableFrameData.Title"), //$NON-NLS-1$
+                JOptionPane.WARNING_MESSAGE));
+    }
+
     /**
      * A class to save and load a FrameData.
      */
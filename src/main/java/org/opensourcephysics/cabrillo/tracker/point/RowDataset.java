@@ -0,0 +1,108 @@
+/*
+ * The tracker package defines a set of video/image analysis tools
+ * built on the Open Source Physics framework by Wolfgang Christian.
+ *
+ * Copyright (c) 2018  Douglas Brown
+ *
+ * Tracker is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Tracker is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Tracker; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston MA 02111-1307 USA
+ * or view the license online at <http://www.gnu.org/copyleft/gpl.html>
+ *
+ * For additional Tracker information and documentation, please see
+ * <http://physlets.org/tracker/>.
+ */
+package org.opensourcephysics.cabrillo.tracker.point;
+
+import java.awt.Graphics;
+
+import org.opensourcephysics.display.Dataset;
+import org.opensourcephysics.display.DrawingPanel;
+
+/**
+ * A RowDataset is a Dataset whose y values can be replaced row by row without
+ * clearing and appending all points. The y range and the drawing path are
+ * recomputed only when needed.
+ */
+public class RowDataset extends Dataset {
+
+    private boolean pathValid = true;
+    private boolean yRangeValid = true;
+
+    /**
+     * Sets the y value of an existing row.
+     *
+     * @param row the row index
+     * @param y   the new y value
+     */
+    public void setY(int row, double y) {
+        if (row < 0 || row >= index) {
+            throw new IndexOutOfBoundsException("row " + row + " of " + index); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+        double prev = ypoints[row];
+        if (prev == y || (Double.isNaN(prev) && Double.isNaN(y))) return;
+        ypoints[row] = y;
+        pathValid = false;
+        if (!yRangeValid) return;
+        if (prev == ymin || prev == ymax || Double.isNaN(prev) || Double.isInfinite(y)) {
+            yRangeValid = false;
+        } else if (!Double.isNaN(y)) {
+            ymin = Math.min(ymin, y);
+            ymax = Math.max(ymax, y);
+        }
+    }
+
+    @Override
+    public double getYMin() {
+        refreshYRange();
+        return super.getYMin();
+    }
+
+    @Override
+    public double getYMax() {
+        refreshYRange();
+        return super.getYMax();
+    }
+
+    @Override
+    public void draw(DrawingPanel drawingPanel, Graphics g) {
+        if (!pathValid) {
+            recalculatePath();
+            pathValid = true;
+        }
+        super.draw(drawingPanel, g);
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        pathValid = yRangeValid = true;
+    }
+
+    /**
+     * Recomputes the y range if a row that defined it has been replaced.
+     */
+    private void refreshYRange() {
+        if (yRangeValid) return;
+        yRangeValid = true;
+        ymin = Double.MAX_VALUE;
+        ymax = -Double.MAX_VALUE;
+        for (int i = 0; i < index; i++) {
+            double y = ypoints[i];
+            if (Double.isNaN(y) || Double.isInfinite(y)) continue;
+            ymin = Math.min(ymin, y);
+            ymax = Math.max(ymax, y);
+        }
+    }
+
+}
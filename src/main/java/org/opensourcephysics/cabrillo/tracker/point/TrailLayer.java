@@ -0,0 +1,147 @@
+/*
+ * The tracker package defines a set of video/image analysis tools
+ * built on the Open Source Physics framework by Wolfgang Christian.
+ *
+ * Copyright (c) 2018  Douglas Brown
+ *
+ * Tracker is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Tracker is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Tracker; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston MA 02111-1307 USA
+ * or view the license online at <http://www.gnu.org/copyleft/gpl.html>
+ *
+ * For additional Tracker information and documentation, please see
+ * <http://physlets.org/tracker/>.
+ */
+package org.opensourcephysics.cabrillo.tracker.point;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.GeneralPath;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * A TrailLayer caches a drawing of the static part of a track's trail on a
+ * single tracker panel: an image of the trail steps and the trace path. Each
+ * cache has a key listing everything it depends on, and is redrawn only when
+ * the key changes.
+ */
+class TrailLayer {
+
+    // instance fields
+    private BufferedImage image;
+    private double scaleX = 1, scaleY = 1;
+    private Object[] imageKey, traceKey;
+    private final GeneralPath trace = new GeneralPath();
+    private int frame = -1; // the frame left out of the image
+
+    /**
+     * Determines if the image is valid for the specified key.
+     *
+     * @param key the current key
+     * @return true if valid
+     */
+    boolean isImageValid(Object[] key) {
+        return image != null && Arrays.equals(key, imageKey);
+    }
+
+    /**
+     * Clears the image, resizing it if needed, and returns a graphics context
+     * for drawing in panel coordinates. The image has the resolution of the
+     * device so it is drawn back pixel for pixel.
+     *
+     * @param width  the panel width
+     * @param height the panel height
+     * @param sx     the device x scale
+     * @param sy     the device y scale
+     * @return the graphics context
+     */
+    Graphics2D beginImage(int width, int height, double sx, double sy) {
+        int w = (int) Math.ceil(width * sx);
+        int h = (int) Math.ceil(height * sy);
+        if (image == null || image.getWidth() != w || image.getHeight() != h) {
+            image = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB_PRE);
+        }
+        scaleX = sx;
+        scaleY = sy;
+        Graphics2D g = image.createGraphics();
+        g.setComposite(AlphaComposite.Clear);
+        g.fillRect(0, 0, w, h);
+        g.setComposite(AlphaComposite.SrcOver);
+        g.scale(sx, sy);
+        return g;
+    }
+
+    /**
+     * Finishes drawing the image.
+     *
+     * @param g     the graphics context returned by beginImage
+     * @param key   the key of the image
+     * @param frame the frame left out of the image
+     */
+    void endImage(Graphics2D g, Object[] key, int frame) {
+        g.dispose();
+        imageKey = key;
+        this.frame = frame;
+    }
+
+    /**
+     * Gets the frame left out of the image. Its steps must be drawn live.
+     *
+     * @return the frame number
+     */
+    int getFrame() {
+        return frame;
+    }
+
+    /**
+     * Draws the image.
+     *
+     * @param g the graphics context in panel coordinates
+     */
+    void drawImage(Graphics2D g) {
+        g.drawImage(image, AffineTransform.getScaleInstance(1 / scaleX, 1 / scaleY), null);
+    }
+
+    /**
+     * Gets the trace path if it is valid for the specified key.
+     *
+     * @param key the current key
+     * @return the trace, or null if it must be rebuilt
+     */
+    GeneralPath getTrace(Object[] key) {
+        return Arrays.equals(key, traceKey) ? trace : null;
+    }
+
+    /**
+     * Clears the trace path for rebuilding.
+     *
+     * @param key the key of the new trace
+     * @return the empty trace
+     */
+    GeneralPath resetTrace(Object[] key) {
+        trace.reset();
+        traceKey = key;
+        return trace;
+    }
+
+    /**
+     * Discards the image.
+     */
+    void dispose() {
+        image = null;
+        imageKey = null;
+        traceKey = null;
+    }
+}
@@ -202,7 +202,7 @@ public class Protractor extends TTrack {
         // initialize the autofill step array
         ProtractorStep step = new ProtractorStep(this, 0, 100, 150, 200, 150);
         step.setFootprint(getFootprint());
-        steps = new StepArray(step); // autofills
+        steps = new StepArray(step, true); // autofills
         fixedItem = new JCheckBoxMenuItem(TrackerRes.getString("TapeMeasure.MenuItem.Fixed")); //$NON-NLS-1$
         fixedItem.addItemListener(e -> setFixed(fixedItem.isSelected()));
         attachmentItem = new JMenuItem(TrackerRes.getString("MeasuringTool.MenuItem.Attach")); //$NON-NLS-1$
@@ -244,7 +244,7 @@ public class Protractor extends TTrack {
         if (trackerPanel != null) {
             trackerPanel.changed = true;
             int n = trackerPanel.getFrameNumber();
-            steps = new StepArray(getStep(n));
+            steps = new StepArray(getStep(n), true);
             trackerPanel.repaint();
         }
         fixedPosition = fixed;
@@ -792,13 +792,7 @@ public class Protractor extends TTrack {
      * @return the key step
      */
     private ProtractorStep getKeyStep(ProtractorStep step) {
-        int key = 0;
-        if (!this.isFixed()) {
-            for (int i : keyFrames) {
-                if (i <= step.n)
-                    key = i;
-            }
-        }
+        int key = isFixed() ? 0 : getKeyFrame(step.n);
         return (ProtractorStep) steps.getStep(key);
     }
 
@@ -290,7 +290,7 @@ public class ProtractorStep extends Step {
      * @return the mark
      */
     protected Mark getMark(TrackerPanel trackerPanel) {
-        Mark mark = marks.get(trackerPanel);
+        Mark mark = getCachedMark(trackerPanel);
         TPoint selection;
         if (mark == null) {
             getProtractorAngle(); // updates angle display
@@ -339,7 +339,7 @@ public class ProtractorStep extends Step {
                     }
                 };
             }
-            marks.put(trackerPanel, mark);
+            setCachedMark(trackerPanel, mark);
 
             // get new hit shapes
             Shape[] shapes = footprint.getHitShapes();
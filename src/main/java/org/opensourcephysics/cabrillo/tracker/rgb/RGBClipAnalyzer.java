@@ -0,0 +1,305 @@
+/*
+ * The tracker package defines a set of video/image analysis tools
+ * built on the Open Source Physics framework by Wolfgang Christian.
+ *
+ * Copyright (c) 2018  Douglas Brown
+ *
+ * Tracker is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Tracker is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Tracker; if not, write to the Free Software
+ * Foundation, Inc., 59 Temple Place, Suite 330, Boston MA 02111-1307 USA
+ * or view the license online at <http://www.gnu.org/copyleft/gpl.html>
+ *
+ * For additional Tracker information and documentation, please see
+ * <http://physlets.org/tracker/>.
+ */
+package org.opensourcephysics.cabrillo.tracker.rgb;
+
+import java.awt.image.BufferedImage;
+import java.lang.reflect.InvocationTargetException;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import javax.swing.SwingUtilities;
+
+import org.opensourcephysics.cabrillo.tracker.WorkerPool;
+import org.opensourcephysics.cabrillo.tracker.tracker.TrackerIO;
+import org.opensourcephysics.cabrillo.tracker.tracker.TrackerPanel;
+import org.opensourcephysics.media.core.*;
+
+/**
+ * A RGBClipAnalyzer fills the RGB data of all steps of a RGBRegion in a
+ * single pass over the video clip. Frames are read from a private copy of the
+ * video, so the video shown in the tracker panel is neither stepped nor
+ * repainted, and the pixels inside each circular region are summed on a
+ * worker pool.
+ * <p>
+ * Results are cached by frame number, radius and position so that data
+ * invalidated by a region change is restored without rereading the video
+ * when the region returns to a previously analyzed state.
+ */
+public class RGBClipAnalyzer {
+
+    // static fields
+    private static final int maxCacheSize = 1 << 16;
+
+    // instance fields
+    private final RGBRegion region;
+    private final Map<Key, double[]> cache = new LinkedHashMap<Key, double[]>(256, 0.75f, true) {
+        protected boolean removeEldestEntry(Map.Entry<Key, double[]> eldest) {
+            return size() > maxCacheSize;
+        }
+    };
+    private int generation; // incremented whenever the cache is cleared
+    private volatile boolean cancelled, running;
+
+    /**
+     * Constructs a RGBClipAnalyzer for a RGBRegion.
+     *
+     * @param region the RGBRegion
+     */
+    public RGBClipAnalyzer(RGBRegion region) {
+        this.region = region;
+    }
+
+    /**
+     * Gets cached RGB data.
+     *
+     * @param frame  the frame number
+     * @param radius the radius
+     * @param x      the x position in image space
+     * @param y      the y position in image space
+     * @return the data {R,G,B,luma,pixels}, or null if not cached
+     */
+    public synchronized double[] getCachedData(int frame, int radius, double x, double y) {
+        return cache.get(new Key(frame, radius, x, y));
+    }
+
+    /**
+     * Caches RGB data.
+     *
+     * @param frame   the frame number
+     * @param radius  the radius
+     * @param x       the x position in image space
+     * @param y       the y position in image space
+     * @param rgbData the data {R,G,B,luma,pixels}
+     */
+    public synchronized void cacheData(int frame, int radius, double x, double y, double[] rgbData) {
+        cache.put(new Key(frame, radius, x, y), rgbData.clone());
+    }
+
+    /**
+     * Clears the cache. This must be called whenever the video images change.
+     */
+    public synchronized void clearCache() {
+        cache.clear();
+        generation++;
+    }
+
+    /**
+     * Caches RGB data read before the cache was last cleared only if it has
+     * not been cleared since.
+     *
+     * @param job the job that read the data
+     * @param rgbData the data {R,G,B,luma,pixels}
+     */
+    private synchronized void cacheData(Job job, double[] rgbData) {
+        if (job.generation == generation) {
+            cache.put(new Key(job.frame, job.radius, job.x, job.y), rgbData);
+        }
+    }
+
+    /**
+     * Determines if an analysis is running.
+     *
+     * @return true if running
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Cancels a running analysis. Data found so far is still cached.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Analyzes all steps in the video clip and fills their RGB data.
+     * Steps whose data is already valid or cached are not reread. This blocks
+     * until the analysis is complete and updates the track on the event
+     * dispatch thread. Data read from frames that change while the analysis
+     * runs, for example by a filter change, is discarded.
+     *
+     * @param trackerPanel the tracker panel
+     * @return the number of steps with valid data
+     */
+    public int analyzeClip(TrackerPanel trackerPanel) {
+        Video video = trackerPanel.getVideo();
+        if (video == null || !video.isVisible() || region.steps.isEmpty()) return 0;
+        cancelled = false;
+        running = true;
+        try {
+            return analyzeClip(trackerPanel, video);
+        } finally {
+            running = false;
+        }
+    }
+
+    /**
+     * Analyzes all steps in the video clip using a copy of a video.
+     *
+     * @param trackerPanel the tracker panel
+     * @param video        the video
+     * @return the number of steps with valid data
+     */
+    private int analyzeClip(TrackerPanel trackerPanel, Video video) {
+        VideoClip clip = trackerPanel.getPlayer().getVideoClip();
+
+        // find the steps that need to be read
+        ArrayList<RGBStep> stepList = new ArrayList<>();
+        ArrayList<Job> jobs = new ArrayList<>();
+        int gen;
+        synchronized (this) {
+            gen = generation;
+        }
+        for (int i = 0; i < clip.getStepCount(); i++) {
+            int frame = clip.stepToFrame(i);
+            RGBStep step = (RGBStep) region.getStep(frame);
+            if (step == null) continue;
+            stepList.add(step);
+            if (step.dataValid) continue;
+            TPoint pt = step.getRegionPosition();
+            if (getCachedData(frame, step.radius, pt.getX(), pt.getY()) == null) {
+                jobs.add(new Job(frame, step.radius, pt.getX(), pt.getY(), gen));
+            }
+        }
+
+        // read frames from a copy of the video on this thread and sum pixels on the worker pool
+        Video reader = jobs.isEmpty() ? null : TrackerIO.getVideoCopy(video);
+        ArrayList<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < jobs.size() && reader != null; i++) {
+                if (cancelled) break;
+                Job job = jobs.get(i);
+                reader.setFrameNumber(job.frame);
+                BufferedImage image = reader.getImage();
+                if (image == null) break;
+                if (!job.readPixels(image)) continue; // region outside image
+                futures.add(WorkerPool.getExecutor().submit(job));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            ex.printStackTrace();
+        } finally {
+            if (reader != null) reader.dispose();
+        }
+
+        // fill the steps and refresh the data on the event dispatch thread
+        int[] count = new int[1];
+        Runnable runner = () -> {
+            for (RGBStep step : stepList) {
+                if (step.dataValid || step.restoreData()) count[0]++;
+            }
+            region.refreshData(region.data, trackerPanel);
+            region.firePropertyChange("data", null, region); // to views //$NON-NLS-1$
+        };
+        if (SwingUtilities.isEventDispatchThread()) {
+            runner.run();
+        } else {
+            try {
+                SwingUtilities.invokeAndWait(runner);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (InvocationTargetException ex) {
+                ex.printStackTrace();
+            }
+        }
+        return count[0];
+    }
+
+
+    /**
+     * A cache key.
+     */
+    private static class Key {
+
+        private final int frame, radius;
+        private final long x, y;
+
+        Key(int frame, int radius, double x, double y) {
+            this.frame = frame;
+            this.radius = radius;
+            this.x = Double.doubleToLongBits(x);
+            this.y = Double.doubleToLongBits(y);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) return false;
+            Key key = (Key) obj;
+            return key.frame == frame && key.radius == radius && key.x == x && key.y == y;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = 31 * frame + radius;
+            hash = 31 * hash + Long.hashCode(x);
+            return 31 * hash + Long.hashCode(y);
+        }
+    }
+
+    /**
+     * A region of a single frame to be summed.
+     */
+    private class Job implements Runnable {
+
+        private final int frame, radius, generation;
+        private final double x, y;
+        private int[] pixels;
+
+        Job(int frame, int radius, double x, double y, int generation) {
+            this.frame = frame;
+            this.radius = radius;
+            this.x = x;
+            this.y = y;
+            this.generation = generation;
+        }
+
+        /**
+         * Copies the pixels of the bounding square from an image, since
+         * videos may reuse their image buffers.
+         *
+         * @param image the frame image
+         * @return true if the pixels were read
+         */
+        boolean readPixels(BufferedImage image) {
+            pixels = RGBStep.getPixels(image, x, y, radius);
+            return pixels != null;
+        }
+
+        @Override
+        public void run() {
+            double[] rgb = RGBStep.getRGBData(pixels, x, y, radius);
+            pixels = null;
+            if (rgb != null) {
+                cacheData(this, rgb);
+            }
+        }
+    }
+}
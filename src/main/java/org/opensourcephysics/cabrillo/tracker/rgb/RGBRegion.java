@@ -104,6 +104,7 @@ public class RGBRegion extends TTrack {
     protected boolean fixedPosition = true; // region has same position at all times
     protected boolean fixedRadius = true; // region has same radius at all times
     protected JCheckBoxMenuItem fixedPositionItem, fixedRadiusItem;
+    protected JMenuItem analyzeClipItem;
     protected JLabel radiusLabel;
     protected int maxRadius = defaultMaxRadius;
     protected IntegerField radiusField;
@@ -111,6 +112,7 @@ public class RGBRegion extends TTrack {
     protected boolean dataHidden = false;
     protected boolean loading;
     protected TreeSet<Integer> radiusKeyFrames = new TreeSet<>();
+    protected RGBClipAnalyzer analyzer = new RGBClipAnalyzer(this);
 
     /**
      * Constructs a RGBRegion.
@@ -162,6 +164,17 @@ public class RGBRegion extends TTrack {
         fixedPositionItem.addItemListener(e -> setFixedPosition(fixedPositionItem.isSelected()));
         fixedRadiusItem = new JCheckBoxMenuItem(TrackerRes.getString("RGBRegion.MenuItem.FixedRadius")); //$NON-NLS-1$
         fixedRadiusItem.addItemListener(e -> setFixedRadius(fixedRadiusItem.isSelected()));
+        analyzeClipItem = new JMenuItem(TrackerRes.getString("RGBRegion.MenuItem.AnalyzeClip")); //$NON-NLS-1$
+        analyzeClipItem.addActionListener(e -> {
+            final TrackerPanel panel = trackerPanel;
+            if (panel == null || analyzer.isRunning()) return;
+            new SwingWorker<Integer, Void>() {
+                @Override
+                protected Integer doInBackground() {
+                    return analyzeClip(panel);
+                }
+            }.execute();
+        });
         radiusField.setBorder(fieldBorder);
         // position action
         Action positionAction = new AbstractAction() {
@@ -203,7 +216,7 @@ public class RGBRegion extends TTrack {
             trackerPanel.changed = true;
             int n = trackerPanel.getFrameNumber();
             RGBStep keyStep = (RGBStep) getStep(n);
-            for (Step next : steps.array) {
+            for (Step next : steps.getSteps()) {
                 if (next == null) continue;
                 RGBStep step = (RGBStep) next;
                 step.getPosition().setLocation(keyStep.getPosition());
@@ -249,7 +262,7 @@ public class RGBRegion extends TTrack {
             trackerPanel.changed = true;
             int n = trackerPanel.getFrameNumber();
             RGBStep keyStep = (RGBStep) getStep(n);
-            for (Step next : steps.array) {
+            for (Step next : steps.getSteps()) {
                 if (next == null) continue;
                 RGBStep step = (RGBStep) next;
                 step.setRadius(keyStep.radius);
@@ -574,7 +587,7 @@ public class RGBRegion extends TTrack {
         VideoClip clip = player.getVideoClip();
         for (Step value : stepArray) {
             RGBStep next = (RGBStep) value;
-            if (next == null || !next.dataValid
+            if (next == null || !(next.dataValid || next.restoreData())
                     || next.getRGBData(trackerPanel) == null)
                 continue;
             // get the frame number of the step
@@ -623,6 +636,27 @@ public class RGBRegion extends TTrack {
         frameNum.append(validData[9], validData[8]);
     }
 
+    /**
+     * Reads the RGB data of all steps in the video clip in a single pass
+     * without stepping the video player. This blocks until complete, so
+     * long clips should be analyzed on a separate thread.
+     *
+     * @param trackerPanel the tracker panel
+     * @return the number of steps with valid data
+     */
+    public int analyzeClip(TrackerPanel trackerPanel) {
+        return analyzer.analyzeClip(trackerPanel);
+    }
+
+    /**
+     * Gets the clip analyzer that reads and caches the RGB data.
+     *
+     * @return the clip analyzer
+     */
+    public RGBClipAnalyzer getClipAnalyzer() {
+        return analyzer;
+    }
+
     /**
      * Overrides TTrack getMenu method.
      *
@@ -640,6 +674,10 @@ public class RGBRegion extends TTrack {
             menu.addSeparator();
         menu.add(fixedPositionItem);
         menu.add(fixedRadiusItem);
+        analyzeClipItem.setText(TrackerRes.getString("RGBRegion.MenuItem.AnalyzeClip")); //$NON-NLS-1$
+        Video video = trackerPanel.getVideo();
+        analyzeClipItem.setEnabled(video != null && video.isVisible() && !isEmpty() && !analyzer.isRunning());
+        menu.add(analyzeClipItem);
         // replace delete item
         if (trackerPanel.isEnabled("track.delete")) { //$NON-NLS-1$
             if (menu.getItemCount() > 0 && menu.getItem(menu.getItemCount() - 1) != null)
@@ -745,6 +783,7 @@ public class RGBRegion extends TTrack {
                 stepValueLabel.setText(e.getNewValue() + ":"); //$NON-NLS-1$
             } else if (name.equals("image")) { //$NON-NLS-1$
                 dataValid = false;
+                analyzer.clearCache(); // pixels may have changed
                 Video vid = trackerPanel.getVideo();
                 if (vid == null) clearData(); // no video
                 else if (!vid.isVisible()) // video invisible
@@ -815,20 +854,8 @@ public class RGBRegion extends TTrack {
         if (step == null)
             return;
         // find key steps
-        int key = 0;
-        if (!isFixedPosition()) {
-            for (int i : keyFrames) {
-                if (i <= step.n)
-                    key = i;
-            }
-        }
-        int radiusKey = 0;
-        if (!isFixedRadius()) {
-            for (int i : radiusKeyFrames) {
-                if (i <= step.n)
-                    radiusKey = i;
-            }
-        }
+        int key = isFixedPosition() ? 0 : getKeyFrame(step.n);
+        int radiusKey = isFixedRadius() ? 0 : getKeyFrame(radiusKeyFrames, step.n);
         // compare step with keySteps and update if needed
         RGBStep positionKeyStep = (RGBStep) steps.getStep(key);
         double x = positionKeyStep.getPosition().getX();
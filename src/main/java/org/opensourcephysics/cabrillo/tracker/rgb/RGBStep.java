@@ -146,7 +146,7 @@ public class RGBStep extends Step {
         if (stroke == null || stroke.getLineWidth() != lineWidth) {
             stroke = new BasicStroke(lineWidth);
         }
-        Mark mark = marks.get(trackerPanel);
+        Mark mark = getCachedMark(trackerPanel);
         if (mark == null) {
             transform = trackerPanel.getPixelTransform();
             if (!trackerPanel.isDrawingInImageSpace()) {
@@ -183,7 +183,7 @@ public class RGBStep extends Step {
                     return rgn.getBounds();
                 }
             };
-            marks.put(trackerPanel, mark);
+            setCachedMark(trackerPanel, mark);
             // center is also the hit shape
             hitShapes.put(trackerPanel, cross);
         }
@@ -247,60 +247,49 @@ public class RGBStep extends Step {
     public double[] getRGBData(TrackerPanel trackerPanel) {
         Video vid = trackerPanel.getVideo();
         if (vid == null || !vid.isVisible()) return null;
-        if (!dataValid && trackerPanel.getFrameNumber() == n) {
+        if (!dataValid && !restoreData() && trackerPanel.getFrameNumber() == n) {
             BufferedImage image = vid.getImage();
             if (image != null
                     && image.getType() == BufferedImage.TYPE_INT_RGB) {
-                RGBStep step = rgbRegion.isFixedPosition() ?
-                        (RGBStep) rgbRegion.getStep(0) : this;
-                TPoint pt = step.getPosition();
-                Shape region = new Ellipse2D.Double(
-                        pt.getX() - radius, pt.getY() - radius,
-                        2 * radius, 2 * radius);
-                int h = 2 * radius + 1;
-                // locate starting pixel
-                int x0 = (int) pt.getX() - radius;
-                int y0 = (int) pt.getY() - radius;
-                Point2D centerPt = new Point2D.Double();
-                try {
-                    int[] pixels = new int[h * h];
-                    int n = 0, r = 0, g = 0, b = 0;
-                    // fill pixels array with pixel data
-                    image.getRaster().getDataElements(x0, y0, h, h, pixels);
-                    // step thru pixels horizontally
-                    for (int i = 0; i < h; i++) {
-                        // step vertically
-                        for (int j = 0; j < h; j++) {
-                            // include pixel if center is inside region
-                            centerPt.setLocation(x0 + i + .5, y0 + j + .5);
-                            if (region.contains(centerPt)) {
-                                int pixel = pixels[i + j * h];
-                                n++; // pixel count
-                                r += (pixel >> 16) & 0xff; // red
-                                g += (pixel >> 8) & 0xff; // green
-                                b += (pixel) & 0xff; // blue
-                            }
-                        }
-                    }
-                    if (n == 0) return null;
-                    double rMean = 1.0 * r / n;
-                    double gMean = 1.0 * g / n;
-                    double bMean = 1.0 * b / n;
-                    rgbData[0] = rMean;
-                    rgbData[1] = gMean;
-                    rgbData[2] = bMean;
-                    rgbData[3] = RGBRegion.getLuma(rMean, gMean, bMean);
-                    rgbData[4] = n;
-                    dataValid = true;
-                } catch (ArrayIndexOutOfBoundsException ex) {
-                    return null;
-                }
+                TPoint pt = getRegionPosition();
+                int[] pixels = getPixels(image, pt.getX(), pt.getY(), radius);
+                double[] data = getRGBData(pixels, pt.getX(), pt.getY(), radius);
+                if (data == null) return null;
+                System.arraycopy(data, 0, rgbData, 0, rgbData.length);
+                dataValid = true;
+                rgbRegion.analyzer.cacheData(n, radius, pt.getX(), pt.getY(), rgbData);
             }
         }
         dataVisible = true;
         return rgbData;
     }
 
+    /**
+     * Gets the position of the region measured by this step. This is the
+     * position of step 0 when the region has a fixed position.
+     *
+     * @return the region position
+     */
+    protected TPoint getRegionPosition() {
+        RGBStep step = rgbRegion.isFixedPosition() ?
+                (RGBStep) rgbRegion.getStep(0) : this;
+        return step.getPosition();
+    }
+
+    /**
+     * Restores the RGB data from the clip analyzer cache, if available.
+     *
+     * @return true if the data was restored
+     */
+    protected boolean restoreData() {
+        TPoint pt = getRegionPosition();
+        double[] data = rgbRegion.analyzer.getCachedData(n, radius, pt.getX(), pt.getY());
+        if (data == null) return false;
+        System.arraycopy(data, 0, rgbData, 0, rgbData.length);
+        dataValid = true;
+        return true;
+    }
+
 //____________________ inner Position class ______________________
 
     protected class Position extends TPoint {
@@ -367,6 +356,76 @@ public class RGBStep extends Step {
 
 //__________________________ static methods ___________________________
 
+    /**
+     * Copies the pixels of the square bounding a circular region from an image.
+     * The square has side 2r+1 and the returned array is in row order.
+     *
+     * @param image  the image
+     * @param x      the x coordinate of the region center
+     * @param y      the y coordinate of the region center
+     * @param radius the radius
+     * @return the RGB pixels, or null if the square extends outside the image
+     */
+    protected static int[] getPixels(BufferedImage image, double x, double y, int radius) {
+        int h = 2 * radius + 1;
+        // locate starting pixel
+        int x0 = (int) x - radius;
+        int y0 = (int) y - radius;
+        int[] pixels = new int[h * h];
+        try {
+            if (image.getType() == BufferedImage.TYPE_INT_RGB) {
+                // fill pixels array with pixel data
+                image.getRaster().getDataElements(x0, y0, h, h, pixels);
+            } else {
+                image.getRGB(x0, y0, h, h, pixels, 0, h);
+            }
+        } catch (ArrayIndexOutOfBoundsException ex) {
+            return null;
+        }
+        return pixels;
+    }
+
+    /**
+     * Computes the RGB data of a circular region from the pixels of its bounding
+     * square. A pixel is included if its center is inside the region.
+     *
+     * @param pixels the pixels returned by getPixels
+     * @param x      the x coordinate of the region center
+     * @param y      the y coordinate of the region center
+     * @param radius the radius
+     * @return the data {R,G,B,luma,pixels}, or null if no pixels are included
+     */
+    protected static double[] getRGBData(int[] pixels, double x, double y, int radius) {
+        if (pixels == null) return null;
+        int h = 2 * radius + 1;
+        int x0 = (int) x - radius;
+        int y0 = (int) y - radius;
+        double r2 = (double) radius * radius;
+        int n = 0, r = 0, g = 0, b = 0;
+        // step thru pixels vertically
+        for (int j = 0; j < h; j++) {
+            double dy = y0 + j + .5 - y;
+            double dx2 = r2 - dy * dy;
+            if (dx2 <= 0) continue;
+            // step horizontally
+            for (int i = 0, k = j * h; i < h; i++, k++) {
+                double dx = x0 + i + .5 - x;
+                if (dx * dx < dx2) {
+                    int pixel = pixels[k];
+                    n++; // pixel count
+                    r += (pixel >> 16) & 0xff; // red
+                    g += (pixel >> 8) & 0xff; // green
+                    b += (pixel) & 0xff; // blue
+                }
+            }
+        }
+        if (n == 0) return null;
+        double rMean = 1.0 * r / n;
+        double gMean = 1.0 * g / n;
+        double bMean = 1.0 * b / n;
+        return new double[]{rMean, gMean, bMean, RGBRegion.getLuma(rMean, gMean, bMean), n};
+    }
+
     /**
      * Returns an ObjectLoader to save and load data for this class.
      *
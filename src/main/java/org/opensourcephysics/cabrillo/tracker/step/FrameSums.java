@@ -0,0 +1,202 @@
+/*
+ * The tracker package defines a set of video/image analysis tools built on the
+ * Open Source Physics framework by Wolfgang Christian.
+ *
+ * Copyright (c) 2018  Douglas Brown
+ *
+ * Tracker is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Tracker is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Tracker; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place, Suite 330, Boston MA 02111-1307 USA or view the license online at
+ * <http://www.gnu.org/copyleft/gpl.html>
+ *
+ * For additional Tracker information and documentation, please see
+ * <http://physlets.org/tracker/>.
+ */
+package org.opensourcephysics.cabrillo.tracker.step;
+
+import java.util.Arrays;
+
+
+/**
+ * A FrameSums keeps running weighted sums, indexed by frame number, of the
+ * x and y values of a fixed set of members, such as the masses of a center
+ * of mass. The value of each member in each frame is remembered so a change
+ * to one member in one frame is applied as a delta in O(1) instead of
+ * summing all members again.
+ */
+public class FrameSums {
+
+    // instance fields
+    private Member[] members = new Member[0];
+    private double[] sumX = new double[0], sumY = new double[0];
+    private int[] count = new int[0]; // number of members with values in each frame
+    private int length;
+
+    /**
+     * Removes all members and values and sets the number of members.
+     *
+     * @param memberCount the number of members
+     */
+    public void reset(int memberCount) {
+        members = new Member[memberCount];
+        for (int i = 0; i < memberCount; i++) {
+            members[i] = new Member();
+        }
+        Arrays.fill(sumX, 0);
+        Arrays.fill(sumY, 0);
+        Arrays.fill(count, 0);
+        length = 0;
+    }
+
+    /**
+     * Gets the number of members.
+     *
+     * @return the member count
+     */
+    public int getMemberCount() {
+        return members.length;
+    }
+
+    /**
+     * Gets the length, one more than the highest frame number with a value.
+     *
+     * @return the length
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Sets the value of a member in a frame and applies the change to the sums.
+     *
+     * @param member the member index
+     * @param n      the frame number
+     * @param valid  true if the member has a value in the frame
+     * @param x      the x value
+     * @param y      the y value
+     * @return true if the value changed
+     */
+    public boolean set(int member, int n, boolean valid, double x, double y) {
+        Member m = members[member];
+        boolean wasValid = n < m.valid.length && m.valid[n];
+        if (!valid && !wasValid) return false;
+        if (valid && wasValid && m.x[n] == x && m.y[n] == y) return false;
+        ensureCapacity(n + 1);
+        m.ensureCapacity(n + 1);
+        if (wasValid) {
+            sumX[n] -= m.weight * m.x[n];
+            sumY[n] -= m.weight * m.y[n];
+            count[n]--;
+        }
+        if (valid) {
+            sumX[n] += m.weight * x;
+            sumY[n] += m.weight * y;
+            count[n]++;
+            m.x[n] = x;
+            m.y[n] = y;
+            length = Math.max(length, n + 1);
+        }
+        m.valid[n] = valid;
+        if (count[n] == 0) {
+            // clear any rounding residue
+            sumX[n] = sumY[n] = 0;
+        }
+        return true;
+    }
+
+    /**
+     * Sets the weight of a member and applies the change to the sums.
+     *
+     * @param member the member index
+     * @param weight the weight
+     * @return true if the weight changed
+     */
+    public boolean setWeight(int member, double weight) {
+        Member m = members[member];
+        double delta = weight - m.weight;
+        if (delta == 0) return false;
+        for (int n = 0, end = Math.min(length, m.valid.length); n < end; n++) {
+            if (m.valid[n]) {
+                sumX[n] += delta * m.x[n];
+                sumY[n] += delta * m.y[n];
+            }
+        }
+        m.weight = weight;
+        return true;
+    }
+
+    /**
+     * Gets the weight of a member.
+     *
+     * @param member the member index
+     * @return the weight
+     */
+    public double getWeight(int member) {
+        return members[member].weight;
+    }
+
+    /**
+     * Determines if all members have values in a frame.
+     *
+     * @param n the frame number
+     * @return true if the frame is complete
+     */
+    public boolean isComplete(int n) {
+        return members.length > 0 && n < length && count[n] == members.length;
+    }
+
+    /**
+     * Gets the weighted sum of the x values in a frame.
+     *
+     * @param n the frame number
+     * @return the x sum
+     */
+    public double getX(int n) {
+        return n < length ? sumX[n] : 0;
+    }
+
+    /**
+     * Gets the weighted sum of the y values in a frame.
+     *
+     * @param n the frame number
+     * @return the y sum
+     */
+    public double getY(int n) {
+        return n < length ? sumY[n] : 0;
+    }
+
+    private void ensureCapacity(int size) {
+        if (sumX.length >= size) return;
+        int newSize = Math.max(size, sumX.length * 3 / 2 + 16);
+        sumX = Arrays.copyOf(sumX, newSize);
+        sumY = Arrays.copyOf(sumY, newSize);
+        count = Arrays.copyOf(count, newSize);
+    }
+
+    /**
+     * The values of a single member.
+     */
+    private static class Member {
+
+        double weight = 1;
+        double[] x = new double[0], y = new double[0];
+        boolean[] valid = new boolean[0];
+
+        void ensureCapacity(int size) {
+            if (valid.length >= size) return;
+            int newSize = Math.max(size, valid.length * 3 / 2 + 16);
+            x = Arrays.copyOf(x, newSize);
+            y = Arrays.copyOf(y, newSize);
+            valid = Arrays.copyOf(valid, newSize);
+        }
+    }
+}
@@ -0,0 +1,388 @@
+/*
+ * The tracker package defines a set of video/image analysis tools built on the
+ * Open Source Physics framework by Wolfgang Christian.
+ *
+ * Copyright (c) 2018  Douglas Brown
+ *
+ * Tracker is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Tracker is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Tracker; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place, Suite 330, Boston MA 02111-1307 USA or view the license online at
+ * <http://www.gnu.org/copyleft/gpl.html>
+ *
+ * For additional Tracker information and documentation, please see
+ * <http://physlets.org/tracker/>.
+ */
+package org.opensourcephysics.cabrillo.tracker.step;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.opensourcephysics.cabrillo.tracker.Mark;
+import org.opensourcephysics.cabrillo.tracker.tracker.TrackerPanel;
+import org.opensourcephysics.media.core.TPoint;
+
+/**
+ * A MarkStore caches the marks of a set of steps, normally those of a single
+ * StepArray, for each tracker panel that draws them. Marks are held in arrays
+ * indexed by frame number, so steps need no map of their own.
+ * <p>
+ * Each panel's marks carry a generation stamp, so all marks on a panel are
+ * invalidated at once by advancing the generation, for example when the
+ * image-to-screen transform changes. Each panel also has a visible window of
+ * frames: steps outside the window are not remarked until they are drawn.
+ * <p>
+ * The screen bounds of valid marks are indexed in a uniform grid of cells so
+ * hit-testing a trail looks only at marks near the mouse. Marks are indexed
+ * when first hit-tested after they are set, and the index of a panel is
+ * cleared whenever its marks are invalidated.
+ */
+public class MarkStore {
+
+    // static fields
+    private static final int CELL_SIZE = 64; // grid cell size in pixels
+    private static final int MAX_CELLS = 64; // larger marks are not indexed
+    private static final int HIT_MARGIN = 8; // at least the step hit rectangle size
+
+    // instance fields
+    private final Map<TrackerPanel, Slots> panelSlots = new HashMap<>(4);
+    private int modCount; // source of unique panel modification counts
+
+    /**
+     * Gets the cached mark of a step on a panel.
+     *
+     * @param trackerPanel the tracker panel
+     * @param step         the step
+     * @return the mark, or null if none or invalid
+     */
+    public Mark get(TrackerPanel trackerPanel, Step step) {
+        Slots slots = panelSlots.get(trackerPanel);
+        int n = step.n;
+        if (slots == null || n < 0 || n >= slots.owners.length
+                || slots.owners[n] != step || slots.stamps[n] != slots.generation) {
+            return null;
+        }
+        return slots.marks[n];
+    }
+
+    /**
+     * Sets the cached mark of a step on a panel. Setting a null mark discards
+     * the mark but remembers that the step is drawn on the panel.
+     *
+     * @param trackerPanel the tracker panel
+     * @param step         the step
+     * @param mark         the mark (may be null)
+     */
+    public void put(TrackerPanel trackerPanel, Step step, Mark mark) {
+        int n = step.n;
+        if (n < 0) return;
+        Slots slots = panelSlots.get(trackerPanel);
+        if (slots == null) {
+            if (mark == null) return;
+            slots = new Slots();
+            panelSlots.put(trackerPanel, slots);
+        }
+        slots.ensureCapacity(n + 1);
+        slots.unindex(n);
+        slots.owners[n] = step;
+        slots.marks[n] = mark;
+        slots.stamps[n] = slots.generation;
+        slots.modCount = ++modCount;
+        if (mark != null) slots.pending.set(n);
+    }
+
+    /**
+     * Determines if a step is drawn on a panel, whether or not its mark is valid.
+     *
+     * @param trackerPanel the tracker panel
+     * @param step         the step
+     * @return true if the step has been marked on the panel
+     */
+    public boolean contains(TrackerPanel trackerPanel, Step step) {
+        Slots slots = panelSlots.get(trackerPanel);
+        int n = step.n;
+        return slots != null && n >= 0 && n < slots.owners.length && slots.owners[n] == step;
+    }
+
+    /**
+     * Gets the panels with cached marks.
+     *
+     * @return the panels
+     */
+    public Collection<TrackerPanel> getPanels() {
+        return panelSlots.keySet();
+    }
+
+    /**
+     * Removes a step from all panels.
+     *
+     * @param step the step
+     */
+    public void remove(Step step) {
+        int n = step.n;
+        for (Slots slots : panelSlots.values()) {
+            if (n >= 0 && n < slots.owners.length && slots.owners[n] == step) {
+                slots.unindex(n);
+                slots.owners[n] = null;
+                slots.marks[n] = null;
+                slots.modCount = ++modCount;
+            }
+        }
+    }
+
+    /**
+     * Removes all marks on a panel.
+     *
+     * @param trackerPanel the tracker panel
+     */
+    public void removePanel(TrackerPanel trackerPanel) {
+        panelSlots.remove(trackerPanel);
+    }
+
+    /**
+     * Invalidates all marks on all panels.
+     */
+    public void invalidate() {
+        for (Slots slots : panelSlots.values()) {
+            slots.generation++;
+            slots.clearIndex();
+            slots.modCount = ++modCount;
+        }
+    }
+
+    /**
+     * Invalidates all marks on a panel.
+     *
+     * @param trackerPanel the tracker panel
+     */
+    public void invalidate(TrackerPanel trackerPanel) {
+        Slots slots = panelSlots.get(trackerPanel);
+        if (slots != null) {
+            slots.generation++;
+            slots.clearIndex();
+            slots.modCount = ++modCount;
+        }
+    }
+
+    /**
+     * Gets the modification count of the marks on a panel. This changes
+     * whenever a mark on the panel is set, removed or invalidated, so it can
+     * be used to validate images drawn from the marks.
+     *
+     * @param trackerPanel the tracker panel
+     * @return the modification count
+     */
+    public int getModCount(TrackerPanel trackerPanel) {
+        Slots slots = panelSlots.get(trackerPanel);
+        return slots == null ? 0 : slots.modCount;
+    }
+
+    /**
+     * Sets the range of frames drawn on a panel. By default all frames are drawn.
+     *
+     * @param trackerPanel the tracker panel
+     * @param first        the first frame drawn
+     * @param last         the last frame drawn
+     */
+    public void setVisibleWindow(TrackerPanel trackerPanel, int first, int last) {
+        Slots slots = panelSlots.get(trackerPanel);
+        if (slots == null) {
+            slots = new Slots();
+            panelSlots.put(trackerPanel, slots);
+        }
+        slots.first = first;
+        slots.last = last;
+    }
+
+    /**
+     * Determines if a frame is in the visible window of a panel.
+     *
+     * @param trackerPanel the tracker panel
+     * @param n            the frame number
+     * @return true if the frame may be drawn
+     */
+    public boolean isVisible(TrackerPanel trackerPanel, int n) {
+        Slots slots = panelSlots.get(trackerPanel);
+        return slots == null || (n >= slots.first && n <= slots.last);
+    }
+
+    /**
+     * Adds to a set of candidates the frames whose steps may be hit at a
+     * screen position. These are the frames whose indexed marks lie near the
+     * position plus the frames that have no valid indexed mark. Only frames in
+     * the specified set are added.
+     *
+     * @param trackerPanel the tracker panel
+     * @param xpix         the x pixel position
+     * @param ypix         the y pixel position
+     * @param frames       the frames to consider
+     * @param candidates   the set to which candidate frames are added
+     */
+    public void addHitCandidates(TrackerPanel trackerPanel, int xpix, int ypix,
+                                 BitSet frames, BitSet candidates) {
+        Slots slots = panelSlots.get(trackerPanel);
+        if (slots == null) {
+            candidates.or(frames);
+            return;
+        }
+        slots.indexPending(trackerPanel);
+        BitSet unindexed = (BitSet) frames.clone();
+        unindexed.andNot(slots.indexed);
+        candidates.or(unindexed);
+        Cell cell = slots.grid.get(cellKey(Math.floorDiv(xpix, CELL_SIZE), Math.floorDiv(ypix, CELL_SIZE)));
+        if (cell == null) return;
+        for (int i = 0; i < cell.size; i++) {
+            int n = cell.frames[i];
+            if (frames.get(n) && slots.hitBounds[n].contains(xpix, ypix)) {
+                candidates.set(n);
+            }
+        }
+    }
+
+    /**
+     * Gets the grid key of a cell.
+     *
+     * @param col the cell column
+     * @param row the cell row
+     * @return the key
+     */
+    private static long cellKey(int col, int row) {
+        return ((long) col << 32) | (row & 0xffffffffL);
+    }
+
+    /**
+     * Gets the screen area in which a step may be hit. This includes the bounds of
+     * its mark and the screen positions of its points, enlarged by a hit margin.
+     *
+     * @param trackerPanel the tracker panel
+     * @param step         the step
+     * @param mark         the mark of the step
+     * @return the hit bounds, or null if unknown
+     */
+    private static Rectangle getHitBounds(TrackerPanel trackerPanel, Step step, Mark mark) {
+        Rectangle bounds = null;
+        for (int i = 0; i < 2; i++) {
+            Rectangle r = mark.getBounds(i == 1);
+            if (r == null || r.isEmpty()) continue;
+            if (bounds == null) bounds = new Rectangle(r);
+            else bounds.add(r);
+        }
+        TPoint[] points = step.getPoints();
+        for (TPoint p : points) {
+            if (p == null || Double.isNaN(p.getX()) || Double.isNaN(p.getY())) continue;
+            Point pt = p.getScreenPosition(trackerPanel);
+            if (bounds == null) bounds = new Rectangle(pt);
+            else bounds.add(pt);
+        }
+        if (bounds != null) bounds.grow(HIT_MARGIN, HIT_MARGIN);
+        return bounds;
+    }
+
+    /**
+     * A grid cell listing the frames whose hit bounds overlap it.
+     */
+    private static class Cell {
+
+        int[] frames = new int[4];
+        int size;
+
+        void add(int n) {
+            if (size == frames.length) frames = Arrays.copyOf(frames, size * 2);
+            frames[size++] = n;
+        }
+
+        void remove(int n) {
+            for (int i = 0; i < size; i++) {
+                if (frames[i] == n) {
+                    frames[i] = frames[--size];
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * The marks on a single panel.
+     */
+    private static class Slots {
+
+        Mark[] marks = new Mark[0];
+        Step[] owners = new Step[0];
+        int[] stamps = new int[0];
+        int generation;
+        int modCount;
+        int first = 0, last = Integer.MAX_VALUE;
+        // spatial index of the marks
+        Rectangle[] hitBounds = new Rectangle[0];
+        final BitSet indexed = new BitSet(); // frames in the grid
+        final BitSet pending = new BitSet(); // frames with marks not yet indexed
+        final Map<Long, Cell> grid = new HashMap<>();
+
+        void ensureCapacity(int size) {
+            if (owners.length >= size) return;
+            int newSize = Math.max(size, owners.length * 3 / 2 + 16);
+            marks = Arrays.copyOf(marks, newSize);
+            owners = Arrays.copyOf(owners, newSize);
+            stamps = Arrays.copyOf(stamps, newSize);
+            hitBounds = Arrays.copyOf(hitBounds, newSize);
+        }
+
+        void indexPending(TrackerPanel trackerPanel) {
+            for (int n = pending.nextSetBit(0); n > -1; n = pending.nextSetBit(n + 1)) {
+                if (owners[n] == null || marks[n] == null || stamps[n] != generation) continue;
+                Rectangle bounds = getHitBounds(trackerPanel, owners[n], marks[n]);
+                if (bounds == null) continue;
+                int col0 = Math.floorDiv(bounds.x, CELL_SIZE);
+                int col1 = Math.floorDiv(bounds.x + bounds.width, CELL_SIZE);
+                int row0 = Math.floorDiv(bounds.y, CELL_SIZE);
+                int row1 = Math.floorDiv(bounds.y + bounds.height, CELL_SIZE);
+                // large marks stay unindexed and are always hit-tested
+                if ((long) (col1 - col0 + 1) * (row1 - row0 + 1) > MAX_CELLS) continue;
+                for (int col = col0; col <= col1; col++) {
+                    for (int row = row0; row <= row1; row++) {
+                        grid.computeIfAbsent(cellKey(col, row), k -> new Cell()).add(n);
+                    }
+                }
+                hitBounds[n] = bounds;
+                indexed.set(n);
+            }
+            pending.clear();
+        }
+
+        void unindex(int n) {
+            pending.clear(n);
+            if (!indexed.get(n)) return;
+            Rectangle bounds = hitBounds[n];
+            int col1 = Math.floorDiv(bounds.x + bounds.width, CELL_SIZE);
+            int row1 = Math.floorDiv(bounds.y + bounds.height, CELL_SIZE);
+            for (int col = Math.floorDiv(bounds.x, CELL_SIZE); col <= col1; col++) {
+                for (int row = Math.floorDiv(bounds.y, CELL_SIZE); row <= row1; row++) {
+                    Cell cell = grid.get(cellKey(col, row));
+                    if (cell != null) cell.remove(n);
+                }
+            }
+            hitBounds[n] = null;
+            indexed.clear(n);
+        }
+
+        void clearIndex() {
+            Arrays.fill(hitBounds, null);
+            indexed.clear();
+            pending.clear();
+            grid.clear();
+        }
+    }
+}
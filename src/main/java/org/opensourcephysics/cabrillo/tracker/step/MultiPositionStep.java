@@ -81,7 +81,7 @@ public class MultiPositionStep extends PositionStep {
      * @return the mark
      */
     protected Mark getMark(TrackerPanel trackerPanel) {
-        Mark mark = marks.get(trackerPanel);
+        Mark mark = getCachedMark(trackerPanel);
         if (mark == null) {
             Mark aMark = null;
             if (dataTrack.modelFootprintVisible) {
@@ -120,7 +120,7 @@ public class MultiPositionStep extends PositionStep {
                     return bounds;
                 }
             };
-            marks.put(trackerPanel, mark);
+            setCachedMark(trackerPanel, mark);
         }
         return mark;
     }
@@ -176,7 +176,7 @@ public class PositionStep extends Step {
      * @return the mark
      */
     protected Mark getMark(TrackerPanel trackerPanel) {
-        Mark mark = marks.get(trackerPanel);
+        Mark mark = getCachedMark(trackerPanel);
         TPoint selection;
         if (mark == null) {
             selection = trackerPanel.getSelectedPoint();
@@ -256,7 +256,7 @@ public class PositionStep extends Step {
                     return theMark.getBounds(highlighted);
                 }
             };
-            marks.put(trackerPanel, mark);
+            setCachedMark(trackerPanel, mark);
             // get new text layout
             String s = ""; //$NON-NLS-1$
             VideoClip clip = trackerPanel.getPlayer().getVideoClip();
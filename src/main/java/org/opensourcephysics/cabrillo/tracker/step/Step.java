@@ -76,8 +76,7 @@ public abstract class Step implements Cloneable {
     public TPoint[] points;               // defines image data
     public Point[] screenPoints;          // for transform conversions
     public boolean valid;                                 // invalid until drawn except for point mass
-    public Map<TrackerPanel, Mark> marks  // tracker panel to Mark
-            = new HashMap<>();
+    protected MarkStore markStore;        // caches marks, normally shared by a StepArray
     public int defaultIndex = 0;                 // array index of default TPoint
     public boolean dataVisible = true;         // true if visible in plots, tables
 
@@ -162,6 +161,51 @@ public abstract class Step implements Cloneable {
         defaultIndex = Math.max(0, index);
     }
 
+    /**
+     * Gets the mark store that caches the marks of this step.
+     *
+     * @return the mark store
+     */
+    public MarkStore getMarkStore() {
+        if (markStore == null) {
+            markStore = new MarkStore();
+        }
+        return markStore;
+    }
+
+    /**
+     * Sets the mark store that caches the marks of this step.
+     *
+     * @param store the mark store
+     */
+    public void setMarkStore(MarkStore store) {
+        if (store == markStore) return;
+        if (markStore != null) {
+            markStore.remove(this);
+        }
+        markStore = store;
+    }
+
+    /**
+     * Gets the cached mark for the specified panel.
+     *
+     * @param trackerPanel the tracker panel
+     * @return the mark, or null if the step must be remarked
+     */
+    public Mark getCachedMark(TrackerPanel trackerPanel) {
+        return getMarkStore().get(trackerPanel, this);
+    }
+
+    /**
+     * Sets the cached mark for the specified panel.
+     *
+     * @param trackerPanel the tracker panel
+     * @param mark         the mark (null to trigger a new mark)
+     */
+    public void setCachedMark(TrackerPanel trackerPanel, Mark mark) {
+        getMarkStore().put(trackerPanel, this, mark);
+    }
+
     /**
      * Erases this on the specified tracker panel. Erasing
      * adds the current bounds to the dirty region and nulls the
@@ -170,21 +214,24 @@ public abstract class Step implements Cloneable {
      * @param trackerPanel the tracker panel
      */
     public void erase(TrackerPanel trackerPanel) {
-        if (marks.get(trackerPanel) == null) return;  // already dirty
+        if (getCachedMark(trackerPanel) == null) return;  // already dirty
         trackerPanel.addDirtyRegion(getBounds(trackerPanel)); // old bounds
-        marks.put(trackerPanel, null); // triggers new mark
+        setCachedMark(trackerPanel, null); // triggers new mark
     }
 
     /**
      * Erases and remarks this on the specified tracker panel. Remarking
      * creates a new mark for the step and adds both the
-     * old and new bounds to the tracker panel's dirty region.
+     * old and new bounds to the tracker panel's dirty region. Steps outside
+     * the panel's visible window are only erased and are marked when drawn.
      *
      * @param trackerPanel the tracker panel
      */
     public void remark(TrackerPanel trackerPanel) {
         erase(trackerPanel);
-        trackerPanel.addDirtyRegion(getBounds(trackerPanel)); // new bounds
+        if (getMarkStore().isVisible(trackerPanel, n)) {
+            trackerPanel.addDirtyRegion(getBounds(trackerPanel)); // new bounds
+        }
     }
 
     /**
@@ -202,28 +249,39 @@ public abstract class Step implements Cloneable {
      * Erases this on all tracker panels.
      */
     public void erase() {
-        for (TrackerPanel trackerPanel : marks.keySet()) erase(trackerPanel);
+        MarkStore store = getMarkStore();
+        for (TrackerPanel trackerPanel : store.getPanels()) {
+            if (store.contains(trackerPanel, this)) erase(trackerPanel);
+        }
     }
 
     /**
      * Remarks this on all tracker panels.
      */
     public void remark() {
-        for (TrackerPanel trackerPanel : marks.keySet()) remark(trackerPanel);
+        MarkStore store = getMarkStore();
+        for (TrackerPanel trackerPanel : store.getPanels()) {
+            if (store.contains(trackerPanel, this)) remark(trackerPanel);
+        }
     }
 
     /**
      * Repaints this on all tracker panels.
      */
     public void repaint() {
-        for (TrackerPanel trackerPanel : marks.keySet()) repaint(trackerPanel);
+        MarkStore store = getMarkStore();
+        for (TrackerPanel trackerPanel : store.getPanels()) {
+            if (store.contains(trackerPanel, this)) repaint(trackerPanel);
+        }
     }
 
     /**
      * Disposes of this step.
      */
     public void dispose() {
-        marks.clear();
+        if (markStore != null) {
+            markStore.remove(this);
+        }
     }
 
     /**
@@ -291,7 +349,7 @@ public abstract class Step implements Cloneable {
      * @return the mark
      */
     protected Mark getMark(TrackerPanel trackerPanel) {
-        Mark mark = marks.get(trackerPanel);
+        Mark mark = getCachedMark(trackerPanel);
         TPoint selection;
         if (mark == null) {
             selection = trackerPanel.getSelectedPoint();
@@ -343,7 +401,7 @@ public abstract class Step implements Cloneable {
                     return theMark.getBounds(highlighted);
                 }
             };
-            marks.put(trackerPanel, mark);
+            setCachedMark(trackerPanel, mark);
         }
         return mark;
     }
@@ -367,7 +425,7 @@ public abstract class Step implements Cloneable {
             Step step = (Step) super.clone();
             step.points = new TPoint[points.length];
             step.screenPoints = new Point[points.length];
-            step.marks = new HashMap<>();
+            // the clone shares the mark store but not the marks
             return step;
         } catch (CloneNotSupportedException ex) {
             ex.printStackTrace();
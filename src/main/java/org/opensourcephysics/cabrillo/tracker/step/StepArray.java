@@ -1,12 +1,32 @@
 package org.opensourcephysics.cabrillo.tracker.step;
 
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
 
+
+/**
+ * A StepArray holds the steps of a track indexed by frame number. The length
+ * grows geometrically as steps are added so appending is O(1) amortized, and
+ * a BitSet records which frames hold non-null steps.
+ * <p>
+ * A lazy autofill array marks every frame but clones a step for a frame only
+ * when that frame is first requested, so tools whose steps are all copies of
+ * a few key frame steps hold only the steps that have been drawn or queried.
+ */
 public class StepArray {
 
     // instance fields
-    public int length = 5;
-    public Step[] array = new Step[length];
+    private int length = 5;
+    private volatile Step[] array = new Step[length];
+    private final BitSet marked = new BitSet(); // frames with non-null steps
+    private final Object lock = new Object();
+    private final MarkStore markStore = new MarkStore(); // marks of all steps
     private boolean autofill = false;
+    private boolean lazy = false;
+    private final TreeMap<Integer, Step> templates = new TreeMap<>(); // lazy fill steps by start frame
     protected int delta = 5;
 
     /**
@@ -22,10 +42,23 @@ public class StepArray {
      * @param step the step to fill the array with
      */
     public StepArray(Step step) {
+        this(step, false);
+    }
+
+    /**
+     * Constructs an autofill StepArray that either fills the array with clones
+     * of the specified step or, if lazy, clones steps only when requested.
+     *
+     * @param step the step to fill the array with
+     * @param lazy true to clone steps on demand
+     */
+    public StepArray(Step step, boolean lazy) {
         autofill = true;
+        this.lazy = lazy;
         step.n = 0;
+        step.setMarkStore(markStore);
         array[0] = step;
-        fill(step);
+        fill(array, step, 0, length);
     }
 
     /**
@@ -38,10 +71,12 @@ public class StepArray {
     public StepArray(Step step, int increment) {
         autofill = true;
         step.n = 0;
-        array[0] = step;
+        step.setMarkStore(markStore);
         length = increment;
         delta = increment;
-        fill(step);
+        array = new Step[length];
+        array[0] = step;
+        fill(array, step, 0, length);
     }
 
     /**
@@ -51,11 +86,32 @@ public class StepArray {
      * @return the step
      */
     public Step getStep(int n) {
-        if (n >= length) {
-            int len = Math.max(n + delta, n - length + 1);
-            setLength(len);
+        Step[] steps = array;
+        if (n < steps.length && (steps[n] != null || !lazy)) return steps[n];
+        synchronized (lock) {
+            if (n >= length) grow(n);
+            if (lazy && array[n] == null) materialize(n);
+            return array[n];
         }
-        return array[n];
+    }
+
+    /**
+     * Gets the steps as an array whose length is the length of this StepArray.
+     * The returned array is the backing array itself, so it must not be modified.
+     *
+     * @return the steps
+     */
+    public Step[] getSteps() {
+        return array;
+    }
+
+    /**
+     * Gets the length of this StepArray.
+     *
+     * @return the length
+     */
+    public int getLength() {
+        return length;
     }
 
     /**
@@ -67,12 +123,11 @@ public class StepArray {
      */
     public void setStep(int n, Step step) {
         if (autofill && step == null) return;
-        if (n >= length) {
-            int len = Math.max(n + delta, n - length + 1);
-            setLength(len);
-        }
-        synchronized (array) {
+        synchronized (lock) {
+            if (n >= length) grow(n);
             array[n] = step;
+            marked.set(n, step != null);
+            if (step != null) step.setMarkStore(markStore);
         }
     }
 
@@ -83,8 +138,14 @@ public class StepArray {
      * @return <code>true</code> if this contains the step
      */
     public boolean contains(Step step) {
-        synchronized (array) {
-            for (Step value : array) if (value == step) return true;
+        if (step == null) return false;
+        synchronized (lock) {
+            Step[] steps = array;
+            // steps are normally stored at their own frame number
+            if (step.n >= 0 && step.n < length && steps[step.n] == step) return true;
+            for (int i = marked.nextSetBit(0); i > -1 && i < length; i = marked.nextSetBit(i + 1)) {
+                if (steps[i] == step) return true;
+            }
         }
         return false;
     }
@@ -95,15 +156,8 @@ public class StepArray {
      * @param len the new length of the array
      */
     public void setLength(int len) {
-        synchronized (array) {
-            Step[] newArray = new Step[len];
-            System.arraycopy(array, 0, newArray, 0, Math.min(len, length));
-            array = newArray;
-            if (len > length && autofill) {
-                Step step = array[length - 1];
-                length = len;
-                fill(step);
-            } else length = len;
+        synchronized (lock) {
+            resize(len);
         }
     }
 
@@ -113,10 +167,9 @@ public class StepArray {
      * @return true if empty
      */
     public boolean isEmpty() {
-        synchronized (array) {
-            for (Step step : array) if (step != null) return false;
+        synchronized (lock) {
+            return marked.isEmpty();
         }
-        return true;
     }
 
     /**
@@ -126,34 +179,193 @@ public class StepArray {
      * @return true if the step is preceded
      */
     public boolean isPreceded(int n) {
-        synchronized (array) {
-            int k = Math.min(n, array.length);
-            for (int i = 0; i < k; i++)
-                if (array[i] != null) return true;
+        synchronized (lock) {
+            int first = marked.nextSetBit(0);
+            return first > -1 && first < n;
+        }
+    }
+
+    /**
+     * Gets the index of the first non-null step at or after the specified index.
+     * Loops over many steps should iterate over a snapshot from getStepFrames
+     * instead, since this takes the lock on every call.
+     *
+     * @param fromIndex the index to start from
+     * @return the index of the next non-null step, or -1 if none
+     */
+    public int nextStepIndex(int fromIndex) {
+        synchronized (lock) {
+            int i = marked.nextSetBit(fromIndex);
+            return i < length ? i : -1;
+        }
+    }
+
+    /**
+     * Gets the index of the last non-null step at or before the specified index.
+     *
+     * @param fromIndex the index to start from
+     * @return the index of the previous non-null step, or -1 if none
+     */
+    public int prevStepIndex(int fromIndex) {
+        synchronized (lock) {
+            return fromIndex < 0 ? -1 : marked.previousSetBit(Math.min(fromIndex, length - 1));
+        }
+    }
+
+    /**
+     * Gets the frames in a range that hold non-null steps.
+     *
+     * @param first the first frame
+     * @param last  the last frame
+     * @return the frames
+     */
+    public BitSet getStepFrames(int first, int last) {
+        synchronized (lock) {
+            BitSet frames = (BitSet) marked.clone();
+            if (first > 0) frames.clear(0, first);
+            if (last < Integer.MAX_VALUE - 1) frames.clear(last + 1, Math.max(last + 1, frames.length()));
+            return frames;
+        }
+    }
+
+    /**
+     * Gets the number of non-null steps.
+     *
+     * @return the step count
+     */
+    public int getStepCount() {
+        synchronized (lock) {
+            return marked.cardinality();
         }
-        return false;
     }
 
     public boolean isAutofill() {
         return autofill;
     }
 
+    /**
+     * Determines if this autofill array clones its steps on demand.
+     *
+     * @return true if lazy
+     */
+    public boolean isLazy() {
+        return lazy;
+    }
+
+    /**
+     * Gets the steps a lazy array clones into frames that have not yet been
+     * requested. Changes made to these apply to all such frames.
+     *
+     * @return the template steps (empty if not lazy)
+     */
+    public Collection<Step> getTemplates() {
+        synchronized (lock) {
+            return new ArrayList<>(templates.values());
+        }
+    }
+
+    /**
+     * Gets the mark store shared by the steps in this array.
+     *
+     * @return the mark store
+     */
+    public MarkStore getMarkStore() {
+        return markStore;
+    }
+
     //__________________________ private methods _________________________
 
     /**
-     * Replaces null elements of the the array with clones of the
+     * Grows the array so it includes the specified index. The length grows
+     * geometrically, and by at least the delta, so the array is copied only
+     * O(log n) times as steps are appended one frame at a time.
+     * Must be called while holding the lock.
+     *
+     * @param n the index to include
+     */
+    private void grow(int n) {
+        resize(Math.max(n + delta, length + (length >> 1)));
+    }
+
+    /**
+     * Sets the length of the array. New frames of an autofill array are filled
+     * before the resized array is published to lock-free readers.
+     * Must be called while holding the lock.
+     *
+     * @param len the new length
+     */
+    private void resize(int len) {
+        Step[] newArray = array;
+        if (len != length) {
+            newArray = new Step[len];
+            System.arraycopy(array, 0, newArray, 0, Math.min(len, length));
+        }
+        if (len < length) {
+            marked.clear(len, length);
+            templates.tailMap(len).clear();
+        } else if (len > length && autofill) {
+            Step step = length > 0 ? newArray[length - 1] : null;
+            if (step == null && lazy) step = getTemplate(length - 1);
+            if (step != null || lazy) fill(newArray, step, length, len);
+        }
+        // publish the filled array
+        length = len;
+        array = newArray;
+    }
+
+    /**
+     * Replaces null elements of a range of an array with clones of the
      * specified step.
      *
-     * @param step the step to clone
+     * @param target the array to fill
+     * @param step   the step to clone
+     * @param start  the first index to fill
+     * @param end    the index after the last to fill
      */
-    private void fill(Step step) {
-        for (int n = 0; n < length; n++)
-            if (array[n] == null) {
+    private void fill(Step[] target, Step step, int start, int end) {
+        if (lazy) {
+            // save a copy of the step and clone it on demand
+            if (step != null) templates.put(start, (Step) step.clone());
+            marked.set(0, end);
+            return;
+        }
+        for (int n = start; n < end; n++) {
+            if (target[n] == null) {
                 Step clone = (Step) step.clone();
                 clone.n = n;
-                array[n] = clone;
+                clone.setMarkStore(markStore);
+                target[n] = clone;
             }
+        }
+        marked.set(0, end);
     }
-} // end StepArray class
 
+    /**
+     * Gets the step a lazy array clones into an empty frame. This is a copy
+     * of the step the frame would have been filled with when not lazy.
+     * Must be called while holding the lock.
+     *
+     * @param n the frame number
+     * @return the template step, or null if none
+     */
+    private Step getTemplate(int n) {
+        Map.Entry<Integer, Step> entry = templates.floorEntry(n);
+        return entry == null ? null : entry.getValue();
+    }
 
+    /**
+     * Clones the template step into an empty lazy frame. The owning track
+     * refreshes the clone from its key frame step when the step is requested.
+     * Must be called while holding the lock.
+     *
+     * @param n the frame number
+     */
+    private void materialize(int n) {
+        Step step = getTemplate(n);
+        if (step == null) return;
+        Step clone = (Step) step.clone();
+        clone.n = n;
+        clone.setMarkStore(markStore);
+        array[n] = clone;
+    }
+} // end StepArray class
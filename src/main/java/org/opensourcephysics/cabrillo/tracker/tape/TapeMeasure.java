@@ -321,7 +321,7 @@ public class TapeMeasure extends TTrack {
             int n = trackerPanel.getFrameNumber();
             trackerPanel.changed = true;
             TapeStep keyStep = (TapeStep) getStep(n);
-            for (int i = 0; i < steps.length; i++) {
+            for (int i = 0; i < steps.getLength(); i++) {
                 TapeStep step = (TapeStep) steps.getStep(i);
                 if (step == null || keyStep == null) continue;
                 step.getEnd1().setLocation(keyStep.getEnd1());
@@ -364,7 +364,7 @@ public class TapeMeasure extends TTrack {
             int n = trackerPanel.getFrameNumber();
             trackerPanel.changed = true;
             TapeStep keyStep = (TapeStep) getStep(n);
-            for (int i = 0; i < steps.length; i++) {
+            for (int i = 0; i < steps.getLength(); i++) {
                 TapeStep step = (TapeStep) steps.getStep(i);
                 if (step == null || keyStep == null) continue;
                 step.worldLength = keyStep.worldLength;
@@ -552,7 +552,7 @@ public class TapeMeasure extends TTrack {
             step = new TapeStep(this, n, x, y, x, y);
             step.worldLength = step.getTapeLength(true);
             step.setFootprint(getFootprint());
-            steps = new StepArray(step); // autofill
+            steps = new StepArray(step, true); // autofill
             step = (TapeStep) getStep(n); // must do this since line above changes n to 0
         } else if (step.worldLength == 0) {
             initialCalibration = true;
@@ -604,7 +604,7 @@ public class TapeMeasure extends TTrack {
             step = new TapeStep(this, n, x1, y1, x2, y2);
             step.worldLength = step.getTapeLength(true);
             step.setFootprint(getFootprint());
-            steps = new StepArray(step); // autofill
+            steps = new StepArray(step, true); // autofill
         } else {
             step.getEnd1().setLocation(x1, y1);
             step.getEnd2().setLocation(x2, y2);
@@ -1107,15 +1107,8 @@ public class TapeMeasure extends TTrack {
      */
     protected void refreshStep(TapeStep step) {
         if (step == null) return;
-        int positionKey = 0, lengthKey = 0;
-        for (int i : keyFrames) {
-            if (i <= step.n)
-                positionKey = i;
-        }
-        for (int i : lengthKeyFrames) {
-            if (i <= step.n)
-                lengthKey = i;
-        }
+        int positionKey = getKeyFrame(step.n);
+        int lengthKey = getKeyFrame(lengthKeyFrames, step.n);
         // compare step with keyStep
         boolean different;
         boolean changed = false;
@@ -1245,13 +1238,7 @@ public class TapeMeasure extends TTrack {
      * @return the key step
      */
     private TapeStep getKeyStep(TapeStep step) {
-        int key = 0;
-        if (!this.isFixedPosition()) {
-            for (int i : keyFrames) {
-                if (i <= step.n)
-                    key = i;
-            }
-        }
+        int key = isFixedPosition() ? 0 : getKeyFrame(step.n);
         return (TapeStep) getStep(key);
     }
 
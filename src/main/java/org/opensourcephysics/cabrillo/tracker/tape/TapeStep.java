@@ -246,7 +246,7 @@ public class TapeStep extends Step {
      * @return the mark
      */
     protected Mark getMark(TrackerPanel trackerPanel) {
-        Mark mark = marks.get(trackerPanel);
+        Mark mark = getCachedMark(trackerPanel);
         TPoint selection;
         if (mark == null) {
             // adjust tips if stick mode
@@ -289,7 +289,7 @@ public class TapeStep extends Step {
                     }
                 };
             }
-            marks.put(trackerPanel, mark);
+            setCachedMark(trackerPanel, mark);
 
             // get new hit shapes
             Shape[] shapes = footprint.getHitShapes();
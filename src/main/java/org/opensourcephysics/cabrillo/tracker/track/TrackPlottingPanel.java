@@ -60,6 +60,7 @@ import java.beans.PropertyChangeListener;
 import java.lang.reflect.Constructor;
 import java.rmi.RemoteException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.TreeSet;
@@ -81,6 +82,7 @@ public class TrackPlottingPanel extends PlottingPanel implements Tool {
     public HighlightableDataset dataset = new HighlightableDataset();
     public ArrayList<TTrack> guests = new ArrayList<>();
     protected HashMap<TTrack, HighlightableDataset> guestDatasets = new HashMap<>();
+    protected HashMap<HighlightableDataset, DatasetSource> datasetSources = new HashMap<>();
     protected JRadioButtonMenuItem[] xChoices, yChoices;
     protected ButtonGroup xGroup, yGroup;
     protected int xIndex = -1, yIndex = 0;
@@ -997,7 +999,7 @@ public class TrackPlottingPanel extends PlottingPanel implements Tool {
         // refresh the coordStringBuilder
         coordStringBuilder.setUnitsAndPatterns(track, xTitle, yTitle);
         // refresh the main dataset
-        refreshDataset(dataset, data, xIsAngle, yIsAngle, degrees);
+        refreshDataset(dataset, data, track, xIsAngle, yIsAngle, degrees);
         // add dataset to this plot panel
         addDrawable(dataset);
 
@@ -1011,9 +1013,11 @@ public class TrackPlottingPanel extends PlottingPanel implements Tool {
             HighlightableDataset nextDataset = guestDatasets.get(next);
             nextDataset.setMarkerColor(next.getColor());
             nextDataset.setHighlightColor(next.getColor());
-            refreshDataset(nextDataset, nextData, xIsAngle, yIsAngle, degrees);
+            refreshDataset(nextDataset, nextData, next, xIsAngle, yIsAngle, degrees);
             addDrawable(nextDataset);
         }
+        // forget the sources of datasets no longer plotted
+        datasetSources.keySet().removeIf(hds -> hds != dataset && !guestDatasets.containsValue(hds));
 
         // refresh highlighted indices
         dataset.clearHighlights();
@@ -1031,15 +1035,18 @@ public class TrackPlottingPanel extends PlottingPanel implements Tool {
     }
 
     /**
-     * Refreshes the data in a dataset based on current x and y index.
+     * Refreshes the data in a dataset based on current x and y index. The
+     * dataset is not rebuilt if the source data and axes are unchanged since
+     * the last refresh.
      *
      * @param hds      the dataset to refresh
      * @param manager  the DatasetManager with the data columns
+     * @param track    the track that owns the data, may be null
      * @param xIsAngle true if the x index is an angle
      * @param yIsAngle true if the y index is an angle
      * @param degrees  true if angle units are degrees
      */
-    protected void refreshDataset(HighlightableDataset hds, DatasetManager manager,
+    protected void refreshDataset(HighlightableDataset hds, DatasetManager manager, TTrack track,
                                   boolean xIsAngle, boolean yIsAngle, boolean degrees) {
         // get the dataset for the current x and y indices
         // assign quasi-unique ID to dataset based on data and indices
@@ -1049,8 +1056,6 @@ public class TrackPlottingPanel extends PlottingPanel implements Tool {
         hds.setConnected(dataset.isConnected());
         hds.setMarkerShape(dataset.getMarkerShape());
 
-        // clear and refill dataset with x- and y-axis variables
-        hds.clear();
         Dataset xData;
         // xIndex == -1 indicates x column variable (same for all datasets)
         // xIndex >= 0 indicates y column variable of specified dataset
@@ -1059,36 +1064,54 @@ public class TrackPlottingPanel extends PlottingPanel implements Tool {
         Dataset yData = manager.getDataset(yIndex);
         xData.setYColumnVisible(true);
         yData.setYColumnVisible(true);
+
+        // skip the rebuild if nothing has changed
+        boolean xToDegrees = xIsAngle && degrees;
+        boolean yToDegrees = yIsAngle && degrees;
+        int revision = track == null ? -1 : track.getDataRevision();
+        DatasetSource source = datasetSources.get(hds);
+        if (track != null && source != null
+                && source.matches(xData, yData, revision, xIndex, xToDegrees, yToDegrees)) {
+            return;
+        }
+        if (source == null) {
+            source = new DatasetSource();
+            datasetSources.put(hds, source);
+        }
+        source.set(xData, yData, revision, xIndex, xToDegrees, yToDegrees);
+
+        // read the columns as primitive arrays (these are copies)
+        double[] yPoints = yData.getYPoints();
+        double[] xPoints = xIndex == -1 ? xData.getXPoints() : xData.getYPoints();
+        int n = yPoints.length;
         // use x mean value for filler points (y = Double.NaN)
-        double xMean = getMean(xData.getXPoints());
-        if (xIndex > -1)
-            xMean = getMean(xData.getYPoints());
-        // append data to dataset
-        Double x, y;
-        int n = yData.getRowCount();
+        double xMean = getMean(xPoints);
+        if (xPoints.length != n) {
+            int len = xPoints.length;
+            xPoints = Arrays.copyOf(xPoints, n);
+            if (len < n) Arrays.fill(xPoints, len, n, Double.NaN);
+        }
+        // convert angles
+        if (xToDegrees) {
+            for (int i = 0; i < n; i++) {
+                xPoints[i] *= 180 / Math.PI;
+            }
+        }
+        if (yToDegrees) {
+            for (int i = 0; i < n; i++) {
+                yPoints[i] *= 180 / Math.PI;
+            }
+        }
+        // replace missing x values with filler points
         for (int i = 0; i < n; i++) {
-            y = (Double) yData.getValueAt(i, 1);
-            if (xIndex == -1)
-                x = (Double) xData.getValueAt(i, 0);
-            else
-                x = (Double) xData.getValueAt(i, 1);
-            if (x != null && y != null) {
-                if (xIsAngle && degrees) {
-                    x *= 180 / Math.PI;
-                }
-                if (yIsAngle && degrees) {
-                    y *= 180 / Math.PI;
-                }
-                hds.append(x, y);
-            } else if (x != null) {
-                if (xIsAngle && degrees) {
-                    x *= 180 / Math.PI;
-                }
-                hds.append(x, Double.NaN);
-            } else {
-                hds.append(xMean, Double.NaN);
+            if (Double.isNaN(xPoints[i])) {
+                xPoints[i] = xMean;
+                yPoints[i] = Double.NaN;
             }
         }
+        // clear and refill dataset with x- and y-axis variables
+        hds.clear();
+        hds.append(xPoints, yPoints);
     }
 
     /**
@@ -1411,6 +1434,33 @@ public class TrackPlottingPanel extends PlottingPanel implements Tool {
         dataset.append(newXArray, newYArray);
     }
 
+    /**
+     * The source data and axis choices of a plotted dataset when it was last refreshed.
+     */
+    static class DatasetSource {
+
+        Dataset xData, yData;
+        int revision, xIndex;
+        boolean xToDegrees, yToDegrees;
+
+        void set(Dataset xData, Dataset yData, int revision, int xIndex,
+                 boolean xToDegrees, boolean yToDegrees) {
+            this.xData = xData;
+            this.yData = yData;
+            this.revision = revision;
+            this.xIndex = xIndex;
+            this.xToDegrees = xToDegrees;
+            this.yToDegrees = yToDegrees;
+        }
+
+        boolean matches(Dataset xData, Dataset yData, int revision, int xIndex,
+                        boolean xToDegrees, boolean yToDegrees) {
+            return this.xData == xData && this.yData == yData
+                    && this.revision == revision && this.xIndex == xIndex
+                    && this.xToDegrees == xToDegrees && this.yToDegrees == yToDegrees;
+        }
+    }
+
     /**
      * An interactive axes class that returns popup menus for x and y-variables.
      */
@@ -188,6 +188,8 @@ public class Tracker {
     public static String[] preferredAutoloadSearchPaths;
     public static boolean markAtCurrentFrame = true;
     public static boolean scrubMouseWheel, centerCalibrationStick, enableAutofill, showGaps, hideLabels;
+    // saves long point mass tracks with packed frame data that older versions of Tracker cannot read
+    public static boolean packFrameData;
     public static int trailLengthIndex = TToolBar.trailLengths.length - 2;
 
     // the only instance field!
@@ -1818,6 +1820,8 @@ public class Tracker {
                     control.setValue("enable_autofill", Tracker.enableAutofill);
                 if (Tracker.showGaps) // false by default
                     control.setValue("show_gaps", Tracker.showGaps);
+                if (Tracker.packFrameData) // false by default
+                    control.setValue("pack_framedata", Tracker.packFrameData);
                 if (Tracker.trailLengthIndex != TToolBar.trailLengths.length - 2)
                     control.setValue("trail_length", TToolBar.trailLengthNames[Tracker.trailLengthIndex]);
                 if (Tracker.centerCalibrationStick) // false by default
@@ -1937,6 +1941,7 @@ public class Tracker {
                 Tracker.scrubMouseWheel = control.getBoolean("scrub_mousewheel");
                 Tracker.enableAutofill = control.getBoolean("enable_autofill");
                 Tracker.showGaps = control.getBoolean("show_gaps");
+                Tracker.packFrameData = control.getBoolean("pack_framedata");
                 Tracker.centerCalibrationStick = control.getBoolean("center_stick");
                 Tracker.isVideoFast = control.getBoolean("ffmpeg_fast");
                 if (control.getPropertyNames().contains("trail_length")) {
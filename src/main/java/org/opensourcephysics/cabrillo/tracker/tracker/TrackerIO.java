@@ -622,6 +622,28 @@ public class TrackerIO extends VideoIO {
         return video;
     }
 
+    /**
+     * Opens an independent copy of a video from its source file, with copies
+     * of its filters. Frames of the copy can be read on any thread without
+     * stepping the original video or firing events to its listeners.
+     * The caller should dispose of the copy when done. May return null.
+     *
+     * @param video the video to copy
+     * @return the copy, or null if the video has no source file or cannot be opened
+     */
+    public static Video getVideoCopy(Video video) {
+        if (video == null) return null;
+        String path = (String) video.getProperty("absolutePath"); //$NON-NLS-1$
+        if (path == null) return null;
+        Video copy = getVideo(path, (VideoType) video.getProperty("video_type")); //$NON-NLS-1$
+        if (copy == null) return null;
+        for (Filter filter : video.getFilterStack().getFilters()) {
+            Filter next = (Filter) new XMLControlElement(filter).loadObject(null);
+            if (next != null) copy.getFilterStack().addFilter(next);
+        }
+        return copy;
+    }
+
     /**
      * Loads data or a video from a specified path into a TrackerPanel.
      *
@@ -146,6 +146,7 @@ public class TrackerPanel extends VideoPanel implements Scrollable {
     public Set<TTrack> visibleTools = new HashSet<>();
     public String author, contact;
     public AutoTracker autoTracker;
+    protected boolean autoTrackerMultiPoint; // loaded option applied when the autoTracker is created
     protected DerivativeAlgorithmDialog algorithmDialog;
     public AttachmentDialog attachmentDialog;
     protected PlotGuestDialog guestsDialog;
@@ -2205,7 +2206,15 @@ public class TrackerPanel extends VideoPanel implements Scrollable {
         if (name.equals("size")) super.propertyChange(e); //$NON-NLS-1$
         if (name.equals("step") || name.equals("steps")) { // from tracks/steps //$NON-NLS-1$ //$NON-NLS-2$
             TTrack track = (TTrack) e.getSource();
-            track.dataValid = false;
+            if (name.equals("step") && e.getNewValue() instanceof Integer) { //$NON-NLS-1$
+                track.invalidateData((Integer) e.getNewValue());
+            } else if (e.getNewValue() instanceof int[]) { // {first, last} changed frames
+                int[] range = (int[]) e.getNewValue();
+                track.invalidateData(range[0]);
+                track.invalidateData(range[1]);
+            } else {
+                track.dataValid = false;
+            }
             if (!track.isDependent()) {    // ignore dependent tracks
                 changed = true;
             }
@@ -2302,7 +2311,9 @@ public class TrackerPanel extends VideoPanel implements Scrollable {
             repaint();
         } else if (name.equals("transform")) {                // from coords //$NON-NLS-1$
             changed = true;
-            firePropertyChange("transform", null, null);      // to tracks/views //$NON-NLS-1$
+            // pass on the {start, end} frame range, if any, of a reference frame change
+            Object range = e.getNewValue() instanceof int[] ? e.getNewValue() : null;
+            firePropertyChange("transform", null, range);     // to tracks/views //$NON-NLS-1$
         } else if (name.equals("locked")) {                   // from coords //$NON-NLS-1$
             firePropertyChange("locked", null, null);         // to tracker frame //$NON-NLS-1$
         } else if (name.equals("playing")) {                  // from player //$NON-NLS-1$
@@ -2866,6 +2877,7 @@ public class TrackerPanel extends VideoPanel implements Scrollable {
     public AutoTracker getAutoTracker() {
         if (autoTracker == null) {
             autoTracker = new AutoTracker(this);
+            autoTracker.core.options.setMultiPoint(autoTrackerMultiPoint);
             autoTracker.getWizard().setFontLevel();
         }
         return autoTracker;
@@ -3255,9 +3267,20 @@ public class TrackerPanel extends VideoPanel implements Scrollable {
             control.setValue("length_unit", trackerPanel.lengthUnit); //$NON-NLS-1$
             control.setValue("mass_unit", trackerPanel.massUnit); //$NON-NLS-1$
             control.setValue("units_visible", trackerPanel.unitsVisible); //$NON-NLS-1$
+            // save autotracker search options
+            boolean multiPoint = trackerPanel.autoTracker == null ? trackerPanel.autoTrackerMultiPoint
+                    : trackerPanel.autoTracker.core.options.isMultiPoint();
+            if (multiPoint) {
+                control.setValue("autotracker_multipoint", true); //$NON-NLS-1$
+            }
 
             // save the tracks
-            control.setValue("tracks", trackerPanel.getTracksToSave()); //$NON-NLS-1$
+            PointMass.setPanelSaving(true);
+            try {
+                control.setValue("tracks", trackerPanel.getTracksToSave()); //$NON-NLS-1$
+            } finally {
+                PointMass.setPanelSaving(false);
+            }
             // save the selected track
             TTrack track = trackerPanel.getSelectedTrack();
             if (track != null) {
@@ -3456,6 +3479,11 @@ public class TrackerPanel extends VideoPanel implements Scrollable {
             if (control.getPropertyNames().contains("units_visible")) { //$NON-NLS-1$
                 trackerPanel.unitsVisible = control.getBoolean("units_visible"); //$NON-NLS-1$
             }
+            // load autotracker search options
+            trackerPanel.autoTrackerMultiPoint = control.getBoolean("autotracker_multipoint"); //$NON-NLS-1$
+            if (trackerPanel.autoTracker != null) {
+                trackerPanel.autoTracker.core.options.setMultiPoint(trackerPanel.autoTrackerMultiPoint);
+            }
 
             // load custom number formats
             String[][] patterns = (String[][]) control.getObject("number_formats"); //$NON-NLS-1$
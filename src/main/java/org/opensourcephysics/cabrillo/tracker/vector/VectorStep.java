@@ -399,7 +399,7 @@ public class VectorStep extends Step
      * @return the mark
      */
     protected Mark getMark(TrackerPanel trackerPanel) {
-        Mark mark = marks.get(trackerPanel);
+        Mark mark = getCachedMark(trackerPanel);
         TPoint selection;
         if (mark == null) {
             tip.setLocation(tip.getX(), tip.getY()); // sets visible tip position
@@ -509,7 +509,7 @@ public class VectorStep extends Step
                     return theMark.getBounds(highlighted);
                 }
             };
-            marks.put(trackerPanel, mark);
+            setCachedMark(trackerPanel, mark);
             if (valid) {
                 Shape[] shapes = footprint.getHitShapes();
                 tipShapes.put(trackerPanel, shapes[0]);
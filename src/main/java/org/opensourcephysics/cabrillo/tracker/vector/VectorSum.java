@@ -28,6 +28,7 @@ import org.opensourcephysics.cabrillo.tracker.component.TTrack;
 import org.opensourcephysics.cabrillo.tracker.footprint.ArrowFootprint;
 import org.opensourcephysics.cabrillo.tracker.footprint.Footprint;
 import org.opensourcephysics.cabrillo.tracker.line.LineFootprint;
+import org.opensourcephysics.cabrillo.tracker.step.FrameSums;
 import org.opensourcephysics.cabrillo.tracker.step.Step;
 import org.opensourcephysics.cabrillo.tracker.tracker.TrackerPanel;
 import org.opensourcephysics.cabrillo.tracker.tracker.TrackerRes;
@@ -58,6 +59,7 @@ public class VectorSum extends Vector {
     protected JMenuItem inspectorItem;
     protected Map<Integer, TPoint> tails = new HashMap<>();
     protected VectorSumInspector inspector;
+    protected FrameSums sums = new FrameSums(); // vector components by frame
 
     /**
      * Constructs an empty VectorSum.
@@ -279,7 +281,10 @@ public class VectorSum extends Vector {
         if (e.getSource() instanceof Vector) {
             if (name.equals("step")) { //$NON-NLS-1$
                 int n = (Integer) e.getNewValue();
-                update(n);
+                Vector vector = (Vector) e.getSource();
+                int i = indexOf(vector);
+                if (i > -1 && updateSums(i, n, vector.getSteps()))
+                    update(n);
             }
         } else super.propertyChange(e);
     }
@@ -299,16 +304,51 @@ public class VectorSum extends Vector {
     }
 
     /**
-     * Updates all steps.
+     * Rebuilds the component sums and updates all steps.
      */
     private void update() {
-        int length = getSteps().length;
+        sums.reset(vectors.length);
+        for (int i = 0; i < vectors.length; i++) {
+            Step[] vectorSteps = vectors[i].getSteps();
+            for (int n = 0; n < vectorSteps.length; n++)
+                updateSums(i, n, vectorSteps);
+        }
+        int length = Math.max(getSteps().length, sums.getLength());
         for (int n = 0; n < length; n++)
             update(n);
     }
 
     /**
-     * Updates the specified step.
+     * Applies the components of a vector in a frame to the component sums.
+     *
+     * @param i           the index of the vector
+     * @param n           the frame number
+     * @param vectorSteps the steps of the vector
+     * @return true if the sums changed
+     */
+    private boolean updateSums(int i, int n, Step[] vectorSteps) {
+        VectorStep step = n < vectorSteps.length ? (VectorStep) vectorSteps[n] : null;
+        if (step == null)
+            return sums.set(i, n, false, 0, 0);
+        return sums.set(i, n, true, step.getXComponent(), step.getYComponent());
+    }
+
+    /**
+     * Gets the index of a vector in the vectors array.
+     *
+     * @param vec the vector
+     * @return the index, or -1 if not found
+     */
+    private int indexOf(Vector vec) {
+        Vector[] vectors = this.vectors;
+        for (int i = 0; i < vectors.length; i++) {
+            if (vectors[i] == vec) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Updates the specified step from the component sums.
      *
      * @param n the frame number
      */
@@ -323,25 +363,20 @@ public class VectorSum extends Vector {
             locked = true;
             return;
         }
-        double x = 0, y = 0; // x and y components in imagespace
-        // add components in imagespace
-        for (Vector vector : vectors) {
-            VectorStep step = (VectorStep) vector.getStep(n);
-            if (step == null) {           // if any vector missing,
-                if (getStep(n) != null) {   // delete existing step if any
-                    locked = false;
-                    VectorStep deletedStep = (VectorStep) deleteStep(n);
-                    tails.put(n, deletedStep.getTail());
-                    deletedStep.attach(null);
-                    repaint(deletedStep);
-                    locked = true;
-                }
-                return;
+        if (!sums.isComplete(n)) {      // if any vector missing,
+            if (getStep(n) != null) {   // delete existing step if any
+                locked = false;
+                VectorStep deletedStep = (VectorStep) deleteStep(n);
+                tails.put(n, deletedStep.getTail());
+                deletedStep.attach(null);
+                repaint(deletedStep);
+                locked = true;
             }
-
-            x += step.getXComponent();
-            y += step.getYComponent();
+            return;
         }
+        // x and y components in imagespace
+        double x = sums.getX(n);
+        double y = sums.getY(n);
 
         // create step if none exists
         VectorStep step = (VectorStep) getStep(n);
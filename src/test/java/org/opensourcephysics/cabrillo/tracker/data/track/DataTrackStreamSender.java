@@ -0,0 +1,107 @@
+/*
+ * The tracker package defines a set of video/image analysis tools built on the
+ * Open Source Physics framework by Wolfgang Christian.
+ *
+ * Copyright (c) 2018  Douglas Brown
+ *
+ * Tracker is free software; you can redistribute it and/or modify it under the
+ * terms of the GNU General Public License as published by the Free Software
+ * Foundation; either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * Tracker is distributed in the hope that it will be useful, but WITHOUT ANY
+ * WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR
+ * A PARTICULAR PURPOSE. See the GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * Tracker; if not, write to the Free Software Foundation, Inc., 59 Temple
+ * Place, Suite 330, Boston MA 02111-1307 USA or view the license online at
+ * <http://www.gnu.org/copyleft/gpl.html>
+ *
+ * For additional Tracker information and documentation, please see
+ * <http://physlets.org/tracker/>.
+ */
+package org.opensourcephysics.cabrillo.tracker.data.track;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+
+/**
+ * A stand-in data source that streams samples of uniform circular motion to a
+ * DataTrackStream. It sends to a loopback socket when given a port, or to its
+ * standard output so it can be read as a pipe. It is kept with the test
+ * sources for trying out streams by hand and is not part of the Tracker jar.
+ * <p>
+ * Usage: DataTrackStreamSender [port|-] [name] [samples per second] [seconds] [samples per frame]
+ */
+public class DataTrackStreamSender {
+
+    /**
+     * Sends samples until the requested duration has elapsed.
+     *
+     * @param args the command line arguments
+     * @throws Exception if sending fails
+     */
+    public static void main(String[] args) throws Exception {
+        String target = args.length > 0 ? args[0] : "-"; //$NON-NLS-1$
+        String name = args.length > 1 ? args[1] : "Data"; //$NON-NLS-1$
+        double rate = args.length > 2 ? Double.parseDouble(args[2]) : 100;
+        double duration = args.length > 3 ? Double.parseDouble(args[3]) : 10;
+        int perFrame = args.length > 4 ? Integer.parseInt(args[4]) : 5;
+        Socket socket = null;
+        OutputStream out;
+        if ("-".equals(target)) { //$NON-NLS-1$
+            out = System.out;
+        } else {
+            socket = new Socket(InetAddress.getLoopbackAddress(), Integer.parseInt(target));
+            out = socket.getOutputStream();
+        }
+        try {
+            send(new DataOutputStream(new BufferedOutputStream(out)), name, rate, duration, perFrame);
+        } finally {
+            if (socket != null) socket.close();
+        }
+    }
+
+    /**
+     * Sends samples of circular motion in real time.
+     *
+     * @param out      the output stream
+     * @param name     the data name
+     * @param rate     the samples per second
+     * @param duration the duration in seconds
+     * @param perFrame the samples per frame
+     * @throws IOException if sending fails
+     */
+    public static void send(DataOutputStream out, String name, double rate, double duration, int perFrame)
+            throws IOException {
+        int total = (int) (rate * duration);
+        double dt = 1 / rate;
+        double[] t = new double[perFrame];
+        double[][] x = new double[1][perFrame], y = new double[1][perFrame];
+        long start = System.nanoTime();
+        for (int sent = 0; sent < total; ) {
+            int count = Math.min(perFrame, total - sent);
+            for (int i = 0; i < count; i++) {
+                t[i] = (sent + i) * dt;
+                x[0][i] = 100 * Math.cos(t[i]);
+                y[0][i] = 100 * Math.sin(t[i]);
+            }
+            DataTrackStream.writeFrame(out, name, 0, t, x, y, count);
+            out.flush();
+            sent += count;
+            long wait = start + (long) (sent * dt * 1.0E9) - System.nanoTime();
+            if (wait > 0) {
+                try {
+                    Thread.sleep(wait / 1000000, (int) (wait % 1000000));
+                } catch (InterruptedException ex) {
+                    return;
+                }
+            }
+        }
+    }
+}